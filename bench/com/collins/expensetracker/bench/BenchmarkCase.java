@@ -0,0 +1,56 @@
+package com.collins.expensetracker.bench;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One benchmark: an operation measured in a loop, with optional state set up before the
+ * first iteration and torn down after the last.
+ */
+public abstract class BenchmarkCase {
+
+    private final String name;                              // Stable id, used to match results across runs.
+    private final Map<String, String> params;               // Parameter values, part of the result key.
+
+    protected BenchmarkCase(String name, Map<String, String> params) {
+        this.name = name;
+        this.params = Collections.unmodifiableMap(new LinkedHashMap<>(params));
+    }
+
+    protected BenchmarkCase(String name) {
+        this(name, Collections.emptyMap());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    /**
+     * @return the name followed by its parameters, e.g. {@code mapping.findByUserId[rows=10000]}
+     */
+    public String getKey() {
+        return BenchmarkResult.key(name, params);
+    }
+
+    /**
+     * Prepares state; not measured.
+     */
+    public void setup() throws Exception {
+    }
+
+    /**
+     * The measured operation. Pass every result to the blackhole.
+     */
+    public abstract void run(Blackhole blackhole) throws Exception;
+
+    /**
+     * Releases state; not measured.
+     */
+    public void teardown() throws Exception {
+    }
+}
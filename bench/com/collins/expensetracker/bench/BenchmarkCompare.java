@@ -0,0 +1,81 @@
+package com.collins.expensetracker.bench;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares two benchmark reports, typically the base commit and a change.
+ * <p>
+ * Usage: {@code BenchmarkCompare <baseline.json> <current.json> [thresholdPercent]}
+ * <p>
+ * Prints one line per benchmark found in both reports. Exits with status 1
+ * when any benchmark regresses: throughput falls, or allocation per
+ * operation rises, by more than the threshold (default 10%). Throughput
+ * changes inside the two runs' combined standard deviation count as noise.
+ */
+public final class BenchmarkCompare {
+
+    private static final double MIN_ALLOC_DELTA_BYTES = 64;    // Smaller allocation changes are ignored.
+
+    private BenchmarkCompare() {}
+
+    public static void main(String[] args) throws IOException {
+        if(args.length < 2){
+            System.out.println("Usage: BenchmarkCompare <baseline.json> <current.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        BenchmarkReport baseline = BenchmarkReport.read(Paths.get(args[0]));
+        BenchmarkReport current = BenchmarkReport.read(Paths.get(args[1]));
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.10;
+
+        System.out.println("Baseline: " + baseline.getMetadata().getOrDefault("commit", "unknown")
+                + "  Current: " + current.getMetadata().getOrDefault("commit", "unknown"));
+        Map<String, BenchmarkResult> before = new LinkedHashMap<>();
+        for (BenchmarkResult result : baseline.getResults()) {
+            before.put(result.getKey(), result);
+        }
+
+        int regressions = 0;
+        for (BenchmarkResult after : current.getResults()) {
+            BenchmarkResult base = before.remove(after.getKey());
+            if(base == null){
+                System.out.println(String.format("%-60s new", after.getKey()));
+                continue;
+            }
+            double throughputChange = change(base.getThroughputOpsPerSec(), after.getThroughputOpsPerSec());
+            double noise = base.getThroughputStdev() + after.getThroughputStdev();
+            boolean slower = throughputChange < -threshold
+                    && base.getThroughputOpsPerSec() - after.getThroughputOpsPerSec() > noise;
+
+            double allocChange = change(base.getAllocBytesPerOp(), after.getAllocBytesPerOp());
+            boolean allocates = base.getAllocBytesPerOp() >= 0 && after.getAllocBytesPerOp() >= 0
+                    && allocChange > threshold
+                    && after.getAllocBytesPerOp() - base.getAllocBytesPerOp() > MIN_ALLOC_DELTA_BYTES;
+
+            String verdict = slower || allocates ? "REGRESSION" : throughputChange > threshold ? "faster" : "";
+            if(slower || allocates){
+                regressions++;
+            }
+            System.out.println(String.format(Locale.ROOT, "%-60s thrpt %+7.1f%%  alloc/op %+7.1f%%  %s",
+                    after.getKey(), throughputChange * 100, allocChange * 100, verdict));
+        }
+        for (String missing : before.keySet()) {
+            System.out.println(String.format("%-60s missing from current run", missing));
+        }
+
+        System.out.println(regressions == 0 ? "No regressions." : regressions + " regression(s).");
+        if(regressions > 0){
+            System.exit(1);
+        }
+    }
+
+    private static double change(double before, double after) {
+        if(before <= 0){
+            return 0;
+        }
+        return (after - before) / before;
+    }
+}
@@ -0,0 +1,282 @@
+package com.collins.expensetracker.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A benchmark run saved as JSON, so runs on different commits can be compared.
+ * <p>
+ * The file holds a {@code metadata} object (commit, JVM, settings, time) and
+ * a {@code benchmarks} array with one object per result. The format is
+ * written and read here without a JSON library, and only this shape is
+ * supported.
+ */
+public class BenchmarkReport {
+
+    private final Map<String, String> metadata;
+    private final List<BenchmarkResult> results;
+
+    public BenchmarkReport(Map<String, String> metadata, List<BenchmarkResult> results) {
+        this.metadata = new LinkedHashMap<>(metadata);
+        this.results = new ArrayList<>(results);
+    }
+
+    public Map<String, String> getMetadata() {
+        return metadata;
+    }
+
+    public List<BenchmarkResult> getResults() {
+        return results;
+    }
+
+    public void write(Path file) throws IOException {
+        StringBuilder json = new StringBuilder("{\n  \"metadata\": {");
+        String separator = "\n";
+        for (Map.Entry<String, String> entry : metadata.entrySet()) {
+            json.append(separator).append("    ").append(quote(entry.getKey())).append(": ").append(quote(entry.getValue()));
+            separator = ",\n";
+        }
+        json.append("\n  },\n  \"benchmarks\": [");
+        separator = "\n";
+        for (BenchmarkResult result : results) {
+            json.append(separator).append("    {\"name\": ").append(quote(result.getName())).append(", \"params\": {");
+            String paramSeparator = "";
+            for (Map.Entry<String, String> param : result.getParams().entrySet()) {
+                json.append(paramSeparator).append(quote(param.getKey())).append(": ").append(quote(param.getValue()));
+                paramSeparator = ", ";
+            }
+            json.append("}")
+                    .append(", \"iterations\": ").append(result.getIterations())
+                    .append(", \"throughputOpsPerSec\": ").append(number(result.getThroughputOpsPerSec()))
+                    .append(", \"throughputStdev\": ").append(number(result.getThroughputStdev()))
+                    .append(", \"avgTimeNsPerOp\": ").append(number(result.getAvgTimeNsPerOp()))
+                    .append(", \"allocBytesPerOp\": ").append(number(result.getAllocBytesPerOp()))
+                    .append(", \"allocRateMbPerSec\": ").append(number(result.getAllocRateMbPerSec()))
+                    .append(", \"gcCount\": ").append(result.getGcCount())
+                    .append(", \"gcTimeMs\": ").append(result.getGcTimeMs())
+                    .append("}");
+            separator = ",\n";
+        }
+        json.append("\n  ]\n}\n");
+        Files.write(file, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @SuppressWarnings("unchecked")
+    public static BenchmarkReport read(Path file) throws IOException {
+        String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        Object parsed;
+        try{
+            parsed = new Parser(text).parseDocument();
+        }catch (IllegalArgumentException e){
+            throw new IOException("Not a benchmark report: " + file + " (" + e.getMessage() + ")", e);
+        }
+        if(!(parsed instanceof Map)){
+            throw new IOException("Not a benchmark report: " + file);
+        }
+        Map<String, Object> root = (Map<String, Object>) parsed;
+
+        Map<String, String> metadata = new LinkedHashMap<>();
+        Object meta = root.get("metadata");
+        if(meta instanceof Map){
+            ((Map<String, Object>) meta).forEach((k, v) -> metadata.put(k, String.valueOf(v)));
+        }
+        List<BenchmarkResult> results = new ArrayList<>();
+        Object benchmarks = root.get("benchmarks");
+        if(benchmarks instanceof List){
+            for (Object item : (List<Object>) benchmarks) {
+                Map<String, Object> b = (Map<String, Object>) item;
+                Map<String, String> params = new LinkedHashMap<>();
+                Object p = b.get("params");
+                if(p instanceof Map){
+                    ((Map<String, Object>) p).forEach((k, v) -> params.put(k, String.valueOf(v)));
+                }
+                results.add(new BenchmarkResult((String) b.get("name"), params, (int) num(b, "iterations"),
+                        num(b, "throughputOpsPerSec"), num(b, "throughputStdev"), num(b, "avgTimeNsPerOp"),
+                        num(b, "allocBytesPerOp"), num(b, "allocRateMbPerSec"),
+                        (long) num(b, "gcCount"), (long) num(b, "gcTimeMs")));
+            }
+        }
+        return new BenchmarkReport(metadata, results);
+    }
+
+    private static double num(Map<String, Object> object, String key) {
+        Object value = object.get(key);
+        return value instanceof Double ? (Double) value : -1;
+    }
+
+    private static String number(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : String.valueOf(value).toCharArray()) {
+            if(c == '"' || c == '\\'){
+                quoted.append('\\').append(c);
+            }else if(c < 0x20){
+                quoted.append(String.format("\\u%04x", (int) c));
+            }else{
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Minimal JSON reader: objects, arrays, strings, numbers, booleans and null.
+     */
+    private static final class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Object parseDocument() {
+            Object value = parseValue();
+            skipWhitespace();
+            if(pos != text.length()){
+                throw new IllegalArgumentException("trailing content at " + pos);
+            }
+            return value;
+        }
+
+        private Object parseValue() {
+            skipWhitespace();
+            if(pos >= text.length()){
+                throw new IllegalArgumentException("unexpected end of input");
+            }
+            char c = text.charAt(pos);
+            if(c == '{'){
+                return parseObject();
+            }else if(c == '['){
+                return parseArray();
+            }else if(c == '"'){
+                return parseString();
+            }else if(text.startsWith("true", pos)){
+                pos += 4;
+                return Boolean.TRUE;
+            }else if(text.startsWith("false", pos)){
+                pos += 5;
+                return Boolean.FALSE;
+            }else if(text.startsWith("null", pos)){
+                pos += 4;
+                return null;
+            }
+            int start = pos;
+            while (pos < text.length() && "+-.eE0123456789".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            if(start == pos){
+                throw new IllegalArgumentException("unexpected '" + c + "' at " + pos);
+            }
+            return Double.parseDouble(text.substring(start, pos));
+        }
+
+        private Map<String, Object> parseObject() {
+            Map<String, Object> object = new LinkedHashMap<>();
+            pos++;
+            skipWhitespace();
+            if(peek() == '}'){
+                pos++;
+                return object;
+            }
+            while (true) {
+                skipWhitespace();
+                String key = parseString();
+                skipWhitespace();
+                expect(':');
+                object.put(key, parseValue());
+                skipWhitespace();
+                if(peek() == ','){
+                    pos++;
+                }else{
+                    expect('}');
+                    return object;
+                }
+            }
+        }
+
+        private List<Object> parseArray() {
+            List<Object> array = new ArrayList<>();
+            pos++;
+            skipWhitespace();
+            if(peek() == ']'){
+                pos++;
+                return array;
+            }
+            while (true) {
+                array.add(parseValue());
+                skipWhitespace();
+                if(peek() == ','){
+                    pos++;
+                }else{
+                    expect(']');
+                    return array;
+                }
+            }
+        }
+
+        private String parseString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                char c = next();
+                if(c == '"'){
+                    return value.toString();
+                }
+                if(c != '\\'){
+                    value.append(c);
+                    continue;
+                }
+                char escaped = next();
+                switch (escaped) {
+                    case 'n': value.append('\n'); break;
+                    case 't': value.append('\t'); break;
+                    case 'r': value.append('\r'); break;
+                    case 'b': value.append('\b'); break;
+                    case 'f': value.append('\f'); break;
+                    case 'u':
+                        if(pos + 4 > text.length()){
+                            throw new IllegalArgumentException("bad escape at " + pos);
+                        }
+                        value.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default: value.append(escaped);
+                }
+            }
+        }
+
+        private void expect(char expected) {
+            if(next() != expected){
+                throw new IllegalArgumentException("expected '" + expected + "' at " + (pos - 1));
+            }
+        }
+
+        private char next() {
+            if(pos >= text.length()){
+                throw new IllegalArgumentException("unexpected end of input");
+            }
+            return text.charAt(pos++);
+        }
+
+        private char peek() {
+            return pos < text.length() ? text.charAt(pos) : '\0';
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.collins.expensetracker.bench;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measurements of one benchmark, summarised over its measurement iterations.
+ * Throughput and average time correspond to JMH's {@code thrpt} and
+ * {@code avgt} modes; the allocation and GC figures to {@code -prof gc}.
+ */
+public class BenchmarkResult {
+
+    private final String name;
+    private final Map<String, String> params;
+    private final int iterations;                           // Measurement iterations behind these numbers.
+    private final double throughputOpsPerSec;               // Mean of per-iteration throughput.
+    private final double throughputStdev;                   // Sample standard deviation of per-iteration throughput.
+    private final double avgTimeNsPerOp;                    // Total measured time / total operations.
+    private final double allocBytesPerOp;                   // Heap allocated by the benchmark thread per operation; -1 if unsupported.
+    private final double allocRateMbPerSec;                 // Same allocation as a rate; -1 if unsupported.
+    private final long gcCount;                             // Collections during measurement, all collectors.
+    private final long gcTimeMs;                            // Time spent in those collections.
+
+    public BenchmarkResult(String name, Map<String, String> params, int iterations, double throughputOpsPerSec,
+                           double throughputStdev, double avgTimeNsPerOp, double allocBytesPerOp,
+                           double allocRateMbPerSec, long gcCount, long gcTimeMs) {
+        this.name = name;
+        this.params = Collections.unmodifiableMap(new LinkedHashMap<>(params));
+        this.iterations = iterations;
+        this.throughputOpsPerSec = throughputOpsPerSec;
+        this.throughputStdev = throughputStdev;
+        this.avgTimeNsPerOp = avgTimeNsPerOp;
+        this.allocBytesPerOp = allocBytesPerOp;
+        this.allocRateMbPerSec = allocRateMbPerSec;
+        this.gcCount = gcCount;
+        this.gcTimeMs = gcTimeMs;
+    }
+
+    /**
+     * @return name plus parameters; results of two runs are compared by this key
+     */
+    public String getKey() {
+        return key(name, params);
+    }
+
+    static String key(String name, Map<String, String> params) {
+        if(params.isEmpty()){
+            return name;
+        }
+        StringBuilder key = new StringBuilder(name).append('[');
+        String separator = "";
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            key.append(separator).append(param.getKey()).append('=').append(param.getValue());
+            separator = ",";
+        }
+        return key.append(']').toString();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public double getThroughputOpsPerSec() {
+        return throughputOpsPerSec;
+    }
+
+    public double getThroughputStdev() {
+        return throughputStdev;
+    }
+
+    public double getAvgTimeNsPerOp() {
+        return avgTimeNsPerOp;
+    }
+
+    public double getAllocBytesPerOp() {
+        return allocBytesPerOp;
+    }
+
+    public double getAllocRateMbPerSec() {
+        return allocRateMbPerSec;
+    }
+
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    public long getGcTimeMs() {
+        return gcTimeMs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-60s %14.3f +- %10.3f ops/s %14.1f ns/op %12.1f B/op %8.1f MB/s gc=%d (%d ms)",
+                getKey(), throughputOpsPerSec, throughputStdev, avgTimeNsPerOp, allocBytesPerOp,
+                allocRateMbPerSec, gcCount, gcTimeMs);
+    }
+}
@@ -0,0 +1,189 @@
+package com.collins.expensetracker.bench;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs benchmarks the way JMH does in a single fork.
+ * <p>
+ * Each benchmark gets warmup iterations, so the JIT compiles the hot path,
+ * and then measurement iterations. An iteration calls the operation
+ * back to back for a fixed time. Throughput is averaged per iteration, and
+ * average time is total time over total operations. Allocation per
+ * operation is counted for the benchmark thread only; that is what
+ * {@code -prof gc} reports as {@code gc.alloc.rate.norm}.
+ * <p>
+ * Everything runs in the calling JVM. For numbers you intend to publish,
+ * run the suite in a fresh JVM with a fixed heap, as JMH's forks would.
+ */
+public class BenchmarkRunner {
+
+    private static final Logger LOG = Logger.getLogger(BenchmarkRunner.class.getName());
+
+    private int warmupIterations = 3;                       // Unmeasured iterations before measuring.
+    private int measurementIterations = 5;                  // Iterations that produce the result.
+    private long iterationMillis = 1_000;                   // Length of each iteration.
+
+    private final Blackhole blackhole = new Blackhole();
+
+    public int getWarmupIterations() {
+        return warmupIterations;
+    }
+
+    public void setWarmupIterations(int warmupIterations) {
+        if(warmupIterations < 0){
+            throw new IllegalArgumentException("warmupIterations must not be negative");
+        }
+        this.warmupIterations = warmupIterations;
+    }
+
+    public int getMeasurementIterations() {
+        return measurementIterations;
+    }
+
+    public void setMeasurementIterations(int measurementIterations) {
+        if(measurementIterations < 1){
+            throw new IllegalArgumentException("measurementIterations must be at least 1");
+        }
+        this.measurementIterations = measurementIterations;
+    }
+
+    public long getIterationMillis() {
+        return iterationMillis;
+    }
+
+    public void setIterationMillis(long iterationMillis) {
+        if(iterationMillis < 1){
+            throw new IllegalArgumentException("iterationMillis must be at least 1");
+        }
+        this.iterationMillis = iterationMillis;
+    }
+
+    /**
+     * Runs every case in order. A case whose setup or operation fails is
+     * logged and skipped, so one broken benchmark does not void the run.
+     *
+     * @return one result per case that completed
+     */
+    public List<BenchmarkResult> runAll(List<BenchmarkCase> cases) {
+        List<BenchmarkResult> results = new ArrayList<>();
+        for (BenchmarkCase benchmark : cases) {
+            try{
+                BenchmarkResult result = run(benchmark);
+                System.out.println(result);
+                results.add(result);
+            }catch (Exception e){
+                LOG.log(Level.WARNING, "Benchmark " + benchmark.getKey() + " failed; skipping it", e);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Sets up, warms up, measures and tears down one benchmark.
+     */
+    public BenchmarkResult run(BenchmarkCase benchmark) throws Exception {
+        benchmark.setup();
+        try{
+            for (int i = 0; i < warmupIterations; i++) {
+                iterate(benchmark);
+            }
+
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            boolean allocationSupported = allocationSupported(threads);
+            long gcCountBefore = gcCount();
+            long gcTimeBefore = gcTime();
+
+            double[] throughput = new double[measurementIterations];
+            long totalOps = 0;
+            long totalNanos = 0;
+            long totalAllocated = 0;
+            for (int i = 0; i < measurementIterations; i++) {
+                long allocatedBefore = allocationSupported ? allocatedBytes(threads) : 0;
+                long[] measured = iterate(benchmark);
+                if(allocationSupported){
+                    totalAllocated += allocatedBytes(threads) - allocatedBefore;
+                }
+                totalOps += measured[0];
+                totalNanos += measured[1];
+                throughput[i] = measured[0] * 1e9 / measured[1];
+            }
+
+            double mean = 0;
+            for (double t : throughput) {
+                mean += t;
+            }
+            mean /= throughput.length;
+            double variance = 0;
+            for (double t : throughput) {
+                variance += (t - mean) * (t - mean);
+            }
+            double stdev = throughput.length > 1 ? Math.sqrt(variance / (throughput.length - 1)) : 0;
+
+            double allocPerOp = allocationSupported ? (double) totalAllocated / totalOps : -1;
+            double allocRate = allocationSupported ? totalAllocated / (1024.0 * 1024.0) / (totalNanos / 1e9) : -1;
+            return new BenchmarkResult(benchmark.getName(), benchmark.getParams(), measurementIterations, mean, stdev,
+                    (double) totalNanos / totalOps, allocPerOp, allocRate,
+                    gcCount() - gcCountBefore, gcTime() - gcTimeBefore);
+        }finally {
+            benchmark.teardown();
+        }
+    }
+
+    /**
+     * Calls the operation until the iteration time is used up; always at least once.
+     *
+     * @return operations completed and nanoseconds taken
+     */
+    private long[] iterate(BenchmarkCase benchmark) throws Exception {
+        long budget = iterationMillis * 1_000_000L;
+        long start = System.nanoTime();
+        long elapsed;
+        long ops = 0;
+        do {
+            benchmark.run(blackhole);
+            ops++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < budget);
+        return new long[]{ops, elapsed};
+    }
+
+    private static boolean allocationSupported(ThreadMXBean threads) {
+        if(!(threads instanceof com.sun.management.ThreadMXBean)){
+            return false;
+        }
+        com.sun.management.ThreadMXBean extended = (com.sun.management.ThreadMXBean) threads;
+        if(!extended.isThreadAllocatedMemorySupported()){
+            return false;
+        }
+        if(!extended.isThreadAllocatedMemoryEnabled()){
+            extended.setThreadAllocatedMemoryEnabled(true);
+        }
+        return true;
+    }
+
+    private static long allocatedBytes(ThreadMXBean threads) {
+        return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return time;
+    }
+}
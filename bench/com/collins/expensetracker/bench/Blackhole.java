@@ -0,0 +1,23 @@
+package com.collins.expensetracker.bench;
+
+/**
+ * Sink for benchmark results, so the JIT cannot prove them unused and remove the work that produced them.
+ */
+public final class Blackhole {
+
+    private volatile Object sink;                   // Last consumed value; volatile so the write cannot be elided.
+    private long accumulator;                       // Folded primitives; read once in toString.
+
+    public void consume(Object value) {
+        sink = value;
+    }
+
+    public void consume(long value) {
+        accumulator += value;
+    }
+
+    @Override
+    public String toString() {
+        return "Blackhole{" + (sink != null) + ", " + accumulator + "}";
+    }
+}
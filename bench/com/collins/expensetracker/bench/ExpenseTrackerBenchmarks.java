@@ -0,0 +1,498 @@
+package com.collins.expensetracker.bench;
+
+import com.collins.expensetracker.analytics.ColumnarTransactionStore;
+import com.collins.expensetracker.db.ConnectionFactory;
+import com.collins.expensetracker.db.DatabaseConfig;
+import com.collins.expensetracker.db.Migrations;
+import com.collins.expensetracker.db.SchemaMigrator;
+import com.collins.expensetracker.model.Category;
+import com.collins.expensetracker.model.MoneyAccumulator;
+import com.collins.expensetracker.model.ReportGranularity;
+import com.collins.expensetracker.model.Transaction;
+import com.collins.expensetracker.model.TransactionType;
+import com.collins.expensetracker.model.User;
+import com.collins.expensetracker.repository.JdbcCategoryRepository;
+import com.collins.expensetracker.repository.JdbcTransactionRepository;
+import com.collins.expensetracker.repository.JdbcUserRepository;
+import com.collins.expensetracker.repository.TransactionRepository;
+import com.collins.expensetracker.service.TransactionService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The benchmark suite for repositories, services and aggregation.
+ * <p>
+ * Usage: {@code ExpenseTrackerBenchmarks [--quick] [--filter <regex>] [--out <file.json>]}
+ * <p>
+ * The offline benchmarks run against {@link InMemoryDriver}:
+ * <ul>
+ *     <li>{@code mapping.findByUserId}: ResultSet-to-Transaction mapping</li>
+ *     <li>{@code summary.rollup}: {@code getMonthlySummary} as shipped, read from rollups; not
+ *     parameterised by rows, since the rollup read does not grow with history</li>
+ *     <li>{@code summary.streamed}: the same totals summed client-side over every row</li>
+ *     <li>{@code summary.streamed.fixed}: as above, summed in {@code long} minor units</li>
+ *     <li>{@code aggregate.bigdecimal} / {@code aggregate.fixed}: the two ways of summing,
+ *     over transactions already in memory</li>
+ *     <li>{@code analytics.timeSeries} / {@code analytics.categoryTotals}: weekly series and
+ *     category split over all rows, from a {@link ColumnarTransactionStore}</li>
+ * </ul>
+ * Set {@code -Dbench.url} (and {@code bench.user} / {@code bench.password}) to a
+ * scratch local MySQL database to add the database benchmarks. They cover
+ * single versus batched inserts, pooled versus fresh connections, and
+ * aggregation in the database. The schema is migrated on start, and the
+ * benchmark user's rows are deleted at the end.
+ * <p>
+ * Row counts are set with {@code -Dbench.rows} (aggregation, default
+ * 10000,100000,1000000), {@code -Dbench.mappingRows} (default
+ * 10000,100000) and {@code -Dbench.dbRows} (default 10000,100000).
+ * Results are printed and written as JSON, by default to
+ * {@code benchmark-results.json}. Compare two such files with
+ * {@link BenchmarkCompare}.
+ */
+public final class ExpenseTrackerBenchmarks {
+
+    private static final int INSERT_BATCH = 1000;
+    private static final LocalDate FIRST_DAY = LocalDate.of(1000, 1, 1);
+    private static final LocalDate LAST_DAY = LocalDate.of(9999, 12, 31);
+
+    private ExpenseTrackerBenchmarks() {}
+
+    public static void main(String[] args) throws IOException {
+        boolean quick = false;
+        Pattern filter = null;
+        Path out = Paths.get("benchmark-results.json");
+        for (int i = 0; i < args.length; i++) {
+            if(args[i].equals("--quick")){
+                quick = true;
+            }else if(args[i].equals("--filter") && i + 1 < args.length){
+                filter = Pattern.compile(args[++i]);
+            }else if(args[i].equals("--out") && i + 1 < args.length){
+                out = Paths.get(args[++i]);
+            }else{
+                System.out.println("Usage: ExpenseTrackerBenchmarks [--quick] [--filter <regex>] [--out <file.json>]");
+                System.exit(2);
+            }
+        }
+
+        BenchmarkRunner runner = new BenchmarkRunner();
+        if(quick){
+            runner.setWarmupIterations(1);
+            runner.setMeasurementIterations(3);
+            runner.setIterationMillis(500);
+        }
+
+        List<BenchmarkCase> cases = new ArrayList<>();
+        cases.addAll(offlineBenchmarks());
+        String url = System.getProperty("bench.url");
+        if(url != null && !url.isBlank()){
+            cases.addAll(databaseBenchmarks(url, System.getProperty("bench.user", "root"),
+                    System.getProperty("bench.password", "")));
+        }else{
+            System.out.println("bench.url is not set; skipping database benchmarks.");
+        }
+        if(filter != null){
+            Pattern selected = filter;
+            cases.removeIf(c -> !selected.matcher(c.getKey()).find());
+        }
+
+        List<BenchmarkResult> results = runner.runAll(cases);
+
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put("commit", commit());
+        metadata.put("timestamp", Instant.now().toString());
+        metadata.put("jvm", System.getProperty("java.vm.name") + " " + System.getProperty("java.version"));
+        metadata.put("processors", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        metadata.put("maxHeapMb", String.valueOf(Runtime.getRuntime().maxMemory() / (1024 * 1024)));
+        metadata.put("warmupIterations", String.valueOf(runner.getWarmupIterations()));
+        metadata.put("measurementIterations", String.valueOf(runner.getMeasurementIterations()));
+        metadata.put("iterationMillis", String.valueOf(runner.getIterationMillis()));
+        new BenchmarkReport(metadata, results).write(out);
+        System.out.println("Wrote " + results.size() + " results to " + out.toAbsolutePath());
+    }
+
+    static List<BenchmarkCase> offlineBenchmarks() {
+        InMemoryDriver.register();
+        List<BenchmarkCase> cases = new ArrayList<>();
+
+        for (int rows : rowCounts("bench.mappingRows", "10000,100000")) {
+            cases.add(new OfflineCase("mapping.findByUserId", rows) {
+                @Override
+                public void run(Blackhole blackhole) {
+                    blackhole.consume(repository.findByUserId(1));
+                }
+            });
+        }
+
+        // The rollup read is the same two rows however long the history, so it runs once.
+        cases.add(new OfflineCase("summary.rollup", Collections.emptyMap(), 0) {
+            @Override
+            public void run(Blackhole blackhole) {
+                blackhole.consume(service.getMonthlySummary(1, 2024, 1));
+            }
+        });
+
+        for (int rows : rowCounts("bench.rows", "10000,100000,1000000")) {
+            cases.add(new OfflineCase("summary.streamed", rows) {
+                @Override
+                public void run(Blackhole blackhole) {
+                    BigDecimal[] totals = {BigDecimal.ZERO, BigDecimal.ZERO};
+                    service.streamTransactions(1, null, null, tx -> {
+                        int slot = tx.getType() == TransactionType.INCOME ? 0 : 1;
+                        totals[slot] = totals[slot].add(tx.getAmount());
+                    });
+                    blackhole.consume(totals[0].subtract(totals[1]));
+                }
+            });
+            cases.add(new OfflineCase("summary.streamed.fixed", rows) {
+                @Override
+                public void run(Blackhole blackhole) {
+                    MoneyAccumulator[] totals = {new MoneyAccumulator(), new MoneyAccumulator()};
+                    service.streamTransactions(1, null, null, tx -> {
+                        int slot = tx.getType() == TransactionType.INCOME ? 0 : 1;
+                        totals[slot].add(tx.getAmount());
+                    });
+                    blackhole.consume(totals[0].toMoney().minus(totals[1].toMoney()).toBigDecimal());
+                }
+            });
+            cases.add(new AnalyticsCase("analytics.timeSeries", rows) {
+                @Override
+                public void run(Blackhole blackhole) {
+                    blackhole.consume(store.timeSeries(1, FIRST_DAY, LAST_DAY, ReportGranularity.WEEK));
+                }
+            });
+            cases.add(new AnalyticsCase("analytics.categoryTotals", rows) {
+                @Override
+                public void run(Blackhole blackhole) {
+                    blackhole.consume(store.categoryTotals(1, TransactionType.EXPENSE, FIRST_DAY, LAST_DAY, id -> null));
+                }
+            });
+            cases.add(new AggregationCase("aggregate.bigdecimal", rows) {
+                @Override
+                public void run(Blackhole blackhole) {
+                    BigDecimal income = BigDecimal.ZERO;
+                    BigDecimal expense = BigDecimal.ZERO;
+                    for (Transaction tx : transactions) {
+                        if(tx.getType() == TransactionType.INCOME){
+                            income = income.add(tx.getAmount());
+                        }else{
+                            expense = expense.add(tx.getAmount());
+                        }
+                    }
+                    blackhole.consume(income.subtract(expense));
+                }
+            });
+            cases.add(new AggregationCase("aggregate.fixed", rows) {
+                @Override
+                public void run(Blackhole blackhole) {
+                    MoneyAccumulator income = new MoneyAccumulator();
+                    MoneyAccumulator expense = new MoneyAccumulator();
+                    for (Transaction tx : transactions) {
+                        (tx.getType() == TransactionType.INCOME ? income : expense).add(tx.getAmount());
+                    }
+                    blackhole.consume(income.toMoney().minus(expense.toMoney()).toBigDecimal());
+                }
+            });
+        }
+        return cases;
+    }
+
+    static List<BenchmarkCase> databaseBenchmarks(String url, String user, String password) {
+        List<BenchmarkCase> cases = new ArrayList<>();
+
+        cases.add(new DatabaseCase("insert.single", url, user, password, Collections.singletonMap("batch", String.valueOf(INSERT_BATCH))) {
+            @Override
+            public void run(Blackhole blackhole) {
+                for (Transaction tx : newTransactions(INSERT_BATCH)) {
+                    blackhole.consume(transactions.save(tx));
+                }
+            }
+        });
+        cases.add(new DatabaseCase("insert.batched", url, user, password, Collections.singletonMap("batch", String.valueOf(INSERT_BATCH))) {
+            @Override
+            public void run(Blackhole blackhole) {
+                blackhole.consume(transactions.saveAll(newTransactions(INSERT_BATCH)));
+            }
+        });
+
+        cases.add(new DatabaseCase("connection.pooled", url, user, password, Collections.emptyMap()) {
+            @Override
+            public void setup() throws Exception {
+                super.setup();
+                seed(1);
+            }
+
+            @Override
+            public void run(Blackhole blackhole) {
+                blackhole.consume(transactions.findById(seededId));
+            }
+        });
+        cases.add(new DatabaseCase("connection.unpooled", url, user, password, Collections.emptyMap()) {
+            private ConnectionFactory unpooledFactory;
+            private TransactionRepository unpooled;
+
+            @Override
+            public void setup() throws Exception {
+                super.setup();
+                seed(1);
+                DatabaseConfig config = new DatabaseConfig(url, user, password);
+                config.setMinIdle(0);
+                // Every connection comes from DriverManager; the factory's own pool opens none but
+                // still runs a housekeeper thread, so it is closed in teardown.
+                unpooledFactory = new ConnectionFactory(config) {
+                    @Override
+                    public Connection getConnection() throws SQLException {
+                        return DriverManager.getConnection(url, user, password);
+                    }
+                };
+                unpooled = new JdbcTransactionRepository(unpooledFactory);
+            }
+
+            @Override
+            public void run(Blackhole blackhole) {
+                blackhole.consume(unpooled.findById(seededId));
+            }
+
+            @Override
+            public void teardown() throws Exception {
+                unpooledFactory.close();
+                super.teardown();
+            }
+        });
+
+        for (int rows : rowCounts("bench.dbRows", "10000,100000")) {
+            Map<String, String> params = Collections.singletonMap("rows", String.valueOf(rows));
+            cases.add(new DatabaseCase("summary.db.rollup", url, user, password, params) {
+                @Override
+                public void setup() throws Exception {
+                    super.setup();
+                    seed(rows);
+                }
+
+                @Override
+                public void run(Blackhole blackhole) {
+                    blackhole.consume(service.getMonthlySummary(userId, 2024, 1));
+                }
+            });
+            cases.add(new DatabaseCase("summary.db.categoryTotals", url, user, password, params) {
+                @Override
+                public void setup() throws Exception {
+                    super.setup();
+                    seed(rows);
+                }
+
+                @Override
+                public void run(Blackhole blackhole) {
+                    blackhole.consume(transactions.findCategoryTotals(userId, TransactionType.EXPENSE,
+                            LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)));
+                }
+            });
+        }
+        return cases;
+    }
+
+    /**
+     * Repository and service over an in-memory driver that returns {@code rows} transactions.
+     */
+    private abstract static class OfflineCase extends BenchmarkCase {
+        private final int rows;
+        private ConnectionFactory connectionFactory;
+        TransactionRepository repository;
+        TransactionService service;
+
+        OfflineCase(String name, int rows) {
+            this(name, Collections.singletonMap("rows", String.valueOf(rows)), rows);
+        }
+
+        OfflineCase(String name, Map<String, String> params, int rows) {
+            super(name, params);
+            this.rows = rows;
+        }
+
+        @Override
+        public void setup() {
+            DatabaseConfig config = new DatabaseConfig(InMemoryDriver.url(rows), "bench", "");
+            config.setMinIdle(1);
+            connectionFactory = new ConnectionFactory(config);
+            repository = new JdbcTransactionRepository(connectionFactory);
+            service = new TransactionService(repository);
+        }
+
+        @Override
+        public void teardown() {
+            connectionFactory.close();
+        }
+    }
+
+    /**
+     * The in-memory driver's rows loaded into a columnar store.
+     */
+    private abstract static class AnalyticsCase extends OfflineCase {
+        ColumnarTransactionStore store;
+
+        AnalyticsCase(String name, int rows) {
+            super(name, rows);
+        }
+
+        @Override
+        public void setup() {
+            super.setup();
+            store = new ColumnarTransactionStore();
+            store.load(1, repository);
+        }
+
+        @Override
+        public void teardown() {
+            store.clear();
+            super.teardown();
+        }
+    }
+
+    /**
+     * Transactions already in memory, so only the arithmetic is measured.
+     */
+    private abstract static class AggregationCase extends BenchmarkCase {
+        private final int rows;
+        List<Transaction> transactions;
+
+        AggregationCase(String name, int rows) {
+            super(name, Collections.singletonMap("rows", String.valueOf(rows)));
+            this.rows = rows;
+        }
+
+        @Override
+        public void setup() {
+            transactions = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                transactions.add(new Transaction(1, 1 + i % 8, i % 5 == 0 ? TransactionType.INCOME : TransactionType.EXPENSE,
+                        BigDecimal.valueOf(100 + (i * 37L) % 10_000, 2), LocalDate.of(2024, 1, 1).plusDays(i % 365), null));
+            }
+        }
+
+        @Override
+        public void teardown() {
+            transactions = null;
+        }
+    }
+
+    /**
+     * Repository and service over a local database, with a dedicated user whose rows are removed afterwards.
+     */
+    private abstract static class DatabaseCase extends BenchmarkCase {
+        private final String url;
+        private final String user;
+        private final String password;
+        private ConnectionFactory connectionFactory;
+        TransactionRepository transactions;
+        TransactionService service;
+        int userId;
+        int categoryId;
+        int seededId;
+
+        DatabaseCase(String name, String url, String user, String password, Map<String, String> params) {
+            super(name, params);
+            this.url = url;
+            this.user = user;
+            this.password = password;
+        }
+
+        @Override
+        public void setup() throws Exception {
+            connectionFactory = new ConnectionFactory(new DatabaseConfig(url, user, password));
+            new SchemaMigrator(connectionFactory, Migrations.all()).migrate();
+            User benchUser = new JdbcUserRepository(connectionFactory)
+                    .save(new User("Benchmark", "bench-" + System.nanoTime() + "@example.com"));
+            userId = benchUser.getId();
+            Category category = new JdbcCategoryRepository(connectionFactory).save(new Category(userId, "Benchmark"));
+            categoryId = category.getId();
+            transactions = new JdbcTransactionRepository(connectionFactory);
+            service = new TransactionService(transactions);
+        }
+
+        /**
+         * Inserts rows spread over 2024 for the benchmark user.
+         */
+        void seed(int rows) {
+            for (int from = 0; from < rows; from += INSERT_BATCH * 10) {
+                List<Transaction> chunk = newTransactions(Math.min(INSERT_BATCH * 10, rows - from));
+                transactions.saveAll(chunk);
+                seededId = chunk.get(0).getId();
+            }
+        }
+
+        List<Transaction> newTransactions(int count) {
+            List<Transaction> list = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                list.add(new Transaction(userId, categoryId, i % 5 == 0 ? TransactionType.INCOME : TransactionType.EXPENSE,
+                        BigDecimal.valueOf(100 + (i * 37L) % 10_000, 2), LocalDate.of(2024, 1, 1).plusDays(i % 365),
+                        "Benchmark"));
+            }
+            return list;
+        }
+
+        @Override
+        public void teardown() throws Exception {
+            try(Connection conn = connectionFactory.getConnection()){
+                for (String sql : new String[]{"DELETE FROM transactions WHERE user_id = ?",
+                        "DELETE FROM monthly_rollups WHERE user_id = ?", "DELETE FROM categories WHERE user_id = ?",
+                        "DELETE FROM users WHERE id = ?"}) {
+                    try(PreparedStatement ps = conn.prepareStatement(sql)){
+                        ps.setInt(1, userId);
+                        ps.executeUpdate();
+                    }
+                }
+            }finally {
+                connectionFactory.close();
+            }
+        }
+    }
+
+    private static List<Integer> rowCounts(String property, String defaults) {
+        List<Integer> counts = new ArrayList<>();
+        for (String count : System.getProperty(property, defaults).split(",")) {
+            counts.add(Integer.parseInt(count.trim()));
+        }
+        return counts;
+    }
+
+    /**
+     * @return {@code -Dbench.commit} if set, otherwise the current git commit, otherwise "unknown"
+     */
+    private static String commit() {
+        String commit = System.getProperty("bench.commit");
+        if(commit != null){
+            return commit;
+        }
+        try{
+            Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true).start();
+            try(BufferedReader reader = new BufferedReader(new InputStreamReader(git.getInputStream(), StandardCharsets.UTF_8))){
+                String line = reader.readLine();
+                if(git.waitFor() == 0 && line != null){
+                    return line.trim();
+                }
+            }
+        }catch (IOException e){
+            // Not a git checkout or no git on the path.
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        return "unknown";
+    }
+}
@@ -0,0 +1,369 @@
+package com.collins.expensetracker.bench;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * A JDBC driver that serves synthetic rows from memory, so repository code can be benchmarked offline.
+ * <p>
+ * URLs look like {@code jdbc:bench:mem?rows=100000}. Every query on
+ * {@code transactions} returns {@code rows} rows for user 1, spread over one
+ * year. Queries on {@code monthly_rollups} return one income and one expense
+ * bucket. Updates report one affected row, and batches report one per
+ * statement. The driver does no I/O and no SQL parsing. It therefore
+ * measures what the application does with rows: mapping, allocation and
+ * aggregation. Use a real database for the cost of getting them.
+ * <p>
+ * Connections, statements and result sets are plain classes built on the
+ * {@code *Adapter} bases, so reading a column costs one virtual call and
+ * no allocation beyond the value itself.
+ */
+public final class InMemoryDriver implements Driver {
+
+    static final String PREFIX = "jdbc:bench:";
+
+    private static final String[] DESCRIPTIONS = {
+            "Groceries", "Rent", "Uber to work", "Coffee", "Salary", "Electricity bill", "Gym", "Books"};
+    private static final LocalDate FIRST_DATE = LocalDate.of(2024, 1, 1);
+    private static final long CREATED_MILLIS = Timestamp.valueOf("2024-01-01 09:00:00").getTime();
+
+    static {
+        try{
+            DriverManager.registerDriver(new InMemoryDriver());
+        }catch (SQLException e){
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Makes sure the driver is registered with {@link DriverManager}.
+     */
+    public static void register() {
+        // Loading the class runs the static initializer.
+    }
+
+    /**
+     * @return a URL whose transaction queries return the given number of rows
+     */
+    public static String url(int rows) {
+        return PREFIX + "mem?rows=" + rows;
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) {
+        if(!acceptsURL(url)){
+            return null;
+        }
+        int rows = 0;
+        int query = url.indexOf("rows=");
+        if(query >= 0){
+            rows = Integer.parseInt(url.substring(query + 5).split("&")[0]);
+        }
+        return new MemoryConnection(rows);
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() {
+        return Logger.getLogger(InMemoryDriver.class.getPackage().getName());
+    }
+
+    private static final class MemoryConnection extends ConnectionAdapter {
+        private final int rows;
+        private boolean autoCommit = true;
+        private boolean closed;
+
+        MemoryConnection(int rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql) {
+            return new MemoryStatement(rows, sql);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) {
+            return new MemoryStatement(rows, sql);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) {
+            return new MemoryStatement(rows, sql);
+        }
+
+        @Override
+        public Statement createStatement() {
+            return new MemoryStatement(rows, null);
+        }
+
+        @Override
+        public boolean getAutoCommit() {
+            return autoCommit;
+        }
+
+        @Override
+        public void setAutoCommit(boolean autoCommit) {
+            this.autoCommit = autoCommit;
+        }
+
+        @Override
+        public boolean isValid(int timeout) {
+            return !closed;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static final class MemoryStatement extends PreparedStatementAdapter {
+        private final int rows;
+        private final String sql;
+        private int batched;
+        private int lastKeys;
+        private int nextKey = 1;
+        private boolean closed;
+
+        MemoryStatement(int rows, String sql) {
+            this.rows = rows;
+            this.sql = sql;
+        }
+
+        @Override
+        public ResultSet executeQuery() {
+            return executeQuery(sql);
+        }
+
+        @Override
+        public ResultSet executeQuery(String query) {
+            if(query.contains("monthly_rollups")){
+                return new RollupRows();
+            }
+            return new TransactionRows(rows);
+        }
+
+        @Override
+        public int executeUpdate() {
+            lastKeys = 1;
+            return 1;
+        }
+
+        @Override
+        public int executeUpdate(String query) {
+            return executeUpdate();
+        }
+
+        @Override
+        public int executeUpdate(String query, int autoGeneratedKeys) {
+            return executeUpdate();
+        }
+
+        @Override
+        public void addBatch() {
+            batched++;
+        }
+
+        @Override
+        public void addBatch(String query) {
+            batched++;
+        }
+
+        @Override
+        public int[] executeBatch() {
+            int[] counts = new int[batched];
+            Arrays.fill(counts, 1);
+            lastKeys = batched;
+            batched = 0;
+            return counts;
+        }
+
+        @Override
+        public void clearBatch() {
+            batched = 0;
+        }
+
+        @Override
+        public ResultSet getGeneratedKeys() {
+            int first = nextKey;
+            nextKey += lastKeys;
+            return new KeyRows(first, lastKeys);
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    /**
+     * Rows shaped like the transactions table, generated from the row index.
+     */
+    private static final class TransactionRows extends ResultSetAdapter {
+        private final int rows;
+        private int row = -1;
+
+        TransactionRows(int rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public boolean next() {
+            return ++row < rows;
+        }
+
+        @Override
+        public int getInt(int columnIndex) {
+            return row + 1;
+        }
+
+        @Override
+        public int getInt(String column) {
+            switch (column) {
+                case "id":
+                    return row + 1;
+                case "user_id":
+                    return 1;
+                case "category_id":
+                    return 1 + row % 20;
+                case "version":
+                    return 0;
+                case "count":
+                    return 1;
+                default:
+                    return 0;
+            }
+        }
+
+        @Override
+        public long getLong(int columnIndex) {
+            return getInt(columnIndex);
+        }
+
+        @Override
+        public long getLong(String column) {
+            return getInt(column);
+        }
+
+        @Override
+        public String getString(String column) {
+            switch (column) {
+                case "type":
+                    return row % 5 == 0 ? "INCOME" : "EXPENSE";
+                case "description":
+                    return DESCRIPTIONS[row % DESCRIPTIONS.length];
+                case "catName":
+                    return DESCRIPTIONS[(1 + row % 20) % DESCRIPTIONS.length];
+                default:
+                    return null;
+            }
+        }
+
+        @Override
+        public BigDecimal getBigDecimal(String column) {
+            return BigDecimal.valueOf(100 + (row * 37L) % 10_000, 2);
+        }
+
+        @Override
+        public Date getDate(String column) {
+            return Date.valueOf(FIRST_DATE.plusDays(row % 365));
+        }
+
+        @Override
+        public Timestamp getTimestamp(String column) {
+            return new Timestamp(CREATED_MILLIS);
+        }
+    }
+
+    /**
+     * One income and one expense bucket, as stored in monthly_rollups.
+     */
+    private static final class RollupRows extends ResultSetAdapter {
+        private int row = -1;
+
+        @Override
+        public boolean next() {
+            return ++row < 2;
+        }
+
+        @Override
+        public String getString(String column) {
+            return row == 0 ? "INCOME" : "EXPENSE";
+        }
+
+        @Override
+        public BigDecimal getBigDecimal(String column) {
+            return row == 0 ? new BigDecimal("5000.00") : new BigDecimal("3125.40");
+        }
+
+        @Override
+        public int getInt(String column) {
+            return "year".equals(column) ? 2024 : 1;
+        }
+    }
+
+    private static final class KeyRows extends ResultSetAdapter {
+        private final int first;
+        private final int count;
+        private int row = -1;
+
+        KeyRows(int first, int count) {
+            this.first = first;
+            this.count = count;
+        }
+
+        @Override
+        public boolean next() {
+            return ++row < count;
+        }
+
+        @Override
+        public int getInt(int columnIndex) {
+            return first + row;
+        }
+
+        @Override
+        public long getLong(int columnIndex) {
+            return first + row;
+        }
+    }
+}
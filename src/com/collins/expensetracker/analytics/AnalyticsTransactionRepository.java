@@ -0,0 +1,183 @@
+package com.collins.expensetracker.analytics;
+
+import com.collins.expensetracker.model.Category;
+import com.collins.expensetracker.model.CategoryTotal;
+import com.collins.expensetracker.model.MonthlySummary;
+import com.collins.expensetracker.model.ReportGranularity;
+import com.collins.expensetracker.model.TimeSeriesPoint;
+import com.collins.expensetracker.model.Transaction;
+import com.collins.expensetracker.model.TransactionCursor;
+import com.collins.expensetracker.model.TransactionType;
+import com.collins.expensetracker.repository.CategoryRepository;
+import com.collins.expensetracker.repository.TransactionRepository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Answers summaries, time series and category totals from a {@link ColumnarTransactionStore}.
+ * <p>
+ * Writes go to the delegate first and are applied to the store once they
+ * return. Updates and deletes read the row from the delegate beforehand, so
+ * the store knows whose rows and which day to look in. A user missing from the store is loaded on their first report;
+ * if a write races the load, that report goes to the delegate and the next
+ * one tries again. When a batch fails partway, the affected users are
+ * unloaded, because the store cannot tell which chunks were committed.
+ * An insert that comes back with id 0 was only queued, e.g. by write-behind;
+ * its user is unloaded too, since the row cannot be matched to later
+ * updates and deletes until it has its real id. Row-level reads always go
+ * to the delegate.
+ */
+public class AnalyticsTransactionRepository implements TransactionRepository {
+
+    private final TransactionRepository delegate;
+    private final ColumnarTransactionStore store;
+    private final CategoryRepository categories;                // Names for category totals.
+
+    public AnalyticsTransactionRepository(TransactionRepository delegate, ColumnarTransactionStore store,
+                                          CategoryRepository categories) {
+        this.delegate = delegate;
+        this.store = store;
+        this.categories = categories;
+    }
+
+    /**
+     * Loads the given users into the store, e.g. every user at startup.
+     *
+     * @return rows loaded
+     */
+    public long loadAll(Collection<Integer> userIds) {
+        long rows = 0;
+        for (int userId : userIds) {
+            rows += Math.max(0, store.load(userId, delegate));
+        }
+        return rows;
+    }
+
+    public ColumnarTransactionStore getStore() {
+        return store;
+    }
+
+    @Override
+    public Transaction save(Transaction tx) {
+        boolean update = tx.getId() != 0;
+        Transaction old = update ? delegate.findById(tx.getId()) : null;
+        Transaction saved = delegate.save(tx);
+        if(update){
+            store.replace(old, saved);
+        }else{
+            apply(saved);
+        }
+        return saved;
+    }
+
+    @Override
+    public List<Transaction> saveAll(Collection<Transaction> transactions) {
+        Map<Integer, Transaction> oldById = new HashMap<>();
+        for (Transaction tx : transactions) {
+            if(tx.getId() != 0){
+                oldById.put(tx.getId(), delegate.findById(tx.getId()));
+            }
+        }
+        List<Transaction> saved;
+        try{
+            saved = delegate.saveAll(transactions);
+        }catch (RuntimeException e){
+            for (Transaction tx : transactions) {
+                store.unload(tx.getUserId());
+            }
+            for (Transaction old : oldById.values()) {
+                if(old != null){
+                    store.unload(old.getUserId());     // An update may have moved the row away from this user.
+                }
+            }
+            throw e;
+        }
+        for (Transaction tx : saved) {
+            if(oldById.containsKey(tx.getId())){
+                store.replace(oldById.get(tx.getId()), tx);
+            }else{
+                apply(tx);
+            }
+        }
+        return saved;
+    }
+
+    @Override
+    public Transaction findById(int id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public List<Transaction> findByUserId(int userId) {
+        return delegate.findByUserId(userId);
+    }
+
+    @Override
+    public List<Transaction> findByUserIdAndDateRange(int userId, LocalDate from, LocalDate to) {
+        return delegate.findByUserIdAndDateRange(userId, from, to);
+    }
+
+    @Override
+    public MonthlySummary findMonthlySummary(int userId, int year, int month) {
+        MonthlySummary summary = loaded(userId) ? store.monthlySummary(userId, year, month) : null;
+        return summary != null ? summary : delegate.findMonthlySummary(userId, year, month);
+    }
+
+    @Override
+    public List<TimeSeriesPoint> findTimeSeries(int userId, LocalDate from, LocalDate to, ReportGranularity granularity) {
+        List<TimeSeriesPoint> series = loaded(userId) ? store.timeSeries(userId, from, to, granularity) : null;
+        return series != null ? series : delegate.findTimeSeries(userId, from, to, granularity);
+    }
+
+    @Override
+    public List<CategoryTotal> findCategoryTotals(int userId, TransactionType type, LocalDate from, LocalDate to) {
+        List<CategoryTotal> totals = loaded(userId) ? store.categoryTotals(userId, type, from, to, this::categoryName) : null;
+        return totals != null ? totals : delegate.findCategoryTotals(userId, type, from, to);
+    }
+
+    @Override
+    public List<Transaction> findPageByUserId(int userId, TransactionCursor after, int limit) {
+        return delegate.findPageByUserId(userId, after, limit);
+    }
+
+    @Override
+    public long streamByUserIdAndDateRange(int userId, LocalDate from, LocalDate to, Consumer<Transaction> consumer) {
+        return delegate.streamByUserIdAndDateRange(userId, from, to, consumer);
+    }
+
+    @Override
+    public long streamByUserIdAndDateRange(int userId, TransactionType type, LocalDate from, LocalDate to, Consumer<Transaction> consumer) {
+        return delegate.streamByUserIdAndDateRange(userId, type, from, to, consumer);
+    }
+
+    @Override
+    public void deleteById(int id) {
+        Transaction old = delegate.findById(id);
+        delegate.deleteById(id);
+        if(old != null){
+            store.remove(old);
+        }
+    }
+
+    private void apply(Transaction inserted) {
+        if(inserted.getId() == 0){
+            store.unload(inserted.getUserId());     // Not committed yet; the next load reads it with its id.
+        }else{
+            store.add(inserted);
+        }
+    }
+
+    private boolean loaded(int userId) {
+        return store.isLoaded(userId) || store.load(userId, delegate) >= 0;
+    }
+
+    private String categoryName(int categoryId) {
+        Category category = categories.findById(categoryId);
+        return category == null ? null : category.getCatName();
+    }
+}
@@ -0,0 +1,220 @@
+package com.collins.expensetracker.analytics;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * One user's transactions as parallel off-heap columns, ordered by date.
+ * <p>
+ * Row i is (ids[i], days[i], amounts[i], categories[i], types[i]). Days
+ * are epoch days, amounts are minor units and types are
+ * {@code TransactionType} ordinals. The columns are direct buffers, so the
+ * heap holds only this object and the buffer headers, however many rows
+ * there are. Capacity doubles when full. Not thread-safe; the store locks.
+ */
+final class ColumnBlock {
+
+    static final int BYTES_PER_ROW = Integer.BYTES * 3 + Long.BYTES + 1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private IntBuffer ids;
+    private IntBuffer days;
+    private LongBuffer amounts;
+    private IntBuffer categories;
+    private ByteBuffer types;
+    private int capacity;
+    private int size;
+
+    ColumnBlock() {
+        this(INITIAL_CAPACITY);
+    }
+
+    private ColumnBlock(int capacity) {
+        allocate(capacity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    long offHeapBytes() {
+        return (long) capacity * BYTES_PER_ROW;
+    }
+
+    int id(int row) {
+        return ids.get(row);
+    }
+
+    int day(int row) {
+        return days.get(row);
+    }
+
+    long amount(int row) {
+        return amounts.get(row);
+    }
+
+    int category(int row) {
+        return categories.get(row);
+    }
+
+    byte type(int row) {
+        return types.get(row);
+    }
+
+    /**
+     * Adds a row in date order. New rows are usually the latest, so this is an append;
+     * a back-dated row shifts the rows after it.
+     */
+    void insert(int id, int day, long amount, int category, byte type) {
+        int row = size;
+        if(size > 0 && days.get(size - 1) > day){
+            row = firstOnOrAfter(day + 1);
+        }
+        put(row, id, day, amount, category, type);
+    }
+
+    /**
+     * Adds a row at the end, in any order. Call {@link #sort} after the last one.
+     */
+    void append(int id, int day, long amount, int category, byte type) {
+        put(size, id, day, amount, category, type);
+    }
+
+    /**
+     * Restores date order after {@link #append}, keeping rows of the same day in arrival order.
+     */
+    void sort() {
+        boolean inOrder = true;
+        for (int i = 1; i < size && inOrder; i++) {
+            inOrder = days.get(i - 1) <= days.get(i);
+        }
+        if(inOrder){
+            return;
+        }
+        // Day in the high half, arrival index in the low half; a primitive sort gives the permutation.
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((long) days.get(i) << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        ColumnBlock copy = new ColumnBlock(capacity);
+        for (long key : keys) {
+            int from = (int) key;
+            copy.append(ids.get(from), days.get(from), amounts.get(from), categories.get(from), types.get(from));
+        }
+        ids = copy.ids;
+        days = copy.days;
+        amounts = copy.amounts;
+        categories = copy.categories;
+        types = copy.types;
+    }
+
+    private void put(int row, int id, int day, long amount, int category, byte type) {
+        if(size == capacity){
+            allocate(capacity * 2);
+        }
+        for (int i = size; i > row; i--) {
+            copyRow(i - 1, i);
+        }
+        ids.put(row, id);
+        days.put(row, day);
+        amounts.put(row, amount);
+        categories.put(row, category);
+        types.put(row, type);
+        size++;
+    }
+
+    void remove(int row) {
+        for (int i = row + 1; i < size; i++) {
+            copyRow(i, i - 1);
+        }
+        size--;
+    }
+
+    /**
+     * @return the row holding the transaction, or -1; a linear scan of the id column
+     */
+    int indexOf(int id) {
+        for (int i = 0; i < size; i++) {
+            if(ids.get(i) == id){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the row holding the transaction, or -1; searches only the rows dated on that day
+     */
+    int indexOf(int id, int day) {
+        for (int i = firstOnOrAfter(day); i < size && days.get(i) == day; i++) {
+            if(ids.get(i) == id){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return index of the first row dated on or after day (size if none)
+     */
+    int firstOnOrAfter(int day) {
+        int low = 0;
+        int high = size;
+        while(low < high){
+            int mid = (low + high) >>> 1;
+            if(days.get(mid) < day){
+                low = mid + 1;
+            }else{
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void copyRow(int from, int to) {
+        ids.put(to, ids.get(from));
+        days.put(to, days.get(from));
+        amounts.put(to, amounts.get(from));
+        categories.put(to, categories.get(from));
+        types.put(to, types.get(from));
+    }
+
+    private void allocate(int newCapacity) {
+        IntBuffer newIds = direct(newCapacity, Integer.BYTES).asIntBuffer();
+        IntBuffer newDays = direct(newCapacity, Integer.BYTES).asIntBuffer();
+        LongBuffer newAmounts = direct(newCapacity, Long.BYTES).asLongBuffer();
+        IntBuffer newCategories = direct(newCapacity, Integer.BYTES).asIntBuffer();
+        ByteBuffer newTypes = direct(newCapacity, 1);
+        if(size > 0){
+            newIds.put(prefix(ids.duplicate()));
+            newDays.put(prefix(days.duplicate()));
+            newAmounts.put(prefix(amounts.duplicate()));
+            newCategories.put(prefix(categories.duplicate()));
+            newTypes.put(prefix(types.duplicate()));
+        }
+        // The old buffers' memory is freed when the collector clears them.
+        ids = newIds;
+        days = newDays;
+        amounts = newAmounts;
+        categories = newCategories;
+        types = newTypes;
+        capacity = newCapacity;
+    }
+
+    private <B extends Buffer> B prefix(B buffer) {
+        buffer.position(0);
+        buffer.limit(size);
+        return buffer;
+    }
+
+    private static ByteBuffer direct(int rows, int width) {
+        return ByteBuffer.allocateDirect(Math.multiplyExact(rows, width)).order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,82 @@
+package com.collins.expensetracker.cache;
+
+/**
+ * Point-in-time snapshot of cache counters.
+ */
+public class CacheStats {
+    private final String name;                              // Cache name, for reporting.
+    private final int size;                                 // Entries currently held.
+    private final int maxSize;                              // Entry bound.
+    private final long hits;                                // Lookups served from the cache.
+    private final long misses;                              // Lookups that went to the backing store.
+    private final long evictions;                           // Entries dropped to stay under maxSize (LRU).
+    private final long expirations;                         // Entries dropped because their TTL passed.
+    private final long invalidations;                       // Entries dropped because of a write.
+
+    public CacheStats(String name, int size, int maxSize, long hits, long misses,
+                      long evictions, long expirations, long invalidations) {
+        this.name = name;
+        this.size = size;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.invalidations = invalidations;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getExpirations() {
+        return expirations;
+    }
+
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * @return fraction of lookups served from the cache (0 when unused)
+     */
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "name='" + name + '\'' +
+                ", size=" + size +
+                ", maxSize=" + maxSize +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", hitRate=" + String.format("%.3f", getHitRate()) +
+                ", evictions=" + evictions +
+                ", expirations=" + expirations +
+                ", invalidations=" + invalidations +
+                '}';
+    }
+}
@@ -0,0 +1,193 @@
+package com.collins.expensetracker.cache;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Bounded, thread-safe LRU cache whose entries also expire after a fixed time to live.
+ * <p>
+ * Loads and writes can race: a reader may fetch a row, a writer updates and
+ * invalidates it, and then the reader caches the row it fetched before the
+ * write. To prevent that, callers take {@link #generation()} before loading
+ * and pass it to {@link #put(Object, Object, long)}; the put is dropped if
+ * anything was invalidated in between.
+ * <p>
+ * A cache keyed by something other than the row id (an email, a name) can
+ * be given a group function, usually the id. It then keeps a reverse index
+ * from group to keys, so {@link #invalidateGroup(Object)} drops a row's
+ * entries without scanning the cache.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class LruCache<K, V> {
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+        final Object group;                                 // groupOf(value), or null without a group function.
+
+        Entry(V value, long expiresAt, Object group) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.group = group;
+        }
+    }
+
+    private final String name;                              // Cache name, for reporting.
+    private final int maxSize;                              // Entry bound; least recently used go first.
+    private final long ttlNanos;                            // Time to live of each entry.
+    private final LinkedHashMap<K, Entry<V>> entries;       // Access-ordered, guarded by this.
+    private final Function<? super V, ?> groupOf;           // Null when entries are not grouped.
+    private final Map<Object, Set<K>> keysByGroup = new HashMap<>();   // Reverse index, guarded by this.
+
+    private long generation;                                // Bumped on every invalidation.
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    /**
+     * @param name    cache name used in statistics
+     * @param maxSize maximum number of entries
+     * @param ttl     how long an entry may be served after it was cached
+     */
+    public LruCache(String name, int maxSize, Duration ttl) {
+        this(name, maxSize, ttl, null);
+    }
+
+    /**
+     * @param name    cache name used in statistics
+     * @param maxSize maximum number of entries
+     * @param ttl     how long an entry may be served after it was cached
+     * @param groupOf group of a cached value, for {@link #invalidateGroup(Object)}; null for none
+     */
+    public LruCache(String name, int maxSize, Duration ttl, Function<? super V, ?> groupOf) {
+        if(maxSize < 1){
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        if(ttl.isNegative() || ttl.isZero()){
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.groupOf = groupOf;
+    }
+
+    /**
+     * @return the cached value, or null if absent or expired
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if(entry == null){
+            misses++;
+            return null;
+        }
+        if(System.nanoTime() - entry.expiresAt >= 0){
+            entries.remove(key);
+            unindex(key, entry);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     * @return the current invalidation generation, to be passed to {@link #put(Object, Object, long)}
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Caches a value loaded at the given generation, unless an invalidation happened since.
+     */
+    public synchronized void put(K key, V value, long loadedAt) {
+        if(loadedAt != generation){
+            return;
+        }
+        Entry<V> entry = new Entry<>(value, System.nanoTime() + ttlNanos, groupOf == null ? null : groupOf.apply(value));
+        Entry<V> previous = entries.put(key, entry);
+        if(previous != null){
+            unindex(key, previous);
+        }
+        if(entry.group != null){
+            keysByGroup.computeIfAbsent(entry.group, g -> new HashSet<>(2)).add(key);
+        }
+        if(entries.size() > maxSize){
+            Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+            Map.Entry<K, Entry<V>> evicted = eldest.next();
+            eldest.remove();
+            unindex(evicted.getKey(), evicted.getValue());
+            evictions++;
+        }
+    }
+
+    /**
+     * Drops one key.
+     */
+    public synchronized void invalidate(K key) {
+        generation++;
+        Entry<V> entry = entries.remove(key);
+        if(entry != null){
+            unindex(key, entry);
+            invalidations++;
+        }
+    }
+
+    /**
+     * Drops every key whose cached value is in the group, using the reverse index.
+     *
+     * @throws IllegalStateException if the cache has no group function
+     */
+    public synchronized void invalidateGroup(Object group) {
+        if(groupOf == null){
+            throw new IllegalStateException("Cache " + name + " has no group function");
+        }
+        generation++;
+        Set<K> keys = keysByGroup.remove(group);
+        if(keys == null){
+            return;
+        }
+        for (K key : keys) {
+            if(entries.remove(key) != null){
+                invalidations++;
+            }
+        }
+    }
+
+    /**
+     * Drops everything.
+     */
+    public synchronized void clear() {
+        generation++;
+        invalidations += entries.size();
+        entries.clear();
+        keysByGroup.clear();
+    }
+
+    public synchronized CacheStats getStats() {
+        return new CacheStats(name, entries.size(), maxSize, hits, misses, evictions, expirations, invalidations);
+    }
+
+    private void unindex(K key, Entry<V> entry){
+        if(entry.group == null){
+            return;
+        }
+        Set<K> keys = keysByGroup.get(entry.group);
+        if(keys != null && keys.remove(key) && keys.isEmpty()){
+            keysByGroup.remove(entry.group);
+        }
+    }
+}
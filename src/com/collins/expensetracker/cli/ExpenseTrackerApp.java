@@ -1,34 +1,194 @@
 package com.collins.expensetracker.cli;
 
+import com.collins.expensetracker.analytics.AnalyticsTransactionRepository;
+import com.collins.expensetracker.analytics.ColumnarTransactionStore;
 import com.collins.expensetracker.db.ConnectionFactory;
 import com.collins.expensetracker.db.DatabaseConfig;
+import com.collins.expensetracker.db.Migrations;
+import com.collins.expensetracker.db.QueryTracer;
+import com.collins.expensetracker.db.ReplicatedConnectionFactory;
+import com.collins.expensetracker.db.SchemaMigrator;
+import com.collins.expensetracker.io.CsvTransactionImporter;
+import com.collins.expensetracker.io.ImportResult;
+import com.collins.expensetracker.io.TransactionExporter;
+import com.collins.expensetracker.loadtest.LoadDriver;
+import com.collins.expensetracker.loadtest.LoadDriverConfig;
+import com.collins.expensetracker.loadtest.LoadReport;
+import com.collins.expensetracker.loadtest.SyntheticDataGenerator;
+import com.collins.expensetracker.metrics.MethodStats;
+import com.collins.expensetracker.metrics.MetricsRegistry;
 import com.collins.expensetracker.model.*;
 import com.collins.expensetracker.repository.*;
 import com.collins.expensetracker.service.CategoryService;
+import com.collins.expensetracker.service.InstrumentedCategoryService;
+import com.collins.expensetracker.service.InstrumentedTransactionService;
+import com.collins.expensetracker.service.InstrumentedUserService;
+import com.collins.expensetracker.service.RollupService;
 import com.collins.expensetracker.service.TransactionService;
 import com.collins.expensetracker.service.UserService;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 
 public class ExpenseTrackerApp {
 
     static Scanner scanner = new Scanner(System.in);
+    static final int PAGE_SIZE = 20;                    // Transactions shown per page when listing.
     public static int currentUserId = 0;
 
     public static void main(String[] args) {
 
-        DatabaseConfig config = new DatabaseConfig("jdbc:mysql://localhost:3306/expensetracker","root","Thisismanmad1@");
-        ConnectionFactory connectionFactory = new ConnectionFactory(config);
+        DatabaseConfig config = new DatabaseConfig("jdbc:mysql://localhost:3306/expensetracker?useServerPrepStmts=true&rewriteBatchedStatements=true&useCursorFetch=true","root","Thisismanmad1@");
+        // -Dexpensetracker.slowQueryMillis=N traces every statement and logs those taking N ms or more
+        // to -Dexpensetracker.slowQueryLog (default logs/slow-query.%g.log, 5 files of 10 MB).
+        QueryTracer tracer = null;
+        if(System.getProperty("expensetracker.slowQueryMillis") != null){
+            tracer = new QueryTracer(Long.getLong("expensetracker.slowQueryMillis", 500),
+                    System.getProperty("expensetracker.slowQueryLog", "logs/slow-query.%g.log"), 10 * 1024 * 1024, 5);
+            config.setQueryTracer(tracer);
+        }
+        // -Dexpensetracker.shards=url0,url1,... spreads users over several databases; shard 0 holds the directory.
+        String shardUrls = System.getProperty("expensetracker.shards");
+        List<ConnectionFactory> shards = new ArrayList<>();
+        // -Dexpensetracker.replicas=url1,url2,... sends read-only queries to replicas of the single database.
+        String replicaUrls = System.getProperty("expensetracker.replicas");
+        if(shardUrls == null || shardUrls.isBlank()){
+            if(replicaUrls == null || replicaUrls.isBlank()){
+                shards.add(new ConnectionFactory(config));
+            }else{
+                List<DatabaseConfig> replicas = new ArrayList<>();
+                for (String url : replicaUrls.split(",")) {
+                    DatabaseConfig replicaConfig = new DatabaseConfig(url.trim(), config.getUserName(), config.getPassword());
+                    replicaConfig.setQueryTracer(tracer);
+                    replicas.add(replicaConfig);
+                }
+                Duration readYourWrites = Duration.ofMillis(Long.getLong("expensetracker.readYourWritesMillis", 5_000));
+                shards.add(new ReplicatedConnectionFactory(config, replicas, readYourWrites));
+            }
+        }else{
+            if(replicaUrls != null && !replicaUrls.isBlank()){
+                System.out.println("Replicas are not supported with shards; reading from each shard's primary.");
+            }
+            for (String url : shardUrls.split(",")) {
+                DatabaseConfig shardConfig = new DatabaseConfig(url.trim(), config.getUserName(), config.getPassword());
+                shardConfig.setQueryTracer(tracer);
+                shards.add(new ConnectionFactory(ShardDirectory.configureShard(shardConfig, shards.size())));
+            }
+        }
+        // A write to a moving user waits out the whole move: the directory TTL, the statement
+        // grace, then the copy. -Dexpensetracker.moveCopyMillis sizes the copy for large users.
+        Duration directoryTtl = Duration.ofSeconds(30);
+        Duration moveWait = directoryTtl.plus(ShardMover.DEFAULT_STATEMENT_GRACE)
+                .plusMillis(Long.getLong("expensetracker.moveCopyMillis", 60_000));
+        ShardDirectory directory = shardUrls == null || shardUrls.isBlank()
+                ? null
+                : new ShardDirectory(shards, directoryTtl, moveWait);
+        ConnectionFactory connectionFactory = shards.get(0);
+
+        try{
+            for (ConnectionFactory shard : shards) {
+                new SchemaMigrator(shard, Migrations.all()).migrate();
+            }
+            if(directory != null){
+                directory.alignIdCounters();
+            }
+        }catch (RuntimeException e){
+            System.out.println("Could not prepare the database schema: " + e.getMessage());
+            closeAll(shards, tracer);
+            return;
+        }
+        if(args.length > 0 && args[0].equals("--verify-plans")){
+            boolean clean = true;
+            for (ConnectionFactory shard : shards) {
+                clean &= verifyQueryPlans(shard);
+            }
+            closeAll(shards, tracer);
+            if(!clean){
+                System.exit(1);
+            }
+            return;
+        }
+        if(args.length > 0 && args[0].equals("--move-user")){
+            moveUser(directory, args);
+            closeAll(shards, tracer);
+            return;
+        }
 
-        UserRepository userRepo = new JdbcUserRepository(connectionFactory);
-        UserService userService = new UserService(userRepo);
-        CategoryRepository categoryRepo= new JdbcCategoryRepository(connectionFactory);
-        CategoryService categoryService = new CategoryService(categoryRepo);
-        TransactionRepository transactionRepo =  new JdbcTransactionRepository(connectionFactory);
-        TransactionService transactionService = new TransactionService(transactionRepo);
+        // Every repository and service call is timed; see the stats menu option or JMX.
+        MetricsRegistry metrics = new MetricsRegistry();
+        metrics.registerWithJmx();
+        UserRepository userRepo = new InstrumentedUserRepository(new CachingUserRepository(
+                directory != null ? new ShardedUserRepository(directory) : new JdbcUserRepository(connectionFactory),
+                1000, Duration.ofMinutes(10)), metrics);
+        UserService userService = new InstrumentedUserService(userRepo, metrics);
+        CategoryRepository categoryRepo= new InstrumentedCategoryRepository(new CachingCategoryRepository(
+                directory != null ? new ShardedCategoryRepository(directory) : new JdbcCategoryRepository(connectionFactory),
+                5000, Duration.ofMinutes(10)), metrics);
+        CategoryService categoryService = new InstrumentedCategoryService(categoryRepo, metrics);
+        // -Dexpensetracker.writeBehind=true journals new transactions locally and commits them in batches.
+        // The journal commits to a single database, so it is not available with shards.
+        WriteBehindTransactionRepository writeBehindRepo = null;
+        TransactionRepository storeRepo;
+        if(directory != null){
+            if(Boolean.getBoolean("expensetracker.writeBehind")){
+                System.out.println("Write-behind is not supported with shards; writing through.");
+            }
+            storeRepo = new ShardedTransactionRepository(directory);
+        }else{
+            JdbcTransactionRepository jdbcTransactionRepo = new JdbcTransactionRepository(connectionFactory);
+            if(Boolean.getBoolean("expensetracker.writeBehind")){
+                writeBehindRepo = new WriteBehindTransactionRepository(jdbcTransactionRepo, connectionFactory, WriteBehindConfig.fromSystemProperties());
+            }
+            storeRepo = writeBehindRepo != null ? writeBehindRepo : jdbcTransactionRepo;
+        }
+        // -Dexpensetracker.analytics=true keeps every user's transactions in off-heap columns and
+        // answers summaries, time series and category totals from them.
+        AnalyticsTransactionRepository analyticsRepo = Boolean.getBoolean("expensetracker.analytics")
+                ? new AnalyticsTransactionRepository(storeRepo, new ColumnarTransactionStore(), categoryRepo)
+                : null;
+        TransactionRepository transactionRepo = new InstrumentedTransactionRepository(
+                new RangeCachingTransactionRepository(analyticsRepo != null ? analyticsRepo : storeRepo, 100_000), metrics);
+        TransactionService transactionService = new InstrumentedTransactionService(transactionRepo, metrics);
+
+        if(args.length > 0 && args[0].equals("--rebuild-rollups")){
+            for (int i = 0; i < shards.size(); i++) {
+                if(shards.size() > 1){
+                    System.out.println("Shard " + i + ":");
+                }
+                rebuildRollups(new RollupService(new JdbcMonthlyRollupRepository(shards.get(i))));
+            }
+            if(writeBehindRepo != null){
+                writeBehindRepo.close();
+            }
+            metrics.close();
+            closeAll(shards, tracer);
+            return;
+        }
+        if(analyticsRepo != null){
+            loadAnalytics(analyticsRepo, userRepo);
+        }
+        if(args.length > 0 && (args[0].equals("--generate-data") || args[0].equals("--load-test"))){
+            if(args[0].equals("--generate-data")){
+                generateData(userRepo, categoryRepo, transactionRepo, args);
+            }else{
+                runLoadTest(userService, categoryService, transactionService, args);
+                showStats(metrics, tracer);
+            }
+            if(writeBehindRepo != null){
+                writeBehindRepo.close();
+            }
+            metrics.close();
+            closeAll(shards, tracer);
+            return;
+        }
         int input = 0;
 
         do{
@@ -37,11 +197,154 @@ public class ExpenseTrackerApp {
             try{
                 input = Integer.parseInt(scanner.nextLine());
 
-                readOption(input, userService, categoryService, transactionService);
+                readOption(input, userService, categoryService, transactionService, metrics, tracer);
             }catch (NumberFormatException e){
                 System.out.println("Input is Not a passable integer");
             }
-        }while(input!=8);
+        }while(input!=12);
+
+        if(writeBehindRepo != null){
+            writeBehindRepo.close();
+        }
+        metrics.close();
+        closeAll(shards, tracer);
+    }
+
+    private static void loadAnalytics(AnalyticsTransactionRepository analyticsRepo, UserRepository userRepo) {
+        long start = System.nanoTime();
+        List<Integer> userIds = new ArrayList<>();
+        for (User user : userRepo.findAll()) {
+            userIds.add(user.getId());
+        }
+        try{
+            long rows = analyticsRepo.loadAll(userIds);
+            ColumnarTransactionStore store = analyticsRepo.getStore();
+            System.out.printf("Analytics: loaded %d transactions for %d users in %d ms (%.1f MB off-heap).%n", rows,
+                    store.getLoadedUsers(), (System.nanoTime() - start) / 1_000_000, store.getOffHeapBytes() / (1024.0 * 1024));
+        }catch (RuntimeException e){
+            // Users left unloaded are read on their first report instead.
+            System.out.println("Analytics: could not preload transactions: " + e.getMessage());
+        }
+    }
+
+    private static void moveUser(ShardDirectory directory, String[] args) {
+        System.out.println("****** Move user to another shard ******");
+        if(directory == null){
+            System.out.println("Moving users needs shards; set -Dexpensetracker.shards.");
+            return;
+        }
+        if(args.length < 3){
+            System.out.println("Usage: --move-user <userId> <shard> [--reconciled]");
+            System.out.println("  --reconciled: late writes an earlier move left behind have been merged by hand;");
+            System.out.println("                clear the flag so this move can delete them.");
+            return;
+        }
+        try{
+            int userId = Integer.parseInt(args[1]);
+            int target = Integer.parseInt(args[2]);
+            ShardMover mover = new ShardMover(directory);
+            if(args.length > 3 && args[3].equals("--reconciled")){
+                mover.markReconciled(userId);
+            }
+            long copied = mover.moveUser(userId, target);
+            System.out.println("User " + userId + " is on shard " + target + " (" + copied + " rows copied).");
+        }catch (NumberFormatException e){
+            System.out.println("User id and shard must be integers.");
+        }catch (RuntimeException e){
+            System.out.println("Move failed: " + e.getMessage());
+        }
+    }
+
+    private static void generateData(UserRepository userRepo, CategoryRepository categoryRepo,
+                                     TransactionRepository transactionRepo, String[] args) {
+        System.out.println("****** Generate synthetic data ******");
+        if(args.length < 4){
+            System.out.println("Usage: --generate-data <users> <categoriesPerUser> <transactionsPerUser> [historyMonths] [seed]");
+            return;
+        }
+        try{
+            int users = Integer.parseInt(args[1]);
+            int categoriesPerUser = Integer.parseInt(args[2]);
+            int transactionsPerUser = Integer.parseInt(args[3]);
+            int historyMonths = args.length > 4 ? Integer.parseInt(args[4]) : 24;
+            long seed = args.length > 5 ? Long.parseLong(args[5]) : 42;
+            List<Integer> userIds = new SyntheticDataGenerator(userRepo, categoryRepo, transactionRepo, historyMonths, seed)
+                    .generate(users, categoriesPerUser, transactionsPerUser);
+            System.out.println("Created " + userIds.size() + " users with " + categoriesPerUser + " categories and "
+                    + transactionsPerUser + " transactions each.");
+        }catch (NumberFormatException e){
+            System.out.println("Counts, history months and seed must be integers.");
+        }catch (RuntimeException e){
+            System.out.println("Generating data failed: " + e.getMessage());
+        }
+    }
+
+    private static void runLoadTest(UserService userService, CategoryService categoryService,
+                                    TransactionService transactionService, String[] args) {
+        System.out.println("****** Load test ******");
+        LoadDriverConfig loadConfig = new LoadDriverConfig();
+        try{
+            if(args.length > 1){
+                loadConfig.setThreads(Integer.parseInt(args[1]));
+            }
+            if(args.length > 2){
+                loadConfig.setDurationSeconds(Long.parseLong(args[2]));
+            }
+            if(args.length > 3){
+                loadConfig.setMix(args[3]);
+            }
+            loadConfig.setWarmupSeconds(Long.getLong("expensetracker.loadTest.warmupSeconds", loadConfig.getWarmupSeconds()));
+            loadConfig.setThinkTimeMillis(Long.getLong("expensetracker.loadTest.thinkTimeMillis", loadConfig.getThinkTimeMillis()));
+        }catch (IllegalArgumentException e){
+            System.out.println("Usage: --load-test [threads] [seconds] [add=20,range=45,summary=25,delete=10]");
+            System.out.println(e.getMessage());
+            return;
+        }
+
+        // Act as the synthetic users when there are any, so real accounts are left alone.
+        List<Integer> userIds = new ArrayList<>();
+        List<User> users = userService.getAllUsers();
+        for (User user : users) {
+            if(user.getEmail() != null && user.getEmail().startsWith(SyntheticDataGenerator.EMAIL_PREFIX)){
+                userIds.add(user.getId());
+            }
+        }
+        if(userIds.isEmpty()){
+            System.out.println("No synthetic users found; run --generate-data first.");
+            return;
+        }
+        System.out.println("Running " + loadConfig.getThreads() + " sessions over " + userIds.size() + " users for "
+                + loadConfig.getWarmupSeconds() + " s warmup and " + loadConfig.getDurationSeconds() + " s measured...");
+        try{
+            LoadReport report = new LoadDriver(transactionService, categoryService, userIds, loadConfig).run();
+            System.out.print(report);
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            System.out.println("Load test interrupted.");
+        }
+    }
+
+    private static void rebuildRollups(RollupService rollupService) {
+        System.out.println("****** Rebuild monthly rollups ******");
+        List<RollupMismatch> mismatches = rollupService.rebuildAndVerify();
+        if(mismatches.isEmpty()){
+            System.out.println("Monthly rollups rebuilt and verified.");
+        }else{
+            System.out.println("Monthly rollups disagree with transactions after rebuild:");
+            mismatches.forEach(System.out::println);
+        }
+    }
+
+    private static boolean verifyQueryPlans(ConnectionFactory connectionFactory) {
+        System.out.println("****** Verify query plans ******");
+        List<PlanViolation> violations = new QueryPlanVerifier(connectionFactory).verify();
+        if(violations.isEmpty()){
+            System.out.println("Every repository query uses an index.");
+            return true;
+        }
+        System.out.println("Queries that need a full table scan:");
+        violations.forEach(System.out::println);
+        return false;
     }
 
     public static void showMainMenu(){
@@ -57,12 +360,21 @@ public class ExpenseTrackerApp {
         System.out.println();
         System.out.print("Enter 6 to Show Monthly Summary for current User");
         System.out.println();
-        System.out.print("Enter 7 to Delete Transaction");
+        System.out.print("Enter 7 to Show Category Breakdown for current User");
         System.out.println();
-        System.out.print("Enter 8 to Exit: ");
+        System.out.print("Enter 8 to Delete Transaction");
+        System.out.println();
+        System.out.print("Enter 9 to Import Transactions from CSV for current User");
+        System.out.println();
+        System.out.print("Enter 10 to Export Transactions for current User");
+        System.out.println();
+        System.out.print("Enter 11 to Show Stats");
+        System.out.println();
+        System.out.print("Enter 12 to Exit: ");
     }
 
-    public static void readOption(int input, UserService userService, CategoryService categoryService, TransactionService transactionService){
+    public static void readOption(int input, UserService userService, CategoryService categoryService, TransactionService transactionService,
+                                  MetricsRegistry metrics, QueryTracer tracer){
 
         if(input==1){
             createUser(userService);
@@ -78,8 +390,16 @@ public class ExpenseTrackerApp {
             showMonthlySummary(userService, transactionService);
         }
         else if(input == 7){
-            deleteTransaction(transactionService, userService);
+            showCategoryBreakdown(userService, transactionService);
         }else if(input == 8){
+            deleteTransaction(transactionService, userService);
+        }else if(input == 9){
+            importTransactions(transactionService, userService, categoryService);
+        }else if(input == 10){
+            exportTransactions(transactionService, userService);
+        }else if(input == 11){
+            showStats(metrics, tracer);
+        }else if(input == 12){
             System.out.println();
             System.out.println("GoodBye!!!");
             System.out.println();
@@ -90,6 +410,97 @@ public class ExpenseTrackerApp {
         }
     }
 
+    private static void showStats(MetricsRegistry metrics, QueryTracer tracer) {
+        System.out.println("****** Stats ******");
+        List<MethodStats> methods = metrics.getMethods();
+        if(methods.isEmpty()){
+            System.out.println("Nothing has been called yet.");
+            return;
+        }
+        System.out.println(MetricsRegistry.HEADER);
+        methods.forEach(System.out::println);
+        System.out.println();
+        if(tracer != null){
+            System.out.println("SQL by total time (" + tracer.getSlowStatements() + " at or over "
+                    + tracer.getSlowThresholdMillis() + " ms were logged as slow):");
+            System.out.println(QueryTracer.HEADER);
+            tracer.getSqlStats().stream().limit(20).forEach(System.out::println);
+            System.out.println();
+        }
+    }
+
+    private static void closeAll(List<ConnectionFactory> shards, QueryTracer tracer) {
+        shards.forEach(ConnectionFactory::close);
+        if(tracer != null){
+            tracer.close();
+        }
+    }
+
+    private static void importTransactions(TransactionService transactionService, UserService userService, CategoryService categoryService) {
+        System.out.println();
+        System.out.println("****** Import transactions from CSV ******");
+        System.out.println();
+
+        if(currentUserId == 0){
+            selectActiveUser(userService);
+            if (currentUserId == 0) return;
+        }
+        System.out.print("Enter CSV file path (date,type,amount,category,description): ");
+        Path file = Paths.get(scanner.nextLine().trim());
+        System.out.print("Enter line to resume after (blank to start from the beginning): ");
+        String resume = scanner.nextLine().trim();
+        try{
+            long resumeAfterLine = resume.isEmpty() ? 0 : Long.parseLong(resume);
+
+            CsvTransactionImporter importer = new CsvTransactionImporter(transactionService, categoryService);
+            ImportResult result = importer.importFile(file, currentUserId, resumeAfterLine);
+            System.out.println(result);
+            result.getRejectedSamples().forEach(System.out::println);
+            if(!result.isCompleted()){
+                System.out.println("Import stopped early; resume after line " + result.getCommittedLine());
+            }
+            System.out.println();
+        }catch (NumberFormatException e){
+            System.out.println("Input is not a passable integer!");
+        }catch (IOException e){
+            System.out.println("Could not read file: " + e.getMessage());
+            System.out.println();
+        }
+    }
+
+    private static void exportTransactions(TransactionService transactionService, UserService userService) {
+        System.out.println();
+        System.out.println("****** Export transactions ******");
+        System.out.println();
+
+        if(currentUserId == 0){
+            selectActiveUser(userService);
+            if (currentUserId == 0) return;
+        }
+        System.out.print("Enter output file path (.csv for CSV, anything else for JSON Lines): ");
+        Path target = Paths.get(scanner.nextLine().trim());
+        TransactionExporter.Format format = target.toString().toLowerCase().endsWith(".csv")
+                ? TransactionExporter.Format.CSV
+                : TransactionExporter.Format.JSON_LINES;
+        System.out.print("Enter start date (yyyy-MM-dd, blank for all history): ");
+        String fromText = scanner.nextLine().trim();
+        System.out.print("Enter end date (yyyy-MM-dd, blank for no limit): ");
+        String toText = scanner.nextLine().trim();
+        try{
+            LocalDate from = fromText.isEmpty() ? null : LocalDate.parse(fromText);
+            LocalDate to = toText.isEmpty() ? null : LocalDate.parse(toText);
+
+            long count = new TransactionExporter(transactionService).export(currentUserId, from, to, format, target);
+            System.out.println(count + " transactions written to " + target);
+            System.out.println();
+        }catch (DateTimeParseException e){
+            System.out.println("Input is not a passable date!");
+        }catch (IOException e){
+            System.out.println("Could not write file: " + e.getMessage());
+            System.out.println();
+        }
+    }
+
     private static void deleteTransaction(TransactionService transactionService, UserService userService) {
         System.out.println();
         System.out.println("****** Delete transaction ******");
@@ -143,6 +554,42 @@ public class ExpenseTrackerApp {
 
     }
 
+    private static void showCategoryBreakdown(UserService userService, TransactionService transactionService) {
+        System.out.println();
+        System.out.println("****** Show category breakdown ******");
+        System.out.println();
+
+        if(currentUserId == 0){
+            selectActiveUser(userService);
+            if (currentUserId == 0) return;
+        }
+        System.out.print("Enter start date (yyyy-MM-dd): ");
+        String fromText = scanner.nextLine().trim();
+        System.out.print("Enter end date (yyyy-MM-dd): ");
+        String toText = scanner.nextLine().trim();
+        System.out.print("Enter how many of the largest expenses to show (blank for 5): ");
+        String topText = scanner.nextLine().trim();
+        try{
+            LocalDate from = LocalDate.parse(fromText);
+            LocalDate to = LocalDate.parse(toText);
+            int topN = topText.isEmpty() ? 5 : Integer.parseInt(topText);
+
+            CategoryBreakdown breakdown = transactionService.getCategoryBreakdown(currentUserId, from, to, topN);
+            System.out.println("Category breakdown for "+ userService.getUserById(currentUserId).getName()+": "+breakdown);
+            breakdown.getCategories().forEach(System.out::println);
+            System.out.println();
+            System.out.println("Largest expenses:");
+            breakdown.getLargestExpenses().forEach(System.out::println);
+            System.out.println();
+        }catch (DateTimeParseException e){
+            System.out.println("Input is not a passable date!");
+        }catch (NumberFormatException e){
+            System.out.println("Input is not a passable integer!");
+        }catch (IllegalArgumentException e){
+            System.out.println(e.getMessage());
+        }
+    }
+
     private static void listTransactions(TransactionService transactionService, UserService userService) {
         System.out.println();
         System.out.println("****** list transactions ******");
@@ -152,14 +599,26 @@ public class ExpenseTrackerApp {
             selectActiveUser(userService);
             if (currentUserId == 0) return;
         }
-        List<Transaction> transactions = transactionService.getTransactionForUser(currentUserId);
-        if(!transactions.isEmpty()) {
-            System.out.println("{ ");
-            transactions.forEach(System.out::println);
-            System.out.println(" }");
-        }else{
+        TransactionPage page = transactionService.getTransactionPage(currentUserId, PAGE_SIZE, null);
+        if(page.getTransactions().isEmpty()){
             System.out.println("No Transactions for this user yet!");
             System.out.println();
+            return;
+        }
+        while(true){
+            System.out.println("{ ");
+            page.getTransactions().forEach(System.out::println);
+            System.out.println(" }");
+            if(!page.hasNext()){
+                System.out.println();
+                return;
+            }
+            System.out.print("Enter n for the next page, anything else to stop: ");
+            if(!scanner.nextLine().trim().equalsIgnoreCase("n")){
+                System.out.println();
+                return;
+            }
+            page = transactionService.getTransactionPage(currentUserId, PAGE_SIZE, page.getNextCursor());
         }
     }
 
@@ -1,18 +1,72 @@
 package com.collins.expensetracker.db;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
-public class ConnectionFactory {
+/**
+ * Hands out JDBC connections backed by a bounded {@link ConnectionPool}.
+ * Callers close the returned connection as usual (try-with-resources);
+ * closing returns it to the pool rather than tearing down the socket.
+ */
+public class ConnectionFactory implements AutoCloseable {
     private final DatabaseConfig config;
+    private final ConnectionPool pool;
 
     public ConnectionFactory(DatabaseConfig config) {
         this.config = config;
+        this.pool = new ConnectionPool(config);
     }
 
     public Connection getConnection() throws SQLException{
 
-        return DriverManager.getConnection(config.getUrl(),config.getUserName(), config.getPassword());
+        return pool.borrow();
+    }
+
+    /**
+     * Returns a connection for a read-only query about one user's data.
+     * A plain factory serves it from the primary pool; a
+     * {@link ReplicatedConnectionFactory} may use a replica, unless the user
+     * wrote recently.
+     *
+     * @param userId the user whose rows the query reads
+     */
+    public Connection getReadConnection(int userId) throws SQLException{
+        return getConnection();
+    }
+
+    /**
+     * Returns a connection for a read-only query that is not tied to one user.
+     */
+    public Connection getReadConnection() throws SQLException{
+        return getConnection();
+    }
+
+    /**
+     * Notes that a user's rows were just changed on the primary, so that their
+     * next reads see the change. Call it after the write commits.
+     *
+     * @param userId the user whose rows changed
+     */
+    public void recordWrite(int userId){
+    }
+
+    /**
+     * @return current pool counters (active, idle, waits, leaks)
+     */
+    public PoolStats getPoolStats(){
+        return pool.getStats();
+    }
+
+    public DatabaseConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Closes idle connections and stops the pool housekeeper.
+     * Connections still borrowed are closed when they are returned.
+     */
+    @Override
+    public void close(){
+        pool.close();
     }
 }
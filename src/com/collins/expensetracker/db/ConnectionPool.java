@@ -0,0 +1,250 @@
+package com.collins.expensetracker.db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded pool of physical MySQL connections.
+ * <p>
+ * A fair semaphore caps the number of borrowed connections at
+ * {@link DatabaseConfig#getMaxPoolSize()}; borrowers that cannot get a permit
+ * within the connection timeout fail with {@link SQLTransientConnectionException}.
+ * Idle connections are reused most-recently-returned first and re-validated
+ * when they have been idle longer than the validation interval. A background
+ * housekeeper reports connections held past the leak threshold and closes
+ * idle connections that are surplus or past their maximum lifetime.
+ * Each physical connection carries its own {@link StatementCache}.
+ */
+class ConnectionPool implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(ConnectionPool.class.getName());
+
+    private final DatabaseConfig config;
+    private final Semaphore permits;                                        // One permit per borrowable connection.
+    private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> active = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger waitingThreads = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+    private final AtomicLong statementCacheEvictions = new AtomicLong();
+
+    ConnectionPool(DatabaseConfig config) {
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxPoolSize(), true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long period = config.getLeakDetectionThresholdMillis() > 0
+                ? Math.max(1_000, Math.min(30_000, config.getLeakDetectionThresholdMillis() / 2))
+                : 30_000;
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the configured connection timeout.
+     *
+     * @return logical connection; closing it returns it to the pool
+     * @throws SQLException if the pool is closed, the wait timed out or a new connection could not be opened
+     */
+    Connection borrow() throws SQLException {
+        if(closed){
+            throw new SQLException("Connection pool has been closed");
+        }
+
+        long start = System.nanoTime();
+        boolean acquired;
+        waitingThreads.incrementAndGet();
+        try{
+            acquired = permits.tryAcquire(config.getConnectionTimeoutMillis(), TimeUnit.MILLISECONDS);
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a pooled connection", e);
+        }finally {
+            waitingThreads.decrementAndGet();
+        }
+        recordWait(System.nanoTime() - start);
+
+        if(!acquired){
+            timeoutCount.incrementAndGet();
+            throw new SQLTransientConnectionException("Timed out after " + config.getConnectionTimeoutMillis()
+                    + "ms waiting for a pooled connection (active=" + active.size()
+                    + ", max=" + config.getMaxPoolSize() + ")");
+        }
+
+        try{
+            PooledConnection pooled = takeIdleOrCreate();
+            pooled.markBorrowed(config.getLeakDetectionThresholdMillis() > 0);
+            active.add(pooled);
+            borrowCount.incrementAndGet();
+            QueryTracer tracer = config.getQueryTracer();
+            return tracer == null ? pooled.newHandle() : tracer.wrap(pooled.newHandle(), System.nanoTime() - start);
+        }catch (SQLException | RuntimeException e){
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Called by a logical connection when the borrower closes it.
+     */
+    void release(PooledConnection pooled){
+        active.remove(pooled);
+        try{
+            if(closed || pooled.isBroken() || isExpired(pooled, System.currentTimeMillis()) || !pooled.reset()){
+                destroy(pooled);
+            }else{
+                pooled.lastReturnedAt = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+            }
+        }finally {
+            permits.release();
+        }
+    }
+
+    PoolStats getStats(){
+        long borrows = borrowCount.get();
+        return new PoolStats(totalConnections.get(), active.size(), idle.size(), waitingThreads.get(),
+                borrows, createdCount.get(), timeoutCount.get(), leakCount.get(), validationFailures.get(),
+                borrows == 0 ? 0 : totalWaitNanos.get() / borrows, maxWaitNanos.get(),
+                statementCacheHits.get(), statementCacheMisses.get(), statementCacheEvictions.get());
+    }
+
+    @Override
+    public void close(){
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while((pooled = idle.pollFirst()) != null){
+            destroy(pooled);
+        }
+        // Borrowed connections are destroyed as their borrowers close them.
+    }
+
+    private PooledConnection takeIdleOrCreate() throws SQLException {
+        PooledConnection pooled;
+        while((pooled = idle.pollFirst()) != null){
+            if(isUsable(pooled)){
+                return pooled;
+            }
+            destroy(pooled);
+        }
+        return create();
+    }
+
+    private boolean isUsable(PooledConnection pooled){
+        long now = System.currentTimeMillis();
+        if(isExpired(pooled, now)){
+            return false;
+        }
+        if(now - pooled.lastReturnedAt < config.getValidationIntervalMillis()){
+            return true;
+        }
+        try{
+            if(pooled.physical.isValid(config.getValidationTimeoutSeconds())){
+                return true;
+            }
+        }catch (SQLException e){
+            LOG.log(Level.FINE, "Validation query failed", e);
+        }
+        validationFailures.incrementAndGet();
+        return false;
+    }
+
+    private boolean isExpired(PooledConnection pooled, long now){
+        return config.getMaxLifetimeMillis() > 0 && now - pooled.createdAt > config.getMaxLifetimeMillis();
+    }
+
+    private PooledConnection create() throws SQLException {
+        Connection physical = DriverManager.getConnection(config.getUrl(), config.getUserName(), config.getPassword());
+        if(config.getSessionInitSql() != null){
+            try(Statement st = physical.createStatement()){
+                st.execute(config.getSessionInitSql());
+            }catch (SQLException e){
+                physical.close();
+                throw e;
+            }
+        }
+        totalConnections.incrementAndGet();
+        createdCount.incrementAndGet();
+        StatementCache statementCache = config.getStatementCacheSize() > 0
+                ? new StatementCache(physical, config.getStatementCacheSize(),
+                        statementCacheHits, statementCacheMisses, statementCacheEvictions)
+                : null;
+        return new PooledConnection(this, physical, statementCache);
+    }
+
+    private void destroy(PooledConnection pooled){
+        totalConnections.decrementAndGet();
+        try{
+            pooled.closePhysical();
+        }catch (SQLException e){
+            LOG.log(Level.FINE, "Error closing pooled connection", e);
+        }
+    }
+
+    private void recordWait(long nanos){
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private void housekeep(){
+        try{
+            long now = System.currentTimeMillis();
+
+            long leakThreshold = config.getLeakDetectionThresholdMillis();
+            if(leakThreshold > 0){
+                for (PooledConnection pooled : active) {
+                    if(!pooled.leakReported && now - pooled.borrowedAt > leakThreshold){
+                        pooled.leakReported = true;
+                        leakCount.incrementAndGet();
+                        LOG.log(Level.WARNING, "Connection held for " + (now - pooled.borrowedAt)
+                                + "ms without being closed; possible leak", pooled.borrowSite);
+                    }
+                }
+            }
+
+            // Oldest idle connections sit at the tail of the deque.
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while(it.hasNext()){
+                PooledConnection pooled = it.next();
+                boolean surplus = idle.size() > config.getMinIdle()
+                        && now - pooled.lastReturnedAt > config.getIdleTimeoutMillis();
+                if((surplus || isExpired(pooled, now)) && idle.remove(pooled)){
+                    destroy(pooled);
+                }
+            }
+        }catch (RuntimeException e){
+            LOG.log(Level.WARNING, "Connection pool housekeeping failed", e);
+        }
+    }
+}
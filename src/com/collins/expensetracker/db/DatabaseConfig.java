@@ -1,10 +1,28 @@
 package com.collins.expensetracker.db;
 
+/**
+ * Connection settings for the MySQL database plus the tuning knobs
+ * of the connection pool that sits behind {@link ConnectionFactory}.
+ * Pool settings have defaults suitable for the CLI and can be
+ * overridden with the setters before the factory is created.
+ */
 public class DatabaseConfig {
      private final String url;
      private final String userName;
      private final String password;
 
+     private int maxPoolSize = 10;                              // Upper bound on physical connections (active + idle).
+     private int minIdle = 2;                                   // Idle connections spared by the idle timeout; none are opened ahead of demand.
+     private long connectionTimeoutMillis = 30_000;             // How long a borrower waits for a free connection.
+     private long validationIntervalMillis = 30_000;            // Idle time after which a connection is re-validated on borrow.
+     private int validationTimeoutSeconds = 5;                  // Timeout passed to Connection.isValid.
+     private long idleTimeoutMillis = 600_000;                  // Idle connections above minIdle are closed after this.
+     private long maxLifetimeMillis = 1_800_000;                // Physical connections are retired after this age.
+     private long leakDetectionThresholdMillis = 60_000;        // Borrowed longer than this is reported as a leak; 0 disables.
+     private int statementCacheSize = 32;                       // Prepared statements cached per connection; 0 disables.
+     private String sessionInitSql;                             // Run once on every new physical connection; null for none.
+     private QueryTracer queryTracer;                           // Times every statement and logs slow ones; null disables tracing.
+
     public DatabaseConfig(String url, String userName, String password) {
         this.url = url;
         this.userName = userName;
@@ -22,4 +40,100 @@ public class DatabaseConfig {
     public String getPassword() {
         return password;
     }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public void setMaxPoolSize(int maxPoolSize) {
+        if(maxPoolSize < 1){
+            throw new IllegalArgumentException("maxPoolSize must be at least 1");
+        }
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public void setMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+    }
+
+    public long getConnectionTimeoutMillis() {
+        return connectionTimeoutMillis;
+    }
+
+    public void setConnectionTimeoutMillis(long connectionTimeoutMillis) {
+        this.connectionTimeoutMillis = connectionTimeoutMillis;
+    }
+
+    public long getValidationIntervalMillis() {
+        return validationIntervalMillis;
+    }
+
+    public void setValidationIntervalMillis(long validationIntervalMillis) {
+        this.validationIntervalMillis = validationIntervalMillis;
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    public long getMaxLifetimeMillis() {
+        return maxLifetimeMillis;
+    }
+
+    public void setMaxLifetimeMillis(long maxLifetimeMillis) {
+        this.maxLifetimeMillis = maxLifetimeMillis;
+    }
+
+    public long getLeakDetectionThresholdMillis() {
+        return leakDetectionThresholdMillis;
+    }
+
+    public void setLeakDetectionThresholdMillis(long leakDetectionThresholdMillis) {
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public String getSessionInitSql() {
+        return sessionInitSql;
+    }
+
+    public void setSessionInitSql(String sessionInitSql) {
+        this.sessionInitSql = sessionInitSql;
+    }
+
+    public QueryTracer getQueryTracer() {
+        return queryTracer;
+    }
+
+    /**
+     * Wraps every borrowed connection so its statements are timed and slow
+     * ones logged. One tracer may be shared by several configs, to get one
+     * set of statistics and one log across primaries, replicas and shards.
+     */
+    public void setQueryTracer(QueryTracer queryTracer) {
+        this.queryTracer = queryTracer;
+    }
 }
@@ -0,0 +1,49 @@
+package com.collins.expensetracker.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * One numbered step of the database schema.
+ * <p>
+ * MySQL commits DDL implicitly, so a migration cannot be rolled back as a
+ * unit. Every body must be idempotent: if it fails part way, running it
+ * again finishes the job.
+ */
+public class Migration {
+
+    @FunctionalInterface
+    public interface Body {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private final int version;                              // Applied in ascending order; never reused.
+    private final String description;                       // Recorded in schema_version.
+    private final Body body;
+
+    public Migration(int version, String description, Body body) {
+        this.version = version;
+        this.description = description;
+        this.body = body;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    void apply(Connection conn) throws SQLException {
+        body.apply(conn);
+    }
+
+    @Override
+    public String toString() {
+        return "Migration{" +
+                "version=" + version +
+                ", description='" + description + '\'' +
+                '}';
+    }
+}
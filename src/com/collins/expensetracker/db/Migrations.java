@@ -0,0 +1,206 @@
+package com.collins.expensetracker.db;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The application's schema history. Append new migrations with the next
+ * version number. Never edit a released one: databases that already ran it
+ * will not run it again.
+ */
+public final class Migrations {
+
+    private Migrations() {}
+
+    /**
+     * @return every migration, in version order
+     */
+    public static List<Migration> all() {
+        return Arrays.asList(
+                new Migration(1, "Base tables", Migrations::createBaseTables),
+                new Migration(2, "Lookup and reporting indexes", Migrations::createIndexes),
+                new Migration(3, "Monthly rollups", Migrations::createMonthlyRollups),
+                new Migration(4, "Write-behind checkpoints", Migrations::createWriteBehindCheckpoints),
+                new Migration(5, "User shard directory", Migrations::createUserShards),
+                new Migration(6, "Row versions for optimistic locking", Migrations::addRowVersions),
+                new Migration(7, "Write-behind dead letters", Migrations::createWriteBehindDeadLetters),
+                new Migration(8, "Shard move reconciliation marker", Migrations::addReconcileShard)
+        );
+    }
+
+    private static void createBaseTables(Connection conn) throws SQLException {
+        execute(conn, "CREATE TABLE IF NOT EXISTS users (" +
+                "id INT NOT NULL AUTO_INCREMENT PRIMARY KEY, " +
+                "name VARCHAR(100) NOT NULL, " +
+                "email VARCHAR(255) NOT NULL, " +
+                "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                "UNIQUE KEY uq_users_email (email))");
+        execute(conn, "CREATE TABLE IF NOT EXISTS categories (" +
+                "id INT NOT NULL AUTO_INCREMENT PRIMARY KEY, " +
+                "user_id INT NOT NULL, " +
+                "catName VARCHAR(100) NOT NULL, " +
+                "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+        execute(conn, "CREATE TABLE IF NOT EXISTS transactions (" +
+                "id INT NOT NULL AUTO_INCREMENT PRIMARY KEY, " +
+                "user_id INT NOT NULL, " +
+                "category_id INT NOT NULL, " +
+                "type VARCHAR(16) NOT NULL, " +
+                "amount DECIMAL(15, 2) NOT NULL, " +
+                "date DATE NOT NULL, " +
+                "description VARCHAR(255) NULL, " +
+                "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                "updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP)");
+    }
+
+    private static void createIndexes(Connection conn) throws SQLException {
+        // findByUserIdAndDateRange, streaming, keyset pages and series; InnoDB appends id to every secondary index.
+        createIndexIfMissing(conn, "transactions", "idx_transactions_user_date", "user_id", "date");
+        // Covers category totals (user, type, date range -> category, amount) without touching the rows.
+        createIndexIfMissing(conn, "transactions", "idx_transactions_user_type_date",
+                "user_id", "type", "date", "category_id", "amount");
+        createIndexIfMissing(conn, "categories", "idx_categories_user_name", "user_id", "catName");
+        createIndexIfMissing(conn, "users", "idx_users_email", "email");
+    }
+
+    private static void createMonthlyRollups(Connection conn) throws SQLException {
+        execute(conn, "CREATE TABLE IF NOT EXISTS monthly_rollups (" +
+                "user_id INT NOT NULL, " +
+                "year SMALLINT NOT NULL, " +
+                "month TINYINT NOT NULL, " +
+                "type VARCHAR(16) NOT NULL, " +
+                "total DECIMAL(15, 2) NOT NULL DEFAULT 0, " +
+                "count INT NOT NULL DEFAULT 0, " +
+                "PRIMARY KEY (user_id, year, month, type))");
+        // Backfill from history so summaries are right from the first call. Keyed on the table being
+        // empty rather than new, so a run that died between CREATE and INSERT backfills on the rerun.
+        if(isEmpty(conn, "monthly_rollups")){
+            execute(conn, "INSERT INTO monthly_rollups (user_id, year, month, type, total, count) " +
+                    "SELECT user_id, YEAR(date), MONTH(date), type, SUM(amount), COUNT(*) FROM transactions " +
+                    "GROUP BY user_id, YEAR(date), MONTH(date), type");
+        }
+    }
+
+    private static void createWriteBehindCheckpoints(Connection conn) throws SQLException {
+        execute(conn, "CREATE TABLE IF NOT EXISTS write_behind_checkpoints (" +
+                "journal VARCHAR(64) NOT NULL PRIMARY KEY, " +
+                "last_seq BIGINT NOT NULL)");
+    }
+
+    private static void createUserShards(Connection conn) throws SQLException {
+        // Only the directory shard's copy is read; every shard gets the table so any of them can take that role.
+        execute(conn, "CREATE TABLE IF NOT EXISTS user_shards (" +
+                "user_id INT NOT NULL PRIMARY KEY, " +
+                "shard INT NOT NULL, " +
+                "moving TINYINT NOT NULL DEFAULT 0, " +
+                "updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP)");
+    }
+
+    private static void addRowVersions(Connection conn) throws SQLException {
+        // Existing rows start at version 0, the same as new inserts.
+        for (String table : new String[]{"users", "categories", "transactions"}) {
+            if(!columnExists(conn, table, "version")){
+                execute(conn, "ALTER TABLE " + table + " ADD COLUMN version INT NOT NULL DEFAULT 0");
+            }
+        }
+    }
+
+    private static void createWriteBehindDeadLetters(Connection conn) throws SQLException {
+        // Journaled inserts the database rejected for good. Text columns, so a row too bad for
+        // transactions still fits here; the checkpoint moves past it in the same commit.
+        execute(conn, "CREATE TABLE IF NOT EXISTS write_behind_dead_letters (" +
+                "journal VARCHAR(64) NOT NULL, " +
+                "seq BIGINT NOT NULL, " +
+                "user_id INT NOT NULL, " +
+                "category_id INT NOT NULL, " +
+                "type VARCHAR(16) NULL, " +
+                "amount VARCHAR(64) NULL, " +
+                "date VARCHAR(10) NULL, " +
+                "description TEXT NULL, " +
+                "error TEXT NULL, " +
+                "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                "PRIMARY KEY (journal, seq))");
+    }
+
+    private static void addReconcileShard(Connection conn) throws SQLException {
+        // Set when a move left late writes on a shard; moves of that user are refused until it is cleared.
+        if(!columnExists(conn, "user_shards", "reconcile_shard")){
+            execute(conn, "ALTER TABLE user_shards ADD COLUMN reconcile_shard INT NULL");
+        }
+    }
+
+    /**
+     * Creates an index unless the table already has one with that name, or one whose
+     * leading columns are the requested ones (an equivalent index under another name).
+     *
+     * @return true if the index was created
+     */
+    public static boolean createIndexIfMissing(Connection conn, String table, String indexName, String... columns) throws SQLException {
+        String sql = "SELECT index_name, column_name FROM information_schema.statistics " +
+                "WHERE table_schema = DATABASE() AND table_name = ? ORDER BY index_name, seq_in_index";
+        Map<String, List<String>> indexes = new LinkedHashMap<>();
+        try(PreparedStatement ps = conn.prepareStatement(sql)){
+            ps.setString(1, table);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                indexes.computeIfAbsent(rs.getString(1).toLowerCase(Locale.ROOT), k -> new ArrayList<>())
+                        .add(rs.getString(2).toLowerCase(Locale.ROOT));
+            }
+        }
+
+        List<String> wanted = new ArrayList<>();
+        for (String column : columns) {
+            wanted.add(column.toLowerCase(Locale.ROOT));
+        }
+        for (Map.Entry<String, List<String>> index : indexes.entrySet()) {
+            List<String> existing = index.getValue();
+            if(index.getKey().equals(indexName.toLowerCase(Locale.ROOT))
+                    || (existing.size() >= wanted.size() && existing.subList(0, wanted.size()).equals(wanted))){
+                return false;
+            }
+        }
+
+        execute(conn, "CREATE INDEX " + indexName + " ON " + table + " (" + String.join(", ", columns) + ")");
+        return true;
+    }
+
+    /**
+     * @return true if the table exists in the current schema
+     */
+    public static boolean tableExists(Connection conn, String table) throws SQLException {
+        String sql = "SELECT 1 FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = ?";
+        try(PreparedStatement ps = conn.prepareStatement(sql)){
+            ps.setString(1, table);
+            return ps.executeQuery().next();
+        }
+    }
+
+    /**
+     * @return true if the table in the current schema has the column
+     */
+    public static boolean columnExists(Connection conn, String table, String column) throws SQLException {
+        String sql = "SELECT 1 FROM information_schema.columns " +
+                "WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ?";
+        try(PreparedStatement ps = conn.prepareStatement(sql)){
+            ps.setString(1, table);
+            ps.setString(2, column);
+            return ps.executeQuery().next();
+        }
+    }
+
+    private static boolean isEmpty(Connection conn, String table) throws SQLException {
+        try(Statement st = conn.createStatement()){
+            return !st.executeQuery("SELECT 1 FROM " + table + " LIMIT 1").next();
+        }
+    }
+
+    private static void execute(Connection conn, String sql) throws SQLException {
+        try(Statement st = conn.createStatement()){
+            st.executeUpdate(sql);
+        }
+    }
+}
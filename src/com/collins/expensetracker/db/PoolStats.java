@@ -0,0 +1,125 @@
+package com.collins.expensetracker.db;
+
+/**
+ * Point-in-time snapshot of connection pool counters.
+ */
+public class PoolStats {
+    private final int totalConnections;                     // Physical connections currently open.
+    private final int activeConnections;                    // Connections currently borrowed.
+    private final int idleConnections;                      // Connections waiting in the pool.
+    private final int waitingThreads;                       // Borrowers blocked waiting for a connection.
+    private final long totalBorrows;                        // Successful borrows since start.
+    private final long totalCreated;                        // Physical connections opened since start.
+    private final long timeouts;                            // Borrowers that gave up waiting.
+    private final long leaksDetected;                       // Connections held past the leak threshold.
+    private final long validationFailures;                  // Idle connections that failed validation.
+    private final long averageWaitNanos;                    // Mean time spent waiting for a permit.
+    private final long maxWaitNanos;                        // Longest time spent waiting for a permit.
+    private final long statementCacheHits;                  // prepareStatement calls served from the cache.
+    private final long statementCacheMisses;                // prepareStatement calls that reached the driver.
+    private final long statementCacheEvictions;             // Statements closed to make room (LRU).
+
+    public PoolStats(int totalConnections, int activeConnections, int idleConnections, int waitingThreads,
+                     long totalBorrows, long totalCreated, long timeouts, long leaksDetected,
+                     long validationFailures, long averageWaitNanos, long maxWaitNanos,
+                     long statementCacheHits, long statementCacheMisses, long statementCacheEvictions) {
+        this.totalConnections = totalConnections;
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.waitingThreads = waitingThreads;
+        this.totalBorrows = totalBorrows;
+        this.totalCreated = totalCreated;
+        this.timeouts = timeouts;
+        this.leaksDetected = leaksDetected;
+        this.validationFailures = validationFailures;
+        this.averageWaitNanos = averageWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+        this.statementCacheEvictions = statementCacheEvictions;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public int getWaitingThreads() {
+        return waitingThreads;
+    }
+
+    public long getTotalBorrows() {
+        return totalBorrows;
+    }
+
+    public long getTotalCreated() {
+        return totalCreated;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public long getLeaksDetected() {
+        return leaksDetected;
+    }
+
+    public long getValidationFailures() {
+        return validationFailures;
+    }
+
+    public long getAverageWaitNanos() {
+        return averageWaitNanos;
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos;
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits;
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses;
+    }
+
+    public long getStatementCacheEvictions() {
+        return statementCacheEvictions;
+    }
+
+    /**
+     * @return fraction of prepareStatement calls served from the statement cache (0 when unused)
+     */
+    public double getStatementCacheHitRate() {
+        long lookups = statementCacheHits + statementCacheMisses;
+        return lookups == 0 ? 0 : (double) statementCacheHits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStats{" +
+                "total=" + totalConnections +
+                ", active=" + activeConnections +
+                ", idle=" + idleConnections +
+                ", waiting=" + waitingThreads +
+                ", borrows=" + totalBorrows +
+                ", created=" + totalCreated +
+                ", timeouts=" + timeouts +
+                ", leaks=" + leaksDetected +
+                ", validationFailures=" + validationFailures +
+                ", avgWaitMs=" + averageWaitNanos / 1_000_000.0 +
+                ", maxWaitMs=" + maxWaitNanos / 1_000_000.0 +
+                ", stmtCacheHits=" + statementCacheHits +
+                ", stmtCacheMisses=" + statementCacheMisses +
+                ", stmtCacheEvictions=" + statementCacheEvictions +
+                '}';
+    }
+}
@@ -0,0 +1,213 @@
+package com.collins.expensetracker.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.Statement;
+
+/**
+ * A physical connection owned by a {@link ConnectionPool}, together with
+ * the bookkeeping the pool needs (age, last use, borrow site for leak reports).
+ * Borrowers never see this object directly; they get a logical handle from
+ * {@link #newHandle()} whose close() returns the connection to the pool.
+ * Statements created through the handle are wrapped too, so a fatal error
+ * from executing one marks the connection broken just like one from the
+ * connection itself.
+ */
+final class PooledConnection {
+
+    final Connection physical;                              // Real driver connection.
+    final long createdAt;                                   // Creation time, for max-lifetime retirement.
+    volatile long lastReturnedAt;                           // When it was last put back into the idle queue.
+    volatile long borrowedAt;                               // When the current borrower took it.
+    volatile Throwable borrowSite;                          // Stack of the current borrower, if leak detection is on.
+    volatile boolean leakReported;                          // Leak already logged for the current borrow.
+    volatile boolean broken;                                // A fatal error was seen; never reuse.
+
+    private final ConnectionPool pool;
+    private final StatementCache statementCache;            // Null when statement caching is disabled.
+    private boolean readOnlyChanged;                        // Borrower touched setReadOnly; reset on return.
+
+    PooledConnection(ConnectionPool pool, Connection physical, StatementCache statementCache) {
+        this.pool = pool;
+        this.physical = physical;
+        this.statementCache = statementCache;
+        this.createdAt = System.currentTimeMillis();
+        this.lastReturnedAt = createdAt;
+    }
+
+    void markBorrowed(boolean captureSite){
+        borrowedAt = System.currentTimeMillis();
+        borrowSite = captureSite ? new Throwable("Connection borrowed here") : null;
+        leakReported = false;
+    }
+
+    /**
+     * Creates the logical connection handed out to one borrower.
+     */
+    Connection newHandle(){
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new Handle());
+    }
+
+    /**
+     * Puts the physical connection back into a clean state before it is reused.
+     *
+     * @return false if the connection could not be reset and should be discarded
+     */
+    boolean reset(){
+        try{
+            if(!physical.getAutoCommit()){
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if(readOnlyChanged){
+                physical.setReadOnly(false);
+                readOnlyChanged = false;
+            }
+            physical.clearWarnings();
+            return true;
+        }catch (SQLException e){
+            return false;
+        }
+    }
+
+    /**
+     * Closes cached statements and the physical connection.
+     */
+    void closePhysical() throws SQLException {
+        if(statementCache != null){
+            statementCache.closeAll();
+        }
+        physical.close();
+    }
+
+    private static boolean isFatal(SQLException e){
+        String state = e.getSQLState();
+        return e instanceof SQLNonTransientConnectionException || (state != null && state.startsWith("08"));
+    }
+
+    /**
+     * @return true if the connection saw a fatal error, or the driver closed it after one
+     */
+    boolean isBroken(){
+        try{
+            return broken || physical.isClosed();
+        }catch (SQLException e){
+            return true;
+        }
+    }
+
+    private Throwable markIfFatal(Throwable t){
+        if(t instanceof SQLException && isFatal((SQLException) t)){
+            broken = true;
+        }
+        return t;
+    }
+
+    /**
+     * Invocation handler behind the logical connection. Everything except
+     * close/isClosed is forwarded to the physical connection.
+     */
+    private final class Handle implements InvocationHandler {
+        private boolean closed;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()){
+                case "close":
+                    if(!closed){
+                        closed = true;
+                        pool.release(PooledConnection.this);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection{" + physical + (closed ? ", returned" : "") + "}";
+                case "setReadOnly":
+                    readOnlyChanged = true;
+                    break;
+                default:
+                    break;
+            }
+            if(closed){
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            Object result;
+            try{
+                if(statementCache != null && isCacheablePrepare(method)){
+                    int autoGeneratedKeys = args.length == 2 ? (Integer) args[1] : -1;
+                    result = statementCache.prepare((Connection) proxy, (String) args[0], autoGeneratedKeys);
+                }else{
+                    result = method.invoke(physical, args);
+                }
+            }catch (InvocationTargetException e){
+                throw markIfFatal(e.getCause());
+            }catch (SQLException e){
+                throw markIfFatal(e);
+            }
+            if(result instanceof Statement){
+                return Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                        new Class<?>[]{method.getReturnType()}, new StatementHandle((Statement) result, (Connection) proxy));
+            }
+            return result;
+        }
+
+        /**
+         * Only prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys) are cached;
+         * the result-set-type and column-list variants go straight to the driver.
+         */
+        private boolean isCacheablePrepare(Method method){
+            if(!"prepareStatement".equals(method.getName())){
+                return false;
+            }
+            Class<?>[] params = method.getParameterTypes();
+            return params.length == 1 || (params.length == 2 && params[1] == int.class);
+        }
+    }
+
+    /**
+     * Invocation handler behind a statement created on the logical connection; it only
+     * watches for fatal errors, so a connection that died mid-query is not pooled again.
+     */
+    private final class StatementHandle implements InvocationHandler {
+        private final Statement target;
+        private final Connection logical;
+
+        StatementHandle(Statement target, Connection logical) {
+            this.target = target;
+            this.logical = logical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()){
+                case "getConnection":
+                    return logical;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return target.toString();
+                default:
+                    break;
+            }
+            try{
+                return method.invoke(target, args);
+            }catch (InvocationTargetException e){
+                throw markIfFatal(e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.collins.expensetracker.db;
+
+import com.collins.expensetracker.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Times JDBC work phase by phase, aggregates it by normalized SQL and logs slow statements.
+ * <p>
+ * Set a tracer on {@link DatabaseConfig#setQueryTracer}. The pool then
+ * hands out connections wrapped in a tracing proxy, which reports the
+ * phases of each execution: connection wait, prepare, execute and row
+ * fetching. Statements that differ only in literals or IN-list length
+ * share one {@link SqlStats}. An execution whose phases add up to more
+ * than the threshold is written to the slow-query log, with its bound
+ * parameters and row count. Without a log file, it goes to this class's
+ * logger instead.
+ * <p>
+ * Tracing adds a reflective proxy call per JDBC call and two clock reads
+ * per row. Leave it off unless you are looking for something.
+ */
+public class QueryTracer implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(QueryTracer.class.getName());
+
+    public static final String HEADER = String.format(Locale.ROOT, "%9s %6s %10s %9s %9s %9s %9s %9s  %s",
+            "execs", "errors", "rows", "conn ms", "prep ms", "exec ms", "fetch ms", "p99 ms", "sql");
+
+    private static final int MAX_STATEMENTS = 1_000;            // Distinct statements tracked; the rest share one entry.
+    private static final String OTHER = "(other statements)";
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern VALUES_ROWS = Pattern.compile("(\\(\\?(?:, \\?)*\\))(?:\\s*,\\s*\\(\\?(?:, \\?)*\\))+");
+
+    private final long slowThresholdNanos;
+    private final SlowQueryLog slowLog;                         // Null logs slow statements to LOG.
+    private final ConcurrentHashMap<String, SqlStats> stats = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> normalized = new ConcurrentHashMap<>();  // Raw SQL to normalized.
+    private final LatencyHistogram connects = new LatencyHistogram();                       // Pool wait per borrow.
+    private final LongAdder slowStatements = new LongAdder();
+
+    /**
+     * A tracer that logs slow statements through java.util.logging.
+     *
+     * @param slowThresholdMillis executions at least this long are logged; 0 logs everything
+     */
+    public QueryTracer(long slowThresholdMillis) {
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        this.slowLog = null;
+    }
+
+    /**
+     * A tracer that writes slow statements to rotating files.
+     *
+     * @param slowThresholdMillis executions at least this long are logged; 0 logs everything
+     * @param logPattern          {@link java.util.logging.FileHandler} pattern, e.g. {@code logs/slow-query.%g.log}
+     * @param maxBytes            size at which the log rotates
+     * @param files               number of log files kept
+     */
+    public QueryTracer(long slowThresholdMillis, String logPattern, int maxBytes, int files) {
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        try{
+            this.slowLog = new SlowQueryLog(logPattern, maxBytes, files);
+        }catch (IOException e){
+            throw new RuntimeException("Could not open the slow query log " + logPattern, e);
+        }
+    }
+
+    /**
+     * Wraps a borrowed connection so that its statements are traced.
+     *
+     * @param acquireNanos how long the borrower waited for it
+     */
+    Connection wrap(Connection connection, long acquireNanos) {
+        connects.record(acquireNanos);
+        return TracingConnection.wrap(connection, this, acquireNanos);
+    }
+
+    /**
+     * Records one finished execution. Phases are in nanoseconds.
+     */
+    void record(String sql, String parameters, long connect, long prepare, long execute, long fetch, long rows, boolean failed) {
+        String key = normalized.computeIfAbsent(sql, QueryTracer::normalize);
+        SqlStats entry = stats.get(key);
+        if(entry == null){
+            entry = stats.size() < MAX_STATEMENTS
+                    ? stats.computeIfAbsent(key, SqlStats::new)
+                    : stats.computeIfAbsent(OTHER, SqlStats::new);
+        }
+        entry.record(connect, prepare, execute, fetch, rows, failed);
+
+        long total = connect + prepare + execute + fetch;
+        if(total >= slowThresholdNanos){
+            slowStatements.increment();
+            String line = String.format(Locale.ROOT,
+                    "total=%.3fms connect=%.3fms prepare=%.3fms execute=%.3fms fetch=%.3fms rows=%d%s sql=\"%s\" params=%s",
+                    total / 1e6, connect / 1e6, prepare / 1e6, execute / 1e6, fetch / 1e6, rows, failed ? " FAILED" : "",
+                    collapseWhitespace(sql), parameters);
+            if(slowLog != null){
+                slowLog.write(line);
+            }else{
+                LOG.warning("Slow query: " + line);
+            }
+        }
+        if(normalized.size() > MAX_STATEMENTS * 10){
+            // Statements built with literals would grow this forever; start over.
+            normalized.clear();
+        }
+    }
+
+    /**
+     * @return statistics per normalized statement, most total time first
+     */
+    public List<SqlStats> getSqlStats() {
+        List<SqlStats> list = new ArrayList<>(stats.values());
+        list.sort(Comparator.comparingLong(SqlStats::getTotalNanos).reversed());
+        return list;
+    }
+
+    /**
+     * @return time borrowers waited for a pooled connection, in nanoseconds
+     */
+    public LatencyHistogram getConnectLatencies() {
+        return connects;
+    }
+
+    /**
+     * @return executions that reached the slow-query threshold
+     */
+    public long getSlowStatements() {
+        return slowStatements.sum();
+    }
+
+    public long getSlowThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowThresholdNanos);
+    }
+
+    public void reset() {
+        stats.values().forEach(SqlStats::reset);
+        connects.reset();
+        slowStatements.reset();
+    }
+
+    @Override
+    public void close() {
+        if(slowLog != null){
+            slowLog.close();
+        }
+    }
+
+    /**
+     * Reduces a statement to its shape. String and number literals become
+     * {@code ?}, runs of whitespace become one space, and IN lists or
+     * multi-row VALUES of placeholders collapse to a single entry.
+     */
+    public static String normalize(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if(c == '\'' || c == '"'){
+                i = skipQuoted(sql, i, c);
+                out.append('?');
+            }else if(Character.isDigit(c) && (out.length() == 0 || !isIdentifierPart(out.charAt(out.length() - 1)))){
+                while (i < sql.length() && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                out.append('?');
+            }else if(Character.isWhitespace(c)){
+                while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if(out.length() > 0){
+                    out.append(' ');
+                }
+            }else{
+                out.append(c);
+                i++;
+            }
+        }
+        String shape = out.toString().trim();
+        shape = IN_LIST.matcher(shape).replaceAll("IN (?, ...)");
+        return VALUES_ROWS.matcher(shape).replaceAll("$1, ...");
+    }
+
+    private static int skipQuoted(String sql, int start, char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if(c == '\\'){
+                i += 2;
+            }else if(c == quote){
+                if(i + 1 < sql.length() && sql.charAt(i + 1) == quote){
+                    i += 2;
+                }else{
+                    return i + 1;
+                }
+            }else{
+                i++;
+            }
+        }
+        return i;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '`';
+    }
+
+    private static String collapseWhitespace(String sql) {
+        return sql.trim().replaceAll("\\s+", " ").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,156 @@
+package com.collins.expensetracker.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link ConnectionFactory} that sends read-only queries to replicas.
+ * <p>
+ * Writes, and anything that asks for {@link #getConnection()}, use the
+ * primary pool. Read connections come from the replica with the fewest
+ * borrowed connections; ties rotate. Replication is asynchronous, so each
+ * user gets a session token: the time of their last write, set by
+ * {@link #recordWrite(int)}. Within {@code readYourWritesWindow} of that
+ * write, the user's reads go to the primary, so they see their own changes.
+ * Pick a window comfortably above the replicas' usual lag.
+ * <p>
+ * A replica that refuses connections is skipped for a while and its reads
+ * fall back to the primary. A replica that is only busy (borrow timeout)
+ * is not marked down.
+ */
+public class ReplicatedConnectionFactory extends ConnectionFactory {
+
+    private static final Logger LOG = Logger.getLogger(ReplicatedConnectionFactory.class.getName());
+    private static final long REPLICA_RETRY_NANOS = Duration.ofSeconds(30).toNanos();
+    private static final int SWEEP_EVERY_WRITES = 1024;
+
+    private final List<DatabaseConfig> replicaConfigs;
+    private final List<ConnectionPool> replicas;
+    private final long windowNanos;                                 // Reads this soon after a write go to the primary.
+    private final ConcurrentHashMap<Integer, Long> lastWrites;      // Session tokens: user id -> nanoTime of last write.
+    private final AtomicLongArray downUntil;                        // Per replica: nanoTime before which it is skipped; 0 when up.
+    private final AtomicInteger nextReplica = new AtomicInteger();  // Rotates the starting point for tie breaks.
+    private final AtomicInteger writesSinceSweep = new AtomicInteger();
+
+    private final AtomicLong replicaReads = new AtomicLong();
+    private final AtomicLong primaryReads = new AtomicLong();       // Reads pinned to the primary by a recent write.
+    private final AtomicLong fallbackReads = new AtomicLong();      // Reads sent to the primary because no replica was usable.
+
+    /**
+     * @param primary              settings of the primary, which takes every write
+     * @param replicas             settings of each replica; may be empty
+     * @param readYourWritesWindow how long after a user's write their reads stay on the primary
+     */
+    public ReplicatedConnectionFactory(DatabaseConfig primary, List<DatabaseConfig> replicas, Duration readYourWritesWindow) {
+        super(primary);
+        this.replicaConfigs = new ArrayList<>(replicas);
+        this.replicas = new ArrayList<>();
+        for (DatabaseConfig replica : replicas) {
+            this.replicas.add(new ConnectionPool(replica));
+        }
+        this.windowNanos = readYourWritesWindow.toNanos();
+        this.lastWrites = new ConcurrentHashMap<>();
+        this.downUntil = new AtomicLongArray(replicas.size());
+    }
+
+    @Override
+    public Connection getReadConnection(int userId) throws SQLException {
+        Long lastWrite = lastWrites.get(userId);
+        if(lastWrite != null && System.nanoTime() - lastWrite < windowNanos){
+            primaryReads.incrementAndGet();
+            return getConnection();
+        }
+        return getReadConnection();
+    }
+
+    @Override
+    public Connection getReadConnection() throws SQLException {
+        long now = System.nanoTime();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), Math.max(1, replicas.size()));
+        int chosen = -1;
+        int fewestActive = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            int replica = (start + i) % replicas.size();
+            long down = downUntil.get(replica);
+            if(down != 0 && now - down < 0){
+                continue;
+            }
+            int active = replicas.get(replica).getStats().getActiveConnections();
+            if(active < fewestActive){
+                fewestActive = active;
+                chosen = replica;
+            }
+        }
+
+        if(chosen >= 0){
+            try{
+                Connection conn = replicas.get(chosen).borrow();
+                downUntil.set(chosen, 0);
+                replicaReads.incrementAndGet();
+                return conn;
+            }catch (SQLTransientConnectionException e){
+                LOG.log(Level.FINE, "Replica " + replicaConfigs.get(chosen).getUrl() + " is busy; reading from the primary", e);
+            }catch (SQLException e){
+                downUntil.set(chosen, now + REPLICA_RETRY_NANOS);
+                LOG.log(Level.WARNING, "Replica " + replicaConfigs.get(chosen).getUrl()
+                        + " is unreachable; reading from the primary for the next 30s", e);
+            }
+        }
+        fallbackReads.incrementAndGet();
+        return getConnection();
+    }
+
+    @Override
+    public void recordWrite(int userId) {
+        long now = System.nanoTime();
+        lastWrites.put(userId, now);
+        if(writesSinceSweep.incrementAndGet() >= SWEEP_EVERY_WRITES){
+            writesSinceSweep.set(0);
+            lastWrites.values().removeIf(written -> now - written >= windowNanos);
+        }
+    }
+
+    /**
+     * @return pool counters of each replica, in configuration order
+     */
+    public List<PoolStats> getReplicaPoolStats() {
+        List<PoolStats> stats = new ArrayList<>();
+        for (ConnectionPool replica : replicas) {
+            stats.add(replica.getStats());
+        }
+        return stats;
+    }
+
+    public long getReplicaReads() {
+        return replicaReads.get();
+    }
+
+    public long getPrimaryReads() {
+        return primaryReads.get();
+    }
+
+    public long getFallbackReads() {
+        return fallbackReads.get();
+    }
+
+    /**
+     * Closes the replica pools and then the primary pool.
+     */
+    @Override
+    public void close() {
+        for (ConnectionPool replica : replicas) {
+            replica.close();
+        }
+        super.close();
+    }
+}
@@ -0,0 +1,141 @@
+package com.collins.expensetracker.db;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Brings the database schema up to date at startup.
+ * <p>
+ * Applied versions are recorded in {@code schema_version}. Pending
+ * migrations run in version order, each recorded as soon as it succeeds.
+ * A MySQL named lock stops two processes starting together from
+ * migrating at the same time.
+ */
+public class SchemaMigrator {
+
+    private static final Logger LOG = Logger.getLogger(SchemaMigrator.class.getName());
+
+    private static final String CREATE_VERSION_TABLE_SQL = "CREATE TABLE IF NOT EXISTS schema_version (" +
+            "version INT NOT NULL PRIMARY KEY, " +
+            "description VARCHAR(200) NOT NULL, " +
+            "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)";
+    private static final String APPLIED_SQL = "SELECT version FROM schema_version";
+    private static final String RECORD_SQL = "INSERT INTO schema_version (version, description) VALUES (?, ?)";
+    private static final String LOCK_SQL = "SELECT GET_LOCK('expensetracker.schema', ?)";
+    private static final String UNLOCK_SQL = "SELECT RELEASE_LOCK('expensetracker.schema')";
+
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+
+    private final ConnectionFactory connectionFactory;
+    private final List<Migration> migrations;
+
+    /**
+     * @param connectionFactory source of the connection the migrations run on
+     * @param migrations        every migration the application knows about
+     */
+    public SchemaMigrator(ConnectionFactory connectionFactory, List<Migration> migrations) {
+        this.connectionFactory = connectionFactory;
+        this.migrations = new ArrayList<>(migrations);
+        this.migrations.sort(Comparator.comparingInt(Migration::getVersion));
+        for (int i = 1; i < this.migrations.size(); i++) {
+            if(this.migrations.get(i).getVersion() == this.migrations.get(i - 1).getVersion()){
+                throw new IllegalArgumentException("Duplicate migration version " + this.migrations.get(i).getVersion());
+            }
+        }
+    }
+
+    /**
+     * Applies every migration not yet recorded in schema_version.
+     *
+     * @return the migrations that were applied, in order
+     */
+    public List<Migration> migrate() {
+        try(Connection conn = connectionFactory.getConnection()){
+            lock(conn);
+            try{
+                try(Statement st = conn.createStatement()){
+                    st.executeUpdate(CREATE_VERSION_TABLE_SQL);
+                }
+                Set<Integer> applied = appliedVersions(conn);
+
+                List<Migration> ran = new ArrayList<>();
+                for (Migration migration : migrations) {
+                    if(applied.contains(migration.getVersion())){
+                        continue;
+                    }
+                    LOG.log(Level.INFO, "Applying schema migration " + migration.getVersion() + ": " + migration.getDescription());
+                    try{
+                        migration.apply(conn);
+                    }catch (SQLException e){
+                        throw new SQLException("Schema migration " + migration.getVersion() + " ("
+                                + migration.getDescription() + ") failed", e);
+                    }
+                    try(PreparedStatement ps = conn.prepareStatement(RECORD_SQL)){
+                        ps.setInt(1, migration.getVersion());
+                        ps.setString(2, migration.getDescription());
+                        ps.executeUpdate();
+                    }
+                    ran.add(migration);
+                }
+                return ran;
+            }finally {
+                unlock(conn);
+            }
+        }catch (SQLException e){
+            throw new RuntimeException("Failed to migrate database schema", e);
+        }
+    }
+
+    /**
+     * @return the highest applied version, or 0 for an empty database
+     */
+    public int currentVersion() {
+        try(Connection conn = connectionFactory.getConnection()){
+            try(Statement st = conn.createStatement()){
+                st.executeUpdate(CREATE_VERSION_TABLE_SQL);
+            }
+            int current = 0;
+            for (int version : appliedVersions(conn)) {
+                current = Math.max(current, version);
+            }
+            return current;
+        }catch (SQLException e){
+            throw new RuntimeException("Failed to read schema version", e);
+        }
+    }
+
+    private static Set<Integer> appliedVersions(Connection conn) throws SQLException {
+        Set<Integer> applied = new HashSet<>();
+        try(PreparedStatement ps = conn.prepareStatement(APPLIED_SQL)){
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                applied.add(rs.getInt(1));
+            }
+        }
+        return applied;
+    }
+
+    private static void lock(Connection conn) throws SQLException {
+        try(PreparedStatement ps = conn.prepareStatement(LOCK_SQL)){
+            ps.setInt(1, LOCK_TIMEOUT_SECONDS);
+            ResultSet rs = ps.executeQuery();
+            if(!rs.next() || rs.getInt(1) != 1){
+                throw new SQLException("Timed out waiting for another process to finish migrating the schema");
+            }
+        }
+    }
+
+    private static void unlock(Connection conn){
+        try(PreparedStatement ps = conn.prepareStatement(UNLOCK_SQL)){
+            ps.executeQuery();
+        }catch (SQLException e){
+            LOG.log(Level.FINE, "Could not release schema lock", e);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.collins.expensetracker.db;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Size-rotated file of statements that ran longer than the slow-query threshold.
+ * <p>
+ * Built on {@link FileHandler}. The pattern works as it does there:
+ * {@code %g} is the generation number, and {@code slow-query.0.log} is
+ * always the newest file. Each entry is one line, so the log can be
+ * grepped and tailed.
+ */
+final class SlowQueryLog implements AutoCloseable {
+
+    private final FileHandler handler;
+
+    /**
+     * @param pattern  file name pattern, e.g. {@code logs/slow-query.%g.log}
+     * @param maxBytes size at which the current file is rotated
+     * @param files    number of files kept
+     */
+    SlowQueryLog(String pattern, int maxBytes, int files) throws IOException {
+        Path parent = Paths.get(pattern).toAbsolutePath().getParent();
+        if(parent != null){
+            Files.createDirectories(parent);
+        }
+        handler = new FileHandler(pattern, maxBytes, files, true);
+        handler.setEncoding("UTF-8");
+        handler.setFormatter(new Formatter() {
+            @Override
+            public String format(LogRecord record) {
+                return Instant.ofEpochMilli(record.getMillis()) + " " + record.getMessage() + System.lineSeparator();
+            }
+        });
+    }
+
+    void write(String entry) {
+        handler.publish(new LogRecord(Level.WARNING, entry));
+    }
+
+    @Override
+    public void close() {
+        handler.close();
+    }
+}
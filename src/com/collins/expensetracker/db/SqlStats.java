@@ -0,0 +1,110 @@
+package com.collins.expensetracker.db;
+
+import com.collins.expensetracker.metrics.LatencyHistogram;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals for every execution of one normalized SQL statement, split by phase.
+ * <p>
+ * The phases are:
+ * <ul>
+ *     <li>connect: waiting for a pooled connection. It is charged to the
+ *     first statement run on the connection.</li>
+ *     <li>prepare: {@code prepareStatement}. It is charged to the first
+ *     execution.</li>
+ *     <li>execute: the {@code execute*} call.</li>
+ *     <li>fetch: time spent in {@code ResultSet.next()}.</li>
+ * </ul>
+ */
+public class SqlStats {
+    private final String sql;                                   // Normalized: literals and IN lists collapsed.
+    private final LatencyHistogram totals = new LatencyHistogram();     // Whole execution, all phases.
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();             // Rows fetched, or rows changed by updates.
+    private final LongAdder connectNanos = new LongAdder();
+    private final LongAdder prepareNanos = new LongAdder();
+    private final LongAdder executeNanos = new LongAdder();
+    private final LongAdder fetchNanos = new LongAdder();
+
+    SqlStats(String sql) {
+        this.sql = sql;
+    }
+
+    void record(long connect, long prepare, long execute, long fetch, long rowCount, boolean failed) {
+        totals.record(connect + prepare + execute + fetch);
+        connectNanos.add(connect);
+        prepareNanos.add(prepare);
+        executeNanos.add(execute);
+        fetchNanos.add(fetch);
+        rows.add(rowCount);
+        if(failed){
+            errors.increment();
+        }
+    }
+
+    void reset() {
+        totals.reset();
+        errors.reset();
+        rows.reset();
+        connectNanos.reset();
+        prepareNanos.reset();
+        executeNanos.reset();
+        fetchNanos.reset();
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public long getExecutions() {
+        return totals.getCount();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getTotalNanos() {
+        return connectNanos.sum() + prepareNanos.sum() + executeNanos.sum() + fetchNanos.sum();
+    }
+
+    public long getConnectNanos() {
+        return connectNanos.sum();
+    }
+
+    public long getPrepareNanos() {
+        return prepareNanos.sum();
+    }
+
+    public long getExecuteNanos() {
+        return executeNanos.sum();
+    }
+
+    public long getFetchNanos() {
+        return fetchNanos.sum();
+    }
+
+    /**
+     * @return latencies of whole executions, in nanoseconds
+     */
+    public LatencyHistogram getLatencies() {
+        return totals;
+    }
+
+    /**
+     * @return one line: counts, then mean milliseconds per execution for each phase, p99 and the SQL
+     */
+    @Override
+    public String toString() {
+        long n = Math.max(1, getExecutions());
+        return String.format(Locale.ROOT, "%9d %6d %10d %9.3f %9.3f %9.3f %9.3f %9.3f  %s",
+                getExecutions(), getErrors(), getRows(), connectNanos.sum() / 1e6 / n, prepareNanos.sum() / 1e6 / n,
+                executeNanos.sum() / 1e6 / n, fetchNanos.sum() / 1e6 / n, totals.getPercentile(99) / 1e6, sql);
+    }
+}
@@ -0,0 +1,251 @@
+package com.collins.expensetracker.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * LRU cache of prepared statements attached to one physical connection.
+ * <p>
+ * Statements are keyed by SQL text and generated-keys mode. A cached
+ * statement is handed out wrapped in a proxy whose close() only closes the
+ * result sets it produced and clears its parameters, so the next
+ * {@code prepareStatement} with the same SQL skips the driver (and, with
+ * server-side prepares, the server parse) entirely. Only one borrower uses
+ * a physical connection at a time, so no locking is needed here.
+ */
+final class StatementCache {
+
+    private static final Logger LOG = Logger.getLogger(StatementCache.class.getName());
+
+    private final Connection physical;
+    private final LinkedHashMap<Key, Entry> entries;
+    private final AtomicLong hits;                          // Shared with the pool for PoolStats.
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+
+    StatementCache(Connection physical, int maxSize, AtomicLong hits, AtomicLong misses, AtomicLong evictions) {
+        this.physical = physical;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if(size() <= maxSize){
+                    return false;
+                }
+                StatementCache.this.evictions.incrementAndGet();
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns a prepared statement for the SQL, reusing a cached one when it is free.
+     *
+     * @param logical           logical connection to report from getConnection()
+     * @param sql               statement text
+     * @param autoGeneratedKeys a Statement generated-keys constant, or -1 for the single-argument form
+     */
+    PreparedStatement prepare(Connection logical, String sql, int autoGeneratedKeys) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        Entry entry = entries.get(key);
+        if(entry != null && entry.evicted){
+            entries.remove(key);
+            entry = null;
+        }
+        if(entry != null && !entry.inUse){
+            hits.incrementAndGet();
+            return entry.checkOut(logical);
+        }
+
+        misses.incrementAndGet();
+        PreparedStatement ps = autoGeneratedKeys < 0
+                ? physical.prepareStatement(sql)
+                : physical.prepareStatement(sql, autoGeneratedKeys);
+        if(entry != null){
+            // Same SQL already checked out on this connection (nested use); don't cache the second copy.
+            return ps;
+        }
+        entry = new Entry(ps);
+        entries.put(key, entry);
+        return entry.checkOut(logical);
+    }
+
+    /**
+     * Physically closes every cached statement; used when the connection is discarded.
+     */
+    void closeAll(){
+        Iterator<Entry> it = entries.values().iterator();
+        while(it.hasNext()){
+            it.next().evict();
+            it.remove();
+        }
+    }
+
+    private static final class Key {
+        private final String sql;
+        private final int autoGeneratedKeys;
+
+        Key(String sql, int autoGeneratedKeys) {
+            this.sql = sql;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) return true;
+            if(!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return autoGeneratedKeys == other.autoGeneratedKeys && sql.equals(other.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sql, autoGeneratedKeys);
+        }
+    }
+
+    /**
+     * A cached physical statement plus its in-use state.
+     */
+    private static final class Entry {
+        private final PreparedStatement statement;
+        private boolean inUse;
+        private boolean evicted;
+
+        Entry(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        PreparedStatement checkOut(Connection logical){
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, new Handle(this, logical));
+        }
+
+        void checkIn(){
+            inUse = false;
+            if(evicted){
+                closeQuietly();
+            }
+        }
+
+        void evict(){
+            evicted = true;
+            if(!inUse){
+                closeQuietly();
+            }
+        }
+
+        private void closeQuietly(){
+            try{
+                statement.close();
+            }catch (SQLException e){
+                LOG.log(Level.FINE, "Error closing cached statement", e);
+            }
+        }
+    }
+
+    /**
+     * Logical statement handed to one caller. close() returns the
+     * statement to the cache after releasing its result sets.
+     */
+    private static final class Handle implements InvocationHandler {
+        private final Entry entry;
+        private final Connection logical;
+        private ResultSet lastResult;                       // Re-executing closes the previous one, so one slot each is enough.
+        private ResultSet lastGeneratedKeys;
+        private boolean closed;
+        private boolean batched;
+
+        Handle(Entry entry, Connection logical) {
+            this.entry = entry;
+            this.logical = logical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()){
+                case "close":
+                    if(!closed){
+                        closed = true;
+                        release();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getConnection":
+                    return logical;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement{" + entry.statement + "}";
+                case "addBatch":
+                    batched = true;
+                    break;
+                default:
+                    break;
+            }
+            if(closed){
+                throw new SQLException("Statement has already been closed");
+            }
+
+            Object result;
+            try{
+                result = method.invoke(entry.statement, args);
+            }catch (InvocationTargetException e){
+                throw e.getCause();
+            }
+            if(result instanceof ResultSet){
+                if("getGeneratedKeys".equals(method.getName())){
+                    lastGeneratedKeys = (ResultSet) result;
+                }else{
+                    lastResult = (ResultSet) result;
+                }
+            }
+            return result;
+        }
+
+        private void release() throws SQLException {
+            try{
+                closeIfOpen(lastResult);
+                closeIfOpen(lastGeneratedKeys);
+                lastResult = null;
+                lastGeneratedKeys = null;
+                entry.statement.clearParameters();
+                if(batched){
+                    entry.statement.clearBatch();
+                }
+            }catch (SQLException e){
+                // A statement we can't reset must not be handed out again.
+                entry.evicted = true;
+                throw e;
+            }finally {
+                entry.checkIn();
+            }
+        }
+
+        private static void closeIfOpen(ResultSet rs) throws SQLException {
+            if(rs != null && !rs.isClosed()){
+                rs.close();
+            }
+        }
+    }
+}
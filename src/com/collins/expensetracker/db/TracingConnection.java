@@ -0,0 +1,350 @@
+package com.collins.expensetracker.db;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Connection, statement and result set proxies that report each execution to a {@link QueryTracer}.
+ * <p>
+ * An execution starts at an {@code execute*} call. Updates and batches
+ * finish there. Queries finish when their rows run out or their result
+ * set, statement or connection is closed, whichever comes first. The
+ * connection wait is charged to the first execution on the connection.
+ * The prepare time is charged to the statement's first execution.
+ * Parameters are captured from the {@code set*} calls as they are bound.
+ * Like the connection underneath, the proxies are used by one thread at a
+ * time and need no locking.
+ */
+final class TracingConnection {
+
+    private static final int MAX_PARAMETER_CHARS = 64;          // Longer string parameters are cut in the log.
+
+    private TracingConnection() {}
+
+    static Connection wrap(Connection target, QueryTracer tracer, long acquireNanos) {
+        return proxy(Connection.class, new ConnectionHandle(target, tracer, acquireNanos));
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(TracingConnection.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try{
+            return method.invoke(target, args);
+        }catch (InvocationTargetException e){
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * One traced execution. Finishing it reports it to the tracer, once.
+     */
+    private static final class Execution {
+        private final QueryTracer tracer;
+        private final String sql;
+        private final String parameters;
+        private final long connect;
+        private final long prepare;
+        private final long execute;
+        private long fetch;
+        private long rows;
+        private boolean finished;
+
+        Execution(QueryTracer tracer, String sql, String parameters, long connect, long prepare, long execute) {
+            this.tracer = tracer;
+            this.sql = sql;
+            this.parameters = parameters;
+            this.connect = connect;
+            this.prepare = prepare;
+            this.execute = execute;
+        }
+
+        void finish(boolean failed) {
+            if(!finished){
+                finished = true;
+                tracer.record(sql, parameters, connect, prepare, execute, fetch, rows, failed);
+            }
+        }
+    }
+
+    private static final class ConnectionHandle implements InvocationHandler {
+        private final Connection target;
+        private final QueryTracer tracer;
+        private final List<StatementHandle> openStatements = new ArrayList<>();
+        private long pendingConnect;                            // Wait for this connection, until an execution takes it.
+        private Connection self;
+
+        ConnectionHandle(Connection target, QueryTracer tracer, long acquireNanos) {
+            this.target = target;
+            this.tracer = tracer;
+            this.pendingConnect = acquireNanos;
+        }
+
+        long takeConnect() {
+            long connect = pendingConnect;
+            pendingConnect = 0;
+            return connect;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            self = (Connection) proxy;
+            switch (method.getName()){
+                case "prepareStatement":
+                case "prepareCall":
+                    long start = System.nanoTime();
+                    Statement prepared = (Statement) TracingConnection.invoke(target, method, args);
+                    return track(method, prepared, (String) args[0], System.nanoTime() - start);
+                case "createStatement":
+                    return track(method, (Statement) TracingConnection.invoke(target, method, args), null, 0);
+                case "close":
+                    for (StatementHandle statement : new ArrayList<>(openStatements)) {
+                        statement.finishCurrent();
+                    }
+                    openStatements.clear();
+                    return TracingConnection.invoke(target, method, args);
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "TracingConnection{" + target + "}";
+                default:
+                    return TracingConnection.invoke(target, method, args);
+            }
+        }
+
+        private Object track(Method method, Statement statement, String sql, long prepareNanos) {
+            StatementHandle handle = new StatementHandle(this, statement, sql, prepareNanos);
+            openStatements.add(handle);
+            return Proxy.newProxyInstance(TracingConnection.class.getClassLoader(),
+                    new Class<?>[]{method.getReturnType()}, handle);
+        }
+    }
+
+    private static final class StatementHandle implements InvocationHandler {
+        private final ConnectionHandle connection;
+        private final Statement target;
+        private String sql;                                     // Null for plain statements until they execute.
+        private long pendingPrepare;                            // Prepare time, until the first execution takes it.
+        private Object[] parameters = new Object[8];            // Index 0 unused, as in JDBC.
+        private int parameterCount;
+        private int batchSize;
+        private String firstBatchParameters;
+        private Execution current;                              // Query whose rows may still be read.
+        private Statement self;
+
+        StatementHandle(ConnectionHandle connection, Statement target, String sql, long prepareNanos) {
+            this.connection = connection;
+            this.target = target;
+            this.sql = sql;
+            this.pendingPrepare = prepareNanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            self = (Statement) proxy;
+            String name = method.getName();
+            switch (name){
+                case "executeQuery":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "execute":
+                case "executeBatch":
+                case "executeLargeBatch":
+                    return execute(method, args);
+                case "getResultSet":
+                    ResultSet rs = (ResultSet) TracingConnection.invoke(target, method, args);
+                    return rs == null || current == null ? rs : wrapResultSet(rs);
+                case "addBatch":
+                    if(args == null || args.length == 0){
+                        if(batchSize == 0){
+                            firstBatchParameters = describeParameters();
+                        }
+                    }else if(sql == null){
+                        sql = (String) args[0];
+                    }
+                    batchSize++;
+                    return TracingConnection.invoke(target, method, args);
+                case "clearBatch":
+                    batchSize = 0;
+                    return TracingConnection.invoke(target, method, args);
+                case "clearParameters":
+                    Arrays.fill(parameters, null);
+                    parameterCount = 0;
+                    return TracingConnection.invoke(target, method, args);
+                case "getConnection":
+                    return connection.self;
+                case "close":
+                    finishCurrent();
+                    connection.openStatements.remove(this);
+                    return TracingConnection.invoke(target, method, args);
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "TracingStatement{" + target + "}";
+                default:
+                    if(name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer
+                            && target instanceof PreparedStatement){
+                        bind((Integer) args[0], name.equals("setNull") ? null : args[1]);
+                    }
+                    return TracingConnection.invoke(target, method, args);
+            }
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            finishCurrent();
+            String text = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+            String params = batchSize > 0 ? "batch of " + batchSize + ", first " + firstBatchParameters : describeParameters();
+            long start = System.nanoTime();
+            Object result;
+            try{
+                result = TracingConnection.invoke(target, method, args);
+            }catch (Throwable t){
+                new Execution(connection.tracer, text, params, connection.takeConnect(), takePrepare(),
+                        System.nanoTime() - start).finish(true);
+                throw t;
+            }
+            Execution execution = new Execution(connection.tracer, text, params, connection.takeConnect(), takePrepare(),
+                    System.nanoTime() - start);
+
+            if(result instanceof ResultSet){
+                current = execution;
+                return wrapResultSet((ResultSet) result);
+            }
+            if(result instanceof Boolean){
+                if((Boolean) result){
+                    current = execution;                        // Rows are read through getResultSet().
+                    return result;
+                }
+                execution.rows = Math.max(0, target.getUpdateCount());
+            }else if(result instanceof Number){
+                execution.rows = ((Number) result).longValue();
+            }else if(result instanceof int[]){
+                for (int count : (int[]) result) {
+                    execution.rows += Math.max(0, count);
+                }
+            }else if(result instanceof long[]){
+                for (long count : (long[]) result) {
+                    execution.rows += Math.max(0, count);
+                }
+            }
+            if(method.getName().contains("Batch")){
+                batchSize = 0;
+            }
+            execution.finish(false);
+            return result;
+        }
+
+        private long takePrepare() {
+            long prepare = pendingPrepare;
+            pendingPrepare = 0;
+            return prepare;
+        }
+
+        void finishCurrent() {
+            if(current != null){
+                current.finish(false);
+                current = null;
+            }
+        }
+
+        private ResultSet wrapResultSet(ResultSet rs) {
+            return proxy(ResultSet.class, new ResultSetHandle(this, rs, current));
+        }
+
+        private void bind(int index, Object value) {
+            if(index < 1){
+                return;
+            }
+            if(index >= parameters.length){
+                parameters = Arrays.copyOf(parameters, Math.max(index + 1, parameters.length * 2));
+            }
+            parameters[index] = value;
+            parameterCount = Math.max(parameterCount, index);
+        }
+
+        private String describeParameters() {
+            StringBuilder out = new StringBuilder("[");
+            for (int i = 1; i <= parameterCount; i++) {
+                if(i > 1){
+                    out.append(", ");
+                }
+                out.append(describe(parameters[i]));
+            }
+            return out.append(']').toString();
+        }
+
+        private static String describe(Object value) {
+            if(value == null){
+                return "NULL";
+            }else if(value instanceof String){
+                String s = (String) value;
+                return "'" + (s.length() > MAX_PARAMETER_CHARS ? s.substring(0, MAX_PARAMETER_CHARS) + "..." : s) + "'";
+            }else if(value instanceof byte[]){
+                return "<" + ((byte[]) value).length + " bytes>";
+            }else if(value instanceof InputStream || value instanceof Reader){
+                return "<stream>";
+            }
+            return String.valueOf(value);
+        }
+    }
+
+    private static final class ResultSetHandle implements InvocationHandler {
+        private final StatementHandle statement;
+        private final ResultSet target;
+        private final Execution execution;
+
+        ResultSetHandle(StatementHandle statement, ResultSet target, Execution execution) {
+            this.statement = statement;
+            this.target = target;
+            this.execution = execution;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()){
+                case "next":
+                    long start = System.nanoTime();
+                    boolean more = (Boolean) TracingConnection.invoke(target, method, args);
+                    execution.fetch += System.nanoTime() - start;
+                    if(more){
+                        execution.rows++;
+                    }else{
+                        execution.finish(false);
+                    }
+                    return more;
+                case "close":
+                    try{
+                        return TracingConnection.invoke(target, method, args);
+                    }finally {
+                        execution.finish(false);
+                    }
+                case "getStatement":
+                    return statement.self;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "TracingResultSet{" + target + "}";
+                default:
+                    return TracingConnection.invoke(target, method, args);
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.collins.expensetracker.io;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 helpers for the import/export code.
+ * Fields may be quoted with double quotes; a doubled quote inside a quoted
+ * field is a literal quote. Quoted fields spanning several lines are not
+ * supported because files are streamed one line at a time.
+ */
+public final class Csv {
+
+    private Csv() {}
+
+    /**
+     * Splits one CSV line into its fields.
+     *
+     * @param line a single line without the line terminator
+     * @return the unquoted field values
+     * @throws IllegalArgumentException if a quoted field is not terminated
+     */
+    public static List<String> parseLine(String line){
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if(quoted){
+                if(c == '"'){
+                    if(i + 1 < line.length() && line.charAt(i + 1) == '"'){
+                        field.append('"');
+                        i++;
+                    }else{
+                        quoted = false;
+                    }
+                }else{
+                    field.append(c);
+                }
+            }else if(c == '"'){
+                quoted = true;
+            }else if(c == ','){
+                fields.add(field.toString());
+                field.setLength(0);
+            }else{
+                field.append(c);
+            }
+        }
+        if(quoted){
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Quotes a value if it contains a comma, quote or line break.
+     *
+     * @param value raw value, may be null (written as an empty field)
+     * @return the value ready to be written as one CSV field
+     */
+    public static String escape(String value){
+        if(value == null){
+            return "";
+        }
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if(!needsQuotes){
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,381 @@
+package com.collins.expensetracker.io;
+
+import com.collins.expensetracker.model.Category;
+import com.collins.expensetracker.model.Transaction;
+import com.collins.expensetracker.model.TransactionType;
+import com.collins.expensetracker.service.CategoryService;
+import com.collins.expensetracker.service.TransactionService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bulk-imports a bank statement CSV for one user.
+ * <p>
+ * The file is processed by a four-stage pipeline connected by bounded queues,
+ * so a slow database write blocks the reader instead of buffering the file:
+ * <ol>
+ *     <li>read - streams the file line by line (calling thread)</li>
+ *     <li>parse - splits fields, parses date/type/amount and validates</li>
+ *     <li>resolve - maps category names to ids, creating missing categories once</li>
+ *     <li>write - saves rows in batches through {@link TransactionService#addTransactions}</li>
+ * </ol>
+ * Expected columns are {@code date,type,amount,category,description}; a header
+ * line starting with "date" is skipped. If type is blank the sign of the amount
+ * decides it (negative = EXPENSE). Each stage runs on one thread so rows stay
+ * in file order, which is what makes {@link ImportResult#getCommittedLine()} a
+ * safe resume point.
+ */
+public class CsvTransactionImporter {
+
+    private static final int MAX_REJECTED_SAMPLES = 100;
+    private static final int MAX_AMOUNT_SCALE = 2;
+
+    // Marks the end of the stream on every queue.
+    private static final Object END = new Object();
+
+    private final TransactionService transactionService;
+    private final CategoryService categoryService;
+    private int batchSize = 500;                            // Rows per addTransactions call (one commit).
+    private int queueCapacity = 2_048;                      // Bound of each inter-stage queue.
+
+    public CsvTransactionImporter(TransactionService transactionService, CategoryService categoryService) {
+        this.transactionService = transactionService;
+        this.categoryService = categoryService;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Imports the whole file.
+     *
+     * @see #importFile(Path, int, long)
+     */
+    public ImportResult importFile(Path file, int userId) throws IOException {
+        return importFile(file, userId, 0);
+    }
+
+    /**
+     * Imports a CSV file for a user, skipping lines already handled by a previous run.
+     *
+     * @param file            CSV file to read
+     * @param userId          owner of the imported transactions
+     * @param resumeAfterLine committed line reported by a previous failed run, or 0
+     * @return counters, rejected samples and the resume offset
+     * @throws IOException if the file cannot be opened or read
+     */
+    public ImportResult importFile(Path file, int userId, long resumeAfterLine) throws IOException {
+        Run run = new Run(userId, resumeAfterLine);
+        long start = System.currentTimeMillis();
+        long linesRead = 0;
+
+        ExecutorService stages = Executors.newFixedThreadPool(3, r -> {
+            Thread thread = new Thread(r, "csv-import-" + file.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try(BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)){
+            List<Future<?>> futures = new ArrayList<>();
+            futures.add(stages.submit(run::parseStage));
+            futures.add(stages.submit(run::resolveStage));
+            futures.add(stages.submit(run::writeStage));
+
+            try{
+                String line;
+                long lineNumber = 0;
+                while((line = reader.readLine()) != null && run.failure.get() == null){
+                    lineNumber++;
+                    if(lineNumber <= resumeAfterLine || line.isBlank()
+                            || (lineNumber == 1 && line.toLowerCase(Locale.ROOT).startsWith("date"))){
+                        continue;
+                    }
+                    linesRead++;
+                    run.put(run.lines, new RawLine(lineNumber, line));
+                }
+                run.lastLine = Math.max(lineNumber, resumeAfterLine);
+            }catch (IOException | RuntimeException e){
+                run.fail(e);
+            }finally {
+                run.put(run.lines, END);
+            }
+
+            for (Future<?> future : futures) {
+                try{
+                    future.get();
+                }catch (Exception e){
+                    run.fail(e);
+                }
+            }
+        }finally {
+            stages.shutdownNow();
+        }
+
+        return new ImportResult(linesRead, run.imported.get(), run.rejected.get(),
+                Collections.unmodifiableList(new ArrayList<>(run.rejectedSamples)), run.committedLine(),
+                System.currentTimeMillis() - start, run.failure.get());
+    }
+
+    /**
+     * State shared by the stages of one import.
+     */
+    private final class Run {
+        private final int userId;
+        private final BlockingQueue<Object> lines = new ArrayBlockingQueue<>(queueCapacity);
+        private final BlockingQueue<Object> parsed = new ArrayBlockingQueue<>(queueCapacity);
+        private final BlockingQueue<Object> resolved = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final List<RejectedRow> rejectedSamples = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicLong writtenThrough;            // Last line covered by a committed batch.
+        private volatile long lastLine;                     // Last line number in the file (set after EOF).
+
+        Run(int userId, long resumeAfterLine) {
+            this.userId = userId;
+            this.writtenThrough = new AtomicLong(resumeAfterLine);
+        }
+
+        void parseStage(){
+            try{
+                Object item;
+                while((item = lines.take()) != END){
+                    RawLine raw = (RawLine) item;
+                    try{
+                        put(parsed, parse(raw));
+                    }catch (IllegalArgumentException | DateTimeParseException e){
+                        reject(raw, e.getMessage());
+                    }
+                }
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                fail(e);
+            }finally {
+                put(parsed, END);
+            }
+        }
+
+        void resolveStage(){
+            Map<String, Integer> categoryIds = new HashMap<>();
+            try{
+                Object item;
+                while((item = parsed.take()) != END){
+                    ParsedRow row = (ParsedRow) item;
+                    Integer categoryId = categoryIds.get(row.categoryName);
+                    if(categoryId == null){
+                        Category category = categoryService.getCategoryByName(userId, row.categoryName);
+                        if(category == null){
+                            category = categoryService.createCategory(userId, row.categoryName);
+                        }
+                        categoryId = category.getId();
+                        categoryIds.put(row.categoryName, categoryId);
+                    }
+                    Transaction tx = new Transaction(userId, categoryId, row.type, row.amount, row.date, row.description);
+                    put(resolved, new PendingRow(row.lineNumber, tx));
+                }
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                fail(e);
+            }catch (RuntimeException e){
+                fail(e);
+            }finally {
+                put(resolved, END);
+            }
+        }
+
+        void writeStage(){
+            List<PendingRow> batch = new ArrayList<>(batchSize);
+            try{
+                Object item;
+                while((item = resolved.take()) != END){
+                    batch.add((PendingRow) item);
+                    if(batch.size() >= batchSize){
+                        flush(batch);
+                    }
+                }
+                if(failure.get() == null){
+                    flush(batch);
+                }
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                fail(e);
+            }catch (RuntimeException e){
+                fail(e);
+            }
+        }
+
+        private void flush(List<PendingRow> batch){
+            if(batch.isEmpty()){
+                return;
+            }
+            List<Transaction> transactions = new ArrayList<>(batch.size());
+            for (PendingRow row : batch) {
+                transactions.add(row.transaction);
+            }
+            try{
+                transactionService.addTransactions(transactions);
+                imported.addAndGet(batch.size());
+                writtenThrough.set(batch.get(batch.size() - 1).lineNumber);
+            }catch (RuntimeException e){
+                // Earlier chunks of the batch may have committed; those rows kept their ids.
+                int committed = 0;
+                while(committed < batch.size() && batch.get(committed).transaction.getId() != 0){
+                    committed++;
+                }
+                if(committed > 0){
+                    imported.addAndGet(committed);
+                    writtenThrough.set(batch.get(committed - 1).lineNumber);
+                }
+                throw e;
+            }finally {
+                batch.clear();
+            }
+        }
+
+        private ParsedRow parse(RawLine raw){
+            List<String> fields = Csv.parseLine(raw.text);
+            if(fields.size() < 4){
+                throw new IllegalArgumentException("Expected at least 4 columns but found " + fields.size());
+            }
+
+            LocalDate date = LocalDate.parse(fields.get(0).trim());
+
+            String amountText = fields.get(2).trim().replace(",", "").replace("$", "");
+            if(amountText.isEmpty()){
+                throw new IllegalArgumentException("Amount is missing");
+            }
+            BigDecimal amount;
+            try{
+                amount = new BigDecimal(amountText);
+            }catch (NumberFormatException e){
+                throw new IllegalArgumentException("Amount is not a number: " + fields.get(2).trim());
+            }
+            if(amount.signum() == 0){
+                throw new IllegalArgumentException("Amount must not be zero");
+            }
+            if(amount.stripTrailingZeros().scale() > MAX_AMOUNT_SCALE){
+                throw new IllegalArgumentException("Amount has more than " + MAX_AMOUNT_SCALE + " decimal places");
+            }
+
+            String typeText = fields.get(1).trim();
+            TransactionType type;
+            if(typeText.isEmpty()){
+                type = amount.signum() < 0 ? TransactionType.EXPENSE : TransactionType.INCOME;
+            }else{
+                type = TransactionType.valueOf(typeText.toUpperCase(Locale.ROOT));
+            }
+
+            String categoryName = fields.get(3).trim();
+            if(categoryName.isEmpty()){
+                throw new IllegalArgumentException("Category is missing");
+            }
+            String description = fields.size() > 4 ? fields.get(4).trim() : "";
+
+            return new ParsedRow(raw.lineNumber, date, type, amount.abs(), categoryName, description);
+        }
+
+        private void reject(RawLine raw, String reason){
+            rejected.incrementAndGet();
+            if(rejectedSamples.size() < MAX_REJECTED_SAMPLES){
+                rejectedSamples.add(new RejectedRow(raw.lineNumber, reason, raw.text));
+            }
+        }
+
+        /**
+         * Blocking put that gives up once another stage has failed,
+         * so a dead consumer can't wedge its producer forever.
+         */
+        void put(BlockingQueue<Object> queue, Object item){
+            try{
+                while(!queue.offer(item, 100, TimeUnit.MILLISECONDS)){
+                    if(failure.get() != null && item != END){
+                        return;
+                    }
+                    if(failure.get() != null){
+                        queue.clear();
+                    }
+                }
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+
+        void fail(Throwable t){
+            failure.compareAndSet(null, t instanceof ExecutionException ? t.getCause() : t);
+        }
+
+        /**
+         * Lines after the last written row were all rejected if the run completed,
+         * so the whole file counts as handled; otherwise stop at the last commit.
+         */
+        long committedLine(){
+            return failure.get() == null ? lastLine : writtenThrough.get();
+        }
+    }
+
+    private static final class RawLine {
+        final long lineNumber;
+        final String text;
+
+        RawLine(long lineNumber, String text) {
+            this.lineNumber = lineNumber;
+            this.text = text;
+        }
+    }
+
+    private static final class ParsedRow {
+        final long lineNumber;
+        final LocalDate date;
+        final TransactionType type;
+        final BigDecimal amount;
+        final String categoryName;
+        final String description;
+
+        ParsedRow(long lineNumber, LocalDate date, TransactionType type, BigDecimal amount,
+                  String categoryName, String description) {
+            this.lineNumber = lineNumber;
+            this.date = date;
+            this.type = type;
+            this.amount = amount;
+            this.categoryName = categoryName;
+            this.description = description;
+        }
+    }
+
+    private static final class PendingRow {
+        final long lineNumber;
+        final Transaction transaction;
+
+        PendingRow(long lineNumber, Transaction transaction) {
+            this.lineNumber = lineNumber;
+            this.transaction = transaction;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.collins.expensetracker.io;
+
+import java.util.List;
+
+/**
+ * Outcome of one CSV import run.
+ * <p>
+ * {@link #getCommittedLine()} is the resume point: every line up to and
+ * including it has either been written to the database or rejected, so a
+ * failed import can be restarted with that value and nothing is written twice.
+ */
+public class ImportResult {
+    private final long linesRead;                           // Data lines read from the file in this run.
+    private final long rowsImported;                        // Rows committed to the database.
+    private final long rowsRejected;                        // Rows skipped because they failed validation.
+    private final List<RejectedRow> rejectedSamples;        // First rejected rows, for reporting.
+    private final long committedLine;                       // Last line number fully handled (resume offset).
+    private final long elapsedMillis;                       // Wall-clock duration of the run.
+    private final Throwable failure;                        // Error that stopped the import, or null.
+
+    public ImportResult(long linesRead, long rowsImported, long rowsRejected, List<RejectedRow> rejectedSamples,
+                        long committedLine, long elapsedMillis, Throwable failure) {
+        this.linesRead = linesRead;
+        this.rowsImported = rowsImported;
+        this.rowsRejected = rowsRejected;
+        this.rejectedSamples = rejectedSamples;
+        this.committedLine = committedLine;
+        this.elapsedMillis = elapsedMillis;
+        this.failure = failure;
+    }
+
+    public long getLinesRead() {
+        return linesRead;
+    }
+
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public List<RejectedRow> getRejectedSamples() {
+        return rejectedSamples;
+    }
+
+    public long getCommittedLine() {
+        return committedLine;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public boolean isCompleted() {
+        return failure == null;
+    }
+
+    /**
+     * @return imported rows per second of wall-clock time
+     */
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? rowsImported : rowsImported * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportResult{" +
+                "linesRead=" + linesRead +
+                ", imported=" + rowsImported +
+                ", rejected=" + rowsRejected +
+                ", committedLine=" + committedLine +
+                ", elapsedMs=" + elapsedMillis +
+                ", rowsPerSec=" + String.format("%.1f", getRowsPerSecond()) +
+                (failure == null ? "" : ", failure=" + failure) +
+                '}';
+    }
+}
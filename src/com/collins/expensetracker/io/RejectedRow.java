@@ -0,0 +1,37 @@
+package com.collins.expensetracker.io;
+
+/**
+ * A CSV line that was skipped during an import, with the reason.
+ */
+public class RejectedRow {
+    private final long lineNumber;                          // 1-based line number in the file.
+    private final String reason;                            // Why the row was rejected.
+    private final String line;                              // Raw line text.
+
+    public RejectedRow(long lineNumber, String reason, String line) {
+        this.lineNumber = lineNumber;
+        this.reason = reason;
+        this.line = line;
+    }
+
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public String getLine() {
+        return line;
+    }
+
+    @Override
+    public String toString() {
+        return "RejectedRow{" +
+                "line=" + lineNumber +
+                ", reason='" + reason + '\'' +
+                ", text='" + line + '\'' +
+                '}';
+    }
+}
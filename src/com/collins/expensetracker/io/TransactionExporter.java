@@ -0,0 +1,185 @@
+package com.collins.expensetracker.io;
+
+import com.collins.expensetracker.model.Transaction;
+import com.collins.expensetracker.service.TransactionService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/**
+ * Writes a user's transaction history to CSV or JSON Lines.
+ * <p>
+ * Rows come from {@link TransactionService#streamTransactions}, are formatted
+ * into one reused StringBuilder and encoded straight into a direct buffer
+ * that is drained to the channel whenever it fills. Neither the row count
+ * nor the history length affects heap usage.
+ */
+public class TransactionExporter {
+
+    public enum Format {
+        CSV,
+        JSON_LINES
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "id,user_id,category_id,type,amount,date,description,created_at,updated_at";
+
+    private final TransactionService transactionService;
+
+    public TransactionExporter(TransactionService transactionService) {
+        this.transactionService = transactionService;
+    }
+
+    /**
+     * Exports to a file, replacing it if it exists.
+     *
+     * @see #export(int, LocalDate, LocalDate, Format, WritableByteChannel)
+     */
+    public long export(int userId, LocalDate from, LocalDate to, Format format, Path target) throws IOException {
+        try(FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)){
+            return export(userId, from, to, format, channel);
+        }
+    }
+
+    /**
+     * Exports a user's transactions, oldest first, to a channel. The channel is not closed.
+     *
+     * @param userId user whose history is exported
+     * @param from   start date (inclusive), or null for the whole history
+     * @param to     end date (inclusive), or null for no upper bound
+     * @param format output format
+     * @param out    destination channel
+     * @return number of transactions written
+     * @throws IOException if writing to the channel fails
+     */
+    public long export(int userId, LocalDate from, LocalDate to, Format format, WritableByteChannel out) throws IOException {
+        ChannelWriter writer = new ChannelWriter(out);
+        StringBuilder line = new StringBuilder(256);
+
+        if(format == Format.CSV){
+            writer.write(line.append(CSV_HEADER).append('\n'));
+        }
+
+        long count;
+        try{
+            count = transactionService.streamTransactions(userId, from, to, tx -> {
+                line.setLength(0);
+                if(format == Format.CSV){
+                    appendCsv(line, tx);
+                }else{
+                    appendJson(line, tx);
+                }
+                try{
+                    writer.write(line);
+                }catch (IOException e){
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }catch (UncheckedIOException e){
+            throw e.getCause();
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static void appendCsv(StringBuilder line, Transaction tx){
+        line.append(tx.getId()).append(',')
+                .append(tx.getUserId()).append(',')
+                .append(tx.getCategoryId()).append(',')
+                .append(tx.getType()).append(',')
+                .append(tx.getAmount().toPlainString()).append(',')
+                .append(tx.getDate()).append(',')
+                .append(Csv.escape(tx.getDescription())).append(',')
+                .append(tx.getCreatedAt()).append(',')
+                .append(tx.getUpdatedAt()).append('\n');
+    }
+
+    private static void appendJson(StringBuilder line, Transaction tx){
+        line.append("{\"id\":").append(tx.getId())
+                .append(",\"userId\":").append(tx.getUserId())
+                .append(",\"categoryId\":").append(tx.getCategoryId())
+                .append(",\"type\":\"").append(tx.getType()).append('"')
+                .append(",\"amount\":").append(tx.getAmount().toPlainString())
+                .append(",\"date\":\"").append(tx.getDate()).append('"')
+                .append(",\"description\":");
+        appendJsonString(line, tx.getDescription());
+        line.append(",\"createdAt\":\"").append(tx.getCreatedAt()).append('"')
+                .append(",\"updatedAt\":\"").append(tx.getUpdatedAt()).append("\"}\n");
+    }
+
+    private static void appendJsonString(StringBuilder line, String value){
+        if(value == null){
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c){
+                case '"': line.append("\\\""); break;
+                case '\\': line.append("\\\\"); break;
+                case '\n': line.append("\\n"); break;
+                case '\r': line.append("\\r"); break;
+                case '\t': line.append("\\t"); break;
+                default:
+                    if(c < 0x20){
+                        line.append(String.format("\\u%04x", (int) c));
+                    }else{
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+
+    /**
+     * UTF-8 encodes text into a direct buffer and drains it to the channel when full.
+     */
+    private static final class ChannelWriter {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+        ChannelWriter(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void write(CharSequence text) throws IOException {
+            CharBuffer chars = CharBuffer.wrap(text);
+            encoder.reset();
+            while(true){
+                CoderResult result = encoder.encode(chars, buffer, true);
+                if(result.isOverflow()){
+                    drain();
+                }else if(result.isError()){
+                    result.throwException();
+                }else{
+                    break;
+                }
+            }
+        }
+
+        void flush() throws IOException {
+            drain();
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while(buffer.hasRemaining()){
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
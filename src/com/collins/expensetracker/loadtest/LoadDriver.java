@@ -0,0 +1,265 @@
+package com.collins.expensetracker.loadtest;
+
+import com.collins.expensetracker.metrics.LatencyHistogram;
+import com.collins.expensetracker.model.Category;
+import com.collins.expensetracker.model.TransactionType;
+import com.collins.expensetracker.service.CategoryService;
+import com.collins.expensetracker.service.TransactionService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs a mixed workload against the service layer from many simulated users at once.
+ * <p>
+ * Each worker thread is one simulated user session. It picks a random user
+ * from the pool and an operation by the weights in
+ * {@link LoadDriverConfig#getMix()}, runs it, optionally pauses, and
+ * repeats. Each operation's latency is recorded in a
+ * {@link LatencyHistogram}. Warmup operations run but are not recorded.
+ * <p>
+ * Deletes only remove transactions that this run added, so seeded data
+ * survives any number of runs. When there is nothing to delete yet, the
+ * worker adds a transaction instead. With {@link LoadDriverConfig#isCleanup()}
+ * set, transactions that were added and not deleted are removed at the end.
+ * An add that returns id 0, as a write-behind repository does, cannot be
+ * deleted; such adds are counted in {@link LoadReport#getUnassignedAdds()}
+ * and are never queued for delete or cleanup.
+ */
+public class LoadDriver {
+
+    private static final Logger LOG = Logger.getLogger(LoadDriver.class.getName());
+    private static final int LOGGED_ERRORS = 10;                // Errors logged in full; the rest are only counted.
+
+    /**
+     * The service calls the driver issues.
+     */
+    public enum Operation {
+        ADD_TRANSACTION("add", "addTransaction"),
+        RANGE_QUERY("range", "getTransactionsForUserInRange"),
+        MONTHLY_SUMMARY("summary", "getMonthlySummary"),
+        DELETE_TRANSACTION("delete", "deleteTransaction");
+
+        private final String shortName;                         // Name used in mix specs.
+        private final String methodName;                        // Service method, for reports.
+
+        Operation(String shortName, String methodName) {
+            this.shortName = shortName;
+            this.methodName = methodName;
+        }
+
+        public String getMethodName() {
+            return methodName;
+        }
+
+        static Operation fromName(String name) {
+            for (Operation operation : values()) {
+                if(operation.shortName.equalsIgnoreCase(name) || operation.name().equalsIgnoreCase(name)
+                        || operation.methodName.equalsIgnoreCase(name)){
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation '" + name + "'; use add, range, summary or delete");
+        }
+    }
+
+    private final TransactionService transactionService;
+    private final CategoryService categoryService;
+    private final List<Integer> userIds;
+    private final LoadDriverConfig config;
+
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final Map<Integer, int[]> categoriesByUser = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Integer> addedIds = new ConcurrentLinkedQueue<>();   // Candidates for delete.
+    private final LongAdder unassignedAdds = new LongAdder();                               // Adds that returned id 0.
+    private final AtomicInteger loggedErrors = new AtomicInteger();
+    private final LocalDate today = LocalDate.now();
+
+    private volatile boolean measuring;
+    private volatile boolean stopped;
+
+    /**
+     * @param userIds users the simulated sessions act as; they need at least one category each to add transactions
+     */
+    public LoadDriver(TransactionService transactionService, CategoryService categoryService, List<Integer> userIds,
+                      LoadDriverConfig config) {
+        if(userIds.isEmpty()){
+            throw new IllegalArgumentException("The load driver needs at least one user");
+        }
+        if(config.getMix().values().stream().mapToInt(Integer::intValue).sum() == 0){
+            throw new IllegalArgumentException("At least one operation needs a positive weight");
+        }
+        this.transactionService = transactionService;
+        this.categoryService = categoryService;
+        this.userIds = new ArrayList<>(userIds);
+        this.config = config;
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    /**
+     * Runs the warmup and the measured period, then waits for the workers to finish.
+     *
+     * @return throughput and latency per operation for the measured period
+     */
+    public LoadReport run() throws InterruptedException {
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < config.getThreads(); i++) {
+            long seed = config.getSeed() + i;
+            Thread worker = new Thread(() -> work(new Random(seed)), "load-driver-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+
+        long measuredNanos;
+        try{
+            Thread.sleep(config.getWarmupSeconds() * 1000);
+            measuring = true;
+            long start = System.nanoTime();
+            Thread.sleep(config.getDurationSeconds() * 1000);
+            measuring = false;
+            measuredNanos = System.nanoTime() - start;
+        }finally {
+            stopped = true;
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        }
+        if(config.isCleanup()){
+            cleanup();
+        }
+
+        double seconds = measuredNanos / 1e9;
+        List<LoadReport.OperationStats> stats = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latencies.get(operation);
+            stats.add(new LoadReport.OperationStats(operation.getMethodName(), histogram.getCount(),
+                    errors.get(operation).sum(), histogram.getCount() / seconds,
+                    histogram.getPercentile(50), histogram.getPercentile(95), histogram.getPercentile(99),
+                    histogram.getPercentile(99.9), histogram.getMax()));
+        }
+        if(unassignedAdds.sum() > 0){
+            LOG.warning(unassignedAdds.sum() + " added transactions had no id yet; deletes were not measured"
+                    + " and those rows were left in place");
+        }
+        return new LoadReport(config.getThreads(), seconds, stats, unassignedAdds.sum());
+    }
+
+    private void work(Random random) {
+        Operation[] operations = Operation.values();
+        int[] cumulative = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += config.getMix().getOrDefault(operations[i], 0);
+            cumulative[i] = total;
+        }
+
+        while (!stopped) {
+            int r = random.nextInt(total);
+            Operation operation = operations[operations.length - 1];
+            for (int i = 0; i < operations.length; i++) {
+                if(r < cumulative[i]){
+                    operation = operations[i];
+                    break;
+                }
+            }
+            Integer deleteId = null;
+            if(operation == Operation.DELETE_TRANSACTION){
+                deleteId = addedIds.poll();
+                if(deleteId == null){
+                    operation = Operation.ADD_TRANSACTION;
+                }
+            }
+            int userId = userIds.get(random.nextInt(userIds.size()));
+
+            boolean recorded = measuring;
+            long start = System.nanoTime();
+            try{
+                execute(operation, userId, deleteId, random);
+                if(recorded){
+                    latencies.get(operation).record(System.nanoTime() - start);
+                }
+            }catch (RuntimeException e){
+                if(recorded){
+                    errors.get(operation).increment();
+                }
+                if(loggedErrors.incrementAndGet() <= LOGGED_ERRORS){
+                    LOG.log(Level.WARNING, operation.getMethodName() + " failed for user " + userId, e);
+                }
+            }
+
+            if(config.getThinkTimeMillis() > 0){
+                try{
+                    Thread.sleep(config.getThinkTimeMillis());
+                }catch (InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void execute(Operation operation, int userId, Integer deleteId, Random random) {
+        switch (operation) {
+            case ADD_TRANSACTION:
+                int[] categoryIds = categoriesByUser.computeIfAbsent(userId, id ->
+                        categoryService.getCategoriesForUserId(id).stream().mapToInt(Category::getId).toArray());
+                if(categoryIds.length == 0){
+                    throw new IllegalStateException("User " + userId + " has no categories");
+                }
+                boolean income = random.nextInt(10) == 0;
+                BigDecimal amount = BigDecimal.valueOf(100 + random.nextInt(20_000), 2);
+                int id = transactionService.addTransaction(userId, categoryIds[random.nextInt(categoryIds.length)],
+                        income ? TransactionType.INCOME : TransactionType.EXPENSE, amount,
+                        today.minusDays(random.nextInt(30)), "Load test").getId();
+                if(id == 0){
+                    unassignedAdds.increment();
+                }else{
+                    addedIds.add(id);
+                }
+                break;
+            case RANGE_QUERY:
+                LocalDate from = today.minusMonths(random.nextInt(config.getHistoryMonths())).withDayOfMonth(1);
+                LocalDate to = from.plusMonths(1 + random.nextInt(3)).minusDays(1);
+                transactionService.getTransactionsForUserInRange(userId, from, to);
+                break;
+            case MONTHLY_SUMMARY:
+                LocalDate month = today.minusMonths(random.nextInt(config.getHistoryMonths()));
+                transactionService.getMonthlySummary(userId, month.getYear(), month.getMonthValue());
+                break;
+            case DELETE_TRANSACTION:
+                transactionService.deleteTransaction(deleteId);
+                break;
+            default:
+                throw new IllegalStateException("Unhandled operation " + operation);
+        }
+    }
+
+    private void cleanup() {
+        int removed = 0;
+        for (Integer id = addedIds.poll(); id != null; id = addedIds.poll()) {
+            try{
+                transactionService.deleteTransaction(id);
+                removed++;
+            }catch (RuntimeException e){
+                LOG.log(Level.WARNING, "Could not delete load test transaction " + id, e);
+            }
+        }
+        LOG.info("Deleted " + removed + " transactions left over from the load test");
+    }
+}
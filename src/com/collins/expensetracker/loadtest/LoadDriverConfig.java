@@ -0,0 +1,126 @@
+package com.collins.expensetracker.loadtest;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Settings for {@link LoadDriver}. Override the defaults with the setters before the driver runs.
+ */
+public class LoadDriverConfig {
+
+    private int threads = 16;                                  // Simulated users issuing requests at once.
+    private long warmupSeconds = 10;                           // Run but not measured, so caches and the JIT settle.
+    private long durationSeconds = 60;                         // Measured run time.
+    private long thinkTimeMillis = 0;                          // Pause between a simulated user's requests; 0 = closed loop.
+    private int historyMonths = 24;                            // Window that range and summary queries pick from.
+    private boolean cleanup = true;                            // Delete transactions the run added and did not delete.
+    private long seed = 42;
+    private final Map<LoadDriver.Operation, Integer> mix = new EnumMap<>(LoadDriver.Operation.class);
+
+    public LoadDriverConfig() {
+        mix.put(LoadDriver.Operation.ADD_TRANSACTION, 20);
+        mix.put(LoadDriver.Operation.RANGE_QUERY, 45);
+        mix.put(LoadDriver.Operation.MONTHLY_SUMMARY, 25);
+        mix.put(LoadDriver.Operation.DELETE_TRANSACTION, 10);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        if(threads < 1){
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        this.threads = threads;
+    }
+
+    public long getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public void setWarmupSeconds(long warmupSeconds) {
+        if(warmupSeconds < 0){
+            throw new IllegalArgumentException("warmupSeconds must not be negative");
+        }
+        this.warmupSeconds = warmupSeconds;
+    }
+
+    public long getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public void setDurationSeconds(long durationSeconds) {
+        if(durationSeconds < 1){
+            throw new IllegalArgumentException("durationSeconds must be at least 1");
+        }
+        this.durationSeconds = durationSeconds;
+    }
+
+    public long getThinkTimeMillis() {
+        return thinkTimeMillis;
+    }
+
+    public void setThinkTimeMillis(long thinkTimeMillis) {
+        if(thinkTimeMillis < 0){
+            throw new IllegalArgumentException("thinkTimeMillis must not be negative");
+        }
+        this.thinkTimeMillis = thinkTimeMillis;
+    }
+
+    public int getHistoryMonths() {
+        return historyMonths;
+    }
+
+    public void setHistoryMonths(int historyMonths) {
+        if(historyMonths < 1){
+            throw new IllegalArgumentException("historyMonths must be at least 1");
+        }
+        this.historyMonths = historyMonths;
+    }
+
+    public boolean isCleanup() {
+        return cleanup;
+    }
+
+    public void setCleanup(boolean cleanup) {
+        this.cleanup = cleanup;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @return relative weight of each operation; an operation runs weight / total of the time
+     */
+    public Map<LoadDriver.Operation, Integer> getMix() {
+        return Collections.unmodifiableMap(mix);
+    }
+
+    public void setWeight(LoadDriver.Operation operation, int weight) {
+        if(weight < 0){
+            throw new IllegalArgumentException("weight must not be negative");
+        }
+        mix.put(operation, weight);
+    }
+
+    /**
+     * Sets weights from a spec such as {@code add=20,range=45,summary=25,delete=10}.
+     * Operations left out keep their current weight.
+     */
+    public void setMix(String spec) {
+        for (String part : spec.split(",")) {
+            String[] pair = part.split("=");
+            if(pair.length != 2){
+                throw new IllegalArgumentException("Expected operation=weight but got '" + part + "'");
+            }
+            setWeight(LoadDriver.Operation.fromName(pair[0].trim()), Integer.parseInt(pair[1].trim()));
+        }
+    }
+}
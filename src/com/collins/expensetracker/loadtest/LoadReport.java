@@ -0,0 +1,141 @@
+package com.collins.expensetracker.loadtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Results of one {@link LoadDriver} run: throughput and latency percentiles per operation.
+ */
+public class LoadReport {
+
+    /**
+     * Counters and latency percentiles for one operation. Latencies are in nanoseconds.
+     */
+    public static class OperationStats {
+        private final String operation;
+        private final long count;                               // Operations that completed.
+        private final long errors;                              // Operations that threw.
+        private final double throughput;                        // Completed operations per second.
+        private final long p50;
+        private final long p95;
+        private final long p99;
+        private final long p999;
+        private final long max;
+
+        public OperationStats(String operation, long count, long errors, double throughput,
+                              long p50, long p95, long p99, long p999, long max) {
+            this.operation = operation;
+            this.count = count;
+            this.errors = errors;
+            this.throughput = throughput;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getThroughput() {
+            return throughput;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP95() {
+            return p95;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getP999() {
+            return p999;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-32s %10d %7d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f",
+                    operation, count, errors, throughput, millis(p50), millis(p95), millis(p99), millis(p999), millis(max));
+        }
+    }
+
+    private final int threads;
+    private final double measuredSeconds;
+    private final List<OperationStats> operations;
+    private final long unassignedAdds;                          // Adds that returned no id, so they could not be deleted.
+
+    public LoadReport(int threads, double measuredSeconds, List<OperationStats> operations) {
+        this(threads, measuredSeconds, operations, 0);
+    }
+
+    public LoadReport(int threads, double measuredSeconds, List<OperationStats> operations, long unassignedAdds) {
+        this.threads = threads;
+        this.measuredSeconds = measuredSeconds;
+        this.operations = new ArrayList<>(operations);
+        this.unassignedAdds = unassignedAdds;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public double getMeasuredSeconds() {
+        return measuredSeconds;
+    }
+
+    public List<OperationStats> getOperations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    /**
+     * @return added transactions that had no id yet, as with a write-behind repository; when
+     * non-zero, deletes ran as adds and were not measured, and cleanup left these rows behind
+     */
+    public long getUnassignedAdds() {
+        return unassignedAdds;
+    }
+
+    /**
+     * @return the report as a table, latencies in milliseconds
+     */
+    @Override
+    public String toString() {
+        StringBuilder table = new StringBuilder(String.format(Locale.ROOT,
+                "%d threads, %.1f s measured%n%-32s %10s %7s %10s %9s %9s %9s %9s %9s%n", threads, measuredSeconds,
+                "operation", "count", "errors", "ops/s", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (OperationStats stats : operations) {
+            table.append(stats).append(System.lineSeparator());
+        }
+        if(unassignedAdds > 0){
+            table.append(String.format(Locale.ROOT,
+                    "%d adds returned no id: deletes were not measured and cleanup could not remove them%n",
+                    unassignedAdds));
+        }
+        return table.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,243 @@
+package com.collins.expensetracker.loadtest;
+
+import com.collins.expensetracker.model.Category;
+import com.collins.expensetracker.model.Transaction;
+import com.collins.expensetracker.model.TransactionType;
+import com.collins.expensetracker.model.User;
+import com.collins.expensetracker.repository.CategoryRepository;
+import com.collins.expensetracker.repository.TransactionRepository;
+import com.collins.expensetracker.repository.UserRepository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Fills the schema with synthetic users, categories and transactions at production-like scale.
+ * <p>
+ * The data is skewed the way real spending is:
+ * <ul>
+ *     <li>Categories differ in how often they are used: groceries and dining
+ *     are frequent, rent and salary are not.</li>
+ *     <li>Amounts are log-normal around a median for each category, so most
+ *     are small and a few are large.</li>
+ *     <li>Dates lean toward the present, and weekends are busier.</li>
+ *     <li>Descriptions follow a Zipf distribution over each category's
+ *     merchants, so a few repeat often.</li>
+ * </ul>
+ * Everything is written through the repositories. Transactions are saved
+ * with {@link TransactionRepository#saveAll} in batches. Users get emails
+ * starting with {@link #EMAIL_PREFIX}, so {@link LoadDriver} and clean-up
+ * scripts can find them. The same seed gives the same data, apart from the
+ * run tag in the emails.
+ */
+public class SyntheticDataGenerator {
+
+    private static final Logger LOG = Logger.getLogger(SyntheticDataGenerator.class.getName());
+
+    public static final String EMAIL_PREFIX = "synthetic-";
+
+    private static final int BATCH_SIZE = 1000;              // Transactions per saveAll call.
+    private static final double ZIPF_EXPONENT = 1.1;         // Skew of descriptions within a category.
+    private static final double WEEKDAY_ACCEPT = 0.7;        // Weekdays get 70% of a weekend day's traffic.
+
+    /**
+     * A kind of category: how often it is used and what its transactions look like.
+     */
+    private static final class Profile {
+        final String name;
+        final TransactionType type;
+        final double weight;                                 // Relative share of the user's transactions.
+        final double medianAmount;                           // Log-normal median.
+        final double sigma;                                  // Log-normal spread; 0.1 is tight, 1.0 is wide.
+        final String[] descriptions;                         // Most common first.
+
+        Profile(String name, TransactionType type, double weight, double medianAmount, double sigma, String... descriptions) {
+            this.name = name;
+            this.type = type;
+            this.weight = weight;
+            this.medianAmount = medianAmount;
+            this.sigma = sigma;
+            this.descriptions = descriptions;
+        }
+    }
+
+    private static final Profile[] PROFILES = {
+            new Profile("Groceries", TransactionType.EXPENSE, 30, 42, 0.6,
+                    "Supermarket", "Corner shop", "Farmers market", "Bakery", "Butcher", "Online groceries"),
+            new Profile("Dining", TransactionType.EXPENSE, 18, 24, 0.7,
+                    "Coffee", "Lunch", "Takeaway", "Restaurant", "Pub", "Food delivery"),
+            new Profile("Transport", TransactionType.EXPENSE, 14, 12, 0.8,
+                    "Bus fare", "Uber to work", "Fuel", "Train ticket", "Parking", "Car service"),
+            new Profile("Shopping", TransactionType.EXPENSE, 8, 55, 1.0,
+                    "Online order", "Clothes", "Electronics", "Home goods", "Gift", "Books"),
+            new Profile("Entertainment", TransactionType.EXPENSE, 6, 30, 0.7,
+                    "Cinema", "Concert", "Streaming", "Games", "Museum"),
+            new Profile("Utilities", TransactionType.EXPENSE, 4, 85, 0.3,
+                    "Electricity bill", "Water bill", "Internet", "Phone bill", "Gas bill"),
+            new Profile("Health", TransactionType.EXPENSE, 3, 40, 0.9,
+                    "Pharmacy", "Gym", "Doctor", "Dentist", "Optician"),
+            new Profile("Subscriptions", TransactionType.EXPENSE, 3, 11, 0.4,
+                    "Music", "Video", "Cloud storage", "News", "Software"),
+            new Profile("Rent", TransactionType.EXPENSE, 2, 1200, 0.1,
+                    "Rent", "Rent and service charge"),
+            new Profile("Travel", TransactionType.EXPENSE, 1.5, 320, 0.9,
+                    "Flights", "Hotel", "Car hire", "Travel insurance"),
+            new Profile("Salary", TransactionType.INCOME, 2, 3200, 0.15,
+                    "Salary", "Bonus", "Overtime"),
+            new Profile("Side income", TransactionType.INCOME, 1, 150, 0.8,
+                    "Freelance", "Marketplace sale", "Refund", "Interest"),
+    };
+
+    private final UserRepository userRepository;
+    private final CategoryRepository categoryRepository;
+    private final TransactionRepository transactionRepository;
+    private final Random random;
+    private final LocalDate today;
+    private final int historyDays;                           // How far back dates go.
+
+    /**
+     * @param historyMonths how many months of history each user gets, ending today
+     * @param seed          random seed, for repeatable data
+     */
+    public SyntheticDataGenerator(UserRepository userRepository, CategoryRepository categoryRepository,
+                                  TransactionRepository transactionRepository, int historyMonths, long seed) {
+        if(historyMonths < 1){
+            throw new IllegalArgumentException("historyMonths must be at least 1");
+        }
+        this.userRepository = userRepository;
+        this.categoryRepository = categoryRepository;
+        this.transactionRepository = transactionRepository;
+        this.random = new Random(seed);
+        this.today = LocalDate.now();
+        this.historyDays = (int) (today.toEpochDay() - today.minusMonths(historyMonths).toEpochDay());
+    }
+
+    /**
+     * Creates the users with their categories and transactions.
+     *
+     * @return ids of the users created
+     */
+    public List<Integer> generate(int users, int categoriesPerUser, int transactionsPerUser) {
+        if(users < 0 || categoriesPerUser < 1 || transactionsPerUser < 0){
+            throw new IllegalArgumentException("Need users >= 0, categoriesPerUser >= 1 and transactionsPerUser >= 0");
+        }
+        String runTag = Long.toString(System.currentTimeMillis(), 36);
+        List<Integer> userIds = new ArrayList<>(users);
+        List<Transaction> batch = new ArrayList<>(BATCH_SIZE);
+        long started = System.nanoTime();
+
+        for (int u = 0; u < users; u++) {
+            User user = userRepository.save(new User("Synthetic User " + (u + 1), EMAIL_PREFIX + runTag + "-" + (u + 1) + "@example.com"));
+            userIds.add(user.getId());
+
+            List<Profile> profiles = profilesFor(categoriesPerUser);
+            int[] categoryIds = new int[profiles.size()];
+            double[] cumulativeWeights = new double[profiles.size()];
+            double totalWeight = 0;
+            for (int c = 0; c < profiles.size(); c++) {
+                String name = c < PROFILES.length ? profiles.get(c).name : profiles.get(c).name + " " + (c + 1);
+                categoryIds[c] = categoryRepository.save(new Category(user.getId(), name)).getId();
+                totalWeight += profiles.get(c).weight;
+                cumulativeWeights[c] = totalWeight;
+            }
+
+            for (int t = 0; t < transactionsPerUser; t++) {
+                int c = pick(cumulativeWeights, totalWeight);
+                Profile profile = profiles.get(c);
+                batch.add(new Transaction(user.getId(), categoryIds[c], profile.type, amount(profile), date(),
+                        profile.descriptions[zipf(profile.descriptions.length)]));
+                if(batch.size() == BATCH_SIZE){
+                    transactionRepository.saveAll(batch);
+                    batch.clear();
+                }
+            }
+            if((u + 1) % 1000 == 0){
+                LOG.info("Generated " + (u + 1) + " of " + users + " users");
+            }
+        }
+        if(!batch.isEmpty()){
+            transactionRepository.saveAll(batch);
+        }
+        LOG.info("Generated " + users + " users, " + (long) users * transactionsPerUser + " transactions in "
+                + (System.nanoTime() - started) / 1_000_000 + " ms");
+        return userIds;
+    }
+
+    /**
+     * Every user gets groceries and salary, then a random selection of the rest.
+     * Past the built-in profiles, extra categories reuse them under numbered names.
+     */
+    private List<Profile> profilesFor(int categoriesPerUser) {
+        List<Profile> essentials = new ArrayList<>();
+        List<Profile> others = new ArrayList<>();
+        for (Profile profile : PROFILES) {
+            if(profile.name.equals("Groceries") || profile.name.equals("Salary")){
+                essentials.add(profile);
+            }else{
+                others.add(profile);
+            }
+        }
+        Collections.shuffle(others, random);
+        List<Profile> chosen = new ArrayList<>(categoriesPerUser);
+        chosen.addAll(essentials.subList(0, Math.min(essentials.size(), categoriesPerUser)));
+        for (int i = 0; chosen.size() < categoriesPerUser; i++) {
+            chosen.add(others.get(i % others.size()));
+        }
+        return chosen;
+    }
+
+    private int pick(double[] cumulativeWeights, double totalWeight) {
+        double r = random.nextDouble() * totalWeight;
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if(r < cumulativeWeights[i]){
+                return i;
+            }
+        }
+        return cumulativeWeights.length - 1;
+    }
+
+    private BigDecimal amount(Profile profile) {
+        double value = profile.medianAmount * Math.exp(profile.sigma * random.nextGaussian());
+        return BigDecimal.valueOf(Math.max(0.01, value)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * A date in the history window. Density rises linearly toward today, and
+     * weekdays are thinned by rejection so weekends stand out.
+     */
+    private LocalDate date() {
+        while (true) {
+            int daysAgo = (int) (historyDays * (1 - Math.sqrt(random.nextDouble())));
+            LocalDate date = today.minusDays(daysAgo);
+            DayOfWeek day = date.getDayOfWeek();
+            if(day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY || random.nextDouble() < WEEKDAY_ACCEPT){
+                return date;
+            }
+        }
+    }
+
+    /**
+     * Index in 0..n-1 with probability proportional to 1 / (index + 1)^s.
+     */
+    private int zipf(int n) {
+        double total = 0;
+        for (int i = 1; i <= n; i++) {
+            total += 1 / Math.pow(i, ZIPF_EXPONENT);
+        }
+        double r = random.nextDouble() * total;
+        for (int i = 1; i <= n; i++) {
+            r -= 1 / Math.pow(i, ZIPF_EXPONENT);
+            if(r < 0){
+                return i - 1;
+            }
+        }
+        return n - 1;
+    }
+}
@@ -0,0 +1,127 @@
+package com.collins.expensetracker.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with roughly 1.5% precision across the whole long range.
+ * <p>
+ * Values below 128 get a bucket each. Every power of two above that is
+ * split into 64 linear sub-buckets, as in HdrHistogram, so the table has a
+ * fixed 3712 counters no matter how wide the latencies spread. Recording
+ * is one atomic increment, so many threads can share a histogram. A
+ * percentile is reported as the upper bound of the bucket that holds it,
+ * capped at the largest value recorded.
+ */
+public class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 128;           // Values 0..127 are counted exactly.
+    private static final int SUB_BUCKETS = 64;               // Linear steps per power of two above that.
+    private static final int BUCKETS = LINEAR_BUCKETS + 56 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();         // Values recorded.
+    private final LongAdder sum = new LongAdder();           // Sum of values recorded, for the mean.
+    private final AtomicLong max = new AtomicLong();         // Largest value recorded.
+
+    /**
+     * Records one value, typically a latency in nanoseconds. Negative values count as zero.
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(bucketOf(v));
+        count.increment();
+        sum.add(v);
+        if(v > max.get()){
+            max.accumulateAndGet(v, Math::max);     // Rarely true once warm, so the CAS stays off the hot path.
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * @param percentile between 0 and 100, e.g. 99.9
+     * @return the value at or below which that share of recordings fall, or 0 when empty
+     */
+    public long getPercentile(double percentile) {
+        if(percentile < 0 || percentile > 100){
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if(total == 0){
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if(seen >= rank){
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Adds every recording of another histogram to this one.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = other.counts.get(i);
+            if(c != 0){
+                counts.addAndGet(i, c);
+            }
+        }
+        count.add(other.count.sum());
+        sum.add(other.sum.sum());
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    /**
+     * Clears all recordings. Values recorded while this runs may be partly kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    static int bucketOf(long value) {
+        if(value < LINEAR_BUCKETS){
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - 6;      // Leaves value >> shift in 64..127.
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) ((value >> shift) - SUB_BUCKETS);
+    }
+
+    static long upperBound(int bucket) {
+        if(bucket < LINEAR_BUCKETS){
+            return bucket;
+        }
+        int k = bucket - LINEAR_BUCKETS;
+        int shift = k / SUB_BUCKETS + 1;
+        long sub = k % SUB_BUCKETS + SUB_BUCKETS;
+        long upper = ((sub + 1) << shift) - 1;
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+}
@@ -0,0 +1,122 @@
+package com.collins.expensetracker.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call counts, errors, rows and latencies for one method of one component.
+ * <p>
+ * Callers take {@link System#nanoTime()} before the call and hand it to
+ * {@link #success} or {@link #failure}. Recording allocates nothing and
+ * takes no locks. Every call lands in the latency histogram, failed ones
+ * included, so {@link #getCalls()} is the histogram's count.
+ */
+public class MethodStats implements MethodStatsMXBean {
+
+    private final String component;
+    private final String method;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();           // Calls that threw.
+    private final LongAdder rows = new LongAdder();             // Rows returned or written by successful calls.
+
+    public MethodStats(String component, String method) {
+        this.component = component;
+        this.method = method;
+    }
+
+    /**
+     * Records a call that returned normally.
+     *
+     * @param startNanos {@link System#nanoTime()} taken before the call
+     * @param rowCount   rows the call returned or wrote
+     */
+    public void success(long startNanos, long rowCount) {
+        latencies.record(System.nanoTime() - startNanos);
+        if(rowCount > 0){
+            rows.add(rowCount);
+        }
+    }
+
+    /**
+     * Records a call that threw.
+     *
+     * @param startNanos {@link System#nanoTime()} taken before the call
+     */
+    public void failure(long startNanos) {
+        latencies.record(System.nanoTime() - startNanos);
+        errors.increment();
+    }
+
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    @Override
+    public String getComponent() {
+        return component;
+    }
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public long getCalls() {
+        return latencies.getCount();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return latencies.getMean() / 1_000_000.0;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latencies.getPercentile(50) / 1_000_000.0;
+    }
+
+    @Override
+    public double getP95Millis() {
+        return latencies.getPercentile(95) / 1_000_000.0;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latencies.getPercentile(99) / 1_000_000.0;
+    }
+
+    @Override
+    public double getP999Millis() {
+        return latencies.getPercentile(99.9) / 1_000_000.0;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latencies.getMax() / 1_000_000.0;
+    }
+
+    @Override
+    public void reset() {
+        latencies.reset();
+        errors.reset();
+        rows.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%-52s %9d %6d %10d %8.2f %8.2f %8.2f %8.2f %9.2f",
+                component + "." + method, getCalls(), getErrors(), getRows(), getMeanMillis(),
+                getP50Millis(), getP99Millis(), getP999Millis(), getMaxMillis());
+    }
+}
@@ -0,0 +1,31 @@
+package com.collins.expensetracker.metrics;
+
+/**
+ * JMX view of one instrumented method. Latencies are in milliseconds.
+ */
+public interface MethodStatsMXBean {
+
+    String getComponent();
+
+    String getMethod();
+
+    long getCalls();
+
+    long getErrors();
+
+    long getRows();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP95Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    double getMaxMillis();
+
+    void reset();
+}
@@ -0,0 +1,135 @@
+package com.collins.expensetracker.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Holds the {@link MethodStats} of every instrumented method and publishes them over JMX.
+ * <p>
+ * Instrumented components look their stats up once, when they are built,
+ * and keep the references. The registry is therefore never on the hot
+ * path. After {@link #registerWithJmx()}, the registry appears as
+ * {@code com.collins.expensetracker:type=Metrics}, and each method appears
+ * as {@code com.collins.expensetracker:type=Method,component=...,name=...}.
+ * Methods created later are registered as they appear. JMX failures are
+ * logged and otherwise ignored; metrics are never worth failing a request.
+ */
+public class MetricsRegistry implements MetricsRegistryMXBean, AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(MetricsRegistry.class.getName());
+
+    public static final String JMX_DOMAIN = "com.collins.expensetracker";
+    public static final String HEADER = String.format(Locale.ROOT, "%-52s %9s %6s %10s %8s %8s %8s %8s %9s",
+            "method", "calls", "errors", "rows", "mean ms", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+
+    private final ConcurrentHashMap<String, MethodStats> methods = new ConcurrentHashMap<>();
+    private final List<ObjectName> registered = new CopyOnWriteArrayList<>();   // Unregistered on close.
+    private volatile MBeanServer server;                                        // Set once JMX is enabled.
+
+    /**
+     * @return the stats for the method, created on first use
+     */
+    public MethodStats method(String component, String method) {
+        return methods.computeIfAbsent(component + "." + method, key -> {
+            MethodStats stats = new MethodStats(component, method);
+            MBeanServer mbeanServer = server;
+            if(mbeanServer != null){
+                register(mbeanServer, stats);
+            }
+            return stats;
+        });
+    }
+
+    /**
+     * Publishes the registry and every method, now and from here on, on the platform MBean server.
+     */
+    public synchronized void registerWithJmx() {
+        if(server != null){
+            return;
+        }
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        try{
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=Metrics");
+            mbeanServer.registerMBean(this, name);
+            registered.add(name);
+        }catch (JMException e){
+            LOG.log(Level.WARNING, "Could not publish metrics over JMX", e);
+            return;
+        }
+        server = mbeanServer;
+        methods.values().forEach(stats -> register(mbeanServer, stats));
+    }
+
+    private void register(MBeanServer mbeanServer, MethodStats stats) {
+        try{
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=Method,component=" + ObjectName.quote(stats.getComponent())
+                    + ",name=" + ObjectName.quote(stats.getMethod()));
+            if(!mbeanServer.isRegistered(name)){
+                mbeanServer.registerMBean(stats, name);
+                registered.add(name);
+            }
+        }catch (JMException e){
+            LOG.log(Level.WARNING, "Could not publish metrics for " + stats.getComponent() + "." + stats.getMethod(), e);
+        }
+    }
+
+    /**
+     * @return every method that has been called, busiest first
+     */
+    public List<MethodStats> getMethods() {
+        List<MethodStats> called = new ArrayList<>();
+        for (MethodStats stats : methods.values()) {
+            if(stats.getCalls() > 0){
+                called.add(stats);
+            }
+        }
+        called.sort(Comparator.comparingLong(MethodStats::getCalls).reversed()
+                .thenComparing(stats -> stats.getComponent() + "." + stats.getMethod()));
+        return called;
+    }
+
+    @Override
+    public List<String> getSummary() {
+        List<String> lines = new ArrayList<>();
+        lines.add(HEADER);
+        for (MethodStats stats : getMethods()) {
+            lines.add(stats.toString());
+        }
+        return lines;
+    }
+
+    @Override
+    public void reset() {
+        methods.values().forEach(MethodStats::reset);
+    }
+
+    /**
+     * Removes everything this registry published from the MBean server.
+     */
+    @Override
+    public synchronized void close() {
+        MBeanServer mbeanServer = server;
+        server = null;
+        if(mbeanServer == null){
+            return;
+        }
+        for (ObjectName name : registered) {
+            try{
+                mbeanServer.unregisterMBean(name);
+            }catch (JMException e){
+                LOG.log(Level.FINE, "Could not unregister " + name, e);
+            }
+        }
+        registered.clear();
+    }
+}
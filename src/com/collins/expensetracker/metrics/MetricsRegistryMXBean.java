@@ -0,0 +1,19 @@
+package com.collins.expensetracker.metrics;
+
+import java.util.List;
+
+/**
+ * JMX view of the whole registry.
+ */
+public interface MetricsRegistryMXBean {
+
+    /**
+     * @return one line per instrumented method, busiest first
+     */
+    List<String> getSummary();
+
+    /**
+     * Clears the counters and histograms of every method.
+     */
+    void reset();
+}
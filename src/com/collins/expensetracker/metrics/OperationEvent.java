@@ -0,0 +1,88 @@
+package com.collins.expensetracker.metrics;
+
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Fields and helpers shared by the app's Flight Recorder events.
+ * <p>
+ * The factory methods fill in fields only when the event type is enabled
+ * in a running recording. Without a recording, an event is an empty
+ * object that never leaves the stack, and the JIT removes it. Dates are
+ * recorded as ISO strings, so they read the same in JDK Mission Control
+ * as in the app.
+ */
+public abstract class OperationEvent extends Event {
+
+    @Label("Component")
+    String component;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("User Id")
+    int userId;                                 // 0 when the call is not about one user.
+
+    @Label("From")
+    String fromDate;
+
+    @Label("To")
+    String toDate;
+
+    @Label("Rows")
+    long rows;                                  // Rows returned, written or streamed.
+
+    @Label("Failed")
+    boolean failed;
+
+    final void start(String component, String operation, int userId, LocalDate from, LocalDate to) {
+        if(isEnabled()){
+            this.component = component;
+            this.operation = operation;
+            this.userId = userId;
+            this.fromDate = from == null ? null : from.toString();
+            this.toDate = to == null ? null : to.toString();
+            begin();
+        }
+    }
+
+    final void startMonth(String component, String operation, int userId, int year, int month) {
+        if(isEnabled()){
+            LocalDate from = null;
+            LocalDate to = null;
+            try{
+                YearMonth yearMonth = YearMonth.of(year, month);
+                from = yearMonth.atDay(1);
+                to = yearMonth.atEndOfMonth();
+            }catch (DateTimeException e){
+                // The call itself will reject the month; record it without a range.
+            }
+            start(component, operation, userId, from, to);
+        }
+    }
+
+    /**
+     * Commits the event for a call that returned normally.
+     */
+    public final void end(long rowCount) {
+        if(isEnabled()){
+            this.rows = rowCount;
+            commit();
+        }
+    }
+
+    /**
+     * Commits the event for a call that threw. Calling it again, from an
+     * outer catch block, does nothing.
+     */
+    public final void fail() {
+        if(isEnabled() && !failed){
+            this.failed = true;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.collins.expensetracker.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.time.LocalDate;
+
+/**
+ * Flight Recorder event for one repository call that goes to the database.
+ */
+@Name("com.collins.expensetracker.RepositoryQuery")
+@Label("Repository Query")
+@Description("A repository method and the user, date range and row count it worked on")
+@Category({"Expense Tracker", "Repository"})
+@StackTrace(false)
+public class RepositoryQueryEvent extends OperationEvent {
+
+    public static RepositoryQueryEvent begin(String repository, String method, int userId, LocalDate from, LocalDate to) {
+        RepositoryQueryEvent event = new RepositoryQueryEvent();
+        event.start(repository, method, userId, from, to);
+        return event;
+    }
+
+    public static RepositoryQueryEvent beginMonth(String repository, String method, int userId, int year, int month) {
+        RepositoryQueryEvent event = new RepositoryQueryEvent();
+        event.startMonth(repository, method, userId, year, month);
+        return event;
+    }
+}
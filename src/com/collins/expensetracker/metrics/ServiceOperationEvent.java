@@ -0,0 +1,32 @@
+package com.collins.expensetracker.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.time.LocalDate;
+
+/**
+ * Flight Recorder event for one service call, such as {@code getMonthlySummary}.
+ */
+@Name("com.collins.expensetracker.ServiceOperation")
+@Label("Service Operation")
+@Description("A service method and the user, date range and row count it worked on")
+@Category({"Expense Tracker", "Service"})
+@StackTrace(false)
+public class ServiceOperationEvent extends OperationEvent {
+
+    public static ServiceOperationEvent begin(String service, String operation, int userId, LocalDate from, LocalDate to) {
+        ServiceOperationEvent event = new ServiceOperationEvent();
+        event.start(service, operation, userId, from, to);
+        return event;
+    }
+
+    public static ServiceOperationEvent beginMonth(String service, String operation, int userId, int year, int month) {
+        ServiceOperationEvent event = new ServiceOperationEvent();
+        event.startMonth(service, operation, userId, year, month);
+        return event;
+    }
+}
@@ -11,6 +11,7 @@ public class Category {
     private int userId;                             // Owner user id (foreign key to User).
     private String catName;                         // Category name (e.g. "Groceries").
     private LocalDateTime createdAt;                // When the category was created.
+    private int version;                            // Bumped by every update; used for optimistic locking.
 
     /**
      * No-arg constructor for building from JDBC ResultSet.
@@ -59,6 +60,14 @@ public class Category {
         this.createdAt = createdAt;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Category{" +
@@ -0,0 +1,57 @@
+package com.collins.expensetracker.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Where a user's money went over a date range: expense totals per category
+ * (largest first) and the largest individual expenses.
+ */
+public class CategoryBreakdown {
+    private final LocalDate from;                           // Start date (inclusive).
+    private final LocalDate to;                             // End date (inclusive).
+    private final BigDecimal totalExpense;                  // Sum of all EXPENSE transactions in the range.
+    private final List<CategoryTotal> categories;           // Per-category totals, largest first.
+    private final List<Transaction> largestExpenses;        // Top-N expenses, largest first.
+
+    public CategoryBreakdown(LocalDate from, LocalDate to, BigDecimal totalExpense,
+                             List<CategoryTotal> categories, List<Transaction> largestExpenses) {
+        this.from = from;
+        this.to = to;
+        this.totalExpense = totalExpense;
+        this.categories = categories;
+        this.largestExpenses = largestExpenses;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public BigDecimal getTotalExpense() {
+        return totalExpense;
+    }
+
+    public List<CategoryTotal> getCategories() {
+        return categories;
+    }
+
+    public List<Transaction> getLargestExpenses() {
+        return largestExpenses;
+    }
+
+    @Override
+    public String toString() {
+        return "CategoryBreakdown{" +
+                "from=" + from +
+                ", to=" + to +
+                ", totalExpense= $" + totalExpense +
+                ", categories=" + categories.size() +
+                ", largestExpenses=" + largestExpenses.size() +
+                '}';
+    }
+}
@@ -0,0 +1,57 @@
+package com.collins.expensetracker.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Aggregated spending for one category within a date range.
+ */
+public class CategoryTotal {
+    private final int categoryId;                           // Category id (foreign key to Category).
+    private final String categoryName;                      // Category name, or null if the category was removed.
+    private final BigDecimal total;                         // Sum of the category's transactions.
+    private final long count;                               // Number of transactions in the category.
+    private BigDecimal share = BigDecimal.ZERO;             // Fraction (0-1) of the breakdown's grand total.
+
+    public CategoryTotal(int categoryId, String categoryName, BigDecimal total, long count) {
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.total = total;
+        this.count = count;
+    }
+
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public BigDecimal getShare() {
+        return share;
+    }
+
+    public void setShare(BigDecimal share) {
+        this.share = share;
+    }
+
+    @Override
+    public String toString() {
+        return "CategoryTotal{" +
+                "catId=" + categoryId +
+                ", catName='" + categoryName + '\'' +
+                ", total= $" + total +
+                ", count=" + count +
+                ", share=" + share.movePointRight(2).setScale(2, RoundingMode.HALF_UP) + "%" +
+                '}';
+    }
+}
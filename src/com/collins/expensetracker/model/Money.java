@@ -0,0 +1,144 @@
+package com.collins.expensetracker.model;
+
+import java.math.BigDecimal;
+
+/**
+ * An exact amount of money held as a count of minor units (e.g. cents) and a scale.
+ * <p>
+ * Amounts stay {@link BigDecimal} in the public model; this type is for
+ * code that adds up many of them. Conversion from {@code BigDecimal} is
+ * exact: a value with more decimals than the scale is rejected rather than
+ * rounded. Arithmetic throws {@link ArithmeticException} when it leaves
+ * the {@code long} range instead of wrapping around.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final int DEFAULT_SCALE = 2;              // Matches the DECIMAL(15, 2) amount and total columns.
+
+    private static final Money ZERO = new Money(0, DEFAULT_SCALE);
+
+    private final long minorUnits;                          // Amount times 10^scale.
+    private final int scale;                                // Digits after the decimal point.
+
+    private Money(long minorUnits, int scale) {
+        this.minorUnits = minorUnits;
+        this.scale = scale;
+    }
+
+    public static Money zero() {
+        return ZERO;
+    }
+
+    public static Money ofMinorUnits(long minorUnits, int scale) {
+        checkScale(scale);
+        return new Money(minorUnits, scale);
+    }
+
+    /**
+     * @throws ArithmeticException if the amount has more than two decimals or does not fit
+     */
+    public static Money of(BigDecimal amount) {
+        return of(amount, DEFAULT_SCALE);
+    }
+
+    /**
+     * @throws ArithmeticException if the amount has more than {@code scale} decimals or does not fit
+     */
+    public static Money of(BigDecimal amount, int scale) {
+        long units = toMinorUnits(amount, checkScale(scale));
+        return new Money(units, scale);
+    }
+
+    /**
+     * Converts an amount to minor units without creating a {@code Money}.
+     * The intermediate {@code BigDecimal} is left to escape analysis: going
+     * through {@code doubleValue()} avoids it but is slower once it is removed.
+     *
+     * @throws ArithmeticException if the amount has more than {@code scale} decimals or does not fit
+     */
+    public static long toMinorUnits(BigDecimal amount, int scale) {
+        // longValueExact rejects both a non-zero fraction and a value outside the long range.
+        return amount.movePointRight(scale).longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long minorUnits, int scale) {
+        return BigDecimal.valueOf(minorUnits, scale);
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public Money plus(Money other) {
+        return new Money(Math.addExact(minorUnits, sameScale(other).minorUnits), scale);
+    }
+
+    public Money minus(Money other) {
+        return new Money(Math.subtractExact(minorUnits, sameScale(other).minorUnits), scale);
+    }
+
+    public Money negate() {
+        return new Money(Math.negateExact(minorUnits), scale);
+    }
+
+    public Money times(long factor) {
+        return new Money(Math.multiplyExact(minorUnits, factor), scale);
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return toBigDecimal(minorUnits, scale);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, sameScale(other).minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o){
+            return true;
+        }
+        if(!(o instanceof Money)){
+            return false;
+        }
+        Money other = (Money) o;
+        return minorUnits == other.minorUnits && scale == other.scale;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(minorUnits) + scale;
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    private Money sameScale(Money other) {
+        if(other.scale != scale){
+            throw new IllegalArgumentException("Cannot combine amounts with scale " + scale + " and " + other.scale);
+        }
+        return other;
+    }
+
+    static int checkScale(int scale) {
+        if(scale < 0 || scale > 18){
+            throw new IllegalArgumentException("scale must be between 0 and 18");
+        }
+        return scale;
+    }
+}
@@ -0,0 +1,98 @@
+package com.collins.expensetracker.model;
+
+import java.math.BigDecimal;
+
+/**
+ * A running total of amounts, kept in {@code long} minor units.
+ * <p>
+ * Adding a {@link BigDecimal} here converts it with
+ * {@link Money#toMinorUnits}, whose {@code movePointRight} creates a
+ * temporary {@code BigDecimal}, and then does a long addition. In a hot
+ * loop the JIT's escape analysis removes that temporary, so nothing is
+ * allocated per amount; where it does not (interpreted or cold code), each
+ * add allocates about 40 bytes. Either way the running total itself never
+ * allocates, where {@code total = total.add(amount)} creates a new object
+ * every time.
+ * The total converts back to {@code BigDecimal} once, when it is reported.
+ * Overflow throws {@link ArithmeticException}. Not thread-safe.
+ */
+public final class MoneyAccumulator {
+
+    private final int scale;                                // Digits after the decimal point, fixed per accumulator.
+    private long minorUnits;                                // Running total times 10^scale.
+    private long count;                                     // Amounts added minus amounts subtracted.
+
+    public MoneyAccumulator() {
+        this(Money.DEFAULT_SCALE);
+    }
+
+    public MoneyAccumulator(int scale) {
+        this.scale = Money.checkScale(scale);
+    }
+
+    /**
+     * @throws ArithmeticException if the amount has more decimals than this total's scale, or on overflow
+     */
+    public MoneyAccumulator add(BigDecimal amount) {
+        return addMinorUnits(Money.toMinorUnits(amount, scale));
+    }
+
+    /**
+     * @throws ArithmeticException if the amount has more decimals than this total's scale, or on overflow
+     */
+    public MoneyAccumulator subtract(BigDecimal amount) {
+        minorUnits = Math.subtractExact(minorUnits, Money.toMinorUnits(amount, scale));
+        count--;
+        return this;
+    }
+
+    /**
+     * @throws ArithmeticException on overflow
+     */
+    public MoneyAccumulator addMinorUnits(long units) {
+        minorUnits = Math.addExact(minorUnits, units);
+        count++;
+        return this;
+    }
+
+    /**
+     * Adds another total of the same scale, e.g. one kept by another thread.
+     */
+    public MoneyAccumulator addAll(MoneyAccumulator other) {
+        if(other.scale != scale){
+            throw new IllegalArgumentException("Cannot combine totals with scale " + scale + " and " + other.scale);
+        }
+        minorUnits = Math.addExact(minorUnits, other.minorUnits);
+        count += other.count;
+        return this;
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public Money toMoney() {
+        return Money.ofMinorUnits(minorUnits, scale);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return Money.toBigDecimal(minorUnits, scale);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,52 @@
+package com.collins.expensetracker.model;
+
+/**
+ * A repository statement whose EXPLAIN shows a full scan that no index can serve,
+ * or that could not be explained at all.
+ */
+public class PlanViolation {
+    private final String statement;                         // Catalog name, e.g. "transactions.findByUserIdAndDateRange".
+    private final String table;                             // Table scanned, or null if EXPLAIN failed.
+    private final String accessType;                        // EXPLAIN type column (ALL, index), or null if EXPLAIN failed.
+    private final String detail;                            // Extra column or error message.
+    private final String sql;                               // The statement as the repository issues it.
+
+    public PlanViolation(String statement, String table, String accessType, String detail, String sql) {
+        this.statement = statement;
+        this.table = table;
+        this.accessType = accessType;
+        this.detail = detail;
+        this.sql = sql;
+    }
+
+    public String getStatement() {
+        return statement;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getAccessType() {
+        return accessType;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    @Override
+    public String toString() {
+        return "PlanViolation{" +
+                "statement='" + statement + '\'' +
+                ", table='" + table + '\'' +
+                ", type=" + accessType +
+                ", detail='" + detail + '\'' +
+                ", sql='" + sql + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,48 @@
+package com.collins.expensetracker.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Bucket size for time-series reports.
+ * Weeks start on Monday (ISO-8601).
+ */
+public enum ReportGranularity {
+    DAY,
+    WEEK,
+    MONTH,
+    YEAR;
+
+    /**
+     * @return the first day of the bucket that contains the date
+     */
+    public LocalDate bucketStart(LocalDate date){
+        switch (this){
+            case DAY:
+                return date;
+            case WEEK:
+                return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH:
+                return date.withDayOfMonth(1);
+            default:
+                return date.withDayOfYear(1);
+        }
+    }
+
+    /**
+     * @return the first day of the bucket following the one starting at bucketStart
+     */
+    public LocalDate next(LocalDate bucketStart){
+        switch (this){
+            case DAY:
+                return bucketStart.plusDays(1);
+            case WEEK:
+                return bucketStart.plusWeeks(1);
+            case MONTH:
+                return bucketStart.plusMonths(1);
+            default:
+                return bucketStart.plusYears(1);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.collins.expensetracker.model;
+
+import java.math.BigDecimal;
+
+/**
+ * A monthly_rollups bucket that disagrees with the raw transactions table.
+ */
+public class RollupMismatch {
+    private final int userId;                               // Owner user id.
+    private final int year;                                 // Bucket year.
+    private final int month;                                // Bucket month (1-12).
+    private final TransactionType type;                     // Bucket type.
+    private final BigDecimal expectedTotal;                 // SUM(amount) from transactions.
+    private final int expectedCount;                        // COUNT(*) from transactions.
+    private final BigDecimal actualTotal;                   // Stored rollup total (null if the bucket is missing).
+    private final int actualCount;                          // Stored rollup count.
+
+    public RollupMismatch(int userId, int year, int month, TransactionType type, BigDecimal expectedTotal,
+                          int expectedCount, BigDecimal actualTotal, int actualCount) {
+        this.userId = userId;
+        this.year = year;
+        this.month = month;
+        this.type = type;
+        this.expectedTotal = expectedTotal;
+        this.expectedCount = expectedCount;
+        this.actualTotal = actualTotal;
+        this.actualCount = actualCount;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getMonth() {
+        return month;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public BigDecimal getExpectedTotal() {
+        return expectedTotal;
+    }
+
+    public int getExpectedCount() {
+        return expectedCount;
+    }
+
+    public BigDecimal getActualTotal() {
+        return actualTotal;
+    }
+
+    public int getActualCount() {
+        return actualCount;
+    }
+
+    @Override
+    public String toString() {
+        return "RollupMismatch{" +
+                "userId=" + userId +
+                ", year=" + year +
+                ", month=" + month +
+                ", type=" + type +
+                ", expected=" + expectedTotal + "/" + expectedCount +
+                ", actual=" + actualTotal + "/" + actualCount +
+                '}';
+    }
+}
@@ -0,0 +1,54 @@
+package com.collins.expensetracker.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Income/expense totals for one bucket (day, week, month or year) of a report.
+ */
+public class TimeSeriesPoint {
+    private final LocalDate bucketStart;                    // First day of the bucket.
+    private final BigDecimal totalIncome;                   // Sum of INCOME transactions in the bucket.
+    private final BigDecimal totalExpense;                  // Sum of EXPENSE transactions in the bucket.
+    private final BigDecimal net;                           // totalIncome - totalExpense.
+
+    public TimeSeriesPoint(LocalDate bucketStart, BigDecimal totalIncome, BigDecimal totalExpense) {
+        this.bucketStart = bucketStart;
+        this.totalIncome = totalIncome;
+        this.totalExpense = totalExpense;
+        this.net = totalIncome.subtract(totalExpense);
+    }
+
+    /**
+     * An empty bucket, used to fill gaps in a series.
+     */
+    public static TimeSeriesPoint empty(LocalDate bucketStart){
+        return new TimeSeriesPoint(bucketStart, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+
+    public LocalDate getBucketStart() {
+        return bucketStart;
+    }
+
+    public BigDecimal getTotalIncome() {
+        return totalIncome;
+    }
+
+    public BigDecimal getTotalExpense() {
+        return totalExpense;
+    }
+
+    public BigDecimal getNet() {
+        return net;
+    }
+
+    @Override
+    public String toString() {
+        return "TimeSeriesPoint{" +
+                "bucketStart=" + bucketStart +
+                ", totalIncome= $" + totalIncome +
+                ", totalExpense= $" + totalExpense +
+                ", net= $" + net +
+                '}';
+    }
+}
@@ -18,6 +18,7 @@ public class Transaction {
     private String description;                             // Optional details ("Uber to work").
     private LocalDateTime createdAt;                        // When the transaction was created.
     private LocalDateTime updatedAt;                        // When it was last modified.
+    private int version;                                    // Bumped by every update; used for optimistic locking.
 
 
     /**
@@ -111,6 +112,14 @@ public class Transaction {
         this.updatedAt = updatedAt;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Transaction{" +
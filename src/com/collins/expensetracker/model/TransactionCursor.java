@@ -0,0 +1,72 @@
+package com.collins.expensetracker.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a user's transaction list ordered by (date DESC, id DESC).
+ * Clients only see the opaque string from {@link #encode()}; the next page
+ * starts strictly after the (date, id) it points at.
+ */
+public class TransactionCursor {
+    private final LocalDate date;                           // Date of the last transaction on the previous page.
+    private final int id;                                   // Id of the last transaction on the previous page.
+
+    public TransactionCursor(LocalDate date, int id) {
+        this.date = date;
+        this.id = id;
+    }
+
+    /**
+     * Cursor pointing just after the given transaction.
+     */
+    public static TransactionCursor after(Transaction tx){
+        return new TransactionCursor(tx.getDate(), tx.getId());
+    }
+
+    /**
+     * Parses a cursor previously produced by {@link #encode()}.
+     *
+     * @param token opaque cursor string
+     * @return the decoded cursor
+     * @throws IllegalArgumentException if the token is not a valid cursor
+     */
+    public static TransactionCursor decode(String token){
+        try{
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            if(sep < 0){
+                throw new IllegalArgumentException("Malformed page cursor");
+            }
+            return new TransactionCursor(LocalDate.parse(raw.substring(0, sep)), Integer.parseInt(raw.substring(sep + 1)));
+        }catch (DateTimeParseException e){
+            throw new IllegalArgumentException("Malformed page cursor", e);
+        }
+    }
+
+    /**
+     * @return opaque, URL-safe representation of this cursor
+     */
+    public String encode(){
+        String raw = date + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionCursor{" +
+                "date=" + date +
+                ", id=" + id +
+                '}';
+    }
+}
@@ -0,0 +1,37 @@
+package com.collins.expensetracker.model;
+
+import java.util.List;
+
+/**
+ * One page of a user's transactions, newest first,
+ * plus the cursor needed to fetch the next page.
+ */
+public class TransactionPage {
+    private final List<Transaction> transactions;           // Transactions on this page.
+    private final String nextCursor;                        // Opaque cursor for the next page; null on the last page.
+
+    public TransactionPage(List<Transaction> transactions, String nextCursor) {
+        this.transactions = transactions;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionPage{" +
+                "size=" + transactions.size() +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
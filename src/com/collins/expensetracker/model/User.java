@@ -10,6 +10,7 @@ public class User {
     private String name;                                // Display name of the user.
     private String email;                               // Unique email identifier.
     private LocalDateTime createdAt;                    // When the user record was created.
+    private int version;                                // Bumped by every update; used for optimistic locking.
 
     /**
      * No-arg constructor used when building the object step by step
@@ -58,6 +59,14 @@ public class User {
         this.createdAt = createdAt;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "User{" +
@@ -0,0 +1,109 @@
+package com.collins.expensetracker.repository;
+
+import com.collins.expensetracker.cache.CacheStats;
+import com.collins.expensetracker.cache.LruCache;
+import com.collins.expensetracker.model.Category;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-through cache in front of another {@link CategoryRepository}.
+ * <p>
+ * Categories are cached by id and by (userId, name). Writes go straight to
+ * the delegate and then drop every cached copy of the category. Cached
+ * objects are copied on the way in and out. Missing categories are not
+ * cached.
+ */
+public class CachingCategoryRepository implements CategoryRepository {
+
+    private final CategoryRepository delegate;
+    private final LruCache<Integer, Category> byId;
+    private final LruCache<String, Category> byName;
+
+    /**
+     * @param delegate repository that owns the data
+     * @param maxSize  maximum categories held per key type
+     * @param ttl      how long a cached category may be served
+     */
+    public CachingCategoryRepository(CategoryRepository delegate, int maxSize, Duration ttl) {
+        this.delegate = delegate;
+        this.byId = new LruCache<>("categories.byId", maxSize, ttl);
+        this.byName = new LruCache<>("categories.byName", maxSize, ttl, Category::getId);
+    }
+
+    @Override
+    public Category save(Category category) {
+        Category saved;
+        try{
+            saved = delegate.save(category);
+        }catch (OptimisticLockException e){
+            // The cached copy is what went stale; the retry must read the row again.
+            invalidate(category.getId());
+            throw e;
+        }
+        invalidate(saved.getId());
+        return saved;
+    }
+
+    @Override
+    public Category findById(int id) {
+        Category cached = byId.get(id);
+        if(cached != null){
+            return copy(cached);
+        }
+        long generation = byId.generation();
+        Category category = delegate.findById(id);
+        if(category != null){
+            byId.put(id, copy(category), generation);
+        }
+        return category;
+    }
+
+    @Override
+    public List<Category> findByUserId(int userId) {
+        return delegate.findByUserId(userId);
+    }
+
+    @Override
+    public Category findByUserIdAndName(int userId, String name) {
+        String key = userId + "/" + name;
+        Category cached = byName.get(key);
+        if(cached != null){
+            return copy(cached);
+        }
+        long generation = byName.generation();
+        Category category = delegate.findByUserIdAndName(userId, name);
+        if(category != null){
+            byName.put(key, copy(category), generation);
+        }
+        return category;
+    }
+
+    @Override
+    public void deleteById(int id) {
+        delegate.deleteById(id);
+        invalidate(id);
+    }
+
+    /**
+     * @return statistics for the id and name caches
+     */
+    public List<CacheStats> getCacheStats() {
+        return Arrays.asList(byId.getStats(), byName.getStats());
+    }
+
+    private void invalidate(int id){
+        byId.invalidate(id);
+        byName.invalidateGroup(id);
+    }
+
+    private static Category copy(Category category){
+        Category copy = new Category(category.getUserId(), category.getCatName());
+        copy.setId(category.getId());
+        copy.setCreatedAt(category.getCreatedAt());
+        copy.setVersion(category.getVersion());
+        return copy;
+    }
+}
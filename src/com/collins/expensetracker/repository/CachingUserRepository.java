@@ -0,0 +1,108 @@
+package com.collins.expensetracker.repository;
+
+import com.collins.expensetracker.cache.CacheStats;
+import com.collins.expensetracker.cache.LruCache;
+import com.collins.expensetracker.model.User;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-through cache in front of another {@link UserRepository}.
+ * <p>
+ * Users are cached by id and by email. Writes go straight to the delegate
+ * and then drop every cached copy of the user, under both keys. Cached
+ * objects are copied on the way in and out, so callers can't change what
+ * others read. Missing users are not cached.
+ */
+public class CachingUserRepository implements UserRepository {
+
+    private final UserRepository delegate;
+    private final LruCache<Integer, User> byId;
+    private final LruCache<String, User> byEmail;
+
+    /**
+     * @param delegate repository that owns the data
+     * @param maxSize  maximum users held per key type
+     * @param ttl      how long a cached user may be served
+     */
+    public CachingUserRepository(UserRepository delegate, int maxSize, Duration ttl) {
+        this.delegate = delegate;
+        this.byId = new LruCache<>("users.byId", maxSize, ttl);
+        this.byEmail = new LruCache<>("users.byEmail", maxSize, ttl, User::getId);
+    }
+
+    @Override
+    public User save(User user) {
+        User saved;
+        try{
+            saved = delegate.save(user);
+        }catch (OptimisticLockException e){
+            // The cached copy is what went stale; the retry must read the row again.
+            invalidate(user.getId());
+            throw e;
+        }
+        invalidate(saved.getId());
+        return saved;
+    }
+
+    @Override
+    public User findById(int id) {
+        User cached = byId.get(id);
+        if(cached != null){
+            return copy(cached);
+        }
+        long generation = byId.generation();
+        User user = delegate.findById(id);
+        if(user != null){
+            byId.put(id, copy(user), generation);
+        }
+        return user;
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        User cached = byEmail.get(email);
+        if(cached != null){
+            return copy(cached);
+        }
+        long generation = byEmail.generation();
+        User user = delegate.findByEmail(email);
+        if(user != null){
+            byEmail.put(email, copy(user), generation);
+        }
+        return user;
+    }
+
+    @Override
+    public List<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public void deleteById(int id) {
+        delegate.deleteById(id);
+        invalidate(id);
+    }
+
+    /**
+     * @return statistics for the id and email caches
+     */
+    public List<CacheStats> getCacheStats() {
+        return Arrays.asList(byId.getStats(), byEmail.getStats());
+    }
+
+    private void invalidate(int id){
+        byId.invalidate(id);
+        byEmail.invalidateGroup(id);
+    }
+
+    private static User copy(User user){
+        User copy = new User(user.getName(), user.getEmail());
+        copy.setId(user.getId());
+        copy.setCreatedAt(user.getCreatedAt());
+        copy.setVersion(user.getVersion());
+        return copy;
+    }
+}
@@ -0,0 +1,94 @@
+package com.collins.expensetracker.repository;
+
+import com.collins.expensetracker.metrics.MethodStats;
+import com.collins.expensetracker.metrics.MetricsRegistry;
+import com.collins.expensetracker.model.Category;
+
+import java.util.List;
+
+/**
+ * Times every call to another {@link CategoryRepository} and counts its errors and rows.
+ */
+public class InstrumentedCategoryRepository implements CategoryRepository {
+
+    private final CategoryRepository delegate;
+    private final MethodStats save;
+    private final MethodStats findById;
+    private final MethodStats findByUserId;
+    private final MethodStats findByUserIdAndName;
+    private final MethodStats deleteById;
+
+    public InstrumentedCategoryRepository(CategoryRepository delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        String component = "CategoryRepository";
+        this.save = registry.method(component, "save");
+        this.findById = registry.method(component, "findById");
+        this.findByUserId = registry.method(component, "findByUserId");
+        this.findByUserIdAndName = registry.method(component, "findByUserIdAndName");
+        this.deleteById = registry.method(component, "deleteById");
+    }
+
+    @Override
+    public Category save(Category category) {
+        long start = System.nanoTime();
+        try{
+            Category saved = delegate.save(category);
+            save.success(start, 1);
+            return saved;
+        }catch (RuntimeException e){
+            save.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Category findById(int id) {
+        long start = System.nanoTime();
+        try{
+            Category category = delegate.findById(id);
+            findById.success(start, category == null ? 0 : 1);
+            return category;
+        }catch (RuntimeException e){
+            findById.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Category> findByUserId(int userId) {
+        long start = System.nanoTime();
+        try{
+            List<Category> categories = delegate.findByUserId(userId);
+            findByUserId.success(start, categories.size());
+            return categories;
+        }catch (RuntimeException e){
+            findByUserId.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Category findByUserIdAndName(int userId, String name) {
+        long start = System.nanoTime();
+        try{
+            Category category = delegate.findByUserIdAndName(userId, name);
+            findByUserIdAndName.success(start, category == null ? 0 : 1);
+            return category;
+        }catch (RuntimeException e){
+            findByUserIdAndName.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void deleteById(int id) {
+        long start = System.nanoTime();
+        try{
+            delegate.deleteById(id);
+            deleteById.success(start, 0);
+        }catch (RuntimeException e){
+            deleteById.failure(start);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.collins.expensetracker.repository;
+
+import com.collins.expensetracker.metrics.MethodStats;
+import com.collins.expensetracker.metrics.MetricsRegistry;
+import com.collins.expensetracker.model.CategoryTotal;
+import com.collins.expensetracker.model.MonthlySummary;
+import com.collins.expensetracker.model.ReportGranularity;
+import com.collins.expensetracker.model.TimeSeriesPoint;
+import com.collins.expensetracker.model.Transaction;
+import com.collins.expensetracker.model.TransactionCursor;
+import com.collins.expensetracker.model.TransactionType;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Times every call to another {@link TransactionRepository} and counts its errors and rows.
+ * <p>
+ * Stats are looked up once, here, so a call costs two {@code nanoTime}
+ * reads and a few uncontended atomic adds. Exceptions are counted and
+ * rethrown unchanged.
+ */
+public class InstrumentedTransactionRepository implements TransactionRepository {
+
+    private final TransactionRepository delegate;
+    private final MethodStats save;
+    private final MethodStats saveAll;
+    private final MethodStats findById;
+    private final MethodStats findByUserId;
+    private final MethodStats findByUserIdAndDateRange;
+    private final MethodStats findMonthlySummary;
+    private final MethodStats findTimeSeries;
+    private final MethodStats findCategoryTotals;
+    private final MethodStats findPageByUserId;
+    private final MethodStats streamByUserIdAndDateRange;
+    private final MethodStats deleteById;
+
+    public InstrumentedTransactionRepository(TransactionRepository delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        String component = "TransactionRepository";
+        this.save = registry.method(component, "save");
+        this.saveAll = registry.method(component, "saveAll");
+        this.findById = registry.method(component, "findById");
+        this.findByUserId = registry.method(component, "findByUserId");
+        this.findByUserIdAndDateRange = registry.method(component, "findByUserIdAndDateRange");
+        this.findMonthlySummary = registry.method(component, "findMonthlySummary");
+        this.findTimeSeries = registry.method(component, "findTimeSeries");
+        this.findCategoryTotals = registry.method(component, "findCategoryTotals");
+        this.findPageByUserId = registry.method(component, "findPageByUserId");
+        this.streamByUserIdAndDateRange = registry.method(component, "streamByUserIdAndDateRange");
+        this.deleteById = registry.method(component, "deleteById");
+    }
+
+    @Override
+    public Transaction save(Transaction tx) {
+        long start = System.nanoTime();
+        try{
+            Transaction saved = delegate.save(tx);
+            save.success(start, 1);
+            return saved;
+        }catch (RuntimeException e){
+            save.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Transaction> saveAll(Collection<Transaction> transactions) {
+        long start = System.nanoTime();
+        try{
+            List<Transaction> saved = delegate.saveAll(transactions);
+            saveAll.success(start, saved.size());
+            return saved;
+        }catch (RuntimeException e){
+            saveAll.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Transaction findById(int id) {
+        long start = System.nanoTime();
+        try{
+            Transaction transaction = delegate.findById(id);
+            findById.success(start, transaction == null ? 0 : 1);
+            return transaction;
+        }catch (RuntimeException e){
+            findById.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Transaction> findByUserId(int userId) {
+        long start = System.nanoTime();
+        try{
+            List<Transaction> transactions = delegate.findByUserId(userId);
+            findByUserId.success(start, transactions.size());
+            return transactions;
+        }catch (RuntimeException e){
+            findByUserId.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Transaction> findByUserIdAndDateRange(int userId, LocalDate from, LocalDate to) {
+        long start = System.nanoTime();
+        try{
+            List<Transaction> transactions = delegate.findByUserIdAndDateRange(userId, from, to);
+            findByUserIdAndDateRange.success(start, transactions.size());
+            return transactions;
+        }catch (RuntimeException e){
+            findByUserIdAndDateRange.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public MonthlySummary findMonthlySummary(int userId, int year, int month) {
+        long start = System.nanoTime();
+        try{
+            MonthlySummary summary = delegate.findMonthlySummary(userId, year, month);
+            findMonthlySummary.success(start, summary == null ? 0 : 1);
+            return summary;
+        }catch (RuntimeException e){
+            findMonthlySummary.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<TimeSeriesPoint> findTimeSeries(int userId, LocalDate from, LocalDate to, ReportGranularity granularity) {
+        long start = System.nanoTime();
+        try{
+            List<TimeSeriesPoint> points = delegate.findTimeSeries(userId, from, to, granularity);
+            findTimeSeries.success(start, points.size());
+            return points;
+        }catch (RuntimeException e){
+            findTimeSeries.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<CategoryTotal> findCategoryTotals(int userId, TransactionType type, LocalDate from, LocalDate to) {
+        long start = System.nanoTime();
+        try{
+            List<CategoryTotal> totals = delegate.findCategoryTotals(userId, type, from, to);
+            findCategoryTotals.success(start, totals.size());
+            return totals;
+        }catch (RuntimeException e){
+            findCategoryTotals.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Transaction> findPageByUserId(int userId, TransactionCursor after, int limit) {
+        long start = System.nanoTime();
+        try{
+            List<Transaction> page = delegate.findPageByUserId(userId, after, limit);
+            findPageByUserId.success(start, page.size());
+            return page;
+        }catch (RuntimeException e){
+            findPageByUserId.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public long streamByUserIdAndDateRange(int userId, LocalDate from, LocalDate to, Consumer<Transaction> consumer) {
+        long start = System.nanoTime();
+        try{
+            long rows = delegate.streamByUserIdAndDateRange(userId, from, to, consumer);
+            streamByUserIdAndDateRange.success(start, rows);
+            return rows;
+        }catch (RuntimeException e){
+            streamByUserIdAndDateRange.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public long streamByUserIdAndDateRange(int userId, TransactionType type, LocalDate from, LocalDate to, Consumer<Transaction> consumer) {
+        long start = System.nanoTime();
+        try{
+            long rows = delegate.streamByUserIdAndDateRange(userId, type, from, to, consumer);
+            streamByUserIdAndDateRange.success(start, rows);
+            return rows;
+        }catch (RuntimeException e){
+            streamByUserIdAndDateRange.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void deleteById(int id) {
+        long start = System.nanoTime();
+        try{
+            delegate.deleteById(id);
+            deleteById.success(start, 0);
+        }catch (RuntimeException e){
+            deleteById.failure(start);
+            throw e;
+        }
+    }
+}
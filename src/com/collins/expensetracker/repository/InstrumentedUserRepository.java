@@ -0,0 +1,94 @@
+package com.collins.expensetracker.repository;
+
+import com.collins.expensetracker.metrics.MethodStats;
+import com.collins.expensetracker.metrics.MetricsRegistry;
+import com.collins.expensetracker.model.User;
+
+import java.util.List;
+
+/**
+ * Times every call to another {@link UserRepository} and counts its errors and rows.
+ */
+public class InstrumentedUserRepository implements UserRepository {
+
+    private final UserRepository delegate;
+    private final MethodStats save;
+    private final MethodStats findById;
+    private final MethodStats findByEmail;
+    private final MethodStats findAll;
+    private final MethodStats deleteById;
+
+    public InstrumentedUserRepository(UserRepository delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        String component = "UserRepository";
+        this.save = registry.method(component, "save");
+        this.findById = registry.method(component, "findById");
+        this.findByEmail = registry.method(component, "findByEmail");
+        this.findAll = registry.method(component, "findAll");
+        this.deleteById = registry.method(component, "deleteById");
+    }
+
+    @Override
+    public User save(User user) {
+        long start = System.nanoTime();
+        try{
+            User saved = delegate.save(user);
+            save.success(start, 1);
+            return saved;
+        }catch (RuntimeException e){
+            save.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public User findById(int id) {
+        long start = System.nanoTime();
+        try{
+            User user = delegate.findById(id);
+            findById.success(start, user == null ? 0 : 1);
+            return user;
+        }catch (RuntimeException e){
+            findById.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        long start = System.nanoTime();
+        try{
+            User user = delegate.findByEmail(email);
+            findByEmail.success(start, user == null ? 0 : 1);
+            return user;
+        }catch (RuntimeException e){
+            findByEmail.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<User> findAll() {
+        long start = System.nanoTime();
+        try{
+            List<User> users = delegate.findAll();
+            findAll.success(start, users.size());
+            return users;
+        }catch (RuntimeException e){
+            findAll.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void deleteById(int id) {
+        long start = System.nanoTime();
+        try{
+            delegate.deleteById(id);
+            deleteById.success(start, 0);
+        }catch (RuntimeException e){
+            deleteById.failure(start);
+            throw e;
+        }
+    }
+}
@@ -9,6 +9,13 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class JdbcCategoryRepository implements CategoryRepository{
+    static final String INSERT_SQL = "INSERT INTO categories (user_id, catName) VALUES (?, ?)";
+    static final String UPDATE_SQL = "UPDATE categories SET user_id = ?, catName = ?, version = version + 1 WHERE id = ? AND version = ?";
+    static final String FIND_BY_ID_SQL = "SELECT id, user_id, catName, created_at, version FROM categories WHERE id = ?";
+    static final String FIND_BY_USER_SQL = "SELECT id, user_id, catName, created_at, version FROM categories WHERE user_id = ?";
+    static final String FIND_BY_USER_AND_NAME_SQL = "SELECT id, user_id, catName, created_at, version FROM categories WHERE user_id = ? AND catName = ?";
+    static final String DELETE_SQL = "DELETE FROM categories WHERE id = ?";
+
     private final ConnectionFactory connectionFactory;
 
     public JdbcCategoryRepository(ConnectionFactory connectionFactory) {
@@ -18,7 +25,7 @@ public class JdbcCategoryRepository implements CategoryRepository{
     @Override
     public Category save(Category category) {
         if(category.getId() == 0){
-            String sql = "INSERT INTO categories (user_id, catName) VALUES (?, ?)";
+            String sql = INSERT_SQL;
 
             try(Connection conn = connectionFactory.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)){
@@ -36,20 +43,26 @@ public class JdbcCategoryRepository implements CategoryRepository{
                          category.setId(generatedKey);
                      }
                  }
+                 connectionFactory.recordWrite(category.getUserId());
                  return category;
             }catch (SQLException e){
                 throw new RuntimeException("Error saving category (insert)", e);
             }
         }else{
-            String sql = "UPDATE categories SET user_id = ?, catName = ? WHERE id =?";
+            String sql = UPDATE_SQL;
 
             try(Connection conn = connectionFactory.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)){
                 ps.setInt(1,category.getUserId());
                 ps.setString(2,category.getCatName());
                 ps.setInt(3,category.getId());
+                ps.setInt(4,category.getVersion());
 
-                ps.executeUpdate();
+                if(ps.executeUpdate() == 0){
+                    throw new OptimisticLockException("category", category.getId(), category.getVersion());
+                }
+                category.setVersion(category.getVersion() + 1);
+                connectionFactory.recordWrite(category.getUserId());
 
                 return category;
             }catch (SQLException e){
@@ -60,7 +73,7 @@ public class JdbcCategoryRepository implements CategoryRepository{
 
     @Override
     public Category findById(int id) {
-        String sql = "SELECT id, user_id, catName, created_at FROM categories WHERE id = ?";
+        String sql = FIND_BY_ID_SQL;
 
         try(Connection conn = connectionFactory.getConnection();
             PreparedStatement ps = conn.prepareStatement(sql)){
@@ -75,6 +88,7 @@ public class JdbcCategoryRepository implements CategoryRepository{
                 Timestamp ts = rs.getTimestamp("created_at");
                 LocalDateTime createdAt = ts.toLocalDateTime();
                 category.setCreatedAt(createdAt);
+                category.setVersion(rs.getInt("version"));
 
                 return category;
             }else {
@@ -87,8 +101,8 @@ public class JdbcCategoryRepository implements CategoryRepository{
 
     @Override
     public List<Category> findByUserId(int userId) {
-        String sql = "SELECT id, user_id, catName, created_at FROM categories WHERE user_id = ?";
-        try(Connection conn = connectionFactory.getConnection();
+        String sql = FIND_BY_USER_SQL;
+        try(Connection conn = connectionFactory.getReadConnection(userId);
             PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setInt(1, userId);
@@ -103,6 +117,7 @@ public class JdbcCategoryRepository implements CategoryRepository{
                 Timestamp ts = rs.getTimestamp("created_at");
                 LocalDateTime createdAt = ts.toLocalDateTime();
                 category.setCreatedAt(createdAt);
+                category.setVersion(rs.getInt("version"));
 
                 categories.add(category);
             }
@@ -115,8 +130,8 @@ public class JdbcCategoryRepository implements CategoryRepository{
 
     @Override
     public Category findByUserIdAndName(int userId, String name) {
-        String sql = "SELECT id, user_id, catName, created_at FROM categories WHERE user_id = ? AND catName = ?";
-        try(Connection conn = connectionFactory.getConnection();
+        String sql = FIND_BY_USER_AND_NAME_SQL;
+        try(Connection conn = connectionFactory.getReadConnection(userId);
             PreparedStatement ps = conn.prepareStatement(sql)){
 
             ps.setInt(1,userId);
@@ -131,6 +146,7 @@ public class JdbcCategoryRepository implements CategoryRepository{
                 Timestamp ts = rs.getTimestamp("created_at");
                 LocalDateTime createdAt = ts.toLocalDateTime();
                 category.setCreatedAt(createdAt);
+                category.setVersion(rs.getInt("version"));
 
                 return category;
             }else {
@@ -143,14 +159,23 @@ public class JdbcCategoryRepository implements CategoryRepository{
 
     @Override
     public void deleteById(int id) {
-        String sql = "DELETE FROM categories WHERE id = ?";
+        String sql = DELETE_SQL;
 
         try(Connection conn = connectionFactory.getConnection();
+            PreparedStatement owner = conn.prepareStatement(FIND_BY_ID_SQL);
             PreparedStatement ps = conn.prepareStatement(sql)){
+            // The owner's next reads must not come from a replica that still has the row.
+            owner.setInt(1, id);
+            ResultSet rs = owner.executeQuery();
+            int userId = rs.next() ? rs.getInt("user_id") : 0;
+
             ps.setInt(1,id);
 
             int rows = ps.executeUpdate();
 //            System.out.println(rows+" rows affected");
+            if(rows > 0){
+                connectionFactory.recordWrite(userId);
+            }
         }catch (SQLException e){
             throw new RuntimeException("Failed to Delete category by id", e);
         }
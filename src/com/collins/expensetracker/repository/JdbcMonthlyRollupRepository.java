@@ -0,0 +1,76 @@
+package com.collins.expensetracker.repository;
+
+import com.collins.expensetracker.db.ConnectionFactory;
+import com.collins.expensetracker.model.RollupMismatch;
+import com.collins.expensetracker.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class JdbcMonthlyRollupRepository implements MonthlyRollupRepository{
+    static final String AGGREGATE_SQL = "SELECT user_id, YEAR(date) AS year, MONTH(date) AS month, type, " +
+            "SUM(amount) AS total, COUNT(*) AS count FROM transactions GROUP BY user_id, YEAR(date), MONTH(date), type";
+
+    static final String VERIFY_SQL = "SELECT t.user_id, t.year, t.month, t.type, t.total AS expected_total, " +
+            "t.count AS expected_count, r.total AS actual_total, r.count AS actual_count " +
+            "FROM (" + AGGREGATE_SQL + ") t " +
+            "LEFT JOIN monthly_rollups r ON r.user_id = t.user_id AND r.year = t.year AND r.month = t.month AND r.type = t.type " +
+            "WHERE r.user_id IS NULL OR r.total <> t.total OR r.count <> t.count " +
+            "UNION ALL " +
+            "SELECT r.user_id, r.year, r.month, r.type, NULL, 0, r.total, r.count " +
+            "FROM monthly_rollups r " +
+            "LEFT JOIN (" + AGGREGATE_SQL + ") t ON r.user_id = t.user_id AND r.year = t.year AND r.month = t.month AND r.type = t.type " +
+            "WHERE t.user_id IS NULL AND (r.count <> 0 OR r.total <> 0)";
+
+    private final ConnectionFactory connectionFactory;
+
+    public JdbcMonthlyRollupRepository(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    @Override
+    public int rebuild() {
+        try(Connection conn = connectionFactory.getConnection()){
+            conn.setAutoCommit(false);
+            try(Statement st = conn.createStatement()){
+                st.executeUpdate("DELETE FROM monthly_rollups");
+                int rows = st.executeUpdate("INSERT INTO monthly_rollups (user_id, year, month, type, total, count) " + AGGREGATE_SQL);
+                conn.commit();
+                return rows;
+            }catch (SQLException | RuntimeException e){
+                conn.rollback();
+                throw e;
+            }
+        }catch (SQLException e){
+            throw new RuntimeException("Failed to rebuild monthly rollups", e);
+        }
+    }
+
+    @Override
+    public List<RollupMismatch> verify() {
+        try(Connection conn = connectionFactory.getConnection();
+            PreparedStatement ps = conn.prepareStatement(VERIFY_SQL)){
+            ResultSet rs = ps.executeQuery();
+
+            List<RollupMismatch> mismatches = new ArrayList<>();
+            while (rs.next()) {
+                BigDecimal expectedTotal = rs.getBigDecimal("expected_total");
+                mismatches.add(new RollupMismatch(
+                        rs.getInt("user_id"),
+                        rs.getInt("year"),
+                        rs.getInt("month"),
+                        TransactionType.valueOf(rs.getString("type")),
+                        expectedTotal == null ? BigDecimal.ZERO : expectedTotal,
+                        rs.getInt("expected_count"),
+                        rs.getBigDecimal("actual_total"),
+                        rs.getInt("actual_count")));
+            }
+
+            return mismatches;
+        }catch (SQLException e){
+            throw new RuntimeException("Failed to verify monthly rollups", e);
+        }
+    }
+}
@@ -1,16 +1,79 @@
 package com.collins.expensetracker.repository;
 
 import com.collins.expensetracker.db.ConnectionFactory;
+import com.collins.expensetracker.metrics.RepositoryQueryEvent;
+import com.collins.expensetracker.model.CategoryTotal;
+import com.collins.expensetracker.model.MoneyAccumulator;
+import com.collins.expensetracker.model.MonthlySummary;
+import com.collins.expensetracker.model.ReportGranularity;
+import com.collins.expensetracker.model.TimeSeriesPoint;
 import com.collins.expensetracker.model.Transaction;
+import com.collins.expensetracker.model.TransactionCursor;
 import com.collins.expensetracker.model.TransactionType;
 
+import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 public class JdbcTransactionRepository implements TransactionRepository{
+    static final String INSERT_SQL = "INSERT INTO transactions (user_id, category_id, type, amount, date, description) VALUES (?, ?, ?, ?, ?, ?)";
+    static final String UPDATE_SQL = "UPDATE transactions SET user_id = ?, category_id = ?, type = ?, amount = ?, date = ?, description = ?, version = version + 1 WHERE id = ? AND version = ?";
+
+    static final String FIND_BY_ID_SQL = "SELECT id, user_id, category_id, type, amount, date, description, created_at, updated_at, version FROM transactions WHERE id = ?";
+    static final String FIND_BY_USER_SQL = "SELECT id, user_id, category_id, type, amount, date, description, created_at, updated_at, version FROM transactions WHERE user_id = ?";
+    static final String RANGE_SQL = "SELECT id, user_id, category_id, type, amount, date, description, created_at, updated_at, version FROM transactions " +
+            "WHERE user_id = ? AND date BETWEEN ? AND ? ORDER BY date, id";
+    static final String STREAM_BY_TYPE_SQL = "SELECT id, user_id, category_id, type, amount, date, description, created_at, updated_at, version FROM transactions " +
+            "WHERE user_id = ? AND type = ? AND date BETWEEN ? AND ? ORDER BY date, id";
+
+    static final String LOCK_SQL = "SELECT user_id, type, amount, date, version FROM transactions WHERE id = ? FOR UPDATE";
+    static final String DELETE_SQL = "DELETE FROM transactions WHERE id = ?";
+
+    // monthly_rollups is kept in step by every write, so a summary is a primary-key prefix lookup.
+    static final String SUMMARY_SQL = "SELECT type, total FROM monthly_rollups WHERE user_id = ? AND year = ? AND month = ?";
+    // Month-aligned series read the rollups; anything else aggregates the raw rows once.
+    // MySQL has no BETWEEN for row constructors, so the month range is two row comparisons.
+    static final String ROLLUP_SERIES_SQL = "SELECT year, month, type, total FROM monthly_rollups " +
+            "WHERE user_id = ? AND (year, month) >= (?, ?) AND (year, month) <= (?, ?)";
+    static final String SERIES_SQL = "SELECT %s AS bucket, type, SUM(amount) AS total FROM transactions " +
+            "WHERE user_id = ? AND date BETWEEN ? AND ? GROUP BY bucket, type";
+
+    static final String CATEGORY_TOTALS_SQL = "SELECT t.category_id, c.catName, SUM(t.amount) AS total, COUNT(*) AS count " +
+            "FROM transactions t LEFT JOIN categories c ON c.id = t.category_id " +
+            "WHERE t.user_id = ? AND t.type = ? AND t.date BETWEEN ? AND ? " +
+            "GROUP BY t.category_id, c.catName ORDER BY total DESC";
+
+    static final String FIRST_PAGE_SQL = "SELECT id, user_id, category_id, type, amount, date, description, created_at, updated_at, version FROM transactions " +
+            "WHERE user_id = ? ORDER BY date DESC, id DESC LIMIT ?";
+    static final String NEXT_PAGE_SQL = "SELECT id, user_id, category_id, type, amount, date, description, created_at, updated_at, version FROM transactions " +
+            "WHERE user_id = ? AND (date, id) < (?, ?) ORDER BY date DESC, id DESC LIMIT ?";
+
+    // Open-ended export ranges are clamped to the MySQL DATE limits.
+    private static final LocalDate MIN_DATE = LocalDate.of(1000, 1, 1);
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
+    // Rows fetched per server round-trip while streaming. Connector/J only honours this
+    // with useCursorFetch=true on the URL; otherwise it buffers the whole result.
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    // Rows per JDBC batch and per commit in saveAll. With rewriteBatchedStatements=true
+    // the driver sends each batch as a multi-row INSERT.
+    private static final int BATCH_SIZE = 500;
+
+    // Component name in Flight Recorder events. Every method ends its event or, on any exception, fails it.
+    private static final String NAME = "JdbcTransactionRepository";
+
     private final ConnectionFactory connectionFactory;
 
     public JdbcTransactionRepository(ConnectionFactory connectionFactory) {
@@ -19,92 +82,252 @@ public class JdbcTransactionRepository implements TransactionRepository{
 
     @Override
     public Transaction save(Transaction tx) {
-        if(tx.getId() == 0){
-            String sql = "INSERT INTO transactions (user_id, category_id, type, amount, date, description) VALUES (?, ?, ?, ?, ?, ?)";
+        boolean isNew = tx.getId() == 0;
+        int version = tx.getVersion();
+        RepositoryQueryEvent event = RepositoryQueryEvent.begin(NAME, "save", tx.getUserId(), tx.getDate(), tx.getDate());
 
-            try(Connection conn = connectionFactory.getConnection();
-                PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)){
-                ps.setInt(1, tx.getUserId());
-                ps.setInt(2,tx.getCategoryId());
-                ps.setString(3, String.valueOf(tx.getType()));
-                ps.setBigDecimal(4,tx.getAmount());
-                ps.setDate(5, Date.valueOf(tx.getDate()));
-                ps.setString(6,tx.getDescription());
+        // The row and its monthly_rollups bucket(s) change in the same database transaction.
+        try(Connection conn = connectionFactory.getConnection()){
+            conn.setAutoCommit(false);
+            try{
+                writeChunk(conn, Collections.singletonList(tx));
+                conn.commit();
+                connectionFactory.recordWrite(tx.getUserId());
+            }catch (SQLException | RuntimeException e){
+                event.fail();
+                rollbackQuietly(conn, e);
+                if(isNew){
+                    tx.setId(0);
+                }else{
+                    tx.setVersion(version);
+                }
+                throw e;
+            }
+            event.end(1);
+            return tx;
+        }catch (SQLException e){
+            event.fail();
+            throw new RuntimeException(isNew ? "Error saving transaction (insert)" : "Error saving transaction (updating)", e);
+        }catch (RuntimeException e){
+            event.fail();
+            throw e;
+        }
+    }
 
-                int rows = ps.executeUpdate();
-                if(rows == 0){
-                    throw new RuntimeException("Inserting transaction failed; no rows affected");
+    @Override
+    public List<Transaction> saveAll(Collection<Transaction> transactions) {
+        List<Transaction> pending = new ArrayList<>(transactions);
+        int saved = 0;
+        RepositoryQueryEvent event = RepositoryQueryEvent.begin(NAME, "saveAll", 0, null, null);
+
+        try(Connection conn = connectionFactory.getConnection()){
+            conn.setAutoCommit(false);
+
+            for (int from = 0; from < pending.size(); from += BATCH_SIZE) {
+                List<Transaction> chunk = pending.subList(from, Math.min(from + BATCH_SIZE, pending.size()));
+                List<Transaction> inserted = new ArrayList<>();
+                Map<Transaction, Integer> versions = new IdentityHashMap<>();
+                for (Transaction tx : chunk) {
+                    if(tx.getId() == 0){
+                        inserted.add(tx);
+                    }else{
+                        versions.put(tx, tx.getVersion());
+                    }
                 }
 
-                try(ResultSet rs = ps.getGeneratedKeys()){
-                    if(rs.next()){
-                        int generatedKey = rs.getInt(1);
-                        tx.setId(generatedKey);
+                try{
+                    writeChunk(conn, chunk);
+                    conn.commit();
+                    saved += chunk.size();
+                    recordWrites(chunk);
+                }catch (SQLException | RuntimeException e){
+                    event.fail();
+                    rollbackQuietly(conn, e);
+                    // The chunk's inserts were rolled back, so the ids handed out are void.
+                    for (Transaction tx : inserted) {
+                        tx.setId(0);
                     }
+                    versions.forEach(Transaction::setVersion);
+                    throw e;
                 }
-                return tx;
-            }catch (SQLException e){
-                throw new RuntimeException("Error saving transaction (insert)", e);
             }
-        }else{
-            String sql = "UPDATE transactions SET user_id = ?, category_id = ?, type = ?, amount = ?, date = ?, description = ? WHERE id = ?";
 
-            try(Connection conn = connectionFactory.getConnection();
-                PreparedStatement ps = conn.prepareStatement(sql)){
-                ps.setInt(1,tx.getUserId());
-                ps.setInt(2,tx.getCategoryId());
+            event.end(saved);
+            return pending;
+        }catch (SQLException e){
+            event.fail();
+            throw new RuntimeException("Error saving transactions (batch); " + saved + " of "
+                    + pending.size() + " were committed before the failure", e);
+        }catch (RuntimeException e){
+            event.fail();
+            throw e;
+        }
+    }
+
+    /**
+     * Marks the owners of committed rows as recent writers, so their next reads stay on the primary.
+     */
+    void recordWrites(Collection<Transaction> committed){
+        Set<Integer> users = new HashSet<>();
+        for (Transaction tx : committed) {
+            if(users.add(tx.getUserId())){
+                connectionFactory.recordWrite(tx.getUserId());
+            }
+        }
+    }
+
+    private static void rollbackQuietly(Connection conn, Exception cause){
+        try{
+            conn.rollback();
+        }catch (SQLException e){
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Inserts/updates the given transactions and adjusts their rollup buckets
+     * on the caller's connection. The caller commits or rolls back.
+     */
+    void writeChunk(Connection conn, List<Transaction> chunk) throws SQLException {
+        List<Transaction> inserts = new ArrayList<>();
+        List<Transaction> updates = new ArrayList<>();
+        for (Transaction tx : chunk) {
+            if(tx.getId() == 0){
+                inserts.add(tx);
+            }else{
+                updates.add(tx);
+            }
+        }
+
+        MonthlyRollupDeltas deltas = new MonthlyRollupDeltas();
+        insertBatch(conn, inserts, deltas);
+        updateBatch(conn, updates, deltas);
+        deltas.applyTo(conn);
+    }
+
+    private void insertBatch(Connection conn, List<Transaction> inserts, MonthlyRollupDeltas deltas) throws SQLException {
+        if(inserts.isEmpty()){
+            return;
+        }
+        try(PreparedStatement ps = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)){
+            for (Transaction tx : inserts) {
+                ps.setInt(1, tx.getUserId());
+                ps.setInt(2, tx.getCategoryId());
                 ps.setString(3, String.valueOf(tx.getType()));
-                ps.setBigDecimal(4,tx.getAmount());
+                ps.setBigDecimal(4, tx.getAmount());
                 ps.setDate(5, Date.valueOf(tx.getDate()));
                 ps.setString(6, tx.getDescription());
-                ps.setInt(7,tx.getId());
+                ps.addBatch();
+            }
+            ps.executeBatch();
 
-                ps.executeUpdate();
+            // Keys come back in batch order, one per inserted row.
+            try(ResultSet rs = ps.getGeneratedKeys()){
+                int i = 0;
+                while(rs.next() && i < inserts.size()){
+                    inserts.get(i++).setId(rs.getInt(1));
+                }
+                if(i != inserts.size()){
+                    throw new SQLException("Expected " + inserts.size() + " generated keys but got " + i);
+                }
+            }
+        }
 
-                return tx;
-            }catch (SQLException e){
-                throw new RuntimeException("Error saving transaction (updating)", e);
+        for (Transaction tx : inserts) {
+            deltas.add(tx.getUserId(), tx.getDate(), tx.getType(), tx.getAmount());
+        }
+    }
+
+    private void updateBatch(Connection conn, List<Transaction> updates, MonthlyRollupDeltas deltas) throws SQLException {
+        if(updates.isEmpty()){
+            return;
+        }
+
+        // Lock the current rows so the old buckets can be debited exactly, and fail fast on stale versions.
+        for (Transaction tx : updates) {
+            Transaction old = lockForUpdate(conn, tx.getId());
+            if(old == null || old.getVersion() != tx.getVersion()){
+                throw new OptimisticLockException("transaction", tx.getId(), tx.getVersion());
             }
+            deltas.subtract(old.getUserId(), old.getDate(), old.getType(), old.getAmount());
+            deltas.add(tx.getUserId(), tx.getDate(), tx.getType(), tx.getAmount());
+        }
+
+        try(PreparedStatement ps = conn.prepareStatement(UPDATE_SQL)){
+            for (Transaction tx : updates) {
+                ps.setInt(1, tx.getUserId());
+                ps.setInt(2, tx.getCategoryId());
+                ps.setString(3, String.valueOf(tx.getType()));
+                ps.setBigDecimal(4, tx.getAmount());
+                ps.setDate(5, Date.valueOf(tx.getDate()));
+                ps.setString(6, tx.getDescription());
+                ps.setInt(7, tx.getId());
+                ps.setInt(8, tx.getVersion());
+                ps.addBatch();
+            }
+            int[] counts = ps.executeBatch();
+            for (int i = 0; i < counts.length; i++) {
+                if(counts[i] == 0){
+                    Transaction tx = updates.get(i);
+                    throw new OptimisticLockException("transaction", tx.getId(), tx.getVersion());
+                }
+            }
+        }
+        // Callers restore these if the chunk is rolled back.
+        for (Transaction tx : updates) {
+            tx.setVersion(tx.getVersion() + 1);
+        }
+    }
+
+    /**
+     * Reads the rollup-relevant columns of a row with an exclusive lock.
+     *
+     * @return the row's user, type, amount, date and version, or null if it does not exist
+     */
+    private Transaction lockForUpdate(Connection conn, int id) throws SQLException {
+        try(PreparedStatement ps = conn.prepareStatement(LOCK_SQL)){
+            ps.setInt(1, id);
+            ResultSet rs = ps.executeQuery();
+            if(!rs.next()){
+                return null;
+            }
+            Transaction old = new Transaction();
+            old.setId(id);
+            old.setUserId(rs.getInt("user_id"));
+            old.setType(TransactionType.valueOf(rs.getString("type")));
+            old.setAmount(rs.getBigDecimal("amount"));
+            old.setDate(rs.getDate("date").toLocalDate());
+            old.setVersion(rs.getInt("version"));
+            return old;
         }
     }
 
     @Override
     public Transaction findById(int id) {
-        String sql = "SELECT id, user_id, category_id, type, amount, date, description, created_at, updated_at FROM transactions WHERE id = ?";
+        String sql = FIND_BY_ID_SQL;
+        RepositoryQueryEvent event = RepositoryQueryEvent.begin(NAME, "findById", 0, null, null);
         try(Connection conn = connectionFactory.getConnection();
             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
 
             ResultSet rs = ps.executeQuery();
-            if(rs.next()){
-                Transaction tx  = new Transaction();
-                tx.setId(rs.getInt("id"));
-                tx.setUserId(rs.getInt("user_id"));
-                tx.setCategoryId(rs.getInt("category_id"));
-                tx.setType(TransactionType.valueOf(rs.getString("type")));
-                tx.setAmount(rs.getBigDecimal("amount"));
-                tx.setDate(rs.getDate("date").toLocalDate());
-                tx.setDescription(rs.getString("description"));
-                Timestamp ts = rs.getTimestamp("created_at");
-                LocalDateTime createdAt = ts.toLocalDateTime();
-                tx.setCreatedAt(createdAt);
-                Timestamp udp = rs.getTimestamp("updated_at");
-                LocalDateTime updatedAt = udp.toLocalDateTime();
-                tx.setUpdatedAt(updatedAt);
-
-                return tx;
-            }else {
-                return null;
-            }
+            Transaction tx = rs.next() ? mapTransaction(rs) : null;
+            event.end(tx == null ? 0 : 1);
+            return tx;
         }catch (SQLException e){
+            event.fail();
             throw new RuntimeException("Error Retrieving Transaction By id", e);
+        }catch (RuntimeException e){
+            event.fail();
+            throw e;
         }
     }
 
     @Override
     public List<Transaction> findByUserId(int userId) {
-        String sql = "SELECT id, user_id, category_id, type, amount, date, description, created_at, updated_at FROM transactions WHERE user_id = ?";
-        try(Connection conn = connectionFactory.getConnection();
+        String sql = FIND_BY_USER_SQL;
+        RepositoryQueryEvent event = RepositoryQueryEvent.begin(NAME, "findByUserId", userId, null, null);
+        try(Connection conn = connectionFactory.getReadConnection(userId);
             PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setInt(1, userId);
@@ -112,35 +335,25 @@ public class JdbcTransactionRepository implements TransactionRepository{
 
             List<Transaction> transactions = new ArrayList<>();
             while (rs.next()) {
-                Transaction tx  = new Transaction();
-                tx.setId(rs.getInt("id"));
-                tx.setUserId(rs.getInt("user_id"));
-                tx.setCategoryId(rs.getInt("category_id"));
-                tx.setType(TransactionType.valueOf(rs.getString("type")));
-                tx.setAmount(rs.getBigDecimal("amount"));
-                tx.setDate(rs.getDate("date").toLocalDate());
-                tx.setDescription(rs.getString("description"));
-                Timestamp ts = rs.getTimestamp("created_at");
-                LocalDateTime createdAt = ts.toLocalDateTime();
-                tx.setCreatedAt(createdAt);
-                Timestamp udp = rs.getTimestamp("updated_at");
-                LocalDateTime updatedAt = udp.toLocalDateTime();
-                tx.setUpdatedAt(updatedAt);
-
-                transactions.add(tx);
+                transactions.add(mapTransaction(rs));
             }
 
+            event.end(transactions.size());
             return transactions;
         }catch (SQLException e){
+            event.fail();
             throw new RuntimeException("Failed to retrieve transactions by userId", e);
+        }catch (RuntimeException e){
+            event.fail();
+            throw e;
         }
     }
 
     @Override
     public List<Transaction> findByUserIdAndDateRange(int userId, LocalDate from, LocalDate to) {
-        String sql = "SELECT id, user_id, category_id, type, amount, date, description, created_at, updated_at FROM transactions " +
-                "WHERE user_id = ? AND date BETWEEN ? AND ?";
-        try(Connection conn = connectionFactory.getConnection();
+        String sql = RANGE_SQL;
+        RepositoryQueryEvent event = RepositoryQueryEvent.begin(NAME, "findByUserIdAndDateRange", userId, from, to);
+        try(Connection conn = connectionFactory.getReadConnection(userId);
             PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setInt(1, userId);
@@ -150,42 +363,281 @@ public class JdbcTransactionRepository implements TransactionRepository{
 
             List<Transaction> transactions = new ArrayList<>();
             while (rs.next()) {
-                Transaction tx  = new Transaction();
-                tx.setId(rs.getInt("id"));
-                tx.setUserId(rs.getInt("user_id"));
-                tx.setCategoryId(rs.getInt("category_id"));
-                tx.setType(TransactionType.valueOf(rs.getString("type")));
-                tx.setAmount(rs.getBigDecimal("amount"));
-                tx.setDate(rs.getDate("date").toLocalDate());
-                tx.setDescription(rs.getString("description"));
-                Timestamp ts = rs.getTimestamp("created_at");
-                LocalDateTime createdAt = ts.toLocalDateTime();
-                tx.setCreatedAt(createdAt);
-                Timestamp udp = rs.getTimestamp("updated_at");
-                LocalDateTime updatedAt = udp.toLocalDateTime();
-                tx.setUpdatedAt(updatedAt);
-
-                transactions.add(tx);
+                transactions.add(mapTransaction(rs));
             }
 
+            event.end(transactions.size());
             return transactions;
         }catch (SQLException e){
+            event.fail();
             throw new RuntimeException("Failed to retrieve transactions by userId and date range", e);
+        }catch (RuntimeException e){
+            event.fail();
+            throw e;
         }
     }
 
     @Override
-    public void deleteById(int id) {
-        String sql = "DELETE FROM transactions WHERE id = ?";
+    public MonthlySummary findMonthlySummary(int userId, int year, int month) {
+        RepositoryQueryEvent event = RepositoryQueryEvent.beginMonth(NAME, "findMonthlySummary", userId, year, month);
+        try(Connection conn = connectionFactory.getReadConnection(userId);
+            PreparedStatement ps = conn.prepareStatement(SUMMARY_SQL)) {
+            ps.setInt(1, userId);
+            ps.setInt(2, year);
+            ps.setInt(3, month);
+            ResultSet rs = ps.executeQuery();
 
-        try(Connection conn = connectionFactory.getConnection();
-            PreparedStatement ps = conn.prepareStatement(sql)){
-            ps.setInt(1,id);
+            BigDecimal income = BigDecimal.ZERO;
+            BigDecimal expense = BigDecimal.ZERO;
+            while (rs.next()) {
+                TransactionType type = TransactionType.valueOf(rs.getString("type"));
+                if(type == TransactionType.INCOME){
+                    income = rs.getBigDecimal("total");
+                }else if(type == TransactionType.EXPENSE){
+                    expense = rs.getBigDecimal("total");
+                }
+            }
 
-            int rows = ps.executeUpdate();
-//            System.out.println(rows+" rows affected");
+            event.end(1);
+            return new MonthlySummary(year, month, income, expense, income.subtract(expense));
         }catch (SQLException e){
+            event.fail();
+            throw new RuntimeException("Failed to compute monthly summary", e);
+        }catch (RuntimeException e){
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public List<TimeSeriesPoint> findTimeSeries(int userId, LocalDate from, LocalDate to, ReportGranularity granularity) {
+        boolean monthAligned = (granularity == ReportGranularity.MONTH || granularity == ReportGranularity.YEAR)
+                && from.getDayOfMonth() == 1 && to.getDayOfMonth() == to.lengthOfMonth();
+
+        // bucket start -> {income, expense}; weekly and daily buckets can add up many rows each.
+        Map<LocalDate, MoneyAccumulator[]> buckets = new TreeMap<>();
+        RepositoryQueryEvent event = RepositoryQueryEvent.begin(NAME, "findTimeSeries", userId, from, to);
+        try(Connection conn = connectionFactory.getReadConnection(userId)) {
+            if(monthAligned){
+                try(PreparedStatement ps = conn.prepareStatement(ROLLUP_SERIES_SQL)){
+                    ps.setInt(1, userId);
+                    ps.setInt(2, from.getYear());
+                    ps.setInt(3, from.getMonthValue());
+                    ps.setInt(4, to.getYear());
+                    ps.setInt(5, to.getMonthValue());
+                    ResultSet rs = ps.executeQuery();
+                    while (rs.next()) {
+                        LocalDate bucket = granularity.bucketStart(LocalDate.of(rs.getInt("year"), rs.getInt("month"), 1));
+                        addToBucket(buckets, bucket, rs.getString("type"), rs.getBigDecimal("total"));
+                    }
+                }
+            }else{
+                try(PreparedStatement ps = conn.prepareStatement(String.format(SERIES_SQL, bucketExpression(granularity)))){
+                    ps.setInt(1, userId);
+                    ps.setDate(2, Date.valueOf(from));
+                    ps.setDate(3, Date.valueOf(to));
+                    ResultSet rs = ps.executeQuery();
+                    while (rs.next()) {
+                        addToBucket(buckets, rs.getDate("bucket").toLocalDate(), rs.getString("type"), rs.getBigDecimal("total"));
+                    }
+                }
+            }
+        }catch (SQLException e){
+            event.fail();
+            throw new RuntimeException("Failed to compute time series", e);
+        }catch (RuntimeException e){
+            event.fail();
+            throw e;
+        }
+        event.end(buckets.size());
+
+        List<TimeSeriesPoint> points = new ArrayList<>(buckets.size());
+        for (Map.Entry<LocalDate, MoneyAccumulator[]> entry : buckets.entrySet()) {
+            points.add(new TimeSeriesPoint(entry.getKey(), entry.getValue()[0].toBigDecimal(), entry.getValue()[1].toBigDecimal()));
+        }
+        return points;
+    }
+
+    private static void addToBucket(Map<LocalDate, MoneyAccumulator[]> buckets, LocalDate bucket, String type, BigDecimal total){
+        MoneyAccumulator[] totals = buckets.computeIfAbsent(bucket, b -> new MoneyAccumulator[]{new MoneyAccumulator(), new MoneyAccumulator()});
+        int slot = TransactionType.valueOf(type) == TransactionType.INCOME ? 0 : 1;
+        totals[slot].add(total);
+    }
+
+    /**
+     * SQL expression giving the first day of the bucket that contains {@code date};
+     * must agree with {@link ReportGranularity#bucketStart}.
+     */
+    static String bucketExpression(ReportGranularity granularity){
+        switch (granularity){
+            case DAY:
+                return "date";
+            case WEEK:
+                return "DATE_SUB(date, INTERVAL WEEKDAY(date) DAY)";
+            case MONTH:
+                return "DATE_SUB(date, INTERVAL DAYOFMONTH(date) - 1 DAY)";
+            default:
+                return "MAKEDATE(YEAR(date), 1)";
+        }
+    }
+
+    @Override
+    public List<CategoryTotal> findCategoryTotals(int userId, TransactionType type, LocalDate from, LocalDate to) {
+        RepositoryQueryEvent event = RepositoryQueryEvent.begin(NAME, "findCategoryTotals", userId, from, to);
+        try(Connection conn = connectionFactory.getReadConnection(userId);
+            PreparedStatement ps = conn.prepareStatement(CATEGORY_TOTALS_SQL)){
+            ps.setInt(1, userId);
+            ps.setString(2, type.name());
+            ps.setDate(3, Date.valueOf(from));
+            ps.setDate(4, Date.valueOf(to));
+            ResultSet rs = ps.executeQuery();
+
+            List<CategoryTotal> totals = new ArrayList<>();
+            while (rs.next()) {
+                totals.add(new CategoryTotal(
+                        rs.getInt("category_id"),
+                        rs.getString("catName"),
+                        rs.getBigDecimal("total"),
+                        rs.getLong("count")));
+            }
+            event.end(totals.size());
+            return totals;
+        }catch (SQLException e){
+            event.fail();
+            throw new RuntimeException("Failed to compute category totals", e);
+        }catch (RuntimeException e){
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Transaction> findPageByUserId(int userId, TransactionCursor after, int limit) {
+        RepositoryQueryEvent event = RepositoryQueryEvent.begin(NAME, "findPageByUserId", userId, null, null);
+        try(Connection conn = connectionFactory.getReadConnection(userId);
+            PreparedStatement ps = conn.prepareStatement(after == null ? FIRST_PAGE_SQL : NEXT_PAGE_SQL)) {
+
+            int i = 1;
+            ps.setInt(i++, userId);
+            if(after != null){
+                ps.setDate(i++, Date.valueOf(after.getDate()));
+                ps.setInt(i++, after.getId());
+            }
+            ps.setInt(i, limit);
+            ResultSet rs = ps.executeQuery();
+
+            List<Transaction> transactions = new ArrayList<>(limit);
+            while (rs.next()) {
+                transactions.add(mapTransaction(rs));
+            }
+
+            event.end(transactions.size());
+            return transactions;
+        }catch (SQLException e){
+            event.fail();
+            throw new RuntimeException("Failed to retrieve transaction page by userId", e);
+        }catch (RuntimeException e){
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public long streamByUserIdAndDateRange(int userId, LocalDate from, LocalDate to, Consumer<Transaction> consumer) {
+        return stream(userId, null, from, to, consumer);
+    }
+
+    @Override
+    public long streamByUserIdAndDateRange(int userId, TransactionType type, LocalDate from, LocalDate to, Consumer<Transaction> consumer) {
+        return stream(userId, type, from, to, consumer);
+    }
+
+    private long stream(int userId, TransactionType type, LocalDate from, LocalDate to, Consumer<Transaction> consumer) {
+        RepositoryQueryEvent event = RepositoryQueryEvent.begin(NAME, "streamByUserIdAndDateRange", userId, from, to);
+        // Three-argument prepareStatement bypasses the statement cache, so the fetch size
+        // set here never leaks into other callers of the same SQL.
+        try(Connection conn = connectionFactory.getReadConnection(userId);
+            PreparedStatement ps = conn.prepareStatement(type == null ? RANGE_SQL : STREAM_BY_TYPE_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            int index = 1;
+            ps.setInt(index++, userId);
+            if(type != null){
+                ps.setString(index++, type.name());
+            }
+            ps.setDate(index++, Date.valueOf(from == null ? MIN_DATE : from));
+            ps.setDate(index, Date.valueOf(to == null ? MAX_DATE : to));
+
+            long count = 0;
+            try(ResultSet rs = ps.executeQuery()){
+                while (rs.next()) {
+                    consumer.accept(mapTransaction(rs));
+                    count++;
+                }
+            }
+            event.end(count);
+            return count;
+        }catch (SQLException e){
+            event.fail();
+            throw new RuntimeException("Failed to stream transactions by userId and date range", e);
+        }catch (RuntimeException e){
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public void deleteById(int id) {
+        RepositoryQueryEvent event = RepositoryQueryEvent.begin(NAME, "deleteById", 0, null, null);
+        try(Connection conn = connectionFactory.getConnection()){
+            conn.setAutoCommit(false);
+            try{
+                Transaction old = lockForUpdate(conn, id);
+                if(old != null){
+                    try(PreparedStatement ps = conn.prepareStatement(DELETE_SQL)){
+                        ps.setInt(1,id);
+                        ps.executeUpdate();
+                    }
+                    MonthlyRollupDeltas deltas = new MonthlyRollupDeltas();
+                    deltas.subtract(old.getUserId(), old.getDate(), old.getType(), old.getAmount());
+                    deltas.applyTo(conn);
+                }
+                conn.commit();
+                if(old != null){
+                    connectionFactory.recordWrite(old.getUserId());
+                }
+                event.end(old == null ? 0 : 1);
+            }catch (SQLException | RuntimeException e){
+                event.fail();
+                rollbackQuietly(conn, e);
+                throw e;
+            }
+        }catch (SQLException e){
+            event.fail();
             throw new RuntimeException("Failed to Delete transaction by id", e);
+        }catch (RuntimeException e){
+            event.fail();
+            throw e;
         }
     }
+
+    private static Transaction mapTransaction(ResultSet rs) throws SQLException {
+        Transaction tx  = new Transaction();
+        tx.setId(rs.getInt("id"));
+        tx.setUserId(rs.getInt("user_id"));
+        tx.setCategoryId(rs.getInt("category_id"));
+        tx.setType(TransactionType.valueOf(rs.getString("type")));
+        tx.setAmount(rs.getBigDecimal("amount"));
+        tx.setDate(rs.getDate("date").toLocalDate());
+        tx.setDescription(rs.getString("description"));
+        Timestamp ts = rs.getTimestamp("created_at");
+        LocalDateTime createdAt = ts.toLocalDateTime();
+        tx.setCreatedAt(createdAt);
+        Timestamp udp = rs.getTimestamp("updated_at");
+        LocalDateTime updatedAt = udp.toLocalDateTime();
+        tx.setUpdatedAt(updatedAt);
+        tx.setVersion(rs.getInt("version"));
+
+        return tx;
+    }
 }
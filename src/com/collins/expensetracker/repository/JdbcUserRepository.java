@@ -9,6 +9,13 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class JdbcUserRepository implements UserRepository{
+    static final String INSERT_SQL = "INSERT INTO users (name, email) VALUES (?, ?)";
+    static final String UPDATE_SQL = "UPDATE users SET name = ?, email = ?, version = version + 1 WHERE id = ? AND version = ?";
+    static final String FIND_BY_ID_SQL = "SELECT id, name, email, created_at, version FROM users WHERE id = ?";
+    static final String FIND_BY_EMAIL_SQL = "SELECT id, name, email, created_at, version FROM users where email = ?";
+    static final String FIND_ALL_SQL = "SELECT * FROM users";
+    static final String DELETE_SQL = "DELETE FROM users WHERE id = ?";
+
     private final ConnectionFactory connectionFactory;
 
     public JdbcUserRepository(ConnectionFactory connectionFactory) {
@@ -20,7 +27,7 @@ public class JdbcUserRepository implements UserRepository{
 
         // New user (id == 0) → INSERT
         if(user.getId() == 0){
-            String sql = "INSERT INTO users (name, email) VALUES (?, ?)";
+            String sql = INSERT_SQL;
 
             try(Connection conn = connectionFactory.getConnection();
             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
@@ -41,6 +48,8 @@ public class JdbcUserRepository implements UserRepository{
                     }
                 }
 
+                connectionFactory.recordWrite(user.getId());
+
                 // created_at is handled by DB default; you can load it later if needed
                 return user;
             }catch (SQLException e){
@@ -48,14 +57,19 @@ public class JdbcUserRepository implements UserRepository{
             }
         }else{
             // Existing user (id != 0) → UPDATE
-            String sql = "UPDATE users SET name = ?, email = ? WHERE id = ?";
+            String sql = UPDATE_SQL;
             try(Connection conn = connectionFactory.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)){
                 ps.setString(1, user.getName());
                 ps.setString(2, user.getEmail());
                 ps.setInt(3, user.getId());
+                ps.setInt(4, user.getVersion());
 
-                ps.executeUpdate();
+                if(ps.executeUpdate() == 0){
+                    throw new OptimisticLockException("user", user.getId(), user.getVersion());
+                }
+                user.setVersion(user.getVersion() + 1);
+                connectionFactory.recordWrite(user.getId());
 
                 return user;
             }catch (SQLException e){
@@ -66,7 +80,7 @@ public class JdbcUserRepository implements UserRepository{
 
     @Override
     public User findById(int id) {
-        String sql = "SELECT id, name, email, created_at FROM users WHERE id = ?";
+        String sql = FIND_BY_ID_SQL;
 
         try(Connection conn = connectionFactory.getConnection();
             PreparedStatement ps = conn.prepareStatement(sql)){
@@ -81,6 +95,7 @@ public class JdbcUserRepository implements UserRepository{
                     Timestamp ts = rs.getTimestamp("created_at");
                     LocalDateTime createdAt = ts.toLocalDateTime();
                     user.setCreatedAt(createdAt);
+                    user.setVersion(rs.getInt("version"));
 
                     return user;
                 }else {
@@ -93,7 +108,7 @@ public class JdbcUserRepository implements UserRepository{
 
     @Override
     public User findByEmail(String email) {
-        String sql = "SELECT id, name, email, created_at FROM users where email = ?";
+        String sql = FIND_BY_EMAIL_SQL;
         try(Connection conn = connectionFactory.getConnection();
         PreparedStatement ps = conn.prepareStatement(sql)){
             ps.setString(1, email);
@@ -107,6 +122,7 @@ public class JdbcUserRepository implements UserRepository{
                 Timestamp ts = rs.getTimestamp("created_at");
                 LocalDateTime createdAt = ts.toLocalDateTime();
                 user.setCreatedAt(createdAt);
+                user.setVersion(rs.getInt("version"));
 
                 return user;
             }else{
@@ -119,9 +135,9 @@ public class JdbcUserRepository implements UserRepository{
 
     @Override
     public List<User> findAll() {
-        String sql = "SELECT * FROM users";
+        String sql = FIND_ALL_SQL;
 
-        try(Connection conn = connectionFactory.getConnection();
+        try(Connection conn = connectionFactory.getReadConnection();
             PreparedStatement ps = conn.prepareStatement(sql)) {
             ResultSet rs = ps.executeQuery();
 
@@ -134,6 +150,7 @@ public class JdbcUserRepository implements UserRepository{
                 Timestamp ts = rs.getTimestamp("created_at");
                 LocalDateTime createdAt = ts.toLocalDateTime();
                 user.setCreatedAt(createdAt);
+                user.setVersion(rs.getInt("version"));
 
                 users.add(user);
             }
@@ -146,7 +163,7 @@ public class JdbcUserRepository implements UserRepository{
 
     @Override
     public void deleteById(int id) {
-        String sql = "DELETE FROM users WHERE id = ?";
+        String sql = DELETE_SQL;
 
         try(Connection conn = connectionFactory.getConnection();
             PreparedStatement ps = conn.prepareStatement(sql)){
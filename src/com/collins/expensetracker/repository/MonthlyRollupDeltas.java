@@ -0,0 +1,89 @@
+package com.collins.expensetracker.repository;
+
+import com.collins.expensetracker.model.MoneyAccumulator;
+import com.collins.expensetracker.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Accumulates changes to monthly_rollups buckets made by one database
+ * transaction and writes them with a single batched upsert.
+ * <p>
+ * Buckets are applied in primary-key order so concurrent writers lock
+ * rollup rows in the same order and can't deadlock on each other.
+ */
+final class MonthlyRollupDeltas {
+
+    private static final String UPSERT_SQL = "INSERT INTO monthly_rollups (user_id, year, month, type, total, count) " +
+            "VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE total = total + VALUES(total), count = count + VALUES(count)";
+
+    private final Map<String, Bucket> buckets = new TreeMap<>();
+
+    /**
+     * Adds a transaction's amount to its bucket.
+     */
+    void add(int userId, LocalDate date, TransactionType type, BigDecimal amount){
+        bucket(userId, date, type).total.add(amount);
+    }
+
+    /**
+     * Removes a transaction's amount from its bucket.
+     */
+    void subtract(int userId, LocalDate date, TransactionType type, BigDecimal amount){
+        bucket(userId, date, type).total.subtract(amount);
+    }
+
+    /**
+     * Writes all non-zero deltas on the caller's connection. The caller owns the transaction.
+     */
+    void applyTo(Connection conn) throws SQLException {
+        boolean any = false;
+        try(PreparedStatement ps = conn.prepareStatement(UPSERT_SQL)){
+            for (Bucket bucket : buckets.values()) {
+                if(bucket.total.getCount() == 0 && bucket.total.isZero()){
+                    continue;
+                }
+                ps.setInt(1, bucket.userId);
+                ps.setInt(2, bucket.year);
+                ps.setInt(3, bucket.month);
+                ps.setString(4, String.valueOf(bucket.type));
+                ps.setBigDecimal(5, bucket.total.toBigDecimal());
+                ps.setLong(6, bucket.total.getCount());
+                ps.addBatch();
+                any = true;
+            }
+            if(any){
+                ps.executeBatch();
+            }
+        }
+        buckets.clear();
+    }
+
+    private Bucket bucket(int userId, LocalDate date, TransactionType type){
+        // Zero-padded so the TreeMap orders keys like the (user_id, year, month, type) primary key.
+        String key = String.format("%010d-%04d-%02d-%s", userId, date.getYear(), date.getMonthValue(), type);
+        return buckets.computeIfAbsent(key, k -> new Bucket(userId, date.getYear(), date.getMonthValue(), type));
+    }
+
+    private static final class Bucket {
+        final int userId;
+        final int year;
+        final int month;
+        final TransactionType type;
+        final MoneyAccumulator total = new MoneyAccumulator();  // Net amount and net row count.
+
+        Bucket(int userId, int year, int month, TransactionType type) {
+            this.userId = userId;
+            this.year = year;
+            this.month = month;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.collins.expensetracker.repository;
+
+import com.collins.expensetracker.model.RollupMismatch;
+
+import java.util.List;
+
+/**
+ * Maintenance operations on the monthly_rollups table.
+ * Day-to-day upkeep happens inside the transaction repository's writes;
+ * this interface covers rebuilding and checking the table. The table
+ * itself is created by schema migration 3.
+ */
+public interface MonthlyRollupRepository {
+
+    /**
+     * Recomputes every rollup bucket from the transactions table in one database transaction.
+     *
+     * @return number of buckets written
+     */
+    int rebuild();
+
+    /**
+     * Compares every bucket against a fresh aggregate of the transactions table.
+     *
+     * @return buckets whose total or count disagree; empty when the rollups are consistent
+     */
+    List<RollupMismatch> verify();
+}
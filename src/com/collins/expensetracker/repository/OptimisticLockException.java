@@ -0,0 +1,36 @@
+package com.collins.expensetracker.repository;
+
+/**
+ * Thrown when an update finds that the row changed (or was deleted) after the
+ * caller read it: the row's version no longer matches the one being saved.
+ * Nothing was written. Reload the row, reapply the change and save again;
+ * {@code OptimisticRetry} in the service layer does exactly that.
+ */
+public class OptimisticLockException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String entity;                // Table of the conflicting row.
+    private final int id;                       // Primary key of the conflicting row.
+    private final int expectedVersion;          // Version the caller read and tried to update from.
+
+    public OptimisticLockException(String entity, int id, int expectedVersion) {
+        super("Error saving " + entity + " " + id + ": it was changed or deleted after version "
+                + expectedVersion + " was read");
+        this.entity = entity;
+        this.id = id;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getExpectedVersion() {
+        return expectedVersion;
+    }
+}
@@ -0,0 +1,137 @@
+package com.collins.expensetracker.repository;
+
+import com.collins.expensetracker.db.ConnectionFactory;
+import com.collins.expensetracker.model.PlanViolation;
+import com.collins.expensetracker.model.ReportGranularity;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs EXPLAIN on the statements the Jdbc*Repository classes issue and
+ * reports any that need a full table scan.
+ * <p>
+ * A plan fails when it reads a table with access type ALL (table scan) or
+ * index (full index scan) and MySQL lists no possible key. Such a query
+ * stays a scan however large the table grows. A scan that has a possible
+ * key is not flagged: the optimizer picks scans for tiny tables even when
+ * a usable index exists.
+ * <p>
+ * Plain INSERT ... VALUES statements read nothing and are not explained.
+ * Whole-table statements (listing every user, rollup rebuild and verify)
+ * are explained but allowed to scan.
+ */
+public class QueryPlanVerifier {
+
+    private static final class Query {
+        final String name;
+        final String sql;
+        final Object[] params;
+        final boolean fullScanAllowed;
+
+        Query(String name, String sql, boolean fullScanAllowed, Object... params) {
+            this.name = name;
+            this.sql = sql;
+            this.params = params;
+            this.fullScanAllowed = fullScanAllowed;
+        }
+    }
+
+    private final ConnectionFactory connectionFactory;
+
+    public QueryPlanVerifier(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * @return every statement that fails the check; empty when all plans use an index
+     */
+    public List<PlanViolation> verify() {
+        List<PlanViolation> violations = new ArrayList<>();
+        try(Connection conn = connectionFactory.getConnection()){
+            for (Query query : catalog()) {
+                explain(conn, query, violations);
+            }
+        }catch (SQLException e){
+            throw new RuntimeException("Failed to verify query plans", e);
+        }
+        return violations;
+    }
+
+    private static void explain(Connection conn, Query query, List<PlanViolation> violations){
+        try(PreparedStatement ps = conn.prepareStatement("EXPLAIN " + query.sql)){
+            for (int i = 0; i < query.params.length; i++) {
+                ps.setObject(i + 1, query.params[i]);
+            }
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                String type = rs.getString("type");
+                boolean scan = "ALL".equals(type) || "index".equals(type);
+                if(scan && rs.getString("possible_keys") == null && !query.fullScanAllowed){
+                    violations.add(new PlanViolation(query.name, rs.getString("table"), type,
+                            rs.getString("Extra"), query.sql));
+                }
+            }
+        }catch (SQLException e){
+            violations.add(new PlanViolation(query.name, null, null, "EXPLAIN failed: " + e.getMessage(), query.sql));
+        }
+    }
+
+    /**
+     * Every statement the repositories run, with representative parameters.
+     * Add new repository SQL here so it is covered by verification.
+     */
+    private static List<Query> catalog(){
+        Date from = Date.valueOf(LocalDate.of(2024, 1, 1));
+        Date to = Date.valueOf(LocalDate.of(2024, 12, 31));
+        BigDecimal amount = new BigDecimal("10.00");
+        List<Query> queries = new ArrayList<>();
+
+        queries.add(new Query("users.findById", JdbcUserRepository.FIND_BY_ID_SQL, false, 1));
+        queries.add(new Query("users.findByEmail", JdbcUserRepository.FIND_BY_EMAIL_SQL, false, "someone@example.com"));
+        queries.add(new Query("users.findAll", JdbcUserRepository.FIND_ALL_SQL, true));
+        queries.add(new Query("users.update", JdbcUserRepository.UPDATE_SQL, false, "name", "someone@example.com", 1, 0));
+        queries.add(new Query("users.deleteById", JdbcUserRepository.DELETE_SQL, false, 1));
+
+        queries.add(new Query("categories.findById", JdbcCategoryRepository.FIND_BY_ID_SQL, false, 1));
+        queries.add(new Query("categories.findByUserId", JdbcCategoryRepository.FIND_BY_USER_SQL, false, 1));
+        queries.add(new Query("categories.findByUserIdAndName", JdbcCategoryRepository.FIND_BY_USER_AND_NAME_SQL, false, 1, "Groceries"));
+        queries.add(new Query("categories.update", JdbcCategoryRepository.UPDATE_SQL, false, 1, "Groceries", 1, 0));
+        queries.add(new Query("categories.deleteById", JdbcCategoryRepository.DELETE_SQL, false, 1));
+
+        queries.add(new Query("transactions.findById", JdbcTransactionRepository.FIND_BY_ID_SQL, false, 1));
+        queries.add(new Query("transactions.findByUserId", JdbcTransactionRepository.FIND_BY_USER_SQL, false, 1));
+        queries.add(new Query("transactions.findByUserIdAndDateRange", JdbcTransactionRepository.RANGE_SQL, false, 1, from, to));
+        queries.add(new Query("transactions.streamByUserIdAndDateRange(type)", JdbcTransactionRepository.STREAM_BY_TYPE_SQL, false,
+                1, "EXPENSE", from, to));
+        queries.add(new Query("transactions.lockForUpdate", JdbcTransactionRepository.LOCK_SQL, false, 1));
+        queries.add(new Query("transactions.update", JdbcTransactionRepository.UPDATE_SQL, false,
+                1, 1, "EXPENSE", amount, from, "description", 1, 0));
+        queries.add(new Query("transactions.deleteById", JdbcTransactionRepository.DELETE_SQL, false, 1));
+        queries.add(new Query("transactions.findMonthlySummary", JdbcTransactionRepository.SUMMARY_SQL, false, 1, 2024, 1));
+        queries.add(new Query("transactions.findTimeSeries(rollups)", JdbcTransactionRepository.ROLLUP_SERIES_SQL, false,
+                1, 2024, 1, 2024, 12));
+        for (ReportGranularity granularity : ReportGranularity.values()) {
+            queries.add(new Query("transactions.findTimeSeries(" + granularity + ")",
+                    String.format(JdbcTransactionRepository.SERIES_SQL, JdbcTransactionRepository.bucketExpression(granularity)),
+                    false, 1, from, to));
+        }
+        queries.add(new Query("transactions.findCategoryTotals", JdbcTransactionRepository.CATEGORY_TOTALS_SQL, false,
+                1, "EXPENSE", from, to));
+        queries.add(new Query("transactions.findPageByUserId(first)", JdbcTransactionRepository.FIRST_PAGE_SQL, false, 1, 20));
+        queries.add(new Query("transactions.findPageByUserId(next)", JdbcTransactionRepository.NEXT_PAGE_SQL, false,
+                1, to, 1000, 20));
+
+        queries.add(new Query("rollups.aggregate", JdbcMonthlyRollupRepository.AGGREGATE_SQL, true));
+        queries.add(new Query("rollups.verify", JdbcMonthlyRollupRepository.VERIFY_SQL, true));
+
+        queries.add(new Query("writeBehind.readCheckpoint", WriteBehindTransactionRepository.READ_CHECKPOINT_SQL, false, "default"));
+
+        queries.add(new Query("shardDirectory.find", ShardDirectory.FIND_SQL, false, 1));
+        queries.add(new Query("shardDirectory.delete", ShardDirectory.DELETE_SQL, false, 1));
+        return queries;
+    }
+}
@@ -0,0 +1,438 @@
+package com.collins.expensetracker.repository;
+
+import com.collins.expensetracker.cache.CacheStats;
+import com.collins.expensetracker.model.CategoryTotal;
+import com.collins.expensetracker.model.MonthlySummary;
+import com.collins.expensetracker.model.ReportGranularity;
+import com.collins.expensetracker.model.TimeSeriesPoint;
+import com.collins.expensetracker.model.Transaction;
+import com.collins.expensetracker.model.TransactionCursor;
+import com.collins.expensetracker.model.TransactionType;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Caches {@link #findByUserIdAndDateRange} results as date intervals per user.
+ * <p>
+ * Each user has a set of disjoint segments, each holding every transaction
+ * for its interval. A request is answered from the segments it overlaps;
+ * only the uncovered sub-intervals go to the delegate, and what comes back
+ * is merged in as new segments. A write removes just its date from the
+ * segment that contains it, splitting the segment in two. Updates and
+ * deletes name only the id; an index from id to cached row finds its user
+ * and date without scanning the cache.
+ * <p>
+ * The cache holds at most {@code maxRows} transactions. Each user entry
+ * and each segment also counts as at least one row, so users and splits
+ * with no rows cannot grow the cache without bound. When a load goes over
+ * the limit, the least recently used users are dropped. Rows are copied on
+ * the way in and on the way out, so callers never share a cached instance. Database
+ * reads happen outside the lock. A per-user generation stops a load that
+ * raced a write from installing rows that were stale on arrival.
+ * All other methods pass straight through.
+ */
+public class RangeCachingTransactionRepository implements TransactionRepository {
+
+    private static final Comparator<Transaction> BY_DATE_AND_ID =
+            Comparator.comparing(Transaction::getDate).thenComparingInt(Transaction::getId);
+
+    /**
+     * Every transaction of one user dated in [start, end], ordered by date then id. Never modified.
+     */
+    private static final class Segment {
+        final LocalDate start;
+        final LocalDate end;
+        final List<Transaction> rows;
+
+        Segment(LocalDate start, LocalDate end, List<Transaction> rows) {
+            this.start = start;
+            this.end = end;
+            this.rows = rows;
+        }
+    }
+
+    private static final class UserRanges {
+        final TreeMap<LocalDate, Segment> segments = new TreeMap<>();     // Keyed by segment start.
+        int cost = 1;                                                     // Charged to the budget: 1 plus each segment's cost.
+        long generation;                                                  // Bumped on every write for the user.
+        boolean evicted;                                                  // Set once dropped from the cache.
+    }
+
+    private final TransactionRepository delegate;
+    private final int maxRows;                                            // Row budget across all users.
+    private final LinkedHashMap<Integer, UserRanges> users = new LinkedHashMap<>(16, 0.75f, true);   // Guarded by this.
+    private final Map<Integer, Transaction> rowsById = new HashMap<>();  // Every cached row by id. Guarded by this.
+    private long unknownRowGeneration;                                    // Bumped when a write names a row not cached.
+
+    private int cachedRows;                                               // Sum of every user's cost.
+    private long hits;                                                    // Requests served without the delegate.
+    private long misses;                                                  // Requests that read at least one gap.
+    private long evictions;                                               // Users dropped to stay under maxRows.
+    private long invalidations;                                           // Segments split or dropped by writes.
+
+    /**
+     * @param delegate repository that owns the data
+     * @param maxRows  maximum number of transactions kept in memory
+     */
+    public RangeCachingTransactionRepository(TransactionRepository delegate, int maxRows) {
+        if(maxRows < 1){
+            throw new IllegalArgumentException("maxRows must be at least 1");
+        }
+        this.delegate = delegate;
+        this.maxRows = maxRows;
+    }
+
+    @Override
+    public Transaction save(Transaction tx) {
+        boolean update = tx.getId() != 0;
+        try{
+            return delegate.save(tx);
+        }finally {
+            synchronized (this){
+                if(update){
+                    invalidateRow(tx.getId());
+                }
+                invalidate(tx.getUserId(), tx.getDate());
+            }
+        }
+    }
+
+    @Override
+    public List<Transaction> saveAll(Collection<Transaction> transactions) {
+        List<Integer> updatedIds = new ArrayList<>();
+        for (Transaction tx : transactions) {
+            if(tx.getId() != 0){
+                updatedIds.add(tx.getId());
+            }
+        }
+        try{
+            return delegate.saveAll(transactions);
+        }finally {
+            synchronized (this){
+                for (int id : updatedIds) {
+                    invalidateRow(id);
+                }
+                for (Transaction tx : transactions) {
+                    invalidate(tx.getUserId(), tx.getDate());
+                }
+            }
+        }
+    }
+
+    @Override
+    public Transaction findById(int id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public List<Transaction> findByUserId(int userId) {
+        return delegate.findByUserId(userId);
+    }
+
+    @Override
+    public List<Transaction> findByUserIdAndDateRange(int userId, LocalDate from, LocalDate to) {
+        if(from.isAfter(to)){
+            return new ArrayList<>();
+        }
+
+        UserRanges ranges;
+        long generation;
+        long unknownRows;
+        List<Segment> pieces = new ArrayList<>();           // Cached segments, then loaded gaps.
+        List<LocalDate[]> gaps = new ArrayList<>();
+        synchronized (this){
+            ranges = users.get(userId);
+            if(ranges == null){
+                ranges = new UserRanges();
+                users.put(userId, ranges);
+                cachedRows += ranges.cost;
+                evictOverBudget();
+            }
+            generation = ranges.generation;
+            unknownRows = unknownRowGeneration;
+
+            LocalDate cursor = from;
+            Map.Entry<LocalDate, Segment> first = ranges.segments.floorEntry(from);
+            Iterator<Segment> overlapping = ranges.segments
+                    .subMap(first != null ? first.getKey() : from, true, to, true).values().iterator();
+            while(overlapping.hasNext() && !cursor.isAfter(to)){
+                Segment segment = overlapping.next();
+                if(segment.end.isBefore(cursor)){
+                    continue;
+                }
+                if(segment.start.isAfter(cursor)){
+                    gaps.add(new LocalDate[]{cursor, segment.start.minusDays(1)});
+                }
+                pieces.add(segment);
+                cursor = segment.end.plusDays(1);
+            }
+            if(!cursor.isAfter(to)){
+                gaps.add(new LocalDate[]{cursor, to});
+            }
+
+            if(gaps.isEmpty()){
+                hits++;
+            }else{
+                misses++;
+            }
+        }
+
+        if(!gaps.isEmpty()){
+            List<Segment> loaded = new ArrayList<>(gaps.size());
+            for (LocalDate[] gap : gaps) {
+                List<Transaction> rows = new ArrayList<>();
+                for (Transaction tx : delegate.findByUserIdAndDateRange(userId, gap[0], gap[1])) {
+                    rows.add(copy(tx));
+                }
+                rows.sort(BY_DATE_AND_ID);
+                loaded.add(new Segment(gap[0], gap[1], rows));
+            }
+            synchronized (this){
+                if(!ranges.evicted && ranges.generation == generation && unknownRowGeneration == unknownRows){
+                    for (Segment segment : loaded) {
+                        install(ranges, segment);
+                    }
+                    evictOverBudget();
+                }
+            }
+            pieces.addAll(loaded);
+            pieces.sort(Comparator.comparing(segment -> segment.start));
+        }
+
+        List<Transaction> result = new ArrayList<>();
+        for (Segment segment : pieces) {
+            for (int i = firstOnOrAfter(segment.rows, from); i < segment.rows.size(); i++) {
+                Transaction tx = segment.rows.get(i);
+                if(tx.getDate().isAfter(to)){
+                    break;
+                }
+                result.add(copy(tx));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public MonthlySummary findMonthlySummary(int userId, int year, int month) {
+        return delegate.findMonthlySummary(userId, year, month);
+    }
+
+    @Override
+    public List<TimeSeriesPoint> findTimeSeries(int userId, LocalDate from, LocalDate to, ReportGranularity granularity) {
+        return delegate.findTimeSeries(userId, from, to, granularity);
+    }
+
+    @Override
+    public List<CategoryTotal> findCategoryTotals(int userId, TransactionType type, LocalDate from, LocalDate to) {
+        return delegate.findCategoryTotals(userId, type, from, to);
+    }
+
+    @Override
+    public List<Transaction> findPageByUserId(int userId, TransactionCursor after, int limit) {
+        return delegate.findPageByUserId(userId, after, limit);
+    }
+
+    @Override
+    public long streamByUserIdAndDateRange(int userId, LocalDate from, LocalDate to, Consumer<Transaction> consumer) {
+        return delegate.streamByUserIdAndDateRange(userId, from, to, consumer);
+    }
+
+    @Override
+    public long streamByUserIdAndDateRange(int userId, TransactionType type, LocalDate from, LocalDate to, Consumer<Transaction> consumer) {
+        return delegate.streamByUserIdAndDateRange(userId, type, from, to, consumer);
+    }
+
+    @Override
+    public void deleteById(int id) {
+        try{
+            delegate.deleteById(id);
+        }finally {
+            synchronized (this){
+                invalidateRow(id);
+            }
+        }
+    }
+
+    /**
+     * Drops everything.
+     */
+    public synchronized void clear() {
+        for (UserRanges ranges : users.values()) {
+            ranges.evicted = true;
+        }
+        invalidations += users.size();
+        users.clear();
+        rowsById.clear();
+        cachedRows = 0;
+    }
+
+    /**
+     * @return counters where size and maxSize are in rows (users and segments count
+     * as at least one each), hits are requests
+     * answered entirely from memory and evictions are users dropped
+     */
+    public synchronized CacheStats getCacheStats() {
+        return new CacheStats("transactions.byDateRange", cachedRows, maxRows, hits, misses, evictions, 0, invalidations);
+    }
+
+    /**
+     * Adds a freshly loaded segment, merging it with neighbours it touches.
+     */
+    private void install(UserRanges ranges, Segment segment){
+        Map.Entry<LocalDate, Segment> before = ranges.segments.lowerEntry(segment.start);
+        Map.Entry<LocalDate, Segment> after = ranges.segments.ceilingEntry(segment.start);
+        boolean joinBefore = before != null && before.getValue().end.plusDays(1).equals(segment.start);
+        boolean joinAfter = after != null && segment.end.plusDays(1).equals(after.getKey());
+        if((before != null && !before.getValue().end.isBefore(segment.start))
+                || (after != null && !after.getKey().isAfter(segment.end))){
+            return;     // Overlaps something loaded concurrently; keep what is there.
+        }
+
+        for (Transaction tx : segment.rows) {
+            rowsById.put(tx.getId(), tx);
+        }
+        if(!joinBefore && !joinAfter){
+            putSegment(ranges, segment);
+            return;
+        }
+
+        LocalDate start = segment.start;
+        LocalDate end = segment.end;
+        List<Transaction> rows = new ArrayList<>();
+        if(joinBefore){
+            removeSegment(ranges, before.getValue());
+            start = before.getValue().start;
+            rows.addAll(before.getValue().rows);
+        }
+        rows.addAll(segment.rows);
+        if(joinAfter){
+            removeSegment(ranges, after.getValue());
+            end = after.getValue().end;
+            rows.addAll(after.getValue().rows);
+        }
+        putSegment(ranges, new Segment(start, end, rows));
+    }
+
+    private void putSegment(UserRanges ranges, Segment segment){
+        ranges.segments.put(segment.start, segment);
+        ranges.cost += cost(segment);
+        cachedRows += cost(segment);
+    }
+
+    private void removeSegment(UserRanges ranges, Segment segment){
+        ranges.segments.remove(segment.start);
+        ranges.cost -= cost(segment);
+        cachedRows -= cost(segment);
+    }
+
+    /**
+     * @return what a segment is charged against the budget: its rows, but at least one
+     */
+    private static int cost(Segment segment){
+        return Math.max(1, segment.rows.size());
+    }
+
+    /**
+     * Forgets one date of one user, splitting the segment that covers it.
+     */
+    private void invalidate(int userId, LocalDate date){
+        UserRanges ranges = users.get(userId);
+        if(ranges == null){
+            return;
+        }
+        ranges.generation++;
+        if(date == null){
+            return;
+        }
+        Map.Entry<LocalDate, Segment> entry = ranges.segments.floorEntry(date);
+        if(entry == null || entry.getValue().end.isBefore(date)){
+            return;
+        }
+
+        Segment segment = entry.getValue();
+        removeSegment(ranges, segment);
+        invalidations++;
+
+        int lower = firstOnOrAfter(segment.rows, date);
+        int upper = firstOnOrAfter(segment.rows, date.plusDays(1));
+        for (Transaction tx : segment.rows.subList(lower, upper)) {
+            rowsById.remove(tx.getId(), tx);
+        }
+        if(segment.start.isBefore(date)){
+            putSegment(ranges,
+                    new Segment(segment.start, date.minusDays(1), new ArrayList<>(segment.rows.subList(0, lower))));
+        }
+        if(segment.end.isAfter(date)){
+            putSegment(ranges,
+                    new Segment(date.plusDays(1), segment.end, new ArrayList<>(segment.rows.subList(upper, segment.rows.size()))));
+        }
+        evictOverBudget();
+    }
+
+    /**
+     * Forgets the date holding a transaction we only know by id. Segments are
+     * complete for their interval, so if the row is not cached its date is not
+     * covered; any load in flight is still fenced off.
+     */
+    private void invalidateRow(int id){
+        Transaction cached = rowsById.get(id);
+        if(cached != null){
+            invalidate(cached.getUserId(), cached.getDate());
+        }else{
+            unknownRowGeneration++;
+        }
+    }
+
+    private void evictOverBudget(){
+        Iterator<UserRanges> eldest = users.values().iterator();
+        while(cachedRows > maxRows && eldest.hasNext()){
+            UserRanges ranges = eldest.next();
+            eldest.remove();
+            for (Segment segment : ranges.segments.values()) {
+                for (Transaction tx : segment.rows) {
+                    rowsById.remove(tx.getId(), tx);
+                }
+            }
+            ranges.evicted = true;
+            cachedRows -= ranges.cost;
+            evictions++;
+        }
+    }
+
+    /**
+     * @return index of the first row dated on or after date (rows.size() if none)
+     */
+    private static int firstOnOrAfter(List<Transaction> rows, LocalDate date){
+        int low = 0;
+        int high = rows.size();
+        while(low < high){
+            int mid = (low + high) >>> 1;
+            if(rows.get(mid).getDate().isBefore(date)){
+                low = mid + 1;
+            }else{
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static Transaction copy(Transaction tx){
+        Transaction copy = new Transaction(tx.getUserId(), tx.getCategoryId(), tx.getType(), tx.getAmount(),
+                tx.getDate(), tx.getDescription());
+        copy.setId(tx.getId());
+        copy.setCreatedAt(tx.getCreatedAt());
+        copy.setUpdatedAt(tx.getUpdatedAt());
+        copy.setVersion(tx.getVersion());
+        return copy;
+    }
+}
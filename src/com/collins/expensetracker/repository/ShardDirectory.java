@@ -0,0 +1,356 @@
+package com.collins.expensetracker.repository;
+
+import com.collins.expensetracker.cache.CacheStats;
+import com.collins.expensetracker.cache.LruCache;
+import com.collins.expensetracker.db.ConnectionFactory;
+import com.collins.expensetracker.db.DatabaseConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Maps users to the database shard that holds their rows.
+ * <p>
+ * Shard 0 is the directory shard: its {@code user_shards} table records where
+ * every user lives. New users are placed by a stable hash of their email, and
+ * a move only has to update their directory row. Users missing from the
+ * directory live on shard 0. That covers the data of a deployment that was a
+ * single database before shards were added.
+ * <p>
+ * Ids stay unique across shards because each shard's connections interleave
+ * AUTO_INCREMENT values: shard {@code i} hands out ids {@code i + 1},
+ * {@code i + 1 + MAX_SHARDS}, and so on (see {@link #configureShard}). A
+ * row's id therefore never needs rewriting when its user moves.
+ * <p>
+ * Lookups are cached for {@code directoryTtl}. Other processes can hold a
+ * stale placement for that long, so {@link ShardMover} first marks the user
+ * as moving and waits out the TTL. Moving entries are never cached, and
+ * writers wait for the move to finish. Inside this process, a striped
+ * read/write lock per user keeps repository calls and moves apart.
+ */
+public class ShardDirectory implements AutoCloseable {
+
+    /**
+     * Upper bound on shards; it is also the id stride, so it cannot change once ids are handed out.
+     */
+    public static final int MAX_SHARDS = 16;
+
+    static final String FIND_SQL = "SELECT shard, moving, reconcile_shard FROM user_shards WHERE user_id = ?";
+    static final String UPSERT_SQL = "INSERT INTO user_shards (user_id, shard, moving) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE shard = VALUES(shard), moving = VALUES(moving)";
+    static final String DELETE_SQL = "DELETE FROM user_shards WHERE user_id = ?";
+    static final String RECONCILE_SQL = "UPDATE user_shards SET reconcile_shard = ? WHERE user_id = ?";
+
+    private static final int LOCK_STRIPES = 64;
+    private static final long MOVE_POLL_MILLIS = 50;
+
+    /**
+     * Where a user lives, as read from the directory.
+     */
+    static final class Placement {
+        final int shard;
+        final boolean moving;
+        final Integer reconcileShard;       // Shard a move left late writes on, or null.
+
+        Placement(int shard, boolean moving, Integer reconcileShard) {
+            this.shard = shard;
+            this.moving = moving;
+            this.reconcileShard = reconcileShard;
+        }
+    }
+
+    private final List<ConnectionFactory> shards;           // Index = shard number; 0 holds the directory.
+    private final Duration directoryTtl;                    // How long a placement may be served from cache.
+    private final long moveWaitMillis;                      // How long a write waits for a move before failing.
+    private final LruCache<Integer, Placement> placements;  // Cached directory rows, never moving ones.
+    private final ReadWriteLock[] userLocks;                // Striped by user id; moves take the write side.
+
+    /**
+     * @param shards       one factory per shard, each built from a config passed through {@link #configureShard}
+     * @param directoryTtl how long a placement is cached; a move waits this long before copying
+     * @param moveWait     how long a write to a moving user waits before it fails; at least the
+     *                     directory TTL plus {@link ShardMover}'s statement grace plus the copy time,
+     *                     or writes during a move fail rather than wait
+     */
+    public ShardDirectory(List<ConnectionFactory> shards, Duration directoryTtl, Duration moveWait) {
+        if(shards.isEmpty() || shards.size() > MAX_SHARDS){
+            throw new IllegalArgumentException("Between 1 and " + MAX_SHARDS + " shards are supported");
+        }
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        this.directoryTtl = directoryTtl;
+        this.moveWaitMillis = moveWait.toMillis();
+        this.placements = new LruCache<>("shardDirectory", 100_000, directoryTtl);
+        this.userLocks = new ReadWriteLock[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            userLocks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Makes a shard's connections hand out ids that no other shard uses.
+     * Call it on each shard's config before creating its factory.
+     *
+     * @param config the shard's connection settings
+     * @param shard  the shard's index
+     * @return the same config
+     */
+    public static DatabaseConfig configureShard(DatabaseConfig config, int shard) {
+        if(shard < 0 || shard >= MAX_SHARDS){
+            throw new IllegalArgumentException("Shard index must be between 0 and " + (MAX_SHARDS - 1));
+        }
+        config.setSessionInitSql("SET SESSION auto_increment_increment = " + MAX_SHARDS
+                + ", auto_increment_offset = " + (shard + 1));
+        return config;
+    }
+
+    /**
+     * Raises every shard's AUTO_INCREMENT counters above the highest id on any shard.
+     * Interleaving alone keeps new ids apart, but rows created before sharding
+     * (or before a shard was added) may sit anywhere in the id space. Run it at
+     * startup, after migrations; it only ever moves counters forward.
+     */
+    public void alignIdCounters() {
+        for (String table : new String[]{"users", "categories", "transactions"}) {
+            long max = 0;
+            for (ConnectionFactory shard : shards) {
+                try(Connection conn = shard.getConnection();
+                    Statement st = conn.createStatement()){
+                    ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table);
+                    rs.next();
+                    max = Math.max(max, rs.getLong(1));
+                }catch (SQLException e){
+                    throw new RuntimeException("Error reading the highest " + table + " id", e);
+                }
+            }
+            for (ConnectionFactory shard : shards) {
+                try(Connection conn = shard.getConnection();
+                    Statement st = conn.createStatement()){
+                    st.executeUpdate("ALTER TABLE " + table + " AUTO_INCREMENT = " + (max + 1));
+                }catch (SQLException e){
+                    throw new RuntimeException("Error aligning the " + table + " id counter", e);
+                }
+            }
+        }
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public ConnectionFactory getShard(int shard) {
+        return shards.get(shard);
+    }
+
+    public List<ConnectionFactory> getShards() {
+        return shards;
+    }
+
+    public Duration getDirectoryTtl() {
+        return directoryTtl;
+    }
+
+    /**
+     * Picks the shard for a user that does not exist yet. The hash is stable across
+     * processes and restarts, so the same email always lands on the same shard.
+     */
+    public int shardForNewUser(String email) {
+        CRC32 crc = new CRC32();
+        crc.update(email.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % shards.size());
+    }
+
+    /**
+     * Lists every shard, starting with the one that generated the id. For rows
+     * found by id alone this is the best first guess; the row may since have
+     * moved with its user, or may predate sharding.
+     */
+    public List<Integer> shardsForId(int id) {
+        int origin = Math.floorMod(id - 1, MAX_SHARDS);
+        List<Integer> order = new ArrayList<>(shards.size());
+        if(origin < shards.size()){
+            order.add(origin);
+        }
+        for (int shard = 0; shard < shards.size(); shard++) {
+            if(shard != origin){
+                order.add(shard);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * @return the shard holding the user's rows; a user being moved is still read from the source
+     */
+    public int shardForRead(int userId) {
+        return placement(userId).shard;
+    }
+
+    /**
+     * Returns the shard to write the user's rows to. If the user is being moved,
+     * this waits for the move to finish.
+     *
+     * @throws IllegalStateException if the move takes longer than the configured wait
+     */
+    public int shardForWrite(int userId) {
+        long deadline = System.currentTimeMillis() + moveWaitMillis;
+        Placement placement = placement(userId);
+        while (placement.moving) {
+            if(System.currentTimeMillis() >= deadline){
+                throw new IllegalStateException("User " + userId + " is being moved to another shard; try again shortly");
+            }
+            try{
+                Thread.sleep(MOVE_POLL_MILLIS);
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for user " + userId + " to finish moving", e);
+            }
+            placement = load(userId);
+        }
+        return placement.shard;
+    }
+
+    /**
+     * Records which shard a new user was created on.
+     */
+    public void register(int userId, int shard) {
+        write(userId, shard, false);
+    }
+
+    /**
+     * Removes a deleted user from the directory.
+     */
+    public void unregister(int userId) {
+        try(Connection conn = shards.get(0).getConnection();
+            PreparedStatement ps = conn.prepareStatement(DELETE_SQL)){
+            ps.setInt(1, userId);
+            ps.executeUpdate();
+        }catch (SQLException e){
+            throw new RuntimeException("Error removing user " + userId + " from the shard directory", e);
+        }
+        placements.invalidate(userId);
+    }
+
+    /**
+     * Reads the user's placement from the directory, bypassing the cache.
+     */
+    Placement load(int userId) {
+        try(Connection conn = shards.get(0).getConnection();
+            PreparedStatement ps = conn.prepareStatement(FIND_SQL)){
+            ps.setInt(1, userId);
+            ResultSet rs = ps.executeQuery();
+            if(rs.next()){
+                int reconcileShard = rs.getInt("reconcile_shard");
+                boolean reconcile = !rs.wasNull();
+                return new Placement(rs.getInt("shard"), rs.getInt("moving") != 0, reconcile ? reconcileShard : null);
+            }
+            return new Placement(0, false, null);
+        }catch (SQLException e){
+            throw new RuntimeException("Error reading the shard directory for user " + userId, e);
+        }
+    }
+
+    /**
+     * Marks the user as moving. Writers in every process start waiting once their cached placement expires.
+     */
+    void beginMove(int userId, int source) {
+        write(userId, source, true);
+    }
+
+    /**
+     * Points the user at their new shard and lets writers continue.
+     */
+    void completeMove(int userId, int target) {
+        write(userId, target, false);
+    }
+
+    /**
+     * Records that a move left rows on a shard that must be reconciled by hand, or clears
+     * the record once they are.
+     *
+     * @param shard the shard holding the rows, or null to clear
+     */
+    void markForReconcile(int userId, Integer shard) {
+        try(Connection conn = shards.get(0).getConnection();
+            PreparedStatement ps = conn.prepareStatement(RECONCILE_SQL)){
+            if(shard == null){
+                ps.setNull(1, Types.INTEGER);
+            }else{
+                ps.setInt(1, shard);
+            }
+            ps.setInt(2, userId);
+            ps.executeUpdate();
+        }catch (SQLException e){
+            throw new RuntimeException("Error updating the shard directory for user " + userId, e);
+        }
+        placements.invalidate(userId);
+    }
+
+    /**
+     * The lock a move holds exclusively; repository calls for the user hold it shared.
+     */
+    ReadWriteLock lockFor(int userId) {
+        return userLocks[lockStripe(userId)];
+    }
+
+    /**
+     * Users that share a stripe share a lock; callers locking several users take stripes in ascending order.
+     */
+    int lockStripe(int userId) {
+        return Math.floorMod(userId, LOCK_STRIPES);
+    }
+
+    public CacheStats getCacheStats() {
+        return placements.getStats();
+    }
+
+    /**
+     * Closes every shard's connection pool.
+     */
+    @Override
+    public void close() {
+        for (ConnectionFactory shard : shards) {
+            shard.close();
+        }
+    }
+
+    private Placement placement(int userId) {
+        Placement cached = placements.get(userId);
+        if(cached != null){
+            return cached;
+        }
+        long generation = placements.generation();
+        Placement loaded = load(userId);
+        if(loaded.shard >= shards.size()){
+            throw new IllegalStateException("User " + userId + " is on shard " + loaded.shard
+                    + " but only " + shards.size() + " shards are configured");
+        }
+        if(!loaded.moving){
+            placements.put(userId, loaded, generation);
+        }
+        return loaded;
+    }
+
+    private void write(int userId, int shard, boolean moving) {
+        if(shard < 0 || shard >= shards.size()){
+            throw new IllegalArgumentException("No shard " + shard + "; " + shards.size() + " are configured");
+        }
+        try(Connection conn = shards.get(0).getConnection();
+            PreparedStatement ps = conn.prepareStatement(UPSERT_SQL)){
+            ps.setInt(1, userId);
+            ps.setInt(2, shard);
+            ps.setInt(3, moving ? 1 : 0);
+            ps.executeUpdate();
+        }catch (SQLException e){
+            throw new RuntimeException("Error updating the shard directory for user " + userId, e);
+        }
+        placements.invalidate(userId);
+    }
+}
@@ -0,0 +1,356 @@
+package com.collins.expensetracker.repository;
+
+import java.sql.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Moves a user and everything they own from one shard to another while the application keeps running.
+ * <p>
+ * A move runs in four steps:
+ * <ol>
+ *     <li>Mark the user as moving in the directory, then wait out the directory
+ *     TTL plus a grace period for statements already running. After that,
+ *     every process sends the user's writes through a fresh directory read
+ *     and holds them until the move ends, and no write that read the old
+ *     placement can still be in flight. Reads keep going to the source.</li>
+ *     <li>Copy the user row, categories, transactions and monthly rollups to the
+ *     target in one transaction, keeping their ids. The source is read in one
+ *     REPEATABLE READ transaction, so all tables come from the same snapshot.
+ *     Ids are unique across shards, so nothing is renumbered.</li>
+ *     <li>Point the directory at the target and release waiting writers.</li>
+ *     <li>Read the user's rows on the source again and compare their count and
+ *     checksum per table with what was copied. If they match, delete them.</li>
+ * </ol>
+ * If the copy fails, the target transaction rolls back and the user stays on
+ * the source. If the source changed after the copy, a write landed there
+ * late. Its rows are left in place, and the source is recorded in the
+ * directory as needing reconciliation. Every later move of the user is
+ * refused, since it would delete those rows, until {@link #markReconciled}
+ * clears the record. If only the final delete fails, the leftover rows are
+ * unreachable. Running the move again with the same target removes them.
+ * <p>
+ * Writes to the user block for the whole move: the directory TTL, the
+ * statement grace and the copy. The directory's move wait must cover all
+ * three, or those writes fail instead. A shorter grace makes moves quicker
+ * but risks missing a slow statement on the old placement; verification
+ * then catches it as a late write.
+ */
+public class ShardMover {
+
+    private static final Logger LOG = Logger.getLogger(ShardMover.class.getName());
+    private static final int BATCH_SIZE = 1000;
+    /**
+     * Longer than InnoDB's default 50 s lock wait, the longest a blocked write statement usually runs.
+     */
+    public static final Duration DEFAULT_STATEMENT_GRACE = Duration.ofSeconds(60);
+
+    // Child tables first when deleting; the user row is copied first and deleted last.
+    private static final String[] OWNED_TABLES = {"transactions", "categories", "monthly_rollups"};
+
+    private final ShardDirectory directory;
+    private final Duration statementGrace;                  // Added to the directory TTL before copying.
+
+    public ShardMover(ShardDirectory directory) {
+        this(directory, DEFAULT_STATEMENT_GRACE);
+    }
+
+    /**
+     * @param directory      where users live
+     * @param statementGrace longest a write statement can run; a move waits the
+     *                       directory TTL plus this before copying
+     */
+    public ShardMover(ShardDirectory directory, Duration statementGrace) {
+        this.directory = directory;
+        this.statementGrace = statementGrace;
+    }
+
+    /**
+     * Row count and order-independent checksum of one table's rows for a user.
+     */
+    private static final class Digest {
+        long rows;
+        long checksum;
+
+        void add(ResultSet rs, int columns) throws SQLException {
+            long hash = 1;
+            for (int i = 1; i <= columns; i++) {
+                hash = 31 * hash + Objects.hashCode(rs.getObject(i));
+            }
+            rows++;
+            checksum += hash * 0x9E3779B97F4A7C15L;     // Spread, then sum, so row order does not matter.
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Digest && ((Digest) o).rows == rows && ((Digest) o).checksum == checksum;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(rows) * 31 + Long.hashCode(checksum);
+        }
+
+        @Override
+        public String toString() {
+            return rows + " rows, checksum " + Long.toHexString(checksum);
+        }
+    }
+
+    /**
+     * Moves a user to another shard, or finishes an earlier move to it.
+     *
+     * @param userId user to move
+     * @param target index of the shard to move to
+     * @return number of rows copied to the target
+     */
+    public synchronized long moveUser(int userId, int target) {
+        if(target < 0 || target >= directory.getShardCount()){
+            throw new IllegalArgumentException("No shard " + target + "; " + directory.getShardCount() + " are configured");
+        }
+        ShardDirectory.Placement placement = directory.load(userId);
+        if(placement.reconcileShard != null){
+            throw new IllegalStateException("User " + userId + " has late writes on shard " + placement.reconcileShard
+                    + " left by an earlier move; reconcile them with shard " + placement.shard
+                    + " and mark the user reconciled before moving it again");
+        }
+        int source = placement.shard;
+        if(source == target){
+            // Already there, perhaps from a move whose last step failed: finish it off.
+            if(placement.moving){
+                directory.completeMove(userId, target);
+            }
+            purgeOtherShards(userId, target);
+            return 0;
+        }
+
+        // Taking the write lock waits for this process's in-flight calls; later writers see the flag.
+        Lock lock = directory.lockFor(userId).writeLock();
+        lock.lock();
+        try{
+            directory.beginMove(userId, source);
+        }finally {
+            lock.unlock();
+        }
+
+        Map<String, Digest> copied;
+        try{
+            Thread.sleep(directory.getDirectoryTtl().plus(statementGrace).toMillis());
+            copied = copyUser(userId, source, target);
+        }catch (InterruptedException e){
+            directory.completeMove(userId, source);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted moving user " + userId, e);
+        }catch (RuntimeException e){
+            directory.completeMove(userId, source);
+            throw e;
+        }
+        directory.completeMove(userId, target);
+
+        // Let reads that resolved the source before the switch finish before its rows go.
+        lock.lock();
+        lock.unlock();
+        long rows = 0;
+        for (Digest digest : copied.values()) {
+            rows += digest.rows;
+        }
+        try{
+            Map<String, Digest> remaining = digestUser(userId, source);
+            if(!remaining.equals(copied)){
+                directory.markForReconcile(userId, source);
+                LOG.log(Level.SEVERE, "User " + userId + " moved to shard " + target + ", but shard " + source
+                        + " changed after the copy (copied " + copied + ", now " + remaining + "). Its rows were left"
+                        + " in place; reconcile them with shard " + target + " and mark the user reconciled"
+                        + " before moving it again");
+                return rows;
+            }
+        }catch (RuntimeException e){
+            LOG.log(Level.SEVERE, "User " + userId + " moved to shard " + target + ", but shard " + source
+                    + " could not be checked for late writes, or flagged for reconciliation. Its rows were left in"
+                    + " place; compare them with shard " + target + " before running the move again", e);
+            return rows;
+        }
+        try{
+            deleteUser(userId, source);
+        }catch (RuntimeException e){
+            LOG.log(Level.WARNING, "User " + userId + " moved to shard " + target
+                    + " but could not be removed from shard " + source + "; run the move again to clean up", e);
+        }
+        LOG.log(Level.INFO, "Moved user " + userId + " from shard " + source + " to shard " + target
+                + " (" + rows + " rows)");
+        return rows;
+    }
+
+    /**
+     * Clears the record that a move left late writes behind. Call it once they are
+     * merged into the user's current shard; the next move then deletes them.
+     */
+    public void markReconciled(int userId) {
+        directory.markForReconcile(userId, null);
+    }
+
+    /**
+     * @return per table, the count and checksum of the rows copied
+     */
+    private Map<String, Digest> copyUser(int userId, int source, int target) {
+        try(Connection from = directory.getShard(source).getConnection();
+            Connection to = directory.getShard(target).getConnection()){
+            boolean previousAutoCommit = to.getAutoCommit();
+            to.setAutoCommit(false);
+            try{
+                purge(to, userId);
+                Map<String, Digest> copied = readSnapshot(from, userId, source, (table, rs) -> copyRows(rs, to, table));
+                to.commit();
+                return copied;
+            }catch (SQLException | RuntimeException e){
+                to.rollback();
+                throw e;
+            }finally {
+                to.setAutoCommit(previousAutoCommit);
+            }
+        }catch (SQLException e){
+            throw new RuntimeException("Error copying user " + userId + " from shard " + source + " to shard " + target, e);
+        }
+    }
+
+    /**
+     * @return per table, the count and checksum of the user's rows on the shard now
+     */
+    private Map<String, Digest> digestUser(int userId, int shard) {
+        try(Connection conn = directory.getShard(shard).getConnection()){
+            return readSnapshot(conn, userId, shard, (table, rs) -> {
+                Digest digest = new Digest();
+                int columns = rs.getMetaData().getColumnCount();
+                while (rs.next()) {
+                    digest.add(rs, columns);
+                }
+                return digest;
+            });
+        }catch (SQLException e){
+            throw new RuntimeException("Error checking user " + userId + " on shard " + shard, e);
+        }
+    }
+
+    private interface TableReader {
+        Digest read(String table, ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Reads the user row, then each owned table, in one REPEATABLE READ transaction,
+     * so every table comes from the same snapshot.
+     */
+    private static Map<String, Digest> readSnapshot(Connection conn, int userId, int shard, TableReader reader) throws SQLException {
+        boolean previousAutoCommit = conn.getAutoCommit();
+        int previousIsolation = conn.getTransactionIsolation();
+        conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        conn.setAutoCommit(false);
+        try{
+            Map<String, Digest> digests = new LinkedHashMap<>();
+            digests.put("users", readTable(conn, "users", "SELECT * FROM users WHERE id = ?", userId, reader));
+            if(digests.get("users").rows == 0){
+                throw new IllegalStateException("User " + userId + " does not exist on shard " + shard);
+            }
+            for (int i = OWNED_TABLES.length - 1; i >= 0; i--) {
+                digests.put(OWNED_TABLES[i], readTable(conn, OWNED_TABLES[i],
+                        "SELECT * FROM " + OWNED_TABLES[i] + " WHERE user_id = ?", userId, reader));
+            }
+            conn.commit();
+            return digests;
+        }catch (SQLException | RuntimeException e){
+            conn.rollback();
+            throw e;
+        }finally {
+            conn.setAutoCommit(previousAutoCommit);
+            conn.setTransactionIsolation(previousIsolation);
+        }
+    }
+
+    private static Digest readTable(Connection conn, String table, String selectSql, int userId, TableReader reader) throws SQLException {
+        try(PreparedStatement select = conn.prepareStatement(selectSql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)){
+            select.setInt(1, userId);
+            select.setFetchSize(BATCH_SIZE);
+            try(ResultSet rs = select.executeQuery()){
+                return reader.read(table, rs);
+            }
+        }
+    }
+
+    /**
+     * Copies rows column for column, so tables added to later migrations need no changes here.
+     */
+    private static Digest copyRows(ResultSet rs, Connection to, String table) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int columns = meta.getColumnCount();
+        List<String> names = new ArrayList<>(columns);
+        for (int i = 1; i <= columns; i++) {
+            names.add(meta.getColumnName(i));
+        }
+        String insertSql = "INSERT INTO " + table + " (" + String.join(", ", names) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columns, "?")) + ")";
+
+        Digest copied = new Digest();
+        try(PreparedStatement insert = to.prepareStatement(insertSql)){
+            while (rs.next()) {
+                for (int i = 1; i <= columns; i++) {
+                    insert.setObject(i, rs.getObject(i));
+                }
+                insert.addBatch();
+                copied.add(rs, columns);
+                if(copied.rows % BATCH_SIZE == 0){
+                    insert.executeBatch();
+                }
+            }
+            if(copied.rows % BATCH_SIZE != 0){
+                insert.executeBatch();
+            }
+        }
+        return copied;
+    }
+
+    private void deleteUser(int userId, int shard) {
+        try(Connection conn = directory.getShard(shard).getConnection()){
+            boolean previousAutoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try{
+                purge(conn, userId);
+                conn.commit();
+            }catch (SQLException e){
+                conn.rollback();
+                throw e;
+            }finally {
+                conn.setAutoCommit(previousAutoCommit);
+            }
+        }catch (SQLException e){
+            throw new RuntimeException("Error removing user " + userId + " from shard " + shard, e);
+        }
+    }
+
+    private void purgeOtherShards(int userId, int home) {
+        for (int shard = 0; shard < directory.getShardCount(); shard++) {
+            if(shard != home){
+                deleteUser(userId, shard);
+            }
+        }
+    }
+
+    private static void purge(Connection conn, int userId) throws SQLException {
+        for (String table : OWNED_TABLES) {
+            try(PreparedStatement ps = conn.prepareStatement("DELETE FROM " + table + " WHERE user_id = ?")){
+                ps.setInt(1, userId);
+                ps.executeUpdate();
+            }
+        }
+        try(PreparedStatement ps = conn.prepareStatement("DELETE FROM users WHERE id = ?")){
+            ps.setInt(1, userId);
+            ps.executeUpdate();
+        }
+    }
+}
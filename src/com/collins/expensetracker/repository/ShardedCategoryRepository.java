@@ -0,0 +1,89 @@
+package com.collins.expensetracker.repository;
+
+import com.collins.expensetracker.db.ConnectionFactory;
+import com.collins.expensetracker.model.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Routes category rows to the shard of the user who owns them.
+ * <p>
+ * Calls that carry a user id go to that user's shard. Calls by category id
+ * alone do not know the owner, so they try the shard that generated the id
+ * first and then the others. A copy counts only if it is on its owner's
+ * current shard, so rows a move left behind are never returned.
+ */
+public class ShardedCategoryRepository implements CategoryRepository {
+
+    private final ShardDirectory directory;
+    private final List<CategoryRepository> shards;          // One JDBC repository per shard, by index.
+
+    public ShardedCategoryRepository(ShardDirectory directory) {
+        this.directory = directory;
+        this.shards = new ArrayList<>();
+        for (ConnectionFactory shard : directory.getShards()) {
+            shards.add(new JdbcCategoryRepository(shard));
+        }
+    }
+
+    @Override
+    public Category save(Category category) {
+        Lock lock = directory.lockFor(category.getUserId()).readLock();
+        lock.lock();
+        try{
+            return shards.get(directory.shardForWrite(category.getUserId())).save(category);
+        }finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Category findById(int id) {
+        for (int shard : directory.shardsForId(id)) {
+            Category category = shards.get(shard).findById(id);
+            if(category != null && directory.shardForRead(category.getUserId()) == shard){
+                return category;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public List<Category> findByUserId(int userId) {
+        Lock lock = directory.lockFor(userId).readLock();
+        lock.lock();
+        try{
+            return shards.get(directory.shardForRead(userId)).findByUserId(userId);
+        }finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Category findByUserIdAndName(int userId, String name) {
+        Lock lock = directory.lockFor(userId).readLock();
+        lock.lock();
+        try{
+            return shards.get(directory.shardForRead(userId)).findByUserIdAndName(userId, name);
+        }finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteById(int id) {
+        Category category = findById(id);
+        if(category == null){
+            return;
+        }
+        Lock lock = directory.lockFor(category.getUserId()).readLock();
+        lock.lock();
+        try{
+            shards.get(directory.shardForWrite(category.getUserId())).deleteById(id);
+        }finally {
+            lock.unlock();
+        }
+    }
+}
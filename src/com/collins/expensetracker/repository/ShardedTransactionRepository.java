@@ -0,0 +1,154 @@
+package com.collins.expensetracker.repository;
+
+import com.collins.expensetracker.db.ConnectionFactory;
+import com.collins.expensetracker.model.CategoryTotal;
+import com.collins.expensetracker.model.MonthlySummary;
+import com.collins.expensetracker.model.ReportGranularity;
+import com.collins.expensetracker.model.TimeSeriesPoint;
+import com.collins.expensetracker.model.Transaction;
+import com.collins.expensetracker.model.TransactionCursor;
+import com.collins.expensetracker.model.TransactionType;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Routes transactions to the shard of the user who owns them, using a {@link ShardDirectory}.
+ * <p>
+ * Every per-user query runs on exactly one shard, so paging, streaming and
+ * the reporting aggregates behave as they do on a single database. Batched
+ * saves are split by shard. Each shard commits its own chunks, so a batch
+ * that spans users on different shards is not atomic as a whole. Calls by
+ * transaction id alone try the shard that generated the id first, and
+ * accept a row only from its owner's current shard, so rows a move left
+ * behind are never returned.
+ */
+public class ShardedTransactionRepository implements TransactionRepository {
+
+    private final ShardDirectory directory;
+    private final List<TransactionRepository> shards;       // One JDBC repository per shard, by index.
+
+    public ShardedTransactionRepository(ShardDirectory directory) {
+        this.directory = directory;
+        this.shards = new ArrayList<>();
+        for (ConnectionFactory shard : directory.getShards()) {
+            shards.add(new JdbcTransactionRepository(shard));
+        }
+    }
+
+    @Override
+    public Transaction save(Transaction tx) {
+        return onUser(tx.getUserId(), true, shard -> shards.get(shard).save(tx));
+    }
+
+    @Override
+    public List<Transaction> saveAll(Collection<Transaction> transactions) {
+        List<Transaction> all = new ArrayList<>(transactions);
+
+        // Hold every affected user's lock, in stripe order so two batches cannot deadlock.
+        TreeMap<Integer, Lock> locks = new TreeMap<>();
+        for (Transaction tx : all) {
+            locks.putIfAbsent(directory.lockStripe(tx.getUserId()), directory.lockFor(tx.getUserId()).readLock());
+        }
+        List<Lock> held = new ArrayList<>();
+        try{
+            for (Lock lock : locks.values()) {
+                lock.lock();
+                held.add(lock);
+            }
+            Map<Integer, List<Transaction>> byShard = new TreeMap<>();
+            for (Transaction tx : all) {
+                byShard.computeIfAbsent(directory.shardForWrite(tx.getUserId()), k -> new ArrayList<>()).add(tx);
+            }
+            for (Map.Entry<Integer, List<Transaction>> entry : byShard.entrySet()) {
+                shards.get(entry.getKey()).saveAll(entry.getValue());
+            }
+            return all;
+        }finally {
+            for (Lock lock : held) {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public Transaction findById(int id) {
+        for (int shard : directory.shardsForId(id)) {
+            Transaction tx = shards.get(shard).findById(id);
+            if(tx != null && directory.shardForRead(tx.getUserId()) == shard){
+                return tx;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public List<Transaction> findByUserId(int userId) {
+        return onUser(userId, false, shard -> shards.get(shard).findByUserId(userId));
+    }
+
+    @Override
+    public List<Transaction> findByUserIdAndDateRange(int userId, LocalDate from, LocalDate to) {
+        return onUser(userId, false, shard -> shards.get(shard).findByUserIdAndDateRange(userId, from, to));
+    }
+
+    @Override
+    public MonthlySummary findMonthlySummary(int userId, int year, int month) {
+        return onUser(userId, false, shard -> shards.get(shard).findMonthlySummary(userId, year, month));
+    }
+
+    @Override
+    public List<TimeSeriesPoint> findTimeSeries(int userId, LocalDate from, LocalDate to, ReportGranularity granularity) {
+        return onUser(userId, false, shard -> shards.get(shard).findTimeSeries(userId, from, to, granularity));
+    }
+
+    @Override
+    public List<CategoryTotal> findCategoryTotals(int userId, TransactionType type, LocalDate from, LocalDate to) {
+        return onUser(userId, false, shard -> shards.get(shard).findCategoryTotals(userId, type, from, to));
+    }
+
+    @Override
+    public List<Transaction> findPageByUserId(int userId, TransactionCursor after, int limit) {
+        return onUser(userId, false, shard -> shards.get(shard).findPageByUserId(userId, after, limit));
+    }
+
+    @Override
+    public long streamByUserIdAndDateRange(int userId, LocalDate from, LocalDate to, Consumer<Transaction> consumer) {
+        return onUser(userId, false, shard -> shards.get(shard).streamByUserIdAndDateRange(userId, from, to, consumer));
+    }
+
+    @Override
+    public long streamByUserIdAndDateRange(int userId, TransactionType type, LocalDate from, LocalDate to, Consumer<Transaction> consumer) {
+        return onUser(userId, false, shard -> shards.get(shard).streamByUserIdAndDateRange(userId, type, from, to, consumer));
+    }
+
+    @Override
+    public void deleteById(int id) {
+        Transaction tx = findById(id);
+        if(tx == null){
+            return;
+        }
+        onUser(tx.getUserId(), true, shard -> {
+            shards.get(shard).deleteById(id);
+            return null;
+        });
+    }
+
+    private <T> T onUser(int userId, boolean write, IntFunction<T> call) {
+        Lock lock = directory.lockFor(userId).readLock();
+        lock.lock();
+        try{
+            int shard = write ? directory.shardForWrite(userId) : directory.shardForRead(userId);
+            return call.apply(shard);
+        }finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.collins.expensetracker.repository;
+
+import com.collins.expensetracker.db.ConnectionFactory;
+import com.collins.expensetracker.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Routes user rows to the shard recorded in a {@link ShardDirectory}.
+ * <p>
+ * New users go to the shard picked by their email hash and are then added
+ * to the directory. Lookups by id go straight to the user's shard. Lookups
+ * by email try the hashed shard first, then the others, because a user who
+ * was moved or created before sharding can live anywhere. Each shard only
+ * enforces email uniqueness locally. Inserts therefore check the other
+ * shards first. Two processes that create the same email at the same
+ * moment on different shards can still both succeed.
+ */
+public class ShardedUserRepository implements UserRepository {
+
+    private final ShardDirectory directory;
+    private final List<UserRepository> shards;              // One JDBC repository per shard, by index.
+
+    public ShardedUserRepository(ShardDirectory directory) {
+        this.directory = directory;
+        this.shards = new ArrayList<>();
+        for (ConnectionFactory shard : directory.getShards()) {
+            shards.add(new JdbcUserRepository(shard));
+        }
+    }
+
+    @Override
+    public User save(User user) {
+        if(user.getId() == 0){
+            int shard = directory.shardForNewUser(user.getEmail());
+            User existing = findByEmail(user.getEmail());
+            if(existing != null){
+                throw new RuntimeException("Error saving user (insert) ",
+                        new IllegalStateException("Email already in use: " + user.getEmail()));
+            }
+            User saved = shards.get(shard).save(user);
+            try{
+                directory.register(saved.getId(), shard);
+            }catch (RuntimeException e){
+                // Without a directory row the user would be looked up on shard 0; undo the insert.
+                shards.get(shard).deleteById(saved.getId());
+                saved.setId(0);
+                throw e;
+            }
+            return saved;
+        }
+
+        Lock lock = directory.lockFor(user.getId()).readLock();
+        lock.lock();
+        try{
+            return shards.get(directory.shardForWrite(user.getId())).save(user);
+        }finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public User findById(int id) {
+        Lock lock = directory.lockFor(id).readLock();
+        lock.lock();
+        try{
+            return shards.get(directory.shardForRead(id)).findById(id);
+        }finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        int hashed = directory.shardForNewUser(email);
+        User user = shards.get(hashed).findByEmail(email);
+        for (int shard = 0; user == null && shard < shards.size(); shard++) {
+            if(shard != hashed){
+                user = shards.get(shard).findByEmail(email);
+            }
+        }
+        return user;
+    }
+
+    @Override
+    public List<User> findAll() {
+        List<User> users = new ArrayList<>();
+        for (UserRepository shard : shards) {
+            users.addAll(shard.findAll());
+        }
+        return users;
+    }
+
+    @Override
+    public void deleteById(int id) {
+        Lock lock = directory.lockFor(id).readLock();
+        lock.lock();
+        try{
+            shards.get(directory.shardForWrite(id)).deleteById(id);
+            directory.unregister(id);
+        }finally {
+            lock.unlock();
+        }
+    }
+}
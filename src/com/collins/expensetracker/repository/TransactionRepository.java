@@ -1,9 +1,17 @@
 package com.collins.expensetracker.repository;
 
+import com.collins.expensetracker.model.CategoryTotal;
+import com.collins.expensetracker.model.MonthlySummary;
+import com.collins.expensetracker.model.ReportGranularity;
+import com.collins.expensetracker.model.TimeSeriesPoint;
 import com.collins.expensetracker.model.Transaction;
+import com.collins.expensetracker.model.TransactionCursor;
+import com.collins.expensetracker.model.TransactionType;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Repository abstraction for transaction records.
@@ -14,11 +22,25 @@ public interface TransactionRepository {
     /**
      * Inserts a new transaction or updates an existing one.
      *
+     * Updates only apply if the row still has the transaction's version;
+     * on success the version is incremented.
+     *
      * @param tx transaction to save
      * @return saved transaction with generated id if it was new
+     * @throws OptimisticLockException if the row was changed or deleted since it was read
      */
     Transaction save(Transaction tx);
 
+    /**
+     * Inserts or updates many transactions using batched writes.
+     * Rows are written and committed in fixed-size chunks; each chunk is atomic.
+     * Generated ids are assigned back onto the new transactions.
+     *
+     * @param transactions transactions to save
+     * @return the same transactions, in input order, with ids set
+     */
+    List<Transaction> saveAll(Collection<Transaction> transactions);
+
     /**
      * Finds a transaction by its primary key.
      *
@@ -41,10 +63,85 @@ public interface TransactionRepository {
      * @param userId owner user id
      * @param from   start date (inclusive)
      * @param to     end date (inclusive)
-     * @return list of matching transactions
+     * @return list of matching transactions, ordered by date then id
      */
     List<Transaction> findByUserIdAndDateRange(int userId, LocalDate from, LocalDate to);
 
+    /**
+     * Returns income, expense and net for one calendar month from the per-month
+     * totals that every write keeps in step ({@code monthly_rollups}), without
+     * loading or summing the rows.
+     *
+     * @param userId owner user id
+     * @param year   year of the month
+     * @param month  month (1-12)
+     * @return the month's totals; zero when there are no transactions
+     */
+    MonthlySummary findMonthlySummary(int userId, int year, int month);
+
+    /**
+     * Computes income and expense per bucket for a date range in a single query.
+     * Only buckets that contain transactions are returned; callers fill gaps.
+     *
+     * @param userId      owner user id
+     * @param from        start date (inclusive)
+     * @param to          end date (inclusive)
+     * @param granularity bucket size
+     * @return non-empty buckets in ascending order, keyed by bucket start date
+     */
+    List<TimeSeriesPoint> findTimeSeries(int userId, LocalDate from, LocalDate to, ReportGranularity granularity);
+
+    /**
+     * Totals one type of transaction per category for a date range.
+     * Share is left at zero; callers compute it against their own grand total.
+     *
+     * @param userId owner user id
+     * @param type   transaction type to aggregate
+     * @param from   start date (inclusive)
+     * @param to     end date (inclusive)
+     * @return one entry per category with transactions, largest total first
+     */
+    List<CategoryTotal> findCategoryTotals(int userId, TransactionType type, LocalDate from, LocalDate to);
+
+    /**
+     * Returns up to {@code limit} of a user's transactions ordered by
+     * date and id descending, starting strictly after the cursor.
+     * Uses keyset (seek) pagination, so deep pages cost the same as the first.
+     *
+     * @param userId owner user id
+     * @param after  position to continue from, or null for the newest transactions
+     * @param limit  maximum number of rows to return
+     * @return the next transactions in (date DESC, id DESC) order
+     */
+    List<Transaction> findPageByUserId(int userId, TransactionCursor after, int limit);
+
+    /**
+     * Streams a user's transactions, oldest first, to a consumer without
+     * building a list. Rows are read through a forward-only cursor a small
+     * batch at a time, so memory use does not grow with history length.
+     *
+     * @param userId   owner user id
+     * @param from     start date (inclusive), or null for no lower bound
+     * @param to       end date (inclusive), or null for no upper bound
+     * @param consumer receives each transaction as it is read
+     * @return number of transactions streamed
+     */
+    long streamByUserIdAndDateRange(int userId, LocalDate from, LocalDate to, Consumer<Transaction> consumer);
+
+    /**
+     * Streams a user's transactions of one type, oldest first, like
+     * {@link #streamByUserIdAndDateRange(int, LocalDate, LocalDate, Consumer)}.
+     * The type is filtered in the query, so rows of the other type are never read.
+     *
+     * @param userId   owner user id
+     * @param type     transaction type to stream
+     * @param from     start date (inclusive), or null for no lower bound
+     * @param to       end date (inclusive), or null for no upper bound
+     * @param consumer receives each transaction as it is read
+     * @return number of transactions streamed
+     */
+    long streamByUserIdAndDateRange(int userId, TransactionType type, LocalDate from, LocalDate to, Consumer<Transaction> consumer);
+
     /**
      * Deletes the transaction with the given id.
      *
@@ -0,0 +1,139 @@
+package com.collins.expensetracker.repository;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Settings for {@link WriteBehindTransactionRepository}. Defaults favour
+ * durability; override with the setters, or from system properties via
+ * {@link #fromSystemProperties()}, before the repository is created.
+ */
+public class WriteBehindConfig {
+
+    /**
+     * When journal appends are forced to disk.
+     */
+    public enum FsyncPolicy {
+        ALWAYS,         // Before save() returns; concurrent appends share one fsync.
+        INTERVAL,       // Once per flush cycle; a crash can lose up to one interval of writes.
+        NEVER           // Left to the operating system.
+    }
+
+    private final Path directory;                              // Where journal segment files live.
+    private String journalName = "default";                    // Checkpoint key; one writer process per name.
+    private long flushIntervalMillis = 200;                    // Longest a write waits before the committer flushes.
+    private int maxBatchSize = 500;                            // Most rows committed in one database transaction.
+    private int maxPendingWrites = 100_000;                    // save() blocks once this many writes are uncommitted.
+    private long segmentBytes = 16L * 1024 * 1024;             // Journal files roll over at this size.
+    private long readWaitMillis = 30_000;                      // How long a read waits for the user's writes to commit.
+    private int maxCommitAttempts = 5;                         // Tries before a rejected transaction is dead-lettered.
+    private FsyncPolicy fsyncPolicy = FsyncPolicy.ALWAYS;
+
+    public WriteBehindConfig(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Builds a config from {@code expensetracker.writeBehind.*} system properties:
+     * dir, name, flushIntervalMillis, maxBatchSize, maxPendingWrites,
+     * maxCommitAttempts and fsync (ALWAYS, INTERVAL or NEVER). Unset properties
+     * keep their defaults.
+     */
+    public static WriteBehindConfig fromSystemProperties() {
+        String prefix = "expensetracker.writeBehind.";
+        WriteBehindConfig config = new WriteBehindConfig(Paths.get(System.getProperty(prefix + "dir", "journal")));
+        config.setJournalName(System.getProperty(prefix + "name", config.getJournalName()));
+        config.setFlushIntervalMillis(Long.getLong(prefix + "flushIntervalMillis", config.getFlushIntervalMillis()));
+        config.setMaxBatchSize(Integer.getInteger(prefix + "maxBatchSize", config.getMaxBatchSize()));
+        config.setMaxPendingWrites(Integer.getInteger(prefix + "maxPendingWrites", config.getMaxPendingWrites()));
+        config.setMaxCommitAttempts(Integer.getInteger(prefix + "maxCommitAttempts", config.getMaxCommitAttempts()));
+        config.setFsyncPolicy(FsyncPolicy.valueOf(System.getProperty(prefix + "fsync", config.getFsyncPolicy().name())));
+        return config;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public String getJournalName() {
+        return journalName;
+    }
+
+    public void setJournalName(String journalName) {
+        this.journalName = journalName;
+    }
+
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    public void setFlushIntervalMillis(long flushIntervalMillis) {
+        if(flushIntervalMillis < 1){
+            throw new IllegalArgumentException("flushIntervalMillis must be at least 1");
+        }
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        if(maxBatchSize < 1){
+            throw new IllegalArgumentException("maxBatchSize must be at least 1");
+        }
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public int getMaxPendingWrites() {
+        return maxPendingWrites;
+    }
+
+    public void setMaxPendingWrites(int maxPendingWrites) {
+        if(maxPendingWrites < 1){
+            throw new IllegalArgumentException("maxPendingWrites must be at least 1");
+        }
+        this.maxPendingWrites = maxPendingWrites;
+    }
+
+    public long getSegmentBytes() {
+        return segmentBytes;
+    }
+
+    public void setSegmentBytes(long segmentBytes) {
+        this.segmentBytes = segmentBytes;
+    }
+
+    public long getReadWaitMillis() {
+        return readWaitMillis;
+    }
+
+    public void setReadWaitMillis(long readWaitMillis) {
+        this.readWaitMillis = readWaitMillis;
+    }
+
+    public int getMaxCommitAttempts() {
+        return maxCommitAttempts;
+    }
+
+    /**
+     * How many times a single transaction the database rejects outright (a
+     * constraint or data error) is tried before it is moved to
+     * {@code write_behind_dead_letters}. Connection and other transient
+     * failures are retried until they succeed.
+     */
+    public void setMaxCommitAttempts(int maxCommitAttempts) {
+        if(maxCommitAttempts < 1){
+            throw new IllegalArgumentException("maxCommitAttempts must be at least 1");
+        }
+        this.maxCommitAttempts = maxCommitAttempts;
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    public void setFsyncPolicy(FsyncPolicy fsyncPolicy) {
+        this.fsyncPolicy = fsyncPolicy;
+    }
+}
@@ -0,0 +1,345 @@
+package com.collins.expensetracker.repository;
+
+import com.collins.expensetracker.model.Transaction;
+import com.collins.expensetracker.model.TransactionType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of pending inserts, split into segment files named by
+ * the first sequence number they hold.
+ * <p>
+ * Record layout: {@code int length | body | int crc32(body)}, where the body
+ * is {@code long seq} followed by the transaction fields. A crash can leave
+ * a torn record at the end of the newest segment. Recovery cuts it off and
+ * starts a fresh segment, so a bad record anywhere else is real corruption.
+ * <p>
+ * Appends run on the caller's thread, and an interrupt there closes the
+ * channel in the middle of a write. A failed append therefore reopens the
+ * segment and cuts it back to where the frame began, so nothing follows a
+ * torn frame. If even that fails, the journal refuses further appends
+ * rather than write after a torn frame.
+ */
+final class WriteBehindJournal implements AutoCloseable {
+
+    static final class Record {
+        final long seq;
+        final Transaction tx;
+
+        Record(long seq, Transaction tx) {
+            this.seq = seq;
+            this.tx = tx;
+        }
+    }
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final WriteBehindConfig.FsyncPolicy fsyncPolicy;
+
+    private final Object writeLock = new Object();             // Guards appends, rolls and segments.
+    private final Object syncLock = new Object();              // Guards force(); taken after writeLock, never before.
+    private final TreeMap<Long, Path> segments = new TreeMap<>();   // First seq -> file.
+    private volatile FileChannel current;
+    private long currentSize;
+    private long nextSeq;
+    private volatile long lastWrittenSeq;
+    private long syncedSeq;                                    // Guarded by syncLock.
+    private volatile IOException failure;                      // Set when a torn frame could not be cut off.
+    private boolean closed;                                    // Guarded by writeLock.
+
+    WriteBehindJournal(Path directory, long segmentBytes, WriteBehindConfig.FsyncPolicy fsyncPolicy) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    /**
+     * Reads every segment, repairs a torn tail and opens a new segment for appends.
+     *
+     * @param committedSeq highest sequence number already in the database
+     * @return records after committedSeq, in sequence order
+     */
+    List<Record> recover(long committedSeq) throws IOException {
+        Files.createDirectories(directory);
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)){
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.put(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())), file);
+            }
+        }
+
+        List<Record> pending = new ArrayList<>();
+        long lastSeq = committedSeq;
+        Iterator<Map.Entry<Long, Path>> it = segments.entrySet().iterator();
+        while(it.hasNext()){
+            Path file = it.next().getValue();
+            lastSeq = Math.max(lastSeq, readSegment(file, !it.hasNext(), committedSeq, pending));
+        }
+
+        nextSeq = lastSeq + 1;
+        lastWrittenSeq = lastSeq;
+        syncedSeq = lastSeq;
+        openSegment(nextSeq);
+        return pending;
+    }
+
+    private long readSegment(Path file, boolean newest, long committedSeq, List<Record> pending) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+        long lastSeq = 0;
+        while(data.hasRemaining()){
+            int start = data.position();
+            Record record = readRecord(data);
+            if(record == null){
+                if(!newest){
+                    throw new IOException("Write-behind journal " + file + " is corrupt at offset " + start);
+                }
+                try(FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)){
+                    channel.truncate(start);
+                    channel.force(true);
+                }
+                break;
+            }
+            lastSeq = record.seq;
+            if(record.seq > committedSeq){
+                pending.add(record);
+            }
+        }
+        return lastSeq;
+    }
+
+    /**
+     * @return the next record, or null if the remaining bytes are not a complete, valid record
+     */
+    private static Record readRecord(ByteBuffer data) throws IOException {
+        if(data.remaining() < 4){
+            return null;
+        }
+        int length = data.getInt();
+        if(length <= 0 || length > MAX_RECORD_BYTES || data.remaining() < length + 4){
+            return null;
+        }
+        byte[] body = new byte[length];
+        data.get(body);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        if((int) crc.getValue() != data.getInt()){
+            return null;
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        long seq = in.readLong();
+        Transaction tx = new Transaction(in.readInt(), in.readInt(), TransactionType.values()[in.readByte()],
+                new BigDecimal(in.readUTF()), LocalDate.ofEpochDay(in.readLong()), in.readBoolean() ? in.readUTF() : null);
+        return new Record(seq, tx);
+    }
+
+    /**
+     * Appends an insert. It is not necessarily on disk yet; see {@link #sync(long)}.
+     *
+     * @return the record's sequence number
+     */
+    long append(Transaction tx) throws IOException {
+        synchronized (writeLock){
+            if(failure != null){
+                throw new IOException("Write-behind journal is unusable after a failed append", failure);
+            }
+            long seq = nextSeq;
+            ByteBuffer frame = encode(seq, tx);
+            if(!current.isOpen()){
+                repair(-1);
+            }
+            if(currentSize > 0 && currentSize + frame.remaining() > segmentBytes){
+                roll(seq);
+            }
+            long start = currentSize;
+            try{
+                while(frame.hasRemaining()){
+                    current.write(frame);
+                }
+            }catch (IOException e){
+                try{
+                    repair(start);
+                }catch (IOException re){
+                    failure = re;
+                    e.addSuppressed(re);
+                }
+                throw e;
+            }
+            currentSize = start + frame.limit();
+            nextSeq++;
+            lastWrittenSeq = seq;
+            return seq;
+        }
+    }
+
+    /**
+     * Forces everything appended so far to disk, unless the policy is NEVER.
+     */
+    void syncAll() throws IOException {
+        if(fsyncPolicy != WriteBehindConfig.FsyncPolicy.NEVER){
+            sync(lastWrittenSeq);
+        }
+    }
+
+    /**
+     * Waits until the record is on disk. This is a group fsync: whoever gets the
+     * lock forces every record written so far, so appenders queued behind it
+     * usually return without forcing again.
+     */
+    void sync(long seq) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            try{
+                synchronized (syncLock){
+                    if(syncedSeq >= seq){
+                        return;
+                    }
+                    long upTo = lastWrittenSeq;
+                    current.force(false);
+                    syncedSeq = upTo;
+                    return;
+                }
+            }catch (ClosedChannelException e){
+                synchronized (writeLock){
+                    if(!current.isOpen()){
+                        try{
+                            repair(-1);
+                        }catch (IOException re){
+                            e.addSuppressed(re);
+                            throw e;
+                        }
+                    }
+                }
+                // Another thread's interrupt closed the channel; the reopened one forces the same file.
+                if(e instanceof ClosedByInterruptException || attempt == 2){
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reopens the newest segment if an interrupt closed it, and optionally cuts it
+     * back to a given size. The caller's interrupt is held back while this runs, or
+     * it would close the channel again, and restored afterwards. Call with writeLock held.
+     *
+     * @param size length to truncate the segment to, or -1 to keep it as it is
+     */
+    private void repair(long size) throws IOException {
+        boolean interrupted = Thread.interrupted();
+        try{
+            synchronized (syncLock){
+                if(closed){
+                    throw new ClosedChannelException();
+                }
+                if(!current.isOpen()){
+                    current = FileChannel.open(segments.lastEntry().getValue(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                }
+                if(size >= 0){
+                    current.truncate(size);
+                }
+                currentSize = current.size();
+            }
+        }finally {
+            if(interrupted){
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Deletes segments whose records are all in the database. The segment being appended to is kept.
+     */
+    void deleteCommitted(long committedSeq) throws IOException {
+        synchronized (writeLock){
+            Iterator<Map.Entry<Long, Path>> it = segments.entrySet().iterator();
+            while(it.hasNext()){
+                Map.Entry<Long, Path> segment = it.next();
+                Long next = segments.higherKey(segment.getKey());
+                if(next == null || next - 1 > committedSeq){
+                    break;
+                }
+                Files.deleteIfExists(segment.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    private void roll(long firstSeq) throws IOException {
+        synchronized (syncLock){
+            current.force(false);
+            syncedSeq = lastWrittenSeq;
+            current.close();
+        }
+        openSegment(firstSeq);
+    }
+
+    private void openSegment(long firstSeq) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", PREFIX, firstSeq, SUFFIX));
+        current = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        currentSize = current.size();
+        segments.put(firstSeq, file);
+    }
+
+    private static ByteBuffer encode(long seq, Transaction tx) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(seq);
+        out.writeInt(tx.getUserId());
+        out.writeInt(tx.getCategoryId());
+        out.writeByte(tx.getType().ordinal());
+        out.writeUTF(tx.getAmount().toPlainString());
+        out.writeLong(tx.getDate().toEpochDay());
+        out.writeBoolean(tx.getDescription() != null);
+        if(tx.getDescription() != null){
+            out.writeUTF(tx.getDescription());
+        }
+        out.flush();
+
+        byte[] body = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        ByteBuffer frame = ByteBuffer.allocate(body.length + 8);
+        frame.putInt(body.length).put(body).putInt((int) crc.getValue()).flip();
+        return frame;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writeLock){
+            closed = true;
+            synchronized (syncLock){
+                if(!current.isOpen()){
+                    return;
+                }
+                if(fsyncPolicy != WriteBehindConfig.FsyncPolicy.NEVER){
+                    current.force(false);
+                }
+                current.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,547 @@
+package com.collins.expensetracker.repository;
+
+import com.collins.expensetracker.db.ConnectionFactory;
+import com.collins.expensetracker.model.CategoryTotal;
+import com.collins.expensetracker.model.MonthlySummary;
+import com.collins.expensetracker.model.ReportGranularity;
+import com.collins.expensetracker.model.TimeSeriesPoint;
+import com.collins.expensetracker.model.Transaction;
+import com.collins.expensetracker.model.TransactionCursor;
+import com.collins.expensetracker.model.TransactionType;
+
+import java.io.IOException;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Write-behind mode for new transactions.
+ * <p>
+ * {@link #save} of a new transaction appends it to a local journal and
+ * returns without touching MySQL. The returned transaction keeps id 0;
+ * the row gets its id when the committer writes it. A background
+ * committer drains the journal in batches of up to {@code maxBatchSize}
+ * rows, every {@code flushIntervalMillis} or sooner when a batch fills.
+ * Each batch is inserted, its rollups adjusted and its last sequence
+ * number stored in {@code write_behind_checkpoints}, all in one database
+ * transaction. Each commit first re-reads the checkpoint under a row lock
+ * and skips records it already covers, so a batch retried after an
+ * ambiguous failure (committed on the server, error on the client) is not
+ * inserted twice. On restart the journal is replayed from that checkpoint,
+ * so every journaled write reaches the database exactly once.
+ * <p>
+ * A batch the database rejects outright (a constraint or data error) is
+ * retried one transaction at a time to find the bad one. That one is tried
+ * {@code maxCommitAttempts} times, then written to
+ * {@code write_behind_dead_letters} and the checkpoint moves past it, so it
+ * cannot hold up the writes behind it. Transient failures are retried with
+ * backoff until they succeed.
+ * <p>
+ * Updates, batch saves and deletes are written synchronously. A read that
+ * names a user waits until that user's pending writes have committed, so
+ * callers always see their own writes.
+ */
+public class WriteBehindTransactionRepository implements TransactionRepository, AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(WriteBehindTransactionRepository.class.getName());
+
+    static final String READ_CHECKPOINT_SQL = "SELECT last_seq FROM write_behind_checkpoints WHERE journal = ?";
+    private static final String LOCK_CHECKPOINT_SQL = READ_CHECKPOINT_SQL + " FOR UPDATE";
+    private static final String WRITE_CHECKPOINT_SQL = "INSERT INTO write_behind_checkpoints (journal, last_seq) VALUES (?, ?) " +
+            "ON DUPLICATE KEY UPDATE last_seq = VALUES(last_seq)";
+    private static final String DEAD_LETTER_SQL = "INSERT IGNORE INTO write_behind_dead_letters " +
+            "(journal, seq, user_id, category_id, type, amount, date, description, error) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final long MAX_RETRY_DELAY_MILLIS = 30_000;
+
+    private final JdbcTransactionRepository delegate;
+    private final ConnectionFactory connectionFactory;
+    private final WriteBehindConfig config;
+    private final WriteBehindJournal journal;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();    // Signals the committer.
+    private final Condition progress = lock.newCondition();         // Signals writers and readers waiting on commits.
+    private final ArrayDeque<WriteBehindJournal.Record> pending = new ArrayDeque<>();
+    private final Map<Integer, Long> lastSeqByUser = new HashMap<>();   // Newest uncommitted seq per user.
+    private long committedSeq;
+    private boolean flushRequested;
+    private boolean closed;
+    private RuntimeException lastFailure;                           // Most recent commit failure, cleared on success.
+
+    private final Thread committer;
+
+    /**
+     * Opens the journal, replays anything not yet committed and starts the committer.
+     *
+     * @param delegate          repository used for the database writes and all reads
+     * @param connectionFactory source of connections for batch commits
+     * @param config            journal location, batching and fsync settings
+     */
+    public WriteBehindTransactionRepository(JdbcTransactionRepository delegate, ConnectionFactory connectionFactory,
+                                            WriteBehindConfig config) {
+        this.delegate = delegate;
+        this.connectionFactory = connectionFactory;
+        this.config = config;
+        this.journal = new WriteBehindJournal(config.getDirectory(), config.getSegmentBytes(), config.getFsyncPolicy());
+
+        committedSeq = readCheckpoint();
+        try{
+            for (WriteBehindJournal.Record record : journal.recover(committedSeq)) {
+                enqueue(record);
+            }
+        }catch (IOException e){
+            throw new RuntimeException("Failed to recover write-behind journal in " + config.getDirectory(), e);
+        }
+        if(!pending.isEmpty()){
+            LOG.log(Level.INFO, "Replaying " + pending.size() + " journaled transactions after seq " + committedSeq);
+        }
+
+        committer = new Thread(this::runCommitter, "expensetracker-write-behind");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    @Override
+    public Transaction save(Transaction tx) {
+        if(tx.getId() != 0){
+            return delegate.save(tx);
+        }
+
+        // Journal order and queue order must match, so append under the lock; fsync outside it.
+        long seq;
+        lock.lock();
+        try{
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getReadWaitMillis());
+            while(pending.size() >= config.getMaxPendingWrites() && !closed){
+                long remaining = deadline - System.nanoTime();
+                if(remaining <= 0){
+                    throw new RuntimeException("Error saving transaction (write-behind backlog is full)", lastFailure);
+                }
+                flushRequested = true;
+                workAvailable.signal();
+                progress.awaitNanos(remaining);
+            }
+            if(closed){
+                throw new IllegalStateException("Write-behind repository is closed");
+            }
+
+            seq = journal.append(tx);
+            enqueue(new WriteBehindJournal.Record(seq, new Transaction(tx.getUserId(), tx.getCategoryId(), tx.getType(),
+                    tx.getAmount(), tx.getDate(), tx.getDescription())));
+            if(pending.size() >= config.getMaxBatchSize()){
+                workAvailable.signal();
+            }
+        }catch (IOException e){
+            throw new RuntimeException("Error saving transaction (journal append)", e);
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for write-behind backlog to drain", e);
+        }finally {
+            lock.unlock();
+        }
+
+        if(config.getFsyncPolicy() == WriteBehindConfig.FsyncPolicy.ALWAYS){
+            try{
+                journal.sync(seq);
+            }catch (IOException e){
+                throw new RuntimeException("Error saving transaction (journal fsync)", e);
+            }
+        }
+        return tx;
+    }
+
+    @Override
+    public List<Transaction> saveAll(Collection<Transaction> transactions) {
+        return delegate.saveAll(transactions);
+    }
+
+    @Override
+    public Transaction findById(int id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public List<Transaction> findByUserId(int userId) {
+        awaitCommitted(userId);
+        return delegate.findByUserId(userId);
+    }
+
+    @Override
+    public List<Transaction> findByUserIdAndDateRange(int userId, LocalDate from, LocalDate to) {
+        awaitCommitted(userId);
+        return delegate.findByUserIdAndDateRange(userId, from, to);
+    }
+
+    @Override
+    public MonthlySummary findMonthlySummary(int userId, int year, int month) {
+        awaitCommitted(userId);
+        return delegate.findMonthlySummary(userId, year, month);
+    }
+
+    @Override
+    public List<TimeSeriesPoint> findTimeSeries(int userId, LocalDate from, LocalDate to, ReportGranularity granularity) {
+        awaitCommitted(userId);
+        return delegate.findTimeSeries(userId, from, to, granularity);
+    }
+
+    @Override
+    public List<CategoryTotal> findCategoryTotals(int userId, TransactionType type, LocalDate from, LocalDate to) {
+        awaitCommitted(userId);
+        return delegate.findCategoryTotals(userId, type, from, to);
+    }
+
+    @Override
+    public List<Transaction> findPageByUserId(int userId, TransactionCursor after, int limit) {
+        awaitCommitted(userId);
+        return delegate.findPageByUserId(userId, after, limit);
+    }
+
+    @Override
+    public long streamByUserIdAndDateRange(int userId, LocalDate from, LocalDate to, Consumer<Transaction> consumer) {
+        awaitCommitted(userId);
+        return delegate.streamByUserIdAndDateRange(userId, from, to, consumer);
+    }
+
+    @Override
+    public long streamByUserIdAndDateRange(int userId, TransactionType type, LocalDate from, LocalDate to, Consumer<Transaction> consumer) {
+        awaitCommitted(userId);
+        return delegate.streamByUserIdAndDateRange(userId, type, from, to, consumer);
+    }
+
+    @Override
+    public void deleteById(int id) {
+        delegate.deleteById(id);
+    }
+
+    /**
+     * @return journaled writes not yet committed to the database
+     */
+    public int getPendingCount() {
+        lock.lock();
+        try{
+            return pending.size();
+        }finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Commits everything journaled so far, then stops the committer and closes the journal.
+     * Anything that cannot be committed stays in the journal for the next start. A
+     * committer that does not finish in time is interrupted; if it is still running
+     * after that, the journal is left open for it.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try{
+            if(closed){
+                return;
+            }
+            closed = true;
+            flushRequested = true;
+            workAvailable.signal();
+            progress.signalAll();
+        }finally {
+            lock.unlock();
+        }
+        try{
+            committer.join(config.getReadWaitMillis());
+            if(committer.isAlive()){
+                committer.interrupt();
+                committer.join(config.getReadWaitMillis());
+            }
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        if(committer.isAlive()){
+            // Closing under it would fail its sync and segment cleanup; every record is in the journal files already.
+            LOG.warning("Write-behind committer did not stop; leaving the journal open");
+            return;
+        }
+        try{
+            journal.close();
+        }catch (IOException e){
+            LOG.log(Level.WARNING, "Error closing write-behind journal", e);
+        }
+    }
+
+    private void enqueue(WriteBehindJournal.Record record){
+        pending.addLast(record);
+        lastSeqByUser.put(record.tx.getUserId(), record.seq);
+    }
+
+    /**
+     * Blocks until every write journaled for the user so far is in the database.
+     */
+    private void awaitCommitted(int userId){
+        lock.lock();
+        try{
+            Long target = lastSeqByUser.get(userId);
+            if(target == null){
+                return;
+            }
+            flushRequested = true;
+            workAvailable.signal();
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getReadWaitMillis());
+            while(committedSeq < target){
+                long remaining = deadline - System.nanoTime();
+                if(remaining <= 0 || (closed && !committer.isAlive())){
+                    throw new RuntimeException("Timed out waiting for pending transactions of user " + userId
+                            + " to be written", lastFailure);
+                }
+                progress.awaitNanos(remaining);
+            }
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for pending transactions to be written", e);
+        }finally {
+            lock.unlock();
+        }
+    }
+
+    private void runCommitter(){
+        long retryDelay = config.getFlushIntervalMillis();
+        long isolateThroughSeq = 0;             // Commit one record at a time up to here, to find the rejected one.
+        int rejections = 0;                     // Times the database rejected the record at the head of the queue.
+        RuntimeException rejection = null;      // Why it was last rejected.
+        while(true){
+            List<WriteBehindJournal.Record> batch = new ArrayList<>();
+            lock.lock();
+            try{
+                long wait = TimeUnit.MILLISECONDS.toNanos(config.getFlushIntervalMillis());
+                while(!closed && !flushRequested && pending.size() < config.getMaxBatchSize() && wait > 0){
+                    wait = workAvailable.awaitNanos(wait);
+                }
+                if(pending.isEmpty()){
+                    flushRequested = false;
+                    if(closed){
+                        return;
+                    }
+                    continue;
+                }
+                int size = pending.peekFirst().seq <= isolateThroughSeq ? 1 : Math.min(pending.size(), config.getMaxBatchSize());
+                for (WriteBehindJournal.Record record : pending) {
+                    if(batch.size() == size){
+                        break;
+                    }
+                    batch.add(record);
+                }
+            }catch (InterruptedException e){
+                return;
+            }finally {
+                lock.unlock();
+            }
+
+            try{
+                if(config.getFsyncPolicy() == WriteBehindConfig.FsyncPolicy.INTERVAL){
+                    journal.syncAll();
+                }
+                if(rejections >= config.getMaxCommitAttempts()){
+                    deadLetter(batch.get(0), rejection);
+                    LOG.log(Level.SEVERE, "Write-behind transaction seq " + batch.get(0).seq + " was rejected "
+                            + rejections + " times; moved to write_behind_dead_letters", rejection);
+                }else{
+                    commit(batch);
+                }
+                retryDelay = config.getFlushIntervalMillis();
+                rejections = 0;
+                rejection = null;
+            }catch (IOException | RuntimeException e){
+                RuntimeException failure = e instanceof RuntimeException ? (RuntimeException) e
+                        : new RuntimeException("Failed to sync write-behind journal", e);
+                if(isRejection(failure)){
+                    isolateThroughSeq = Math.max(isolateThroughSeq, batch.get(batch.size() - 1).seq);
+                    if(batch.size() > 1){
+                        LOG.log(Level.WARNING, "Write-behind batch of " + batch.size()
+                                + " transactions was rejected; committing them one at a time", failure);
+                        continue;
+                    }
+                    rejections++;
+                    rejection = failure;
+                }
+                LOG.log(Level.WARNING, "Write-behind commit of " + batch.size() + " transactions failed; retrying in "
+                        + retryDelay + "ms", failure);
+                lock.lock();
+                try{
+                    lastFailure = failure;
+                    if(closed){
+                        return;     // Left in the journal for the next start.
+                    }
+                    progress.signalAll();
+                    workAvailable.awaitNanos(TimeUnit.MILLISECONDS.toNanos(retryDelay));
+                }catch (InterruptedException ie){
+                    return;
+                }finally {
+                    lock.unlock();
+                }
+                retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY_MILLIS);
+                continue;
+            }
+
+            long lastSeq = batch.get(batch.size() - 1).seq;
+            lock.lock();
+            try{
+                for (int i = 0; i < batch.size(); i++) {
+                    pending.removeFirst();
+                }
+                committedSeq = lastSeq;
+                lastSeqByUser.values().removeIf(seq -> seq <= lastSeq);
+                if(pending.isEmpty()){
+                    flushRequested = false;
+                }
+                lastFailure = null;
+                progress.signalAll();
+            }finally {
+                lock.unlock();
+            }
+            try{
+                journal.deleteCommitted(lastSeq);
+            }catch (IOException e){
+                LOG.log(Level.FINE, "Could not delete committed journal segments", e);
+            }
+        }
+    }
+
+    /**
+     * Inserts the batch and advances the checkpoint in one database transaction.
+     * Records at or below the checkpoint were committed by an earlier attempt
+     * whose outcome was lost, and are skipped.
+     */
+    private void commit(List<WriteBehindJournal.Record> batch){
+        List<Transaction> rows = new ArrayList<>(batch.size());
+        try(Connection conn = connectionFactory.getConnection()){
+            conn.setAutoCommit(false);
+            try{
+                long checkpoint = lockCheckpoint(conn);
+                for (WriteBehindJournal.Record record : batch) {
+                    if(record.seq > checkpoint){
+                        rows.add(record.tx);
+                    }
+                }
+                if(!rows.isEmpty()){
+                    delegate.writeChunk(conn, rows);
+                    writeCheckpoint(conn, batch.get(batch.size() - 1).seq);
+                }
+                conn.commit();
+                delegate.recordWrites(rows);
+            }catch (SQLException | RuntimeException e){
+                try{
+                    conn.rollback();
+                }catch (SQLException re){
+                    e.addSuppressed(re);
+                }
+                // The rows will be retried as inserts.
+                for (Transaction tx : rows) {
+                    tx.setId(0);
+                }
+                throw e;
+            }
+        }catch (SQLException e){
+            throw new RuntimeException("Failed to commit write-behind batch", e);
+        }
+    }
+
+    /**
+     * Records a transaction the database keeps rejecting and moves the
+     * checkpoint past it, in one database transaction.
+     */
+    private void deadLetter(WriteBehindJournal.Record record, RuntimeException cause){
+        Transaction tx = record.tx;
+        try(Connection conn = connectionFactory.getConnection()){
+            conn.setAutoCommit(false);
+            try{
+                if(lockCheckpoint(conn) < record.seq){
+                    try(PreparedStatement ps = conn.prepareStatement(DEAD_LETTER_SQL)){
+                        ps.setString(1, config.getJournalName());
+                        ps.setLong(2, record.seq);
+                        ps.setInt(3, tx.getUserId());
+                        ps.setInt(4, tx.getCategoryId());
+                        ps.setString(5, tx.getType() == null ? null : tx.getType().name());
+                        ps.setString(6, tx.getAmount() == null ? null : tx.getAmount().toString());
+                        ps.setString(7, tx.getDate() == null ? null : tx.getDate().toString());
+                        ps.setString(8, tx.getDescription());
+                        ps.setString(9, String.valueOf(cause));
+                        ps.executeUpdate();
+                    }
+                    writeCheckpoint(conn, record.seq);
+                }
+                conn.commit();
+            }catch (SQLException | RuntimeException e){
+                try{
+                    conn.rollback();
+                }catch (SQLException re){
+                    e.addSuppressed(re);
+                }
+                throw e;
+            }
+        }catch (SQLException e){
+            throw new RuntimeException("Failed to dead-letter write-behind transaction seq " + record.seq, e);
+        }
+    }
+
+    /**
+     * Reads the checkpoint and locks its row until the transaction ends, so
+     * two committers can never both write past it.
+     */
+    private long lockCheckpoint(Connection conn) throws SQLException {
+        try(PreparedStatement ps = conn.prepareStatement(LOCK_CHECKPOINT_SQL)){
+            ps.setString(1, config.getJournalName());
+            ResultSet rs = ps.executeQuery();
+            return rs.next() ? rs.getLong("last_seq") : 0;
+        }
+    }
+
+    private void writeCheckpoint(Connection conn, long seq) throws SQLException {
+        try(PreparedStatement ps = conn.prepareStatement(WRITE_CHECKPOINT_SQL)){
+            ps.setString(1, config.getJournalName());
+            ps.setLong(2, seq);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * @return true if the rows themselves are bad: the database refused them (SQLSTATE
+     * class 22 or 23, e.g. a foreign key or a value out of range) or an amount does not
+     * fit the rollups, so retrying the same rows cannot help
+     */
+    private static boolean isRejection(Throwable failure){
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if(t instanceof SQLIntegrityConstraintViolationException || t instanceof SQLDataException
+                    || t instanceof ArithmeticException){
+                return true;
+            }
+            if(t instanceof SQLException){
+                String state = ((SQLException) t).getSQLState();
+                if(state != null && (state.startsWith("22") || state.startsWith("23"))){
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private long readCheckpoint(){
+        try(Connection conn = connectionFactory.getConnection();
+            PreparedStatement ps = conn.prepareStatement(READ_CHECKPOINT_SQL)){
+            ps.setString(1, config.getJournalName());
+            ResultSet rs = ps.executeQuery();
+            return rs.next() ? rs.getLong("last_seq") : 0;
+        }catch (SQLException e){
+            throw new RuntimeException("Failed to read write-behind checkpoint", e);
+        }
+    }
+}
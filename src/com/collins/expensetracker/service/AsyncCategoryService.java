@@ -0,0 +1,62 @@
+package com.collins.expensetracker.service;
+
+import com.collins.expensetracker.model.Category;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link CategoryService}.
+ */
+public class AsyncCategoryService {
+
+    private final CategoryService categoryService;
+    private final AsyncExecutor executor;
+
+    public AsyncCategoryService(CategoryService categoryService, AsyncExecutor executor) {
+        this.categoryService = categoryService;
+        this.executor = executor;
+    }
+
+    /**
+     * @see CategoryService#createCategory
+     */
+    public CompletableFuture<Category> createCategoryAsync(int userId, String name){
+        return executor.supply(() -> categoryService.createCategory(userId, name));
+    }
+
+    /**
+     * @see CategoryService#getCategoriesForUserId
+     */
+    public CompletableFuture<List<Category>> getCategoriesForUserIdAsync(int userId){
+        return executor.supply(() -> categoryService.getCategoriesForUserId(userId));
+    }
+
+    /**
+     * @see CategoryService#getCategoryById
+     */
+    public CompletableFuture<Category> getCategoryByIdAsync(int id){
+        return executor.supply(() -> categoryService.getCategoryById(id));
+    }
+
+    /**
+     * @see CategoryService#getCategoryByName
+     */
+    public CompletableFuture<Category> getCategoryByNameAsync(int userId, String name){
+        return executor.supply(() -> categoryService.getCategoryByName(userId, name));
+    }
+
+    /**
+     * @see CategoryService#renameCategory
+     */
+    public CompletableFuture<Category> renameCategoryAsync(int id, String name){
+        return executor.supply(() -> categoryService.renameCategory(id, name));
+    }
+
+    /**
+     * @see CategoryService#deleteCategory
+     */
+    public CompletableFuture<Void> deleteCategoryAsync(int id){
+        return executor.run(() -> categoryService.deleteCategory(id));
+    }
+}
@@ -0,0 +1,170 @@
+package com.collins.expensetracker.service;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs blocking service calls off the caller's thread for the async service API.
+ * <p>
+ * On a JDK with virtual threads every call gets its own virtual thread.
+ * The executor is looked up reflectively, so the code still compiles and
+ * runs on 17. Elsewhere a platform pool is used, sized to the concurrency
+ * limit. Either way at most {@code maxConcurrentCalls} calls run at once,
+ * and the rest wait on a fair semaphore rather than on the JDBC pool.
+ * Keep the limit at or below the pool size: thousands of requests then
+ * queue cheaply instead of timing out inside {@code ConnectionPool.borrow}.
+ * <p>
+ * Returned futures time out after the default timeout. Timing out or
+ * cancelling a future interrupts its thread. That stops a call waiting
+ * for a permit or a connection. A query already on the wire runs to
+ * completion, and its result is discarded.
+ */
+public class AsyncExecutor implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(AsyncExecutor.class.getName());
+
+    private final ExecutorService executor;
+    private final boolean virtualThreads;                   // True when running on virtual threads.
+    private final Semaphore permits;                        // Bounds calls in flight against the database.
+    private final Duration defaultTimeout;                  // Applied to every future; null for none.
+
+    /**
+     * @param maxConcurrentCalls calls allowed to run at once, normally the JDBC pool size
+     * @param defaultTimeout     how long a call may take before its future fails, or null for no limit
+     */
+    public AsyncExecutor(int maxConcurrentCalls, Duration defaultTimeout) {
+        if(maxConcurrentCalls < 1){
+            throw new IllegalArgumentException("maxConcurrentCalls must be at least 1");
+        }
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : newPlatformExecutor(maxConcurrentCalls);
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+        this.defaultTimeout = defaultTimeout;
+        LOG.log(Level.FINE, "Async service calls run on " + (virtualThreads ? "virtual" : "platform") + " threads");
+    }
+
+    /**
+     * Runs a blocking call asynchronously with the default timeout.
+     *
+     * @param call the blocking call
+     * @return a future completed with the call's result or failure; cancelling it interrupts the call
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> call) {
+        return supply(call, defaultTimeout);
+    }
+
+    /**
+     * Runs a blocking call asynchronously.
+     *
+     * @param call    the blocking call
+     * @param timeout how long the call may take, or null for no limit
+     * @return a future completed with the call's result or failure; it fails with
+     * {@link java.util.concurrent.TimeoutException} when the timeout passes
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> call, Duration timeout) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Future<?> running = executor.submit(() -> {
+            if(future.isDone()){
+                return;     // Cancelled or timed out while queued.
+            }
+            try{
+                permits.acquire();
+            }catch (InterruptedException e){
+                future.completeExceptionally(new CancellationException("Interrupted waiting for a database permit"));
+                return;
+            }
+            try{
+                future.complete(call.get());
+            }catch (Throwable t){
+                future.completeExceptionally(t);
+            }finally {
+                permits.release();
+            }
+        });
+
+        // Timeout and cancel both complete the future first; stop the work behind it too.
+        future.whenComplete((result, failure) -> {
+            if(failure != null){
+                running.cancel(true);
+            }
+        });
+        if(timeout != null){
+            future.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        return future;
+    }
+
+    /**
+     * Runs a blocking call that returns nothing.
+     */
+    public CompletableFuture<Void> run(Runnable call) {
+        return supply(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * @return calls currently waiting for a permit
+     */
+    public int getQueuedCalls() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Stops accepting calls and waits briefly for running ones to finish.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try{
+            if(!executor.awaitTermination(10, TimeUnit.SECONDS)){
+                executor.shutdownNow();
+            }
+        }catch (InterruptedException e){
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ExecutorService newVirtualThreadExecutor(){
+        try{
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        }catch (ReflectiveOperationException | UnsupportedOperationException e){
+            return null;
+        }
+    }
+
+    private static ExecutorService newPlatformExecutor(int threads){
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = task -> {
+            Thread thread = new Thread(task, "expensetracker-async-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), factory);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
@@ -0,0 +1,104 @@
+package com.collins.expensetracker.service;
+
+import com.collins.expensetracker.model.CategoryBreakdown;
+import com.collins.expensetracker.model.MonthlySummary;
+import com.collins.expensetracker.model.ReportGranularity;
+import com.collins.expensetracker.model.TimeSeriesPoint;
+import com.collins.expensetracker.model.Transaction;
+import com.collins.expensetracker.model.TransactionPage;
+import com.collins.expensetracker.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking counterpart of {@link TransactionService}.
+ * Each method runs the blocking call on the {@link AsyncExecutor}, so
+ * callers can issue several lookups at once and combine the futures.
+ */
+public class AsyncTransactionService {
+
+    private final TransactionService transactionService;
+    private final AsyncExecutor executor;
+
+    public AsyncTransactionService(TransactionService transactionService, AsyncExecutor executor) {
+        this.transactionService = transactionService;
+        this.executor = executor;
+    }
+
+    /**
+     * @see TransactionService#addTransaction
+     */
+    public CompletableFuture<Transaction> addTransactionAsync(int userId, int catId, TransactionType type, BigDecimal amount,
+                                                             LocalDate date, String description){
+        return executor.supply(() -> transactionService.addTransaction(userId, catId, type, amount, date, description));
+    }
+
+    /**
+     * @see TransactionService#addTransactions
+     */
+    public CompletableFuture<List<Transaction>> addTransactionsAsync(Collection<Transaction> transactions){
+        return executor.supply(() -> transactionService.addTransactions(transactions));
+    }
+
+    /**
+     * @see TransactionService#getTransactionById
+     */
+    public CompletableFuture<Transaction> getTransactionByIdAsync(int id){
+        return executor.supply(() -> transactionService.getTransactionById(id));
+    }
+
+    /**
+     * @see TransactionService#getTransactionPage
+     */
+    public CompletableFuture<TransactionPage> getTransactionPageAsync(int userId, int pageSize, String cursor){
+        return executor.supply(() -> transactionService.getTransactionPage(userId, pageSize, cursor));
+    }
+
+    /**
+     * @see TransactionService#getTransactionsForUserInRange
+     */
+    public CompletableFuture<List<Transaction>> getTransactionsForUserInRangeAsync(int userId, LocalDate from, LocalDate to){
+        return executor.supply(() -> transactionService.getTransactionsForUserInRange(userId, from, to));
+    }
+
+    /**
+     * @see TransactionService#getMonthlySummary
+     */
+    public CompletableFuture<MonthlySummary> getMonthlySummaryAsync(int userId, int year, int month){
+        return executor.supply(() -> transactionService.getMonthlySummary(userId, year, month));
+    }
+
+    /**
+     * @see TransactionService#getTimeSeries
+     */
+    public CompletableFuture<List<TimeSeriesPoint>> getTimeSeriesAsync(int userId, LocalDate from, LocalDate to,
+                                                                      ReportGranularity granularity){
+        return executor.supply(() -> transactionService.getTimeSeries(userId, from, to, granularity));
+    }
+
+    /**
+     * @see TransactionService#getCategoryBreakdown
+     */
+    public CompletableFuture<CategoryBreakdown> getCategoryBreakdownAsync(int userId, LocalDate from, LocalDate to, int topN){
+        return executor.supply(() -> transactionService.getCategoryBreakdown(userId, from, to, topN));
+    }
+
+    /**
+     * @see TransactionService#updateTransaction
+     */
+    public CompletableFuture<Transaction> updateTransactionAsync(int id, Consumer<Transaction> edit){
+        return executor.supply(() -> transactionService.updateTransaction(id, edit));
+    }
+
+    /**
+     * @see TransactionService#deleteTransaction
+     */
+    public CompletableFuture<Void> deleteTransactionAsync(int id){
+        return executor.run(() -> transactionService.deleteTransaction(id));
+    }
+}
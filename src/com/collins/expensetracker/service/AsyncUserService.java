@@ -0,0 +1,63 @@
+package com.collins.expensetracker.service;
+
+import com.collins.expensetracker.model.User;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking counterpart of {@link UserService}.
+ */
+public class AsyncUserService {
+
+    private final UserService userService;
+    private final AsyncExecutor executor;
+
+    public AsyncUserService(UserService userService, AsyncExecutor executor) {
+        this.userService = userService;
+        this.executor = executor;
+    }
+
+    /**
+     * @see UserService#createUser
+     */
+    public CompletableFuture<User> createUserAsync(String name, String email){
+        return executor.supply(() -> userService.createUser(name, email));
+    }
+
+    /**
+     * @see UserService#getAllUsers
+     */
+    public CompletableFuture<List<User>> getAllUsersAsync(){
+        return executor.supply(userService::getAllUsers);
+    }
+
+    /**
+     * @see UserService#getUserById
+     */
+    public CompletableFuture<User> getUserByIdAsync(int id){
+        return executor.supply(() -> userService.getUserById(id));
+    }
+
+    /**
+     * @see UserService#findUserByEmail
+     */
+    public CompletableFuture<User> findUserByEmailAsync(String email){
+        return executor.supply(() -> userService.findUserByEmail(email));
+    }
+
+    /**
+     * @see UserService#updateUser
+     */
+    public CompletableFuture<User> updateUserAsync(int id, Consumer<User> edit){
+        return executor.supply(() -> userService.updateUser(id, edit));
+    }
+
+    /**
+     * @see UserService#deleteUser
+     */
+    public CompletableFuture<Void> deleteUserAsync(int id){
+        return executor.run(() -> userService.deleteUser(id));
+    }
+}
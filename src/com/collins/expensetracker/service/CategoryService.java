@@ -60,9 +60,28 @@ public class CategoryService {
         return categoryRepository.findById(id);
     }
 
-//    public Category getCategoryByUserName(int userId, String name){
-//        return categoryRepository.findByUserIdAndName(userId, name);
-//    }
+    /**
+     * Looks up a user's category by its name.
+     *
+     * @param userId the owner user id
+     * @param name   the category name
+     * @return the Category if found, or null if the user has no category with that name
+     */
+    public Category getCategoryByName(int userId, String name){
+        return categoryRepository.findByUserIdAndName(userId, name);
+    }
+
+    /**
+     * Renames a category, retrying on top of any concurrent change.
+     *
+     * @param id   the category id
+     * @param name the new name
+     * @return the saved Category, or null if it does not exist
+     */
+    public Category renameCategory(int id, String name){
+        return OptimisticRetry.update(() -> categoryRepository.findById(id), category -> category.setCatName(name),
+                categoryRepository::save, OptimisticRetry.DEFAULT_ATTEMPTS);
+    }
 
     public void deleteCategory(int id){
         categoryRepository.deleteById(id);
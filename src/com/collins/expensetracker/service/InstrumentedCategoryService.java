@@ -0,0 +1,129 @@
+package com.collins.expensetracker.service;
+
+import com.collins.expensetracker.metrics.MethodStats;
+import com.collins.expensetracker.metrics.MetricsRegistry;
+import com.collins.expensetracker.metrics.ServiceOperationEvent;
+import com.collins.expensetracker.model.Category;
+import com.collins.expensetracker.repository.CategoryRepository;
+
+import java.util.List;
+
+/**
+ * {@link CategoryService} that times every public method and counts its errors and rows.
+ */
+public class InstrumentedCategoryService extends CategoryService {
+
+    private static final String COMPONENT = "CategoryService";
+
+    private final MethodStats createCategory;
+    private final MethodStats getCategoriesForUserId;
+    private final MethodStats getCategoryById;
+    private final MethodStats getCategoryByName;
+    private final MethodStats renameCategory;
+    private final MethodStats deleteCategory;
+
+    public InstrumentedCategoryService(CategoryRepository categoryRepository, MetricsRegistry registry) {
+        super(categoryRepository);
+        this.createCategory = registry.method(COMPONENT, "createCategory");
+        this.getCategoriesForUserId = registry.method(COMPONENT, "getCategoriesForUserId");
+        this.getCategoryById = registry.method(COMPONENT, "getCategoryById");
+        this.getCategoryByName = registry.method(COMPONENT, "getCategoryByName");
+        this.renameCategory = registry.method(COMPONENT, "renameCategory");
+        this.deleteCategory = registry.method(COMPONENT, "deleteCategory");
+    }
+
+    @Override
+    public Category createCategory(int userId, String name){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.begin(COMPONENT, "createCategory", userId, null, null);
+        try{
+            Category category = super.createCategory(userId, name);
+            createCategory.success(start, 1);
+            event.end(1);
+            return category;
+        }catch (RuntimeException e){
+            createCategory.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Category> getCategoriesForUserId(int userId){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.begin(COMPONENT, "getCategoriesForUserId", userId, null, null);
+        try{
+            List<Category> categories = super.getCategoriesForUserId(userId);
+            getCategoriesForUserId.success(start, categories.size());
+            event.end(categories.size());
+            return categories;
+        }catch (RuntimeException e){
+            getCategoriesForUserId.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public Category getCategoryById(int id){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.begin(COMPONENT, "getCategoryById", 0, null, null);
+        try{
+            Category category = super.getCategoryById(id);
+            getCategoryById.success(start, category == null ? 0 : 1);
+            event.end(category == null ? 0 : 1);
+            return category;
+        }catch (RuntimeException e){
+            getCategoryById.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public Category getCategoryByName(int userId, String name){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.begin(COMPONENT, "getCategoryByName", userId, null, null);
+        try{
+            Category category = super.getCategoryByName(userId, name);
+            getCategoryByName.success(start, category == null ? 0 : 1);
+            event.end(category == null ? 0 : 1);
+            return category;
+        }catch (RuntimeException e){
+            getCategoryByName.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public Category renameCategory(int id, String name){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.begin(COMPONENT, "renameCategory", 0, null, null);
+        try{
+            Category category = super.renameCategory(id, name);
+            renameCategory.success(start, category == null ? 0 : 1);
+            event.end(category == null ? 0 : 1);
+            return category;
+        }catch (RuntimeException e){
+            renameCategory.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public void deleteCategory(int id){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.begin(COMPONENT, "deleteCategory", 0, null, null);
+        try{
+            super.deleteCategory(id);
+            deleteCategory.success(start, 0);
+            event.end(0);
+        }catch (RuntimeException e){
+            deleteCategory.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+}
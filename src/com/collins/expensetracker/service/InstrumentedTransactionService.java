@@ -0,0 +1,252 @@
+package com.collins.expensetracker.service;
+
+import com.collins.expensetracker.metrics.MethodStats;
+import com.collins.expensetracker.metrics.MetricsRegistry;
+import com.collins.expensetracker.metrics.ServiceOperationEvent;
+import com.collins.expensetracker.model.CategoryBreakdown;
+import com.collins.expensetracker.model.MonthlySummary;
+import com.collins.expensetracker.model.ReportGranularity;
+import com.collins.expensetracker.model.TimeSeriesPoint;
+import com.collins.expensetracker.model.Transaction;
+import com.collins.expensetracker.model.TransactionPage;
+import com.collins.expensetracker.model.TransactionType;
+import com.collins.expensetracker.repository.TransactionRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * {@link TransactionService} that times every public method and counts its errors and rows.
+ * <p>
+ * Services are classes rather than interfaces, so this decorates by
+ * overriding; callers keep using the {@code TransactionService} type. The
+ * service methods do not call each other, so nothing is counted twice.
+ */
+public class InstrumentedTransactionService extends TransactionService {
+
+    private static final String COMPONENT = "TransactionService";
+
+    private final MethodStats addTransaction;
+    private final MethodStats addTransactions;
+    private final MethodStats updateTransaction;
+    private final MethodStats getTransactionById;
+    private final MethodStats getTransactionForUser;
+    private final MethodStats getTransactionPage;
+    private final MethodStats getTransactionsForUserInRange;
+    private final MethodStats streamTransactions;
+    private final MethodStats getMonthlySummary;
+    private final MethodStats getTimeSeries;
+    private final MethodStats getCategoryBreakdown;
+    private final MethodStats deleteTransaction;
+
+    public InstrumentedTransactionService(TransactionRepository transactionRepository, MetricsRegistry registry) {
+        super(transactionRepository);
+        this.addTransaction = registry.method(COMPONENT, "addTransaction");
+        this.addTransactions = registry.method(COMPONENT, "addTransactions");
+        this.updateTransaction = registry.method(COMPONENT, "updateTransaction");
+        this.getTransactionById = registry.method(COMPONENT, "getTransactionById");
+        this.getTransactionForUser = registry.method(COMPONENT, "getTransactionForUser");
+        this.getTransactionPage = registry.method(COMPONENT, "getTransactionPage");
+        this.getTransactionsForUserInRange = registry.method(COMPONENT, "getTransactionsForUserInRange");
+        this.streamTransactions = registry.method(COMPONENT, "streamTransactions");
+        this.getMonthlySummary = registry.method(COMPONENT, "getMonthlySummary");
+        this.getTimeSeries = registry.method(COMPONENT, "getTimeSeries");
+        this.getCategoryBreakdown = registry.method(COMPONENT, "getCategoryBreakdown");
+        this.deleteTransaction = registry.method(COMPONENT, "deleteTransaction");
+    }
+
+    @Override
+    public Transaction addTransaction(int userId, int catId, TransactionType type, BigDecimal amount, LocalDate date,
+                                      String description){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.begin(COMPONENT, "addTransaction", userId, date, date);
+        try{
+            Transaction transaction = super.addTransaction(userId, catId, type, amount, date, description);
+            addTransaction.success(start, 1);
+            event.end(1);
+            return transaction;
+        }catch (RuntimeException e){
+            addTransaction.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Transaction> addTransactions(Collection<Transaction> transactions){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.begin(COMPONENT, "addTransactions", 0, null, null);
+        try{
+            List<Transaction> saved = super.addTransactions(transactions);
+            addTransactions.success(start, saved.size());
+            event.end(saved.size());
+            return saved;
+        }catch (RuntimeException e){
+            addTransactions.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public Transaction updateTransaction(int id, Consumer<Transaction> edit){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.begin(COMPONENT, "updateTransaction", 0, null, null);
+        try{
+            Transaction transaction = super.updateTransaction(id, edit);
+            updateTransaction.success(start, transaction == null ? 0 : 1);
+            event.end(transaction == null ? 0 : 1);
+            return transaction;
+        }catch (RuntimeException e){
+            updateTransaction.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public Transaction getTransactionById(int id){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.begin(COMPONENT, "getTransactionById", 0, null, null);
+        try{
+            Transaction transaction = super.getTransactionById(id);
+            getTransactionById.success(start, transaction == null ? 0 : 1);
+            event.end(transaction == null ? 0 : 1);
+            return transaction;
+        }catch (RuntimeException e){
+            getTransactionById.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Transaction> getTransactionForUser(int userId){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.begin(COMPONENT, "getTransactionForUser", userId, null, null);
+        try{
+            List<Transaction> transactions = super.getTransactionForUser(userId);
+            getTransactionForUser.success(start, transactions.size());
+            event.end(transactions.size());
+            return transactions;
+        }catch (RuntimeException e){
+            getTransactionForUser.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public TransactionPage getTransactionPage(int userId, int pageSize, String cursor){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.begin(COMPONENT, "getTransactionPage", userId, null, null);
+        try{
+            TransactionPage page = super.getTransactionPage(userId, pageSize, cursor);
+            getTransactionPage.success(start, page.getTransactions().size());
+            event.end(page.getTransactions().size());
+            return page;
+        }catch (RuntimeException e){
+            getTransactionPage.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Transaction> getTransactionsForUserInRange(int userId, LocalDate from, LocalDate to){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.begin(COMPONENT, "getTransactionsForUserInRange", userId, from, to);
+        try{
+            List<Transaction> transactions = super.getTransactionsForUserInRange(userId, from, to);
+            getTransactionsForUserInRange.success(start, transactions.size());
+            event.end(transactions.size());
+            return transactions;
+        }catch (RuntimeException e){
+            getTransactionsForUserInRange.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public long streamTransactions(int userId, LocalDate from, LocalDate to, Consumer<Transaction> consumer){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.begin(COMPONENT, "streamTransactions", userId, from, to);
+        try{
+            long rows = super.streamTransactions(userId, from, to, consumer);
+            streamTransactions.success(start, rows);
+            event.end(rows);
+            return rows;
+        }catch (RuntimeException e){
+            streamTransactions.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public MonthlySummary getMonthlySummary(int userId, int year, int month){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.beginMonth(COMPONENT, "getMonthlySummary", userId, year, month);
+        try{
+            MonthlySummary summary = super.getMonthlySummary(userId, year, month);
+            getMonthlySummary.success(start, summary == null ? 0 : 1);
+            event.end(summary == null ? 0 : 1);
+            return summary;
+        }catch (RuntimeException e){
+            getMonthlySummary.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public List<TimeSeriesPoint> getTimeSeries(int userId, LocalDate from, LocalDate to, ReportGranularity granularity){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.begin(COMPONENT, "getTimeSeries", userId, from, to);
+        try{
+            List<TimeSeriesPoint> series = super.getTimeSeries(userId, from, to, granularity);
+            getTimeSeries.success(start, series.size());
+            event.end(series.size());
+            return series;
+        }catch (RuntimeException e){
+            getTimeSeries.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public CategoryBreakdown getCategoryBreakdown(int userId, LocalDate from, LocalDate to, int topN){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.begin(COMPONENT, "getCategoryBreakdown", userId, from, to);
+        try{
+            CategoryBreakdown breakdown = super.getCategoryBreakdown(userId, from, to, topN);
+            getCategoryBreakdown.success(start, breakdown.getCategories().size());
+            event.end(breakdown.getCategories().size());
+            return breakdown;
+        }catch (RuntimeException e){
+            getCategoryBreakdown.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public void deleteTransaction(int id){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.begin(COMPONENT, "deleteTransaction", 0, null, null);
+        try{
+            super.deleteTransaction(id);
+            deleteTransaction.success(start, 0);
+            event.end(0);
+        }catch (RuntimeException e){
+            deleteTransaction.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.collins.expensetracker.service;
+
+import com.collins.expensetracker.metrics.MethodStats;
+import com.collins.expensetracker.metrics.MetricsRegistry;
+import com.collins.expensetracker.metrics.ServiceOperationEvent;
+import com.collins.expensetracker.model.User;
+import com.collins.expensetracker.repository.UserRepository;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * {@link UserService} that times every public method and counts its errors and rows.
+ */
+public class InstrumentedUserService extends UserService {
+
+    private static final String COMPONENT = "UserService";
+
+    private final MethodStats createUser;
+    private final MethodStats getAllUsers;
+    private final MethodStats getUserById;
+    private final MethodStats findUserByEmail;
+    private final MethodStats updateUser;
+    private final MethodStats deleteUser;
+
+    public InstrumentedUserService(UserRepository userRepository, MetricsRegistry registry) {
+        super(userRepository);
+        this.createUser = registry.method(COMPONENT, "createUser");
+        this.getAllUsers = registry.method(COMPONENT, "getAllUsers");
+        this.getUserById = registry.method(COMPONENT, "getUserById");
+        this.findUserByEmail = registry.method(COMPONENT, "findUserByEmail");
+        this.updateUser = registry.method(COMPONENT, "updateUser");
+        this.deleteUser = registry.method(COMPONENT, "deleteUser");
+    }
+
+    @Override
+    public User createUser(String name, String email){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.begin(COMPONENT, "createUser", 0, null, null);
+        try{
+            User user = super.createUser(name, email);
+            createUser.success(start, 1);
+            event.end(1);
+            return user;
+        }catch (RuntimeException e){
+            createUser.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public List<User> getAllUsers(){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.begin(COMPONENT, "getAllUsers", 0, null, null);
+        try{
+            List<User> users = super.getAllUsers();
+            getAllUsers.success(start, users.size());
+            event.end(users.size());
+            return users;
+        }catch (RuntimeException e){
+            getAllUsers.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public User getUserById(int id){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.begin(COMPONENT, "getUserById", id, null, null);
+        try{
+            User user = super.getUserById(id);
+            getUserById.success(start, user == null ? 0 : 1);
+            event.end(user == null ? 0 : 1);
+            return user;
+        }catch (RuntimeException e){
+            getUserById.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public User findUserByEmail(String email){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.begin(COMPONENT, "findUserByEmail", 0, null, null);
+        try{
+            User user = super.findUserByEmail(email);
+            findUserByEmail.success(start, user == null ? 0 : 1);
+            event.end(user == null ? 0 : 1);
+            return user;
+        }catch (RuntimeException e){
+            findUserByEmail.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public User updateUser(int id, Consumer<User> edit){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.begin(COMPONENT, "updateUser", id, null, null);
+        try{
+            User user = super.updateUser(id, edit);
+            updateUser.success(start, user == null ? 0 : 1);
+            event.end(user == null ? 0 : 1);
+            return user;
+        }catch (RuntimeException e){
+            updateUser.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public void deleteUser(int id){
+        long start = System.nanoTime();
+        ServiceOperationEvent event = ServiceOperationEvent.begin(COMPONENT, "deleteUser", id, null, null);
+        try{
+            super.deleteUser(id);
+            deleteUser.success(start, 0);
+            event.end(0);
+        }catch (RuntimeException e){
+            deleteUser.failure(start);
+            event.fail();
+            throw e;
+        }
+    }
+}
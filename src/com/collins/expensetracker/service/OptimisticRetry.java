@@ -0,0 +1,67 @@
+package com.collins.expensetracker.service;
+
+import com.collins.expensetracker.repository.OptimisticLockException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Applies an edit to the latest version of a row, retrying when a concurrent update wins.
+ * <p>
+ * Each attempt reloads the row and reapplies the edit to it, so the caller's
+ * change merges onto whatever the other writer saved. Edits should set only
+ * the fields the caller means to change. Between attempts there is a short
+ * randomized pause, so editors that collide once do not keep colliding.
+ */
+public final class OptimisticRetry {
+
+    /**
+     * Attempts made before a conflict is passed to the caller.
+     */
+    public static final int DEFAULT_ATTEMPTS = 5;
+
+    private static final long BASE_BACKOFF_MILLIS = 5;
+
+    private OptimisticRetry() {}
+
+    /**
+     * @param load      reads the current row, or returns null if it no longer exists
+     * @param edit      applies the caller's change to the freshly read row
+     * @param save      writes the row; throws {@link OptimisticLockException} on a version conflict
+     * @param attempts  how many times to try before giving up
+     * @return the saved row, or null if the row does not exist
+     * @throws OptimisticLockException if every attempt conflicted
+     */
+    public static <T> T update(Supplier<T> load, Consumer<T> edit, UnaryOperator<T> save, int attempts) {
+        if(attempts < 1){
+            throw new IllegalArgumentException("attempts must be at least 1");
+        }
+        for (int attempt = 1; ; attempt++) {
+            T current = load.get();
+            if(current == null){
+                return null;
+            }
+            edit.accept(current);
+            try{
+                return save.apply(current);
+            }catch (OptimisticLockException e){
+                if(attempt >= attempts){
+                    throw e;
+                }
+                backOff(attempt, e);
+            }
+        }
+    }
+
+    private static void backOff(int attempt, OptimisticLockException conflict) {
+        long ceiling = BASE_BACKOFF_MILLIS << Math.min(attempt, 6);
+        try{
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+}
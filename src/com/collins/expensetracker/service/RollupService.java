@@ -0,0 +1,44 @@
+package com.collins.expensetracker.service;
+
+import com.collins.expensetracker.model.RollupMismatch;
+import com.collins.expensetracker.repository.MonthlyRollupRepository;
+
+import java.util.List;
+
+/**
+ * Administrative operations for the monthly_rollups table that backs
+ * {@link TransactionService#getMonthlySummary(int, int, int)}.
+ */
+public class RollupService {
+
+    private final MonthlyRollupRepository rollupRepository;
+
+    /**
+     * Constructs a RollupService with the given repository.
+     *
+     * @param rollupRepository repository used to rebuild and verify rollups
+     */
+    public RollupService(MonthlyRollupRepository rollupRepository) {
+        this.rollupRepository = rollupRepository;
+    }
+
+    /**
+     * Recomputes every rollup bucket from the raw transactions and then
+     * checks the result against a fresh aggregate.
+     *
+     * @return buckets that still disagree after the rebuild; empty on success
+     */
+    public List<RollupMismatch> rebuildAndVerify(){
+        rollupRepository.rebuild();
+        return rollupRepository.verify();
+    }
+
+    /**
+     * Checks the rollups against the raw transactions without changing anything.
+     *
+     * @return buckets whose total or count disagree; empty when consistent
+     */
+    public List<RollupMismatch> verify(){
+        return rollupRepository.verify();
+    }
+}
@@ -1,13 +1,27 @@
 package com.collins.expensetracker.service;
 
+import com.collins.expensetracker.model.CategoryBreakdown;
+import com.collins.expensetracker.model.CategoryTotal;
+import com.collins.expensetracker.model.Money;
+import com.collins.expensetracker.model.MoneyAccumulator;
 import com.collins.expensetracker.model.MonthlySummary;
+import com.collins.expensetracker.model.ReportGranularity;
+import com.collins.expensetracker.model.TimeSeriesPoint;
 import com.collins.expensetracker.model.Transaction;
+import com.collins.expensetracker.model.TransactionCursor;
+import com.collins.expensetracker.model.TransactionPage;
 import com.collins.expensetracker.model.TransactionType;
 import com.collins.expensetracker.repository.TransactionRepository;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
 
 /**
  * Service layer for transaction-related operations.
@@ -16,6 +30,8 @@ import java.util.List;
  */
 public class TransactionService {
 
+    private static final int AMOUNT_SCALE = Money.DEFAULT_SCALE;    // Decimals kept by the amount column.
+
     private final TransactionRepository transactionRepository;
 
     /**
@@ -29,6 +45,7 @@ public class TransactionService {
 
     /**
      * Creates and saves a new transaction (income or expense) for a user.
+     * The amount is rounded half up to two decimals, as the database stores it.
      *
      * @param userId      owner of the transaction
      * @param catId       category this transaction belongs to
@@ -41,8 +58,52 @@ public class TransactionService {
     public Transaction addTransaction(int userId, int catId, TransactionType type, BigDecimal amount, LocalDate date,
                                       String description){
         Transaction transaction = new Transaction(userId,catId,type,amount,date,description);
-        transaction = transactionRepository.save(transaction);
+        transaction = transactionRepository.save(normalize(transaction));
+
+        return transaction;
+    }
+
+    /**
+     * Saves many new transactions at once using batched inserts.
+     * Intended for bulk loads such as bank statement imports. Amounts are
+     * rounded half up to two decimals, as in {@link #addTransaction}.
+     *
+     * @param transactions transactions to save (ids are assigned on return)
+     * @return the saved transactions in input order
+     */
+    public List<Transaction> addTransactions(Collection<Transaction> transactions){
+        for (Transaction transaction : transactions) {
+            normalize(transaction);
+        }
+        return transactionRepository.saveAll(transactions);
+    }
+
+    /**
+     * Changes an existing transaction without locking it.
+     * <p>
+     * The edit is applied to the latest saved version. If another client
+     * updates the transaction first, it is reloaded and the edit applied again.
+     *
+     * @param id   the transaction to change
+     * @param edit sets the fields to change on the loaded transaction
+     * @return the saved transaction, or null if it does not exist
+     * @throws com.collins.expensetracker.repository.OptimisticLockException if it kept changing underneath
+     */
+    public Transaction updateTransaction(int id, Consumer<Transaction> edit){
+        return OptimisticRetry.update(() -> transactionRepository.findById(id), edit,
+                tx -> transactionRepository.save(normalize(tx)), OptimisticRetry.DEFAULT_ATTEMPTS);
+    }
 
+    /**
+     * Rounds the amount to the column's two decimals before it is saved. The
+     * rollup and in-memory totals keep exact cents and would reject extra
+     * digits that MySQL itself silently rounds away.
+     */
+    private static Transaction normalize(Transaction transaction){
+        BigDecimal amount = transaction.getAmount();
+        if(amount != null && amount.scale() != AMOUNT_SCALE){
+            transaction.setAmount(amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP));
+        }
         return transaction;
     }
 
@@ -66,6 +127,30 @@ public class TransactionService {
         return transactionRepository.findByUserId(userId);
     }
 
+    /**
+     * Returns one page of a user's transactions, newest first.
+     *
+     * @param userId   id of the user whose transactions should be fetched
+     * @param pageSize maximum number of transactions on the page
+     * @param cursor   cursor from the previous page, or null for the first page
+     * @return the page and the cursor for the next one (null when there are no more)
+     * @throws IllegalArgumentException if pageSize is not positive or the cursor is malformed
+     */
+    public TransactionPage getTransactionPage(int userId, int pageSize, String cursor){
+        if(pageSize < 1){
+            throw new IllegalArgumentException("pageSize must be at least 1");
+        }
+        TransactionCursor after = cursor == null ? null : TransactionCursor.decode(cursor);
+
+        // Ask for one extra row to learn whether another page exists.
+        List<Transaction> rows = transactionRepository.findPageByUserId(userId, after, pageSize + 1);
+        if(rows.size() <= pageSize){
+            return new TransactionPage(rows, null);
+        }
+        List<Transaction> page = rows.subList(0, pageSize);
+        return new TransactionPage(page, TransactionCursor.after(page.get(pageSize - 1)).encode());
+    }
+
     /**
      * Returns all transactions for a user within a given date range (inclusive).
      *
@@ -78,6 +163,20 @@ public class TransactionService {
         return transactionRepository.findByUserIdAndDateRange(userId,from,to);
     }
 
+    /**
+     * Streams a user's transactions in date order to a consumer, for exports
+     * of arbitrarily long histories.
+     *
+     * @param userId   id of the user whose transactions are requested
+     * @param from     start date (inclusive), or null for the beginning of history
+     * @param to       end date (inclusive), or null for no upper bound
+     * @param consumer receives each transaction as it is read
+     * @return number of transactions streamed
+     */
+    public long streamTransactions(int userId, LocalDate from, LocalDate to, Consumer<Transaction> consumer){
+        return transactionRepository.streamByUserIdAndDateRange(userId, from, to, consumer);
+    }
+
     /**
      * Computes a monthly summary (income, expenses, net) for a given user and month.
      *
@@ -87,30 +186,103 @@ public class TransactionService {
      * @return a MonthlySummary containing total income, total expenses, and net
      */
     public MonthlySummary getMonthlySummary(int userId, int year, int month){
+        // Totals are computed by the database; only two numbers come back.
+        return transactionRepository.findMonthlySummary(userId, year, month);
+    }
 
-        // First and last day of the requested month
-        LocalDate start = LocalDate.of(year, month, 1);
-        LocalDate end = start.withDayOfMonth(start.lengthOfMonth());
+    /**
+     * Builds an income/expense/net series for a user over any date range.
+     * <p>
+     * All buckets are computed by one repository query regardless of how
+     * many there are; buckets without transactions are filled with zeros so
+     * the series is continuous. The first and last buckets are labelled by
+     * their natural start (e.g. the Monday of the week) but only include
+     * transactions inside [from, to].
+     *
+     * @param userId      the user whose transactions to report on
+     * @param from        start date (inclusive)
+     * @param to          end date (inclusive)
+     * @param granularity bucket size (day, week, month or year)
+     * @return one point per bucket from the bucket containing from to the bucket containing to
+     * @throws IllegalArgumentException if from is after to
+     */
+    public List<TimeSeriesPoint> getTimeSeries(int userId, LocalDate from, LocalDate to, ReportGranularity granularity){
+        if(from.isAfter(to)){
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        List<TimeSeriesPoint> found = transactionRepository.findTimeSeries(userId, from, to, granularity);
 
-        // All transactions for this user in that month
-        List<Transaction> transactions = getTransactionsForUserInRange(userId,start,end);
+        List<TimeSeriesPoint> series = new ArrayList<>();
+        int next = 0;
+        for (LocalDate bucket = granularity.bucketStart(from); !bucket.isAfter(to); bucket = granularity.next(bucket)) {
+            if(next < found.size() && found.get(next).getBucketStart().equals(bucket)){
+                series.add(found.get(next++));
+            }else{
+                series.add(TimeSeriesPoint.empty(bucket));
+            }
+        }
+        return series;
+    }
 
-        BigDecimal income = BigDecimal.ZERO;
-        BigDecimal expense = BigDecimal.ZERO;
+    /**
+     * Breaks a user's spending down by category for a date range.
+     * <p>
+     * Category totals come from one grouped query. The largest expenses are
+     * picked while streaming the range's expenses through a min-heap of size topN, so
+     * memory stays at topN rows and the history is never sorted.
+     *
+     * @param userId the user whose spending to break down
+     * @param from   start date (inclusive)
+     * @param to     end date (inclusive)
+     * @param topN   number of largest individual expenses to include (0 for none)
+     * @return totals, counts and share per category plus the topN largest expenses
+     * @throws IllegalArgumentException if from is after to or topN is negative
+     */
+    public CategoryBreakdown getCategoryBreakdown(int userId, LocalDate from, LocalDate to, int topN){
+        if(from.isAfter(to)){
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if(topN < 0){
+            throw new IllegalArgumentException("topN must not be negative");
+        }
 
-        // Sum income and expenses separately
-        for (Transaction tx:transactions) {
-            if(tx.getType() == TransactionType.INCOME){
-                income = income.add(tx.getAmount());
-            }else if(tx.getType() == TransactionType.EXPENSE){
-                expense = expense.add(tx.getAmount());
+        List<CategoryTotal> categories = transactionRepository.findCategoryTotals(userId, TransactionType.EXPENSE, from, to);
+        MoneyAccumulator sum = new MoneyAccumulator();
+        for (CategoryTotal category : categories) {
+            sum.add(category.getTotal());
+        }
+        BigDecimal totalExpense = sum.toBigDecimal();
+        if(totalExpense.signum() != 0){
+            for (CategoryTotal category : categories) {
+                category.setShare(category.getTotal().divide(totalExpense, 4, RoundingMode.HALF_UP));
             }
         }
 
-        // Net = income - expenses
-        BigDecimal net = income.subtract(expense);
+        return new CategoryBreakdown(from, to, totalExpense, categories, largestExpenses(userId, from, to, topN));
+    }
+
+    private List<Transaction> largestExpenses(int userId, LocalDate from, LocalDate to, int topN){
+        if(topN == 0){
+            return new ArrayList<>();
+        }
+        // Smallest of the current top N sits at the head; older rows win ties.
+        Comparator<Transaction> bySize = Comparator.comparing(Transaction::getAmount)
+                .thenComparing(Transaction::getId, Comparator.reverseOrder());
+        // topN comes from user input; the heap grows with the rows it holds, not with topN.
+        PriorityQueue<Transaction> heap = new PriorityQueue<>(Math.min(topN, 64), bySize);
+
+        transactionRepository.streamByUserIdAndDateRange(userId, TransactionType.EXPENSE, from, to, tx -> {
+            if(heap.size() < topN){
+                heap.add(tx);
+            }else if(bySize.compare(tx, heap.peek()) > 0){
+                heap.poll();
+                heap.add(tx);
+            }
+        });
 
-        return new MonthlySummary(year,month,income,expense,net);
+        List<Transaction> largest = new ArrayList<>(heap);
+        largest.sort(bySize.reversed());
+        return largest;
     }
 
     /**
@@ -4,6 +4,7 @@ import com.collins.expensetracker.model.User;
 import com.collins.expensetracker.repository.UserRepository;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Application-level operations related to users.
@@ -69,6 +70,18 @@ public class UserService {
         return userRepository.findByEmail(email);
     }
 
+    /**
+     * Changes an existing user, retrying on top of any concurrent change.
+     *
+     * @param id   the user id
+     * @param edit sets the fields to change on the loaded user
+     * @return the saved User, or null if no user has that id
+     */
+    public User updateUser(int id, Consumer<User> edit){
+        return OptimisticRetry.update(() -> userRepository.findById(id), edit,
+                userRepository::save, OptimisticRetry.DEFAULT_ATTEMPTS);
+    }
+
     public void deleteUser(int id){
         userRepository.deleteById(id);
     }